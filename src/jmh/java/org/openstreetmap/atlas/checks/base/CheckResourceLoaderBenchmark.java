@@ -0,0 +1,57 @@
+package org.openstreetmap.atlas.checks.base;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.atlas.streaming.resource.File;
+import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.configuration.StandardConfiguration;
+
+/**
+ * Benchmarks loading all the checks enabled in the default configuration, which every Spark
+ * partition does before running checks.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckResourceLoaderBenchmark
+{
+    // Relative to the project folder, the working directory of the jmh task
+    private static final String CONFIGURATION = "config/configuration.json";
+
+    private Configuration configuration;
+
+    @Benchmark
+    public Set<Check> loadChecks()
+    {
+        return new CheckResourceLoader(this.configuration).loadChecks();
+    }
+
+    @Benchmark
+    public Set<Check> loadChecksForCountry()
+    {
+        return new CheckResourceLoader(this.configuration).loadChecksForCountry("USA");
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        this.configuration = new StandardConfiguration(new File(CONFIGURATION));
+    }
+}
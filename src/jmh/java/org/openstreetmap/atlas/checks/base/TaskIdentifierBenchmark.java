@@ -0,0 +1,57 @@
+package org.openstreetmap.atlas.checks.base;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.atlas.checks.validation.SyntheticAtlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
+
+/**
+ * Benchmarks building {@link TaskIdentifier}s, which every flag does, for growing numbers of
+ * features.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskIdentifierBenchmark
+{
+    // Grid big enough for the largest identifiers
+    private static final int ATLAS_SIZE = 20;
+
+    @Param({ "1", "10", "100" })
+    public int features;
+
+    private Set<AtlasObject> objects;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        this.objects = Iterables.asList(SyntheticAtlas.grid(ATLAS_SIZE).edges()).stream()
+                .limit(this.features).map(AtlasObject.class::cast).collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public String taskIdentifier()
+    {
+        return new TaskIdentifier(this.objects).toString();
+    }
+}
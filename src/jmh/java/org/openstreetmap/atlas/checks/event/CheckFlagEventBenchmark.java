@@ -0,0 +1,92 @@
+package org.openstreetmap.atlas.checks.event;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.atlas.checks.base.TaskIdentifier;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.validation.SyntheticAtlas;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Benchmarks the GeoJson serialization of {@link CheckFlagEvent}s, for flags made of a growing
+ * number of features. The feature collection is serialized both through a {@link JsonObject} and
+ * streamed to a {@link java.io.Writer}.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckFlagEventBenchmark
+{
+    // Grid big enough for the largest flags
+    private static final int ATLAS_SIZE = 20;
+
+    @Param({ "1", "10", "100" })
+    public int featuresPerFlag;
+
+    private CheckFlagEvent event;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        final Atlas atlas = SyntheticAtlas.grid(ATLAS_SIZE);
+        // Forward edges only, so that flags hold distinct ways
+        final Set<AtlasObject> objects = Iterables.asList(atlas.edges()).stream()
+                .filter(edge -> edge.getIdentifier() > 0).limit(this.featuresPerFlag)
+                .map(AtlasObject.class::cast).collect(Collectors.toSet());
+        this.event = new CheckFlagEvent("BenchmarkCheck",
+                new CheckFlag(new TaskIdentifier(objects).toString(), objects,
+                        Collections.singletonList("Benchmark instruction")));
+    }
+
+    @Benchmark
+    public String featureCollectionFromJsonObject()
+    {
+        return this.event.toGeoJsonFeatureCollection().toString();
+    }
+
+    @Benchmark
+    public int featureCollectionStreamed() throws IOException
+    {
+        final StringWriter writer = new StringWriter();
+        this.event.writeGeoJsonFeatureCollection(writer);
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public JsonObject toGeoJsonFeature()
+    {
+        return this.event.toGeoJsonFeature();
+    }
+
+    @Benchmark
+    public String asLineDelimitedGeoJsonFeatures()
+    {
+        return this.event.asLineDelimitedGeoJsonFeatures();
+    }
+}
@@ -0,0 +1,80 @@
+package org.openstreetmap.atlas.checks.event;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+
+/**
+ * Benchmarks {@link FileProcessor#process(String)}, from a single thread and from several threads
+ * posting flags at once like concurrent checks do. Batches are written to a temporary folder, so
+ * the numbers include the periodic file writes.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileProcessorBenchmark
+{
+    private static final int CONCURRENT_THREADS = 8;
+
+    private Path directory;
+    private CheckFlagFileProcessor processor;
+    private String line;
+
+    @Benchmark
+    public void process()
+    {
+        this.processor.process(this.line);
+    }
+
+    @Benchmark
+    @Threads(CONCURRENT_THREADS)
+    public void processConcurrently()
+    {
+        this.processor.process(this.line);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        this.directory = Files.createTempDirectory(FileProcessorBenchmark.class.getSimpleName());
+        this.processor = new CheckFlagFileProcessor(new OutputFileWriter(Collections.emptyMap()),
+                this.directory.toString());
+        this.processor.withCompression(false);
+        final CheckFlag flag = new CheckFlag("1234567890");
+        flag.addInstruction("Benchmark instruction");
+        this.line = new CheckFlagEvent("BenchmarkCheck", flag).asLineDelimitedGeoJsonFeatures();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(this.directory))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+import org.openstreetmap.atlas.checks.validation.SyntheticAtlas;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasItem;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Compares the Java serialization of {@link UniqueCheckFlagContainer}s, as Spark shuffles and
+ * persists them by default, with the compact serializers of {@link FlagKryoRegistrator}, for
+ * flags made of a growing number of features. Times are reported by the benchmarks, and the
+ * serialized sizes are logged once per trial.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckFlagSerializationBenchmark
+{
+    private static final Logger logger = LoggerFactory
+            .getLogger(CheckFlagSerializationBenchmark.class);
+    // Grid big enough for the largest flags
+    private static final int ATLAS_SIZE = 20;
+    private static final int BUFFER_SIZE = 4096;
+
+    @Param({ "1", "10", "100" })
+    public int featuresPerFlag;
+
+    private UniqueCheckFlagContainer container;
+    private Kryo kryo;
+    private byte[] javaBytes;
+    private byte[] kryoBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        final Atlas atlas = SyntheticAtlas.grid(ATLAS_SIZE);
+        // Roads, buildings, benches and streams alike
+        final List<AtlasItem> items = Iterables.asList(atlas.items()).stream()
+                .filter(item -> item.getIdentifier() > 0).limit(this.featuresPerFlag)
+                .collect(Collectors.toList());
+        final CheckFlag flag = new CheckFlag("benchmark-flag");
+        flag.addInstruction("Benchmark instruction");
+        items.forEach(flag::addObject);
+        this.container = new UniqueCheckFlagContainer("BenchmarkCheck",
+                flag.getUniqueIdentifiers(), flag);
+
+        this.kryo = new Kryo();
+        new FlagKryoRegistrator().registerClasses(this.kryo);
+        this.javaBytes = this.javaSerialize();
+        this.kryoBytes = this.kryoSerialize();
+        logger.info("{} features per flag: {} bytes with Java serialization, {} bytes with Kryo",
+                this.featuresPerFlag, this.javaBytes.length, this.kryoBytes.length);
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException
+    {
+        try (ObjectInputStream input = new ObjectInputStream(
+                new ByteArrayInputStream(this.javaBytes)))
+        {
+            return input.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes))
+        {
+            output.writeObject(this.container);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public UniqueCheckFlagContainer kryoDeserialize()
+    {
+        return this.kryo.readObject(new Input(this.kryoBytes), UniqueCheckFlagContainer.class);
+    }
+
+    @Benchmark
+    public byte[] kryoSerialize()
+    {
+        final Output output = new Output(BUFFER_SIZE, -1);
+        this.kryo.writeObject(output, this.container);
+        return output.toBytes();
+    }
+}
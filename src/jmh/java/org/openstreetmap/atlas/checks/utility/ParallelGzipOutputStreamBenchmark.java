@@ -0,0 +1,120 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmarks compressing a batch of flag log lines with a single stream {@link GZIPOutputStream},
+ * as {@link org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper} does, against
+ * a {@link ParallelGzipOutputStream}. Each operation compresses the same batch of lines, whose
+ * number is a parameter of the results and whose size is logged at setup, so that the throughput
+ * in batches per second times {@link #batchMegabytes()} is the throughput in megabytes per second.
+ * Compressed bytes are discarded, to measure the compression alone. The parallel stream only gets
+ * ahead with more than one processor.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelGzipOutputStreamBenchmark
+{
+    private static final Logger logger = LoggerFactory
+            .getLogger(ParallelGzipOutputStreamBenchmark.class);
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    // Enough lines for a few tens of blocks
+    @Param({ "40000" })
+    public int lines;
+
+    private byte[] batch;
+
+    /**
+     * Discards what is written, counting it
+     */
+    private static final class CountingOutputStream extends OutputStream
+    {
+        private long count;
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length)
+        {
+            this.count += length;
+        }
+
+        @Override
+        public void write(final int value)
+        {
+            this.count++;
+        }
+    }
+
+    /**
+     * @return the size of a batch, in megabytes
+     */
+    public double batchMegabytes()
+    {
+        return this.batch.length / MEGABYTE;
+    }
+
+    @Benchmark
+    public long gzip() throws IOException
+    {
+        final CountingOutputStream output = new CountingOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output))
+        {
+            gzip.write(this.batch);
+        }
+        return output.count;
+    }
+
+    @Benchmark
+    public long parallelGzip() throws IOException
+    {
+        final CountingOutputStream output = new CountingOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output))
+        {
+            gzip.write(this.batch);
+        }
+        return output.count;
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        final StringBuilder lines = new StringBuilder();
+        for (int index = 0; index < this.lines; index++)
+        {
+            final CheckFlag flag = new CheckFlag(String.valueOf(1_000_000_000L + index));
+            flag.addInstruction(String.format("Benchmark instruction %s", index));
+            lines.append(new CheckFlagEvent("BenchmarkCheck", flag)
+                    .asLineDelimitedGeoJsonFeatures()).append(System.lineSeparator());
+        }
+        this.batch = lines.toString().getBytes(StandardCharsets.UTF_8);
+        logger.info("Batch of {} lines, {} MB", this.lines,
+                String.format("%.2f", this.batchMegabytes()));
+    }
+}
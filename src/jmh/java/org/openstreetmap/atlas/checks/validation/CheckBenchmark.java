@@ -0,0 +1,85 @@
+package org.openstreetmap.atlas.checks.validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.rules.TestRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.atlas.checks.base.BaseCheck;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.utilities.configuration.Configuration;
+
+/**
+ * Benchmarks a {@link BaseCheck} over either all the {@link Atlas}es of its test rule (the
+ * {@code <CheckName>TestRule} class next to its unit tests), or a larger {@link SyntheticAtlas}.
+ * The {@code jmh} Gradle task sets {@code checkClass} to every check that has a test rule.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckBenchmark
+{
+    private static final String TEST_RULE = "testRule";
+    private static final String TEST_RULE_SUFFIX = "TestRule";
+
+    @Param({ "org.openstreetmap.atlas.checks.validation.points.NodeValenceCheck",
+            "org.openstreetmap.atlas.checks.validation.linear.edges.LongSegmentCheck" })
+    public String checkClass;
+
+    @Param({ TEST_RULE, "synthetic" })
+    public String atlasSource;
+
+    @Param({ "100" })
+    public int syntheticSize;
+
+    private BaseCheck<?> check;
+    private List<Atlas> atlases;
+
+    @Benchmark
+    public void flags(final Blackhole blackhole)
+    {
+        for (final Atlas atlas : this.atlases)
+        {
+            this.check.flags(atlas).forEach(blackhole::consume);
+        }
+        // Flagged identifiers would otherwise skip objects in the next invocations
+        this.check.clear();
+    }
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException
+    {
+        this.check = (BaseCheck<?>) Class.forName(this.checkClass)
+                .getConstructor(Configuration.class)
+                .newInstance(ConfigurationResolver.emptyConfiguration());
+        if (TEST_RULE.equals(this.atlasSource))
+        {
+            this.atlases = TestRuleAtlases.load((Class<? extends TestRule>) Class
+                    .forName(this.checkClass + TEST_RULE_SUFFIX));
+        }
+        else
+        {
+            this.atlases = Collections.singletonList(SyntheticAtlas.grid(this.syntheticSize));
+        }
+    }
+}
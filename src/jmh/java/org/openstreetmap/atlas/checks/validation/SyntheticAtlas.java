@@ -0,0 +1,136 @@
+package org.openstreetmap.atlas.checks.validation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.openstreetmap.atlas.geography.Latitude;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.Longitude;
+import org.openstreetmap.atlas.geography.PolyLine;
+import org.openstreetmap.atlas.geography.Polygon;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.packed.PackedAtlasBuilder;
+import org.openstreetmap.atlas.tags.BuildingLevelsTag;
+import org.openstreetmap.atlas.tags.BuildingTag;
+import org.openstreetmap.atlas.tags.HighwayTag;
+import org.openstreetmap.atlas.tags.names.NameTag;
+
+/**
+ * Builds larger synthetic {@link Atlas}es for benchmarks. The {@link Atlas} is a square grid of
+ * two way roads with a building in every other block, a few tagged points and a few waterways.
+ * Tags and sizes are drawn from a seeded {@link Random} so that every build of a given size is the
+ * same.
+ *
+ * @author agent
+ */
+public final class SyntheticAtlas
+{
+    // About 100 meters between grid nodes
+    private static final double GRID_STEP_DEGREES = 0.001;
+    // Space between a building and the roads around it, as a fraction of a block
+    private static final double BUILDING_MARGIN = 0.2;
+    private static final long SEED = 42L;
+    private static final int MAXIMUM_LEVELS = 30;
+    private static final int WATERWAY_FREQUENCY = 10;
+    private static final int STREET_NAMES = 50;
+    private static final HighwayTag[] HIGHWAYS = { HighwayTag.PRIMARY, HighwayTag.SECONDARY,
+            HighwayTag.RESIDENTIAL, HighwayTag.RESIDENTIAL, HighwayTag.SERVICE };
+
+    /**
+     * Builds a synthetic {@link Atlas}
+     *
+     * @param size
+     *            number of grid nodes on each side of the grid
+     * @return the synthetic {@link Atlas}
+     */
+    public static Atlas grid(final int size)
+    {
+        final Random random = new Random(SEED);
+        final PackedAtlasBuilder builder = new PackedAtlasBuilder();
+        long identifier = 1L;
+
+        for (int row = 0; row < size; row++)
+        {
+            for (int column = 0; column < size; column++)
+            {
+                builder.addNode(nodeIdentifier(size, row, column), location(row, column),
+                        new HashMap<>());
+            }
+        }
+
+        for (int row = 0; row < size; row++)
+        {
+            for (int column = 0; column < size; column++)
+            {
+                if (column + 1 < size)
+                {
+                    identifier = addRoad(builder, identifier, random, location(row, column),
+                            location(row, column + 1));
+                }
+                if (row + 1 < size)
+                {
+                    identifier = addRoad(builder, identifier, random, location(row, column),
+                            location(row + 1, column));
+                }
+                if (row + 1 < size && column + 1 < size && (row + column) % 2 == 0)
+                {
+                    final Map<String, String> tags = new HashMap<>();
+                    tags.put(BuildingTag.KEY, BuildingTag.YES.getTagValue());
+                    tags.put(BuildingLevelsTag.KEY,
+                            String.valueOf(1 + random.nextInt(MAXIMUM_LEVELS)));
+                    builder.addArea(identifier++, building(row, column), tags);
+                }
+                else if (row + 1 < size && column + 1 < size)
+                {
+                    final Map<String, String> tags = new HashMap<>();
+                    tags.put("amenity", "bench");
+                    builder.addPoint(identifier++, location(row + 0.5, column + 0.5), tags);
+                }
+            }
+            if (row % WATERWAY_FREQUENCY == WATERWAY_FREQUENCY / 2 && row + 1 < size)
+            {
+                final Map<String, String> tags = new HashMap<>();
+                tags.put("waterway", "stream");
+                builder.addLine(identifier++,
+                        new PolyLine(location(row + 0.5, 0), location(row + 0.5, size - 1)),
+                        tags);
+            }
+        }
+        return builder.get();
+    }
+
+    private static long addRoad(final PackedAtlasBuilder builder, final long identifier,
+            final Random random, final Location start, final Location end)
+    {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put(HighwayTag.KEY, HIGHWAYS[random.nextInt(HIGHWAYS.length)].getTagValue());
+        tags.put(NameTag.KEY, String.format("Street %s", random.nextInt(STREET_NAMES)));
+        builder.addEdge(identifier, new PolyLine(start, end), tags);
+        builder.addEdge(-identifier, new PolyLine(end, start), tags);
+        return identifier + 1;
+    }
+
+    private static Polygon building(final int row, final int column)
+    {
+        return new Polygon(location(row + BUILDING_MARGIN, column + BUILDING_MARGIN),
+                location(row + BUILDING_MARGIN, column + 1 - BUILDING_MARGIN),
+                location(row + 1 - BUILDING_MARGIN, column + 1 - BUILDING_MARGIN),
+                location(row + 1 - BUILDING_MARGIN, column + BUILDING_MARGIN));
+    }
+
+    private static Location location(final double row, final double column)
+    {
+        return new Location(Latitude.degrees(row * GRID_STEP_DEGREES),
+                Longitude.degrees(column * GRID_STEP_DEGREES));
+    }
+
+    private static long nodeIdentifier(final int size, final int row, final int column)
+    {
+        return 1L + (long) row * size + column;
+    }
+
+    private SyntheticAtlas()
+    {
+    }
+}
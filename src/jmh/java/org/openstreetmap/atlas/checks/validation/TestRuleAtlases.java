@@ -0,0 +1,65 @@
+package org.openstreetmap.atlas.checks.validation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+
+/**
+ * Loads all the {@link Atlas}es of a check test rule outside of JUnit, so that benchmarks can run
+ * checks over the same data as their unit tests.
+ *
+ * @author agent
+ */
+public final class TestRuleAtlases
+{
+    /**
+     * Loads the {@link Atlas}es of a test rule. The rule is applied the same way JUnit applies it,
+     * then every public getter of the rule returning an {@link Atlas} is called.
+     *
+     * @param ruleClass
+     *            the test rule class
+     * @return all the {@link Atlas}es of the test rule
+     */
+    public static List<Atlas> load(final Class<? extends TestRule> ruleClass)
+    {
+        final List<Atlas> atlases = new ArrayList<>();
+        try
+        {
+            final TestRule rule = ruleClass.getConstructor().newInstance();
+            rule.apply(new Statement()
+            {
+                @Override
+                public void evaluate() throws Throwable
+                {
+                    for (final Method method : ruleClass.getDeclaredMethods())
+                    {
+                        if (Modifier.isPublic(method.getModifiers())
+                                && !Modifier.isStatic(method.getModifiers())
+                                && method.getParameterCount() == 0
+                                && Atlas.class.isAssignableFrom(method.getReturnType()))
+                        {
+                            atlases.add((Atlas) method.invoke(rule));
+                        }
+                    }
+                }
+            }, Description.EMPTY).evaluate();
+        }
+        catch (final Throwable error)
+        {
+            throw new CoreException("Unable to load the atlases of {}", ruleClass.getName(),
+                    error);
+        }
+        return atlases;
+    }
+
+    private TestRuleAtlases()
+    {
+    }
+}
@@ -16,6 +16,9 @@ import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.checks.maproulette.data.Challenge;
 import org.openstreetmap.atlas.checks.maproulette.data.ChallengeDifficulty;
 import org.openstreetmap.atlas.checks.maproulette.serializer.ChallengeDeserializer;
+import org.openstreetmap.atlas.checks.utility.ConcurrentLongPairSet;
+import org.openstreetmap.atlas.checks.utility.ConcurrentLongSet;
+import org.openstreetmap.atlas.checks.utility.ItemTypeUtilities;
 import org.openstreetmap.atlas.geography.Location;
 import org.openstreetmap.atlas.geography.atlas.Atlas;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
@@ -23,10 +26,11 @@ import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
 import org.openstreetmap.atlas.tags.ManMadeTag;
 import org.openstreetmap.atlas.tags.filters.TaggableFilter;
 import org.openstreetmap.atlas.utilities.collections.Iterables;
-import org.openstreetmap.atlas.utilities.collections.MultiIterable;
 import org.openstreetmap.atlas.utilities.collections.OptionalIterable;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
 import org.openstreetmap.atlas.utilities.filters.AtlasEntityPolygonsFilter;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +49,12 @@ import com.google.gson.GsonBuilder;
 public abstract class BaseCheck<T> implements Check, Serializable
 {
     public static final String PARAMETER_ACCEPT_PIERS = "accept.piers";
+    public static final String PARAMETER_BUDGET = "budget.minutes";
     public static final String PARAMETER_DENYLIST_COUNTRIES = "countries.denylist";
     public static final String PARAMETER_CHALLENGE = "challenge";
+    public static final String PARAMETER_CONTEXT_RADIUS = "context.radius.kilometers";
     public static final String PARAMETER_FLAG = "flags";
+    public static final String PARAMETER_OFF_HEAP_FLAGGED_IDENTIFIERS = "flaggedIdentifiers.offHeap";
     public static final String PARAMETER_PERMITLIST_COUNTRIES = "countries.permitlist";
     public static final String PARAMETER_PERMITLIST_TAGS = "tags.filter";
     public static final String PARAMETER_USE_EXTERNAL_DATA = "externalData.enabled";
@@ -62,7 +69,12 @@ public abstract class BaseCheck<T> implements Check, Serializable
     private final List<String> countries;
     private final Map<String, List<String>> flagLanguageMap;
     // OSM Identifiers are used to keep track of flagged features
-    private transient Set<T> flaggedIdentifiers = null;
+    private transient volatile Set<T> flaggedIdentifiers = null;
+    // Long identifiers are kept unboxed, here rather than in flaggedIdentifiers
+    private transient volatile ConcurrentLongSet flaggedLongIdentifiers = null;
+    // Unordered pairs of identifiers, for checks flagging features two by two
+    private transient volatile ConcurrentLongPairSet flaggedIdentifierPairs = null;
+    private final boolean offHeapFlaggedIdentifiers;
     private final Locale locale;
     private final String name = this.getClass().getSimpleName();
     // geo filter specific to this check
@@ -70,6 +82,10 @@ public abstract class BaseCheck<T> implements Check, Serializable
     // geo filter for all checks
     private final AtlasEntityPolygonsFilter globalPolygonFilter;
     private TaggableFilter tagFilter = null;
+    // Context radius set in the configuration, null when the check's own applies
+    private final Distance configuredContextRadius;
+    // Time budget set in the configuration, null when the job's own applies
+    private final Duration configuredBudget;
 
     /**
      * Default constructor
@@ -94,6 +110,15 @@ public abstract class BaseCheck<T> implements Check, Serializable
                 DEFAULT_LOCALE.getLanguage(), Locale::new);
         this.useExternalData = this.configurationValue(configuration, PARAMETER_USE_EXTERNAL_DATA,
                 true);
+        this.offHeapFlaggedIdentifiers = this.configurationValue(configuration,
+                PARAMETER_OFF_HEAP_FLAGGED_IDENTIFIERS, false);
+        // A negative radius stands for an unbounded context
+        this.configuredContextRadius = this.configurationValue(configuration,
+                PARAMETER_CONTEXT_RADIUS, Double.NaN,
+                radius -> radius.isNaN() ? null
+                        : radius < 0 ? UNBOUNDED_CONTEXT : Distance.kilometers(radius));
+        this.configuredBudget = this.configurationValue(configuration, PARAMETER_BUDGET,
+                Double.NaN, minutes -> minutes.isNaN() ? null : Duration.minutes(minutes));
 
         if (challengeMap.isEmpty())
         {
@@ -132,13 +157,42 @@ public abstract class BaseCheck<T> implements Check, Serializable
         }
         catch (final Exception oops)
         {
-            logger.error(String.format("%s failed on feature %s (%s).", this.getCheckName(),
-                    object.getIdentifier(), object.getOsmIdentifier()), oops);
+            this.logFailure(object, oops);
         }
 
         return Optional.empty();
     }
 
+    @Override
+    public Optional<CheckFlag> check(final AtlasObject object, final CheckProfile profile)
+    {
+        final long start = System.nanoTime();
+        long filterEnd = start;
+        boolean accepted = false;
+        Optional<CheckFlag> flag = Optional.empty();
+        try
+        {
+            accepted = this.checkObjectFilter().test(object);
+            filterEnd = System.nanoTime();
+            if (accepted)
+            {
+                flag = this.flag(object);
+            }
+        }
+        catch (final Exception oops)
+        {
+            this.logFailure(object, oops);
+        }
+        final long end = System.nanoTime();
+        if (!accepted)
+        {
+            // Either filtered out or failed in the filter, all the time was spent filtering
+            filterEnd = end;
+        }
+        profile.record(object, filterEnd - start, accepted, end - filterEnd, flag.isPresent());
+        return flag;
+    }
+
     public final Predicate<AtlasObject> checkObjectFilter()
     {
         return object -> this.validCheckForObject(object) && this.tagFilter.test(object)
@@ -158,11 +212,23 @@ public abstract class BaseCheck<T> implements Check, Serializable
         this.clearFlaggedIdentifiers();
     }
 
+    /**
+     * The context radius set with {@link #PARAMETER_CONTEXT_RADIUS} in the configuration, in
+     * kilometers and negative for an unbounded context, or else {@link #defaultContextRadius()}
+     */
+    @Override
+    public final Optional<Distance> contextRadius()
+    {
+        return this.configuredContextRadius == null ? this.defaultContextRadius()
+                : Optional.of(this.configuredContextRadius);
+    }
+
     @Override
     public Iterable<CheckFlag> flags(final Atlas atlas)
     {
-        return new OptionalIterable<>(Iterables
-                .translate(new MultiIterable<>(atlas.items(), atlas.relations()), this::check));
+        return new OptionalIterable<>(Iterables.translate(
+                ItemTypeUtilities.entitiesOfTypes(atlas, this.supportedItemTypes()),
+                this::check));
     }
 
     @Override
@@ -253,6 +319,15 @@ public abstract class BaseCheck<T> implements Check, Serializable
     {
     }
 
+    /**
+     * The time budget set with {@link #PARAMETER_BUDGET} in the configuration, in minutes
+     */
+    @Override
+    public Optional<Duration> timeBudget()
+    {
+        return Optional.ofNullable(this.configuredBudget);
+    }
+
     /**
      * The country check will first check the country permitlist and if the country is contained in
      * the permitlist it is allowed, after that the country is checked it against denylist and if
@@ -294,6 +369,8 @@ public abstract class BaseCheck<T> implements Check, Serializable
     protected void clearFlaggedIdentifiers()
     {
         this.getFlaggedIdentifiers().clear();
+        this.getFlaggedLongIdentifiers().clear();
+        this.getFlaggedIdentifierPairs().clear();
     }
 
     protected final String configurationKey(final Class<?> type, final String key)
@@ -377,6 +454,17 @@ public abstract class BaseCheck<T> implements Check, Serializable
                 instructions, points);
     }
 
+    /**
+     * The {@link #contextRadius()} of this check when the configuration does not set one. Checks
+     * override this to say how far they look, see {@link Check#contextRadius()}.
+     *
+     * @return an {@link Optional} context radius
+     */
+    protected Optional<Distance> defaultContextRadius()
+    {
+        return Optional.empty();
+    }
+
     protected abstract Optional<CheckFlag> flag(AtlasObject object);
 
     /**
@@ -390,13 +478,30 @@ public abstract class BaseCheck<T> implements Check, Serializable
         return Collections.emptyList();
     }
 
+    /**
+     * @return the flagged identifiers, except {@link Long}s which are kept unboxed (see
+     *         {@link #isFlagged(long)})
+     * @deprecated the set misses the {@link Long} identifiers marked as flagged, use
+     *             {@link #isFlagged(Object)} and {@link #markAsFlagged(Object)}, which cover all
+     *             identifiers
+     */
+    @Deprecated
     protected Set<T> getFlaggedIdentifiers()
     {
-        if (this.flaggedIdentifiers == null)
+        Set<T> identifiers = this.flaggedIdentifiers;
+        if (identifiers == null)
         {
-            this.flaggedIdentifiers = ConcurrentHashMap.newKeySet();
+            synchronized (this)
+            {
+                identifiers = this.flaggedIdentifiers;
+                if (identifiers == null)
+                {
+                    identifiers = ConcurrentHashMap.newKeySet();
+                    this.flaggedIdentifiers = identifiers;
+                }
+            }
         }
-        return this.flaggedIdentifiers;
+        return identifiers;
     }
 
     protected String getTaskIdentifier(final AtlasObject object)
@@ -463,12 +568,81 @@ public abstract class BaseCheck<T> implements Check, Serializable
 
     protected final boolean isFlagged(final T identifier)
     {
+        if (identifier instanceof Long)
+        {
+            return this.isFlagged(((Long) identifier).longValue());
+        }
         return this.getFlaggedIdentifiers().contains(identifier);
     }
 
-    protected final void markAsFlagged(final T identifier)
+    /**
+     * Same as {@link #isFlagged(Object)}, for a {@code long} identifier without boxing it
+     *
+     * @param identifier
+     *            the identifier to look for
+     * @return {@code true} if the identifier was marked as flagged
+     */
+    protected final boolean isFlagged(final long identifier)
     {
-        this.getFlaggedIdentifiers().add(identifier);
+        return this.getFlaggedLongIdentifiers().contains(identifier);
+    }
+
+    /**
+     * Checks whether an unordered pair of identifiers was marked as flagged, for checks flagging
+     * features two by two
+     *
+     * @param identifier
+     *            one identifier of the pair
+     * @param otherIdentifier
+     *            the other identifier of the pair
+     * @return {@code true} if the pair was marked as flagged, in either order
+     */
+    protected final boolean isFlagged(final long identifier, final long otherIdentifier)
+    {
+        return this.getFlaggedIdentifierPairs().contains(identifier, otherIdentifier);
+    }
+
+    /**
+     * Marks an identifier as flagged. Checking the result tests and marks at once, so that a
+     * feature checked from several threads is flagged once (see {@link Check#isThreadSafe()}).
+     *
+     * @param identifier
+     *            the identifier to mark
+     * @return {@code true} if the identifier was not marked yet
+     */
+    protected final boolean markAsFlagged(final T identifier)
+    {
+        if (identifier instanceof Long)
+        {
+            return this.markAsFlagged(((Long) identifier).longValue());
+        }
+        return this.getFlaggedIdentifiers().add(identifier);
+    }
+
+    /**
+     * Same as {@link #markAsFlagged(Object)}, for a {@code long} identifier without boxing it
+     *
+     * @param identifier
+     *            the identifier to mark
+     * @return {@code true} if the identifier was not marked yet
+     */
+    protected final boolean markAsFlagged(final long identifier)
+    {
+        return this.getFlaggedLongIdentifiers().add(identifier);
+    }
+
+    /**
+     * Marks an unordered pair of identifiers as flagged, for checks flagging features two by two
+     *
+     * @param identifier
+     *            one identifier of the pair
+     * @param otherIdentifier
+     *            the other identifier of the pair
+     * @return {@code true} if the pair was not marked yet, in either order
+     */
+    protected final boolean markAsFlagged(final long identifier, final long otherIdentifier)
+    {
+        return this.getFlaggedIdentifierPairs().add(identifier, otherIdentifier);
     }
 
     protected final boolean useExternalData()
@@ -499,4 +673,46 @@ public abstract class BaseCheck<T> implements Check, Serializable
     {
         return String.format("%s.%s", name, key);
     }
+
+    private ConcurrentLongPairSet getFlaggedIdentifierPairs()
+    {
+        ConcurrentLongPairSet pairs = this.flaggedIdentifierPairs;
+        if (pairs == null)
+        {
+            synchronized (this)
+            {
+                pairs = this.flaggedIdentifierPairs;
+                if (pairs == null)
+                {
+                    pairs = new ConcurrentLongPairSet(this.offHeapFlaggedIdentifiers);
+                    this.flaggedIdentifierPairs = pairs;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private ConcurrentLongSet getFlaggedLongIdentifiers()
+    {
+        ConcurrentLongSet identifiers = this.flaggedLongIdentifiers;
+        if (identifiers == null)
+        {
+            synchronized (this)
+            {
+                identifiers = this.flaggedLongIdentifiers;
+                if (identifiers == null)
+                {
+                    identifiers = new ConcurrentLongSet(this.offHeapFlaggedIdentifiers);
+                    this.flaggedLongIdentifiers = identifiers;
+                }
+            }
+        }
+        return identifiers;
+    }
+
+    private void logFailure(final AtlasObject object, final Exception exception)
+    {
+        logger.error(String.format("%s failed on feature %s (%s).", this.getCheckName(),
+                object.getIdentifier(), object.getOsmIdentifier()), exception);
+    }
 }
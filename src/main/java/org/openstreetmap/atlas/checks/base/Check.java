@@ -2,15 +2,20 @@ package org.openstreetmap.atlas.checks.base;
 
 import java.io.Serializable;
 import java.util.Optional;
+import java.util.Set;
 
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.checks.maproulette.data.Challenge;
+import org.openstreetmap.atlas.checks.utility.ItemTypeUtilities;
 import org.openstreetmap.atlas.geography.atlas.Atlas;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.items.Relation;
 import org.openstreetmap.atlas.geography.atlas.items.complex.ComplexEntity;
 import org.openstreetmap.atlas.geography.atlas.items.complex.Finder;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
 
 /**
  * The check interface has one method that will execute the check against an atlas entity and return
@@ -21,6 +26,11 @@ import org.openstreetmap.atlas.geography.atlas.items.complex.Finder;
  */
 public interface Check extends Serializable
 {
+    /**
+     * The {@link #contextRadius()} of checks that follow features as far as they go
+     */
+    Distance UNBOUNDED_CONTEXT = Distance.MAXIMUM;
+
     /**
      * The check for the atlas object
      *
@@ -31,6 +41,52 @@ public interface Check extends Serializable
      */
     Optional<CheckFlag> check(AtlasObject object);
 
+    /**
+     * The check for the atlas object, recording its cost in a {@link CheckProfile}. By default the
+     * whole check is recorded as flagging time, checks that can tell apart filtering from flagging
+     * (like {@link BaseCheck}) record them separately.
+     *
+     * @param object
+     *            The {@link AtlasObject} to check
+     * @param profile
+     *            The {@link CheckProfile} to record to
+     * @return an {@link Optional} {@link CheckFlag}, {@link Optional#EMPTY} if check did not reveal
+     *         any errors
+     */
+    default Optional<CheckFlag> check(final AtlasObject object, final CheckProfile profile)
+    {
+        final long start = System.nanoTime();
+        final Optional<CheckFlag> flag = this.check(object);
+        profile.record(object, 0L, true, System.nanoTime() - start, flag.isPresent());
+        return flag;
+    }
+
+    /**
+     * How far beyond the objects it checks this check needs to see the {@link Atlas}, so that the
+     * sharded checks load no more neighbouring shards than the checks of a shard need. A check that
+     * only looks at the object it checks needs {@link Distance#ZERO}, and a check that follows
+     * features as far as they go (like a routing check) needs {@link #UNBOUNDED_CONTEXT}. By
+     * default checks do not say, and get the default distance of the job.
+     *
+     * @return an {@link Optional} context radius
+     */
+    default Optional<Distance> contextRadius()
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * How long a run of this check over a shard, a tile or a country can take. A check going over
+     * its budget stops and outputs the flags found so far. By default checks do not say, and get
+     * the default budget of the job, if any.
+     *
+     * @return an {@link Optional} time budget
+     */
+    default Optional<Duration> timeBudget()
+    {
+        return Optional.empty();
+    }
+
     /**
      * Cleanup check to remove any remaining artifacts from execution
      */
@@ -74,11 +130,38 @@ public interface Check extends Serializable
      */
     String getCheckName();
 
+    /**
+     * Whether this check can be run over different objects from several threads at once. A check
+     * is thread safe if it keeps no state between objects, or only keeps it in concurrent
+     * structures (like the flagged identifiers of a {@link BaseCheck}). Thread safe checks can have
+     * their objects split in chunks that are checked in parallel. By default checks are not thread
+     * safe.
+     *
+     * @return {@code true} if this check is thread safe
+     */
+    default boolean isThreadSafe()
+    {
+        return false;
+    }
+
     /**
      * Helper for debugging. Implement in check to log info after check is run.
      */
     void logStatus();
 
+    /**
+     * The {@link ItemType}s of the {@link AtlasEntity}s this check can flag. Only entities of these
+     * types are given to the check, so that a check that only handles one type does not have to be
+     * tested against every entity in the {@link Atlas}. {@link ComplexEntity}s from the
+     * {@link #finder()} are not affected. By default all types are given to the check.
+     *
+     * @return a {@link Set} of supported {@link ItemType}s
+     */
+    default Set<ItemType> supportedItemTypes()
+    {
+        return ItemTypeUtilities.allItemTypes();
+    }
+
     /**
      * Checks to see whether the check is valid for the given country.
      *
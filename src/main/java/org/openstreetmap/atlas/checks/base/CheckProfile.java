@@ -0,0 +1,252 @@
+package org.openstreetmap.atlas.checks.base;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+
+/**
+ * Hot path statistics of a single {@link Check} run. For every {@link AtlasObject} offered to the
+ * {@link Check} this records whether it was filtered out by the object filter, whether it was
+ * flagged, and the time spent filtering and flagging it. Per object latencies are kept in a
+ * histogram with power of two buckets, along with the identifiers of the slowest objects. This
+ * tells apart a {@link Check} that is slow because of a few pathological objects from one that is
+ * uniformly slow. All the recording is thread safe.
+ *
+ * @author agent
+ */
+public final class CheckProfile
+{
+    public static final int DEFAULT_SLOWEST_OBJECTS = 10;
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder filteredOut = new LongAdder();
+    private final LongAdder flagged = new LongAdder();
+    private final LongAdder filterNanoseconds = new LongAdder();
+    private final LongAdder flagNanoseconds = new LongAdder();
+    // Bucket i counts the latencies in [2^(i-1), 2^i) nanoseconds
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(BUCKETS);
+    private final int slowestObjectsSize;
+    // Min heap, so that the fastest of the slowest objects is evicted first
+    private final PriorityQueue<SlowObject> slowestObjects = new PriorityQueue<>(
+            Comparator.comparingLong(SlowObject::getNanoseconds));
+    // Latency an object has to beat to enter the slowest objects, read without locking
+    private volatile long slowestObjectsThreshold = 0L;
+
+    /**
+     * An {@link AtlasObject} identifier with its latency
+     *
+     * @author agent
+     */
+    private static final class SlowObject
+    {
+        private final String identifier;
+        private final long nanoseconds;
+
+        SlowObject(final String identifier, final long nanoseconds)
+        {
+            this.identifier = identifier;
+            this.nanoseconds = nanoseconds;
+        }
+
+        String getIdentifier()
+        {
+            return this.identifier;
+        }
+
+        long getNanoseconds()
+        {
+            return this.nanoseconds;
+        }
+    }
+
+    /**
+     * @param nanoseconds
+     *            a latency in nanoseconds
+     * @return the index of the histogram bucket holding the latency
+     */
+    static int bucket(final long nanoseconds)
+    {
+        return nanoseconds <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(nanoseconds);
+    }
+
+    /**
+     * @param bucket
+     *            the index of a histogram bucket
+     * @return the exclusive upper bound, in nanoseconds, of the latencies in the bucket
+     */
+    static long bucketUpperBound(final int bucket)
+    {
+        return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * @param object
+     *            an {@link AtlasObject}
+     * @return a readable identifier for the object, like {@code EDGE123000001}
+     */
+    public static String identifier(final AtlasObject object)
+    {
+        final String type = object instanceof AtlasEntity
+                ? ((AtlasEntity) object).getType().toString()
+                : object.getClass().getSimpleName();
+        return String.format("%s%s", type, object.getIdentifier());
+    }
+
+    /**
+     * Default constructor, keeping the {@link #DEFAULT_SLOWEST_OBJECTS} slowest objects
+     */
+    public CheckProfile()
+    {
+        this(DEFAULT_SLOWEST_OBJECTS);
+    }
+
+    /**
+     * @param slowestObjectsSize
+     *            number of slowest objects to keep the identifiers of
+     */
+    public CheckProfile(final int slowestObjectsSize)
+    {
+        this.slowestObjectsSize = slowestObjectsSize;
+    }
+
+    /**
+     * @return the total time spent in the object filter, in nanoseconds
+     */
+    public long getFilterNanoseconds()
+    {
+        return this.filterNanoseconds.sum();
+    }
+
+    /**
+     * @return the number of objects that did not pass the object filter
+     */
+    public long getFilteredOut()
+    {
+        return this.filteredOut.sum();
+    }
+
+    /**
+     * @return the total time spent flagging the objects that passed the object filter, in
+     *         nanoseconds
+     */
+    public long getFlagNanoseconds()
+    {
+        return this.flagNanoseconds.sum();
+    }
+
+    /**
+     * @return the number of objects flagged
+     */
+    public long getFlagged()
+    {
+        return this.flagged.sum();
+    }
+
+    /**
+     * @return the non empty buckets of the latency histogram, as the exclusive upper bound of each
+     *         bucket in nanoseconds mapped to the number of objects in it
+     */
+    public SortedMap<Long, Long> getLatencyHistogram()
+    {
+        final SortedMap<Long, Long> histogram = new TreeMap<>();
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            final long count = this.latencyHistogram.get(bucket);
+            if (count > 0)
+            {
+                histogram.put(bucketUpperBound(bucket), count);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the number of objects offered to the {@link Check}
+     */
+    public long getOffered()
+    {
+        return this.offered.sum();
+    }
+
+    /**
+     * @return the identifiers of the slowest objects mapped to their latency in nanoseconds,
+     *         slowest first
+     */
+    public Map<String, Long> getSlowestObjects()
+    {
+        synchronized (this.slowestObjects)
+        {
+            return this.slowestObjects.stream()
+                    .sorted(Comparator.comparingLong(SlowObject::getNanoseconds).reversed())
+                    .collect(Collectors.toMap(SlowObject::getIdentifier,
+                            SlowObject::getNanoseconds, Long::max, LinkedHashMap::new));
+        }
+    }
+
+    /**
+     * Records a single {@link AtlasObject} offered to the {@link Check}
+     *
+     * @param object
+     *            the {@link AtlasObject} offered
+     * @param filterNanoseconds
+     *            time spent in the object filter, in nanoseconds
+     * @param accepted
+     *            whether the object passed the object filter
+     * @param flagNanoseconds
+     *            time spent flagging the object, in nanoseconds
+     * @param flagged
+     *            whether the object was flagged
+     */
+    public void record(final AtlasObject object, final long filterNanoseconds,
+            final boolean accepted, final long flagNanoseconds, final boolean flagged)
+    {
+        this.offered.increment();
+        if (!accepted)
+        {
+            this.filteredOut.increment();
+        }
+        if (flagged)
+        {
+            this.flagged.increment();
+        }
+        this.filterNanoseconds.add(filterNanoseconds);
+        this.flagNanoseconds.add(flagNanoseconds);
+
+        final long nanoseconds = filterNanoseconds + flagNanoseconds;
+        this.latencyHistogram.incrementAndGet(bucket(nanoseconds));
+        if (this.slowestObjectsSize > 0 && nanoseconds > this.slowestObjectsThreshold)
+        {
+            this.recordSlowObject(object, nanoseconds);
+        }
+    }
+
+    private void recordSlowObject(final AtlasObject object, final long nanoseconds)
+    {
+        synchronized (this.slowestObjects)
+        {
+            if (this.slowestObjects.size() < this.slowestObjectsSize)
+            {
+                this.slowestObjects.add(new SlowObject(identifier(object), nanoseconds));
+            }
+            else if (nanoseconds > this.slowestObjects.peek().getNanoseconds())
+            {
+                this.slowestObjects.poll();
+                this.slowestObjects.add(new SlowObject(identifier(object), nanoseconds));
+            }
+            if (this.slowestObjects.size() == this.slowestObjectsSize)
+            {
+                this.slowestObjectsThreshold = this.slowestObjects.peek().getNanoseconds();
+            }
+        }
+    }
+}
@@ -10,10 +10,10 @@ import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 
-import org.openstreetmap.atlas.checks.distributed.ShardedIntegrityChecksSparkJob;
+import org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport;
+import org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper;
 import org.openstreetmap.atlas.exception.CoreException;
 import org.openstreetmap.atlas.generator.tools.filesystem.FileSystemHelper;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.Resource;
 import org.openstreetmap.atlas.utilities.caching.ConcurrentResourceCache;
 import org.openstreetmap.atlas.utilities.caching.strategies.NamespaceCachingStrategy;
@@ -24,7 +24,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The fetcher to use for generic resources. The fetcher uses hadoop cache to reduce remote reads.
- * See {@link ShardedIntegrityChecksSparkJob#atlasFetcher}. This a separate class so that it can
+ * See {@link ShardedChecksHelper#atlasFetcher}. This a separate class so that it can
  * implement {@link Serializable}
  *
  * @author Taylor Smock
@@ -111,7 +111,7 @@ public class ExternalDataFetcher implements Function<String, Optional<Resource>>
 
     /**
      * Create the fetcher to use for generic resources. The fetcher uses hadoop cache to reduce
-     * remote reads. See {@link ShardedIntegrityChecksSparkJob#atlasFetcher}.
+     * remote reads. See {@link ShardedChecksHelper#atlasFetcher}.
      *
      * @param input
      *            {@link String} input folder path
@@ -165,7 +165,7 @@ public class ExternalDataFetcher implements Function<String, Optional<Resource>>
      */
     private URI getUri(final String string)
     {
-        final String atlasURIString = SparkFileHelper.combine(this.input, string);
+        final String atlasURIString = IntegrityChecksSupport.combine(this.input, string);
         try
         {
             return new URI(atlasURIString);
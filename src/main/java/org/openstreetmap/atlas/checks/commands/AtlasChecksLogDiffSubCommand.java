@@ -15,6 +15,9 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
+import org.openstreetmap.atlas.checks.flag.FlagPack;
+import org.openstreetmap.atlas.checks.utility.FileUtility;
+import org.openstreetmap.atlas.checks.utility.FileUtility.LogOutputFileType;
 import org.openstreetmap.atlas.streaming.resource.File;
 import org.openstreetmap.atlas.utilities.collections.Iterables;
 import org.slf4j.Logger;
@@ -24,10 +27,10 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /**
- * Takes 2 sets of atlas-checks log files and reports the number of additions, subtractions, and
- * changed flags from reference to input. Optionally, the reported items can be written to new log
- * files. Additions and subtractions are based on flag ids. Changes are calculated by differences in
- * the Atlas ids of objects in a flag.
+ * Takes 2 sets of atlas-checks log files (or flag packs) and reports the number of additions,
+ * subtractions, and changed flags from reference to input. Optionally, the reported items can be
+ * written to new log files. Additions and subtractions are based on flag ids. Changes are
+ * calculated by differences in the Atlas ids of objects in a flag.
  *
  * @author bbreithaupt
  */
@@ -43,36 +46,39 @@ public class AtlasChecksLogDiffSubCommand extends JSONFlagDiffSubCommand
                 "log");
     }
 
+    /**
+     * Accepts flag packs as well as log files
+     */
+    @Override
+    protected boolean checkFileExtension(final File file)
+    {
+        return super.checkFileExtension(file) || file.getName().endsWith(FlagPack.EXTENSION);
+    }
+
     @Override
     protected Map<String, Map<Set<String>, JsonObject>> mapFeatures(final File file)
     {
         final Map<String, Map<Set<String>, JsonObject>> checkFeatureMap = new HashMap<>();
-        try (InputStreamReader inputStreamReader = file.isGzipped()
-                ? new InputStreamReader(
-                        new GZIPInputStream(Files.newInputStream(file.toAbsolutePath())))
-                : new FileReader(file.getPathString()))
+        try (BufferedReader reader = this.getReader(file))
         {
-            try (BufferedReader reader = new BufferedReader(inputStreamReader))
+            String line;
+            // Read each line (flag) from the log file
+            while ((line = reader.readLine()) != null)
             {
-                String line;
-                // Read each line (flag) from the log file
-                while ((line = reader.readLine()) != null)
+                // Parse the json
+                final JsonObject source = getGson().fromJson(line, JsonObject.class);
+                // Get the check name
+                final String checkName = source.get(PROPERTIES).getAsJsonObject().get(GENERATOR)
+                        .getAsString();
+                // Add the check name as a key
+                checkFeatureMap.putIfAbsent(checkName, new HashMap<>());
+                // Add the geoJSON as a value
+                if (checkFeatureMap.get(checkName).containsKey(this.getIdentifiers(source)))
                 {
-                    // Parse the json
-                    final JsonObject source = getGson().fromJson(line, JsonObject.class);
-                    // Get the check name
-                    final String checkName = source.get(PROPERTIES).getAsJsonObject().get(GENERATOR)
-                            .getAsString();
-                    // Add the check name as a key
-                    checkFeatureMap.putIfAbsent(checkName, new HashMap<>());
-                    // Add the geoJSON as a value
-                    if (checkFeatureMap.get(checkName).containsKey(this.getIdentifiers(source)))
-                    {
-                        logger.info("Duplicate flag found in {}: {}", file.getAbsolutePathString(),
-                                source);
-                    }
-                    checkFeatureMap.get(checkName).put(this.getIdentifiers(source), source);
+                    logger.info("Duplicate flag found in {}: {}", file.getAbsolutePathString(),
+                            source);
                 }
+                checkFeatureMap.get(checkName).put(this.getIdentifiers(source), source);
             }
         }
         catch (final IOException exception)
@@ -82,6 +88,25 @@ public class AtlasChecksLogDiffSubCommand extends JSONFlagDiffSubCommand
         return checkFeatureMap;
     }
 
+    /**
+     * @param file
+     *            a log file, gzipped or not, or a flag pack
+     * @return a {@link BufferedReader} of the lines (flags) of the file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    private BufferedReader getReader(final File file) throws IOException
+    {
+        if (file.getName().endsWith(FlagPack.EXTENSION))
+        {
+            return FileUtility.getReader(file, LogOutputFileType.FLAG_PACK);
+        }
+        return new BufferedReader(file.isGzipped()
+                ? new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(file.toAbsolutePath())))
+                : new FileReader(file.getPathString()));
+    }
+
     /**
      * Get the unique ids for a flag. Fall back to getting the atlas ids from the features for
      * reverse compatibility.
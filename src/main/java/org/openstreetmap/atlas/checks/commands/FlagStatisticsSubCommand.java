@@ -24,6 +24,9 @@ import java.util.zip.GZIPInputStream;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.flag.FlagPack;
+import org.openstreetmap.atlas.checks.flag.FlagPackReader;
+import org.openstreetmap.atlas.exception.CoreException;
 import org.openstreetmap.atlas.streaming.resource.File;
 import org.openstreetmap.atlas.utilities.command.abstractcommand.AbstractAtlasShellToolsCommand;
 import org.openstreetmap.atlas.utilities.command.abstractcommand.CommandOutputDelegate;
@@ -37,9 +40,9 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 /**
- * This command takes a folder of directories of atlas-checks log files and counts the number of
- * flags per country per check. It optionally takes a second folder and returns the difference
- * between the inputs.
+ * This command takes a folder of directories of atlas-checks log files (or flag packs) and counts
+ * the number of flags per country per check. It optionally takes a second folder and returns the
+ * difference between the inputs.
  *
  * @author bbreithaupt
  */
@@ -189,7 +192,7 @@ public class FlagStatisticsSubCommand extends AbstractAtlasShellToolsCommand
     public void registerOptionsAndArguments()
     {
         this.registerOptionWithRequiredArgument(INPUT_OPTION, 'i',
-                "A directory of folders containing atlas-checks log files.",
+                "A directory of folders containing atlas-checks log files or flag packs.",
                 OptionOptionality.REQUIRED, INPUT_OPTION);
         this.registerOptionWithRequiredArgument(REFERENCE_OPTION, 'r',
                 "A second set of log files to diff against.", OptionOptionality.OPTIONAL,
@@ -508,7 +511,8 @@ public class FlagStatisticsSubCommand extends AbstractAtlasShellToolsCommand
     }
 
     /**
-     * Given a path to a folder, read all log files and map the counts of each check by country.
+     * Given a path to a folder, read all log files and flag packs and map the counts of each check
+     * by country.
      *
      * @param path
      *            {@link String} folder path
@@ -522,11 +526,12 @@ public class FlagStatisticsSubCommand extends AbstractAtlasShellToolsCommand
 
         // Check all files in the folder and all sub-folders
         return new File(path, FileSystems.getDefault()).listFilesRecursively().parallelStream()
-                // Filter the files to only include log files, either gzipped or uncompressed
+                // Filter the files to only include log files, either gzipped or uncompressed, and
+                // flag packs
                 .filter(file -> FilenameUtils
                         .getExtension(file.isGzipped() ? FilenameUtils.getBaseName(file.getName())
                                 : file.getName())
-                        .equalsIgnoreCase("log"))
+                        .equalsIgnoreCase("log") || file.getName().endsWith(FlagPack.EXTENSION))
                 .map(file ->
                 {
                     final Map<String, Map<String, Counter>> countryCheckMap = new HashMap<>();
@@ -536,6 +541,24 @@ public class FlagStatisticsSubCommand extends AbstractAtlasShellToolsCommand
                     // Add the country to the map
                     countryCheckMap.putIfAbsent(country, new HashMap<>());
 
+                    // Count the flags of a flag pack from its index, without reading them
+                    if (file.getName().endsWith(FlagPack.EXTENSION))
+                    {
+                        try (FlagPackReader reader = new FlagPackReader(
+                                new java.io.File(file.getPathString())))
+                        {
+                            reader.countsByCheck().forEach((checkName, count) -> countryCheckMap
+                                    .get(country).put(checkName, new Counter(count)));
+                        }
+                        catch (final CoreException exception)
+                        {
+                            this.outputDelegate.printlnWarnMessage(
+                                    String.format("Exception thrown while reading file %s: %s",
+                                            file.getName(), exception.getMessage()));
+                        }
+                        return countryCheckMap;
+                    }
+
                     // Read the log file
                     try (InputStreamReader inputStreamReader = file.isGzipped()
                             ? new InputStreamReader(new GZIPInputStream(
@@ -0,0 +1,215 @@
+package org.openstreetmap.atlas.checks.commands;
+
+import static org.openstreetmap.atlas.checks.constants.CommonConstants.LINE_SEPARATOR;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.CheckResourceLoader;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.checks.incremental.IncrementalChecker;
+import org.openstreetmap.atlas.checks.incremental.OsmChange;
+import org.openstreetmap.atlas.checks.utility.FileUtility;
+import org.openstreetmap.atlas.checks.utility.FileUtility.LogOutputFileType;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.AtlasResourceLoader;
+import org.openstreetmap.atlas.streaming.resource.File;
+import org.openstreetmap.atlas.streaming.resource.InputStreamResource;
+import org.openstreetmap.atlas.utilities.command.abstractcommand.AbstractAtlasShellToolsCommand;
+import org.openstreetmap.atlas.utilities.command.abstractcommand.CommandOutputDelegate;
+import org.openstreetmap.atlas.utilities.command.abstractcommand.OptionAndArgumentDelegate;
+import org.openstreetmap.atlas.utilities.command.parsing.OptionOptionality;
+import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.configuration.StandardConfiguration;
+import org.openstreetmap.atlas.utilities.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Updates a set of atlas-checks log flags after an OSM change file, checking only the entities
+ * the change affects instead of the whole atlas. See {@link IncrementalChecker}.
+ *
+ * @author agent
+ */
+public class IncrementalChecksSubCommand extends AbstractAtlasShellToolsCommand
+{
+    private static final String CHANGE_OPTION = "change";
+    private static final String ATLAS_OPTION = "atlas";
+    private static final String PREVIOUS_ATLAS_OPTION = "previous-atlas";
+    private static final String FLAGS_OPTION = "flags";
+    private static final String COUNTRY_OPTION = "country";
+    private static final String CONFIGURATION_OPTION = "configuration";
+    private static final String OUTPUT_OPTION = "output";
+    private static final String DEFAULT_CONFIGURATION = "application.json";
+    private static final String FLAGS_FILE = "flags.log";
+    private static final String ADDED_FILE = "added.log";
+    private static final String RETIRED_FILE = "retired.log";
+    private static final Logger logger = LoggerFactory
+            .getLogger(IncrementalChecksSubCommand.class);
+
+    private final OptionAndArgumentDelegate optionAndArgumentDelegate;
+    private final CommandOutputDelegate outputDelegate;
+
+    public static void main(final String[] args)
+    {
+        new IncrementalChecksSubCommand().runSubcommandAndExit(args);
+    }
+
+    public IncrementalChecksSubCommand()
+    {
+        this.optionAndArgumentDelegate = this.getOptionAndArgumentDelegate();
+        this.outputDelegate = this.getCommandOutputDelegate();
+    }
+
+    @Override
+    @SuppressWarnings("squid:S3655")
+    public int execute()
+    {
+        final Time timer = Time.now();
+        final OsmChange change = OsmChange.read(
+                new File(this.optionAndArgumentDelegate.getOptionArgument(CHANGE_OPTION).get()));
+        final Atlas atlas = new AtlasResourceLoader().load(
+                new File(this.optionAndArgumentDelegate.getOptionArgument(ATLAS_OPTION).get()));
+        final Optional<Atlas> previousAtlas = this.optionAndArgumentDelegate
+                .getOptionArgument(PREVIOUS_ATLAS_OPTION)
+                .map(path -> new AtlasResourceLoader().load(new File(path)));
+        final String country = this.optionAndArgumentDelegate.getOptionArgument(COUNTRY_OPTION)
+                .get();
+        final Set<Check> checks = new CheckResourceLoader(this.configuration())
+                .loadChecksForCountry(country);
+
+        try
+        {
+            final List<String> previousFlags = this.readFlags(new File(
+                    this.optionAndArgumentDelegate.getOptionArgument(FLAGS_OPTION).get()));
+            final IncrementalChecker.Update update = new IncrementalChecker(checks)
+                    .update(change, atlas, previousAtlas, previousFlags);
+
+            final String output = this.optionAndArgumentDelegate.getOptionArgument(OUTPUT_OPTION)
+                    .get();
+            final List<String> added = update.getAdded().stream().map(CheckFlagEvent::toString)
+                    .collect(Collectors.toList());
+            final List<String> flags = new ArrayList<>(update.getRetained());
+            flags.addAll(added);
+            this.writeLines(output, FLAGS_FILE, flags);
+            this.writeLines(output, ADDED_FILE, added);
+            this.writeLines(output, RETIRED_FILE, update.getRetired());
+            logger.info("Updated the flags of {} checks in {}: {}", checks.size(),
+                    timer.elapsedSince(), update);
+        }
+        catch (final IOException error)
+        {
+            this.outputDelegate.printlnStderr(error.toString());
+            return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public String getCommandName()
+    {
+        return "incremental-checks";
+    }
+
+    @Override
+    public String getSimpleDescription()
+    {
+        return "update atlas-checks log flags after an OSM change file";
+    }
+
+    @Override
+    public void registerManualPageSections()
+    {
+        this.addManualPageSection("DESCRIPTION", IncrementalChecksSubCommand.class
+                .getResourceAsStream("IncrementalChecksSubCommandDescriptionSection.txt"));
+        this.addManualPageSection("EXAMPLES", IncrementalChecksSubCommand.class
+                .getResourceAsStream("IncrementalChecksSubCommandExamplesSection.txt"));
+    }
+
+    @Override
+    public void registerOptionsAndArguments()
+    {
+        this.registerOptionWithRequiredArgument(CHANGE_OPTION, 'c',
+                "An OSM change file (osc), gzipped or not.", OptionOptionality.REQUIRED,
+                CHANGE_OPTION);
+        this.registerOptionWithRequiredArgument(ATLAS_OPTION, 'a',
+                "The atlas built after the change.", OptionOptionality.REQUIRED, ATLAS_OPTION);
+        this.registerOptionWithRequiredArgument(PREVIOUS_ATLAS_OPTION, 'p',
+                "The atlas from before the change, to retire the flags of deleted entities.",
+                OptionOptionality.OPTIONAL, PREVIOUS_ATLAS_OPTION);
+        this.registerOptionWithRequiredArgument(FLAGS_OPTION, 'f',
+                "A log file or a directory of log files with the flags from before the change.",
+                OptionOptionality.REQUIRED, FLAGS_OPTION);
+        this.registerOptionWithRequiredArgument(COUNTRY_OPTION, 'i',
+                "The ISO code of the country of the atlas.", OptionOptionality.REQUIRED,
+                COUNTRY_OPTION);
+        this.registerOptionWithRequiredArgument(CONFIGURATION_OPTION, 'g',
+                "URI of the checks configuration. Defaults to the application.json resource.",
+                OptionOptionality.OPTIONAL, CONFIGURATION_OPTION);
+        this.registerOptionWithRequiredArgument(OUTPUT_OPTION, 'o',
+                "A folder to write the updated, added and retired flags to.",
+                OptionOptionality.REQUIRED, OUTPUT_OPTION);
+        super.registerOptionsAndArguments();
+    }
+
+    private Configuration configuration()
+    {
+        final Optional<String> uri = this.optionAndArgumentDelegate
+                .getOptionArgument(CONFIGURATION_OPTION);
+        final Optional<InputStream> source = uri.isPresent()
+                ? ConfigurationResolver.getResourceAsStream(URI.create(uri.get()))
+                : ConfigurationResolver.getResourceAsStream(DEFAULT_CONFIGURATION);
+        return source.<Configuration> map(
+                stream -> new StandardConfiguration(new InputStreamResource(() -> stream)))
+                .orElseGet(ConfigurationResolver::emptyConfiguration);
+    }
+
+    private List<String> readFlags(final File flags) throws IOException
+    {
+        final List<File> files = flags.isDirectory() ? flags.listFilesRecursively()
+                : Collections.singletonList(flags);
+        final List<String> lines = new ArrayList<>();
+        for (final File file : files)
+        {
+            final Optional<LogOutputFileType> fileType = FileUtility
+                    .getOptionalLogOutputType(file);
+            if (fileType.isPresent())
+            {
+                try (BufferedReader reader = FileUtility.getReader(file, fileType.get()))
+                {
+                    reader.lines().forEach(lines::add);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void writeLines(final String folder, final String name, final List<String> lines)
+            throws IOException
+    {
+        Files.createDirectories(Paths.get(folder));
+        try (Writer writer = Files.newBufferedWriter(Paths.get(folder, name),
+                StandardCharsets.UTF_8))
+        {
+            for (final String line : lines)
+            {
+                writer.write(line);
+                writer.write(LINE_SEPARATOR);
+            }
+        }
+    }
+}
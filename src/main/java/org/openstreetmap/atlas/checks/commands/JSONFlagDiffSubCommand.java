@@ -132,6 +132,21 @@ public abstract class JSONFlagDiffSubCommand implements FlexibleSubCommand
                 "-output=path/to/output/folder : optional directory to write output files to\n");
     }
 
+    /**
+     * Checks the file extension of the input file. Sub commands reading other files than the
+     * ones with the given extension can override it.
+     *
+     * @param file
+     *            Input file
+     * @return true if the file has the given extension
+     */
+    protected boolean checkFileExtension(final File file)
+    {
+        return FilenameUtils.getExtension(
+                file.isGzipped() ? FilenameUtils.getBaseName(file.getName()) : file.getName())
+                .equalsIgnoreCase(this.fileExtension);
+    }
+
     /**
      * Takes two 2d {@link HashMap}s containing atlas-checks flags mapped by id mapped by check.
      * Finds missing elements in the input based on ids.
@@ -229,20 +244,6 @@ public abstract class JSONFlagDiffSubCommand implements FlexibleSubCommand
         writer.close();
     }
 
-    /**
-     * Checks the file extension of the input file
-     *
-     * @param file
-     *            Input file
-     * @return true if the file has the given extension
-     */
-    private boolean checkFileExtension(final File file)
-    {
-        return FilenameUtils.getExtension(
-                file.isGzipped() ? FilenameUtils.getBaseName(file.getName()) : file.getName())
-                .equalsIgnoreCase(this.fileExtension);
-    }
-
     /**
      * Gets a count of the {@link JsonObject}s a {@link Map} of {@link Set}s of {@link JsonObject}s.
      *
@@ -264,9 +265,7 @@ public abstract class JSONFlagDiffSubCommand implements FlexibleSubCommand
      */
     private Set<File> getFilesOfType(final File file)
     {
-        final String fileName = file.isGzipped() ? FilenameUtils.getBaseName(file.getName())
-                : file.getName();
-        if (FilenameUtils.getExtension(fileName).equalsIgnoreCase(this.fileExtension))
+        if (this.checkFileExtension(file))
         {
             return Collections.singleton(file);
         }
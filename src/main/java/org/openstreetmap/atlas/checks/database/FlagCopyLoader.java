@@ -0,0 +1,554 @@
+package org.openstreetmap.atlas.checks.database;
+
+import static org.openstreetmap.atlas.geography.geojson.GeoJsonConstants.FEATURES;
+import static org.openstreetmap.atlas.geography.geojson.GeoJsonConstants.PROPERTIES;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.flag.serializer.CheckFlagDeserializer;
+import org.openstreetmap.atlas.checks.utility.FileUtility;
+import org.openstreetmap.atlas.checks.utility.FileUtility.LogOutputFileType;
+import org.openstreetmap.atlas.streaming.resource.File;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Bulk loads flags into the flag and feature tables with the PostgreSQL COPY protocol. Files are
+ * streamed in chunks of lines, and the chunks are loaded in parallel by loader threads, each with
+ * its own connection. Flag ids are reserved from the flag id sequence for a whole chunk, so that
+ * feature rows reference their flag without reading back generated keys, and each chunk is loaded
+ * in a single transaction.
+ *
+ * @author agent
+ */
+class FlagCopyLoader implements AutoCloseable
+{
+    // Number of flags loaded in a transaction
+    static final int CHUNK_SIZE = 5_000;
+    private static final String COPY_FLAG_SQL = "COPY flag (id, flag_id, check_name, instructions, run_uri, software_version, date_created) FROM STDIN";
+    private static final String COPY_FEATURE_SQL = "COPY feature (flag_id, geom, osm_id, atlas_id, iso_country_code, tags, item_type, date_created) FROM STDIN";
+    private static final String RESERVE_FLAG_IDS_SQL = "SELECT nextval(pg_get_serial_sequence('flag', 'id')) FROM generate_series(1, ?)";
+    private static final String NULL = "\\N";
+    private static final String GEOMETRY_COLLECTION = "GeometryCollection";
+    private static final String POINT = "Point";
+
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(CheckFlag.class, new CheckFlagDeserializer()).create();
+    private static final Logger logger = LoggerFactory.getLogger(FlagCopyLoader.class);
+
+    private final FlagDatabaseSubCommand command;
+    private final BlockingQueue<Connection> connections;
+    private final ExecutorService loaders;
+    // Bounds the chunks read ahead of the loaders
+    private final Semaphore pendingChunks;
+    private final AtomicLong flagCount = new AtomicLong();
+    private final AtomicLong featureCount = new AtomicLong();
+    private final AtomicInteger failedChunks = new AtomicInteger();
+    private final AtomicInteger failedFiles = new AtomicInteger();
+    private boolean closed = false;
+
+    /**
+     * Appends a row of values to COPY text data
+     *
+     * @param data
+     *            COPY text data
+     * @param values
+     *            the values of the row, null for NULL
+     */
+    static void appendRow(final StringBuilder data, final Object... values)
+    {
+        for (int index = 0; index < values.length; index++)
+        {
+            if (index > 0)
+            {
+                data.append('\t');
+            }
+            if (values[index] == null)
+            {
+                data.append(NULL);
+            }
+            else
+            {
+                appendEscaped(data, values[index].toString());
+            }
+        }
+        data.append('\n');
+    }
+
+    /**
+     * Appends the flag and feature rows of some flags to COPY text data
+     *
+     * @param command
+     *            the {@link FlagDatabaseSubCommand} the rows are loaded for
+     * @param lines
+     *            line delimited json flags
+     * @param identifiers
+     *            flag record identifiers, one per line
+     * @param flags
+     *            COPY text data of the flag table
+     * @param features
+     *            COPY text data of the feature table
+     * @return the number of feature rows
+     */
+    static int appendRows(final FlagDatabaseSubCommand command, final List<String> lines,
+            final long[] identifiers, final StringBuilder flags, final StringBuilder features)
+    {
+        int featureRows = 0;
+        for (int index = 0; index < lines.size(); index++)
+        {
+            final JsonObject parsedFlag = new JsonParser().parse(lines.get(index))
+                    .getAsJsonObject();
+            final CheckFlag flag = gson.fromJson(parsedFlag, CheckFlag.class);
+            appendRow(flags, identifiers[index], command.getFlagIdentifier(flag),
+                    flag.getChallengeName().orElse(""), command.getInstructions(flag),
+                    command.getRunUri(), command.getSoftwareVersion(), command.getTimestamp());
+            for (final JsonElement element : command
+                    .filterOutPointsFromGeojson(parsedFlag.get(FEATURES).getAsJsonArray()))
+            {
+                final JsonObject feature = element.getAsJsonObject();
+                final JsonObject properties = feature.get(PROPERTIES).getAsJsonObject();
+                appendRow(features, identifiers[index],
+                        geometry(feature.get("geometry").getAsJsonObject()),
+                        command.getOsmIdentifier(properties),
+                        properties.get("identifier").getAsLong(),
+                        command.getIsoCountryCode(properties), hstore(command.getTags(properties)),
+                        properties.get("itemType").getAsString(), command.getTimestamp());
+                featureRows++;
+            }
+        }
+        return featureRows;
+    }
+
+    /**
+     * COPY can not call ST_GeomFromGeoJSON, so GeoJson geometries are loaded as EWKT, with the
+     * WGS84 reference system ST_GeomFromGeoJSON defaults to.
+     *
+     * @param geometry
+     *            a GeoJson geometry
+     * @return the EWKT of the geometry
+     */
+    static String geometry(final JsonObject geometry)
+    {
+        final StringBuilder wkt = new StringBuilder("SRID=4326;");
+        appendGeometry(wkt, geometry);
+        return wkt.toString();
+    }
+
+    /**
+     * @param tags
+     *            a tag Map
+     * @return the hstore literal of the tags
+     */
+    static String hstore(final Map<String, String> tags)
+    {
+        final StringBuilder hstore = new StringBuilder();
+        tags.forEach((key, value) ->
+        {
+            if (hstore.length() > 0)
+            {
+                hstore.append(", ");
+            }
+            appendQuoted(hstore, key);
+            hstore.append("=>");
+            if (value == null)
+            {
+                hstore.append("NULL");
+            }
+            else
+            {
+                appendQuoted(hstore, value);
+            }
+        });
+        return hstore.toString();
+    }
+
+    private static void appendCoordinates(final StringBuilder wkt, final JsonArray coordinates)
+    {
+        wkt.append('(');
+        for (int index = 0; index < coordinates.size(); index++)
+        {
+            if (index > 0)
+            {
+                wkt.append(',');
+            }
+            final JsonArray element = coordinates.get(index).getAsJsonArray();
+            if (element.size() > 0 && element.get(0).isJsonPrimitive())
+            {
+                appendPosition(wkt, element);
+            }
+            else
+            {
+                appendCoordinates(wkt, element);
+            }
+        }
+        wkt.append(')');
+    }
+
+    private static void appendEscaped(final StringBuilder data, final String value)
+    {
+        for (int index = 0; index < value.length(); index++)
+        {
+            final char character = value.charAt(index);
+            switch (character)
+            {
+                case '\\':
+                    data.append("\\\\");
+                    break;
+                case '\t':
+                    data.append("\\t");
+                    break;
+                case '\n':
+                    data.append("\\n");
+                    break;
+                case '\r':
+                    data.append("\\r");
+                    break;
+                default:
+                    data.append(character);
+            }
+        }
+    }
+
+    private static void appendGeometry(final StringBuilder wkt, final JsonObject geometry)
+    {
+        final String type = geometry.get("type").getAsString();
+        wkt.append(type.toUpperCase(Locale.ROOT));
+        if (GEOMETRY_COLLECTION.equals(type))
+        {
+            final JsonArray geometries = geometry.get("geometries").getAsJsonArray();
+            wkt.append('(');
+            for (int index = 0; index < geometries.size(); index++)
+            {
+                if (index > 0)
+                {
+                    wkt.append(',');
+                }
+                appendGeometry(wkt, geometries.get(index).getAsJsonObject());
+            }
+            wkt.append(')');
+            return;
+        }
+        final JsonArray coordinates = geometry.get("coordinates").getAsJsonArray();
+        if (coordinates.size() == 0)
+        {
+            wkt.append(" EMPTY");
+        }
+        else if (POINT.equals(type))
+        {
+            wkt.append('(');
+            appendPosition(wkt, coordinates);
+            wkt.append(')');
+        }
+        else
+        {
+            appendCoordinates(wkt, coordinates);
+        }
+    }
+
+    private static void appendPosition(final StringBuilder wkt, final JsonArray position)
+    {
+        for (int index = 0; index < position.size(); index++)
+        {
+            if (index > 0)
+            {
+                wkt.append(' ');
+            }
+            wkt.append(position.get(index).getAsString());
+        }
+    }
+
+    private static void appendQuoted(final StringBuilder hstore, final String value)
+    {
+        hstore.append('"');
+        for (int index = 0; index < value.length(); index++)
+        {
+            final char character = value.charAt(index);
+            if (character == '"' || character == '\\')
+            {
+                hstore.append('\\');
+            }
+            hstore.append(character);
+        }
+        hstore.append('"');
+    }
+
+    /**
+     * @param database
+     *            the database to load the flags into
+     * @param threads
+     *            number of loader threads, each with its own connection
+     * @param command
+     *            the {@link FlagDatabaseSubCommand} the flags are loaded for
+     * @throws SQLException
+     *             if a connection can not be opened
+     */
+    FlagCopyLoader(final DatabaseConnection database, final int threads,
+            final FlagDatabaseSubCommand command) throws SQLException
+    {
+        if (threads <= 0)
+        {
+            throw new IllegalArgumentException("Loader threads must be positive: " + threads);
+        }
+        this.command = command;
+        this.connections = new ArrayBlockingQueue<>(threads);
+        try
+        {
+            for (int index = 0; index < threads; index++)
+            {
+                final Connection connection = database.getConnection();
+                this.connections.add(connection);
+                connection.setAutoCommit(false);
+            }
+        }
+        catch (final SQLException error)
+        {
+            this.closeConnections();
+            throw error;
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.loaders = Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable,
+                String.format("Flag Copy Loader %s", threadCount.incrementAndGet())));
+        this.pendingChunks = new Semaphore(2 * threads);
+    }
+
+    /**
+     * Waits for all the chunks to be loaded, and closes the connections. Closing again does
+     * nothing.
+     *
+     * @throws SQLException
+     *             if a connection can not be closed
+     */
+    @Override
+    public void close() throws SQLException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        this.loaders.shutdown();
+        try
+        {
+            while (!this.loaders.awaitTermination(1, TimeUnit.MINUTES))
+            {
+                logger.info("Loaded {} flags and {} features so far.", this.flagCount.get(),
+                        this.featureCount.get());
+            }
+        }
+        catch (final InterruptedException error)
+        {
+            Thread.currentThread().interrupt();
+            this.failedChunks.addAndGet(this.loaders.shutdownNow().size());
+        }
+        finally
+        {
+            this.closeConnections();
+        }
+        logger.info("Loaded {} flags and {} features.", this.flagCount.get(),
+                this.featureCount.get());
+        if (this.failedChunks.get() > 0)
+        {
+            logger.error("Failed to load {} chunks of up to {} flags.", this.failedChunks.get(),
+                    CHUNK_SIZE);
+        }
+        if (this.failedFiles.get() > 0)
+        {
+            logger.error("Failed to read {} files.", this.failedFiles.get());
+        }
+    }
+
+    /**
+     * @return true if a file could not be read, or a chunk of flags could not be loaded, so far
+     */
+    boolean hasFailures()
+    {
+        return this.failedChunks.get() > 0 || this.failedFiles.get() > 0;
+    }
+
+    /**
+     * Streams the flags of a file to the loader threads, in chunks. Returns once the last chunk is
+     * handed to a loader.
+     *
+     * @param file
+     *            a flag file
+     * @param logOutputFileType
+     *            the type of the file
+     */
+    void load(final File file, final LogOutputFileType logOutputFileType)
+    {
+        try (BufferedReader reader = FileUtility.getReader(file, logOutputFileType))
+        {
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            String line = reader.readLine();
+            while (line != null)
+            {
+                if (!line.isEmpty())
+                {
+                    lines.add(line);
+                }
+                if (lines.size() == CHUNK_SIZE)
+                {
+                    this.submit(file, lines);
+                    lines = new ArrayList<>(CHUNK_SIZE);
+                }
+                line = reader.readLine();
+            }
+            if (!lines.isEmpty())
+            {
+                this.submit(file, lines);
+            }
+        }
+        catch (final IOException error)
+        {
+            this.failedFiles.incrementAndGet();
+            logger.error("Exception while reading {}:", file, error);
+        }
+    }
+
+    private void closeConnections() throws SQLException
+    {
+        SQLException failure = null;
+        for (final Connection connection : this.connections)
+        {
+            try
+            {
+                connection.close();
+            }
+            catch (final SQLException error)
+            {
+                failure = error;
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Loads a chunk of flags, with their features, in a single transaction
+     *
+     * @param file
+     *            the file the flags are read from
+     * @param lines
+     *            line delimited json flags
+     */
+    private void copy(final File file, final List<String> lines)
+    {
+        final Connection connection = this.connections.remove();
+        try
+        {
+            final StringBuilder flags = new StringBuilder();
+            final StringBuilder features = new StringBuilder();
+            final int featureRows = appendRows(this.command, lines,
+                    this.reserveIdentifiers(connection, lines.size()), flags, features);
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copyManager.copyIn(COPY_FLAG_SQL, new StringReader(flags.toString()));
+            copyManager.copyIn(COPY_FEATURE_SQL, new StringReader(features.toString()));
+            connection.commit();
+            this.flagCount.addAndGet(lines.size());
+            this.featureCount.addAndGet(featureRows);
+        }
+        catch (final SQLException | IOException | RuntimeException error)
+        {
+            // Malformed flags throw any kind of runtime exception, and fail their chunk only
+            this.failedChunks.incrementAndGet();
+            logger.error("Unable to load a chunk of {} flags of {}", lines.size(), file, error);
+            try
+            {
+                connection.rollback();
+            }
+            catch (final SQLException rollbackError)
+            {
+                logger.error("Unable to roll back a chunk of {}", file, rollbackError);
+            }
+        }
+        finally
+        {
+            this.connections.add(connection);
+        }
+    }
+
+    /**
+     * Reserves flag record identifiers from the flag id sequence, so that they are not given to
+     * any other record
+     *
+     * @param connection
+     *            jdbc Connection object
+     * @param count
+     *            number of identifiers
+     * @return the identifiers
+     * @throws SQLException
+     *             if the sequence can not be read
+     */
+    private long[] reserveIdentifiers(final Connection connection, final int count)
+            throws SQLException
+    {
+        final long[] identifiers = new long[count];
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_FLAG_IDS_SQL))
+        {
+            statement.setInt(1, count);
+            try (ResultSet resultSet = statement.executeQuery())
+            {
+                for (int index = 0; index < count && resultSet.next(); index++)
+                {
+                    identifiers[index] = resultSet.getLong(1);
+                }
+            }
+        }
+        return identifiers;
+    }
+
+    private void submit(final File file, final List<String> lines)
+    {
+        this.pendingChunks.acquireUninterruptibly();
+        try
+        {
+            this.loaders.execute(() ->
+            {
+                try
+                {
+                    this.copy(file, lines);
+                }
+                finally
+                {
+                    this.pendingChunks.release();
+                }
+            });
+        }
+        catch (final RejectedExecutionException error)
+        {
+            this.pendingChunks.release();
+            throw error;
+        }
+    }
+}
@@ -57,6 +57,8 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
     private static final String DATABASE_URL_INPUT = "database_url";
     private static final String RUN_URI_INPUT = "run_uri";
     private static final String SOFTWARE_VERSION_INPUT = "software_version";
+    private static final String BULK_LOAD_INPUT = "bulk_load";
+    private static final String LOADER_THREADS_INPUT = "loader_threads";
     private static final String ISO_COUNTRY_CODE = "iso_country_code";
     private static final String OSM_ID_LEGACY = "osmid";
     private static final String CREATE_FLAG_SQL = "INSERT INTO flag(flag_id, check_name, instructions, run_uri, software_version, date_created) VALUES (?,?,?,?,?,?);";
@@ -124,10 +126,7 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
             sql.setString(2, feature.get("geometry").toString());
             sql.setLong(THREE, this.getOsmIdentifier(properties));
             sql.setLong(FOUR, properties.get("identifier").getAsLong());
-            sql.setString(FIVE,
-                    properties.has(ISO_COUNTRY_CODE)
-                            ? properties.get(ISO_COUNTRY_CODE).getAsString()
-                            : "NA");
+            sql.setString(FIVE, this.getIsoCountryCode(properties));
             sql.setObject(SIX, this.getTags(properties));
             sql.setString(SEVEN, properties.get("itemType").getAsString());
             sql.setObject(EIGHT, this.timestamp);
@@ -141,6 +140,21 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
 
     }
 
+    /***
+     * Create the primary keys, foreign keys and indexes of the tables from constraints.sql resource
+     * file. Constraints already in place are left as they are.
+     *
+     * @param connection
+     *            jdbc Connection object
+     * @param schemaName
+     *            Name of database schema
+     */
+    public void createDatabaseConstraints(final Connection connection, final String schemaName)
+    {
+        this.executeScript(connection, schemaName, "constraints.sql");
+        logger.info("Successfully created database constraints and indexes.");
+    }
+
     /***
      * Create database schema from schema.sql resource file.
      *
@@ -151,27 +165,8 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
      */
     public void createDatabaseSchema(final Connection connection, final String schemaName)
     {
-        final BufferedReader reader = new BufferedReader(
-                new InputStreamReader(DatabaseConnection.class.getResourceAsStream("schema.sql")));
-        final LineNumberReader lnReader = new LineNumberReader(reader);
-        try (Statement sql = connection.createStatement())
-        {
-            final String query = ScriptUtils
-                    .readScript(lnReader, ScriptUtils.DEFAULT_COMMENT_PREFIX,
-                            ScriptUtils.DEFAULT_STATEMENT_SEPARATOR)
-                    .replace("{schema}", schemaName);
-
-            sql.execute(query);
-            logger.info("Successfully created database schema.");
-        }
-        catch (final IOException error)
-        {
-            throw new CoreException("Error reading schema.sql", error);
-        }
-        catch (final SQLException error)
-        {
-            throw new CoreException("Error executing create schema script.", error);
-        }
+        this.executeScript(connection, schemaName, "schema.sql");
+        logger.info("Successfully created database schema.");
     }
 
     @Override
@@ -188,34 +183,21 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
             this.timestamp = new Timestamp(Instant.now().toEpochMilli());
             this.createDatabaseSchema(databaseConnection, database.getSchema());
 
-            new File(inputPath).listFilesRecursively().forEach(file ->
+            if (this.optionAndArgumentDelegate.hasOption(BULK_LOAD_INPUT))
             {
-                // If this file is something we handle, read and upload the tasks contained within
-                final Optional<LogOutputFileType> optionalHandledFileType = FileUtility
-                        .getOptionalLogOutputType(file);
-                optionalHandledFileType.ifPresent(logOutputFileType ->
+                if (!this.bulkLoad(database, databaseConnection, inputPath))
                 {
-
-                    try (BufferedReader reader = FileUtility.getReader(file, logOutputFileType);
-                            PreparedStatement flagSqlStatement = databaseConnection
-                                    .prepareStatement(CREATE_FLAG_SQL,
-                                            Statement.RETURN_GENERATED_KEYS);
-                            PreparedStatement featureSqlStatement = databaseConnection
-                                    .prepareStatement(CREATE_FEATURE_SQL))
-                    {
-                        final List<String> lines = reader.lines().collect(Collectors.toList());
-                        this.processCheckFlags(lines, flagSqlStatement, featureSqlStatement);
-                    }
-                    catch (final IOException error)
-                    {
-                        logger.error("Exception while reading {}:", file, error);
-                    }
-                    catch (final SQLException error)
-                    {
-                        logger.error("Exception batch executing flag statements", error);
-                    }
-                });
-            });
+                    logger.error("Atlas Checks database upload failed to load some flags.");
+                    return 1;
+                }
+            }
+            else
+            {
+            else
+            {
+                this.createDatabaseConstraints(databaseConnection, database.getSchema());
+                this.insert(databaseConnection, inputPath);
+            }
         }
         catch (final SQLException error)
         {
@@ -240,14 +222,11 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
     {
         try
         {
-            sql.setString(1, flag.getUniqueIdentifiers().stream().sorted().map(String::toString)
-                    .collect(Collectors.joining(",")));
+            sql.setString(1, this.getFlagIdentifier(flag));
             sql.setString(2, flag.getChallengeName().orElse(""));
-            sql.setString(THREE, flag.getInstructions().replace("\n", " ").replace("'", "''"));
-            sql.setString(FOUR, this.optionAndArgumentDelegate.getOptionArgument(RUN_URI_INPUT)
-                    .orElse(EMPTY_STRING));
-            sql.setString(FIVE, this.optionAndArgumentDelegate
-                    .getOptionArgument(SOFTWARE_VERSION_INPUT).orElse(EMPTY_STRING));
+            sql.setString(THREE, this.getInstructions(flag));
+            sql.setString(FOUR, this.getRunUri());
+            sql.setString(FIVE, this.getSoftwareVersion());
             sql.setObject(SIX, this.timestamp);
 
             sql.executeUpdate();
@@ -264,6 +243,38 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
         return "flag-database";
     }
 
+    /**
+     * @param flag
+     *            a CheckFlag
+     * @return the flag record identifier, made of the sorted unique identifiers of the flag
+     */
+    String getFlagIdentifier(final CheckFlag flag)
+    {
+        return flag.getUniqueIdentifiers().stream().sorted().map(String::toString)
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * @param flag
+     *            a CheckFlag
+     * @return the instructions of the flag, on a single line
+     */
+    String getInstructions(final CheckFlag flag)
+    {
+        return flag.getInstructions().replace("\n", " ").replace("'", "''");
+    }
+
+    /**
+     * @param properties
+     *            CheckFlag feature properties
+     * @return the ISO country code of the feature, or NA
+     */
+    String getIsoCountryCode(final JsonObject properties)
+    {
+        return properties.has(ISO_COUNTRY_CODE) ? properties.get(ISO_COUNTRY_CODE).getAsString()
+                : "NA";
+    }
+
     /**
      * Returns the OSM identifier for a given JsonObject. Atlas Checks OSM identifier changed from
      * "osmid" to "osmIdentifier"
@@ -279,12 +290,30 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
                 : properties.get(OSM_ID_LEGACY).getAsLong();
     }
 
+    /**
+     * @return the flag generation URI, or an empty string
+     */
+    String getRunUri()
+    {
+        return this.optionAndArgumentDelegate.getOptionArgument(RUN_URI_INPUT)
+                .orElse(EMPTY_STRING);
+    }
+
     @Override
     public String getSimpleDescription()
     {
         return "Upload Atlas Checks flags into a Postgres database";
     }
 
+    /**
+     * @return the version of the software that generated the flags, or an empty string
+     */
+    String getSoftwareVersion()
+    {
+        return this.optionAndArgumentDelegate.getOptionArgument(SOFTWARE_VERSION_INPUT)
+                .orElse(EMPTY_STRING);
+    }
+
     /**
      * Filters non OSM tag in CheckFlag properties and converts into Map object for PostgreSQL
      * hstore
@@ -304,6 +333,14 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
         return hstore;
     }
 
+    /**
+     * @return the creation time of the records
+     */
+    Timestamp getTimestamp()
+    {
+        return this.timestamp;
+    }
+
     /**
      * This function handles parsing each CheckFlag, and batching flag features into the database
      *
@@ -325,7 +362,7 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
                 final JsonObject parsedFlag = new JsonParser().parse(line).getAsJsonObject();
                 final JsonArray features = this
                         .filterOutPointsFromGeojson(parsedFlag.get(FEATURES).getAsJsonArray());
-                final CheckFlag flag = gson.fromJson(line, CheckFlag.class);
+                final CheckFlag flag = gson.fromJson(parsedFlag, CheckFlag.class);
                 final int flagRecordId;
 
                 // First check if the number of features in our batch is less than the maximum
@@ -378,7 +415,7 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
     public void registerOptionsAndArguments()
     {
         this.registerOptionWithRequiredArgument(FLAG_PATH_INPUT, 'f',
-                "A directory of folders containing atlas-checks log files.",
+                "A directory of folders containing atlas-checks log files or flag packs.",
                 OptionOptionality.REQUIRED, FLAG_PATH_INPUT);
         this.registerOptionWithRequiredArgument(DATABASE_URL_INPUT, 't',
                 "Database connection string", OptionOptionality.REQUIRED, DATABASE_URL_INPUT);
@@ -387,6 +424,12 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
         this.registerOptionWithRequiredArgument(SOFTWARE_VERSION_INPUT, 'v',
                 "Version of the software that generated the flags.", OptionOptionality.OPTIONAL,
                 SOFTWARE_VERSION_INPUT);
+        this.registerOption(BULK_LOAD_INPUT, 'b',
+                "Stream the flags into the database with COPY, on parallel loader threads, and create constraints and indexes once loaded.",
+                OptionOptionality.OPTIONAL);
+        this.registerOptionWithRequiredArgument(LOADER_THREADS_INPUT, 'l',
+                "Number of loader threads, and database connections, of a bulk load. Defaults to the number of processors.",
+                OptionOptionality.OPTIONAL, LOADER_THREADS_INPUT);
         super.registerOptionsAndArguments();
     }
 
@@ -397,7 +440,7 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
      *            a {@link JsonArray} of geojson features
      * @return a JsonArray containing all Check flag features
      */
-    private JsonArray filterOutPointsFromGeojson(final JsonArray features)
+    JsonArray filterOutPointsFromGeojson(final JsonArray features)
     {
         return StreamSupport.stream(features.spliterator(), false).map(JsonElement::getAsJsonObject)
                 .filter(feature -> feature.has(PROPERTIES)
@@ -406,4 +449,113 @@ public class FlagDatabaseSubCommand extends AbstractAtlasShellToolsCommand
                                 .has(SyntheticHighlightPointTag.KEY))
                 .collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
     }
+
+    /**
+     * Streams all the flags of the input path into the database with a {@link FlagCopyLoader},
+     * then creates the constraints and indexes, so that they are built once rather than updated
+     * for every record.
+     *
+     * @param database
+     *            the database to load the flags into
+     * @param connection
+     *            jdbc Connection object, used for the constraints
+     * @param inputPath
+     *            path of the flag files
+     * @return true if all the flags were loaded
+     * @throws SQLException
+     *             if a loader connection fails
+     */
+    private boolean bulkLoad(final DatabaseConnection database, final Connection connection,
+            final String inputPath) throws SQLException
+    {
+        final boolean loaded;
+        final int threads = this.optionAndArgumentDelegate.getOptionArgument(LOADER_THREADS_INPUT)
+                .map(Integer::parseInt).orElse(Runtime.getRuntime().availableProcessors());
+        try (FlagCopyLoader loader = new FlagCopyLoader(database, threads, this))
+        {
+            new File(inputPath).listFilesRecursively()
+                    .forEach(file -> FileUtility.getOptionalLogOutputType(file)
+                            .ifPresent(logOutputFileType -> loader.load(file, logOutputFileType)));
+            loader.close();
+            loaded = !loader.hasFailures();
+        }
+        // Failed chunks are rolled back, so the loaded flags are consistent either way
+        this.createDatabaseConstraints(connection, database.getSchema());
+        return loaded;
+    }
+
+    /**
+     * Execute a sql script resource file in a database schema
+     *
+     * @param connection
+     *            jdbc Connection object
+     * @param schemaName
+     *            Name of database schema
+     * @param script
+     *            name of the script resource
+     */
+    private void executeScript(final Connection connection, final String schemaName,
+            final String script)
+    {
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(DatabaseConnection.class.getResourceAsStream(script)));
+        final LineNumberReader lnReader = new LineNumberReader(reader);
+        try (Statement sql = connection.createStatement())
+        {
+            final String query = ScriptUtils
+                    .readScript(lnReader, ScriptUtils.DEFAULT_COMMENT_PREFIX,
+                            ScriptUtils.DEFAULT_STATEMENT_SEPARATOR)
+                    .replace("{schema}", schemaName);
+
+            sql.execute(query);
+        }
+        catch (final IOException error)
+        {
+            throw new CoreException("Error reading {}", script, error);
+        }
+        catch (final SQLException error)
+        {
+            throw new CoreException("Error executing {} script.", script, error);
+        }
+    }
+
+    /**
+     * Inserts the flags of the input path into the database, one flag at a time
+     *
+     * @param connection
+     *            jdbc Connection object
+     * @param inputPath
+     *            path of the flag files
+     */
+    private void insert(final Connection connection, final String inputPath)
+    {
+        new File(inputPath).listFilesRecursively().forEach(file ->
+        {
+            // If this file is something we handle, read and upload the tasks contained within
+            final Optional<LogOutputFileType> optionalHandledFileType = FileUtility
+                    .getOptionalLogOutputType(file);
+            optionalHandledFileType.ifPresent(logOutputFileType ->
+            {
+
+                try (BufferedReader reader = FileUtility.getReader(file, logOutputFileType);
+                        PreparedStatement flagSqlStatement = connection
+                                .prepareStatement(CREATE_FLAG_SQL,
+                                        Statement.RETURN_GENERATED_KEYS);
+                        PreparedStatement featureSqlStatement = connection
+                                .prepareStatement(CREATE_FEATURE_SQL))
+                {
+                    final List<String> lines = reader.lines().collect(Collectors.toList());
+                    this.processCheckFlags(lines, flagSqlStatement, featureSqlStatement);
+                }
+                catch (final IOException error)
+                {
+                    logger.error("Exception while reading {}:", file, error);
+                }
+                catch (final SQLException error)
+                {
+                    logger.error("Exception batch executing flag statements", error);
+                }
+            });
+        });
+    }
 }
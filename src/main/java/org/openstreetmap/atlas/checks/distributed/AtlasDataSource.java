@@ -1,18 +1,30 @@
 package org.openstreetmap.atlas.checks.distributed;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.locationtech.jts.geom.Polygon;
 import org.openstreetmap.atlas.checks.atlas.CountrySpecificAtlasFilePathFilter;
 import org.openstreetmap.atlas.checks.atlas.OsmPbfFilePathFilter;
+import org.openstreetmap.atlas.exception.CoreException;
 import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.geography.MultiPolygon;
 import org.openstreetmap.atlas.geography.Rectangle;
@@ -22,8 +34,10 @@ import org.openstreetmap.atlas.geography.atlas.multi.MultiAtlas;
 import org.openstreetmap.atlas.geography.atlas.pbf.AtlasLoadingOption;
 import org.openstreetmap.atlas.geography.atlas.raw.creation.RawAtlasGenerator;
 import org.openstreetmap.atlas.geography.atlas.raw.sectioning.AtlasSectionProcessor;
+import org.openstreetmap.atlas.geography.atlas.sub.AtlasCutType;
 import org.openstreetmap.atlas.geography.boundary.CountryBoundaryMap;
 import org.openstreetmap.atlas.geography.converters.jts.JtsMultiPolygonConverter;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
 import org.openstreetmap.atlas.streaming.resource.FileSuffix;
 import org.openstreetmap.atlas.streaming.resource.Resource;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
@@ -40,11 +54,15 @@ import org.slf4j.LoggerFactory;
 public class AtlasDataSource implements Serializable, AutoCloseable
 {
     private static final long serialVersionUID = -6407331424906155431L;
+    // Shard name in a data file name, like ABC_9-168-233.atlas or 9-168-233.pbf
+    private static final Pattern SHARD_NAME = Pattern
+            .compile("(?:^|_)(\\d{1,2}-\\d+-\\d+)\\.");
     private Atlas atlas = null;
     private transient Logger logger = null;
     private final SparkFileHelper loadHelper;
     private final AtlasFilePathResolver pathResolver;
     private final MultiPolygon polygon;
+    private final Map<String, String> sparkContext;
 
     /**
      * Constructs a basic {@link AtlasDataSource}
@@ -77,6 +95,7 @@ public class AtlasDataSource implements Serializable, AutoCloseable
         this.loadHelper = new SparkFileHelper(sparkContext);
         this.pathResolver = new AtlasFilePathResolver(configuration);
         this.polygon = polygon;
+        this.sparkContext = new HashMap<>(sparkContext);
     }
 
     /**
@@ -96,6 +115,18 @@ public class AtlasDataSource implements Serializable, AutoCloseable
         this(sparkContext, configuration, MultiPolygon.forPolygon(boundingBox));
     }
 
+    /**
+     * @param dataSource
+     *            a data file
+     * @return the shard the data file is named after, if any
+     */
+    private static Optional<SlippyTile> shard(final Resource dataSource)
+    {
+        final Matcher matcher = SHARD_NAME.matcher(dataSource.getName());
+        return matcher.find() ? Optional.of(SlippyTile.forName(matcher.group(1)))
+                : Optional.empty();
+    }
+
     @Override
     public void close() throws Exception
     {
@@ -107,6 +138,24 @@ public class AtlasDataSource implements Serializable, AutoCloseable
         return this.atlas;
     }
 
+    /**
+     * Gets the size of the data files of a country, to tell whether the country is worth splitting
+     * in tiles
+     *
+     * @param input
+     *            location of the {@link Atlas} source
+     * @param country
+     *            country of the {@link Atlas}
+     * @return the total size in bytes of the {@link Atlas} and Osm Protobuf files found
+     */
+    public long inputSize(final String input, final String country)
+    {
+        // Data files in the input itself come first, as when loading
+        final long inputFileSize = this.dataFileSize(input, country, false);
+        return inputFileSize > 0 ? inputFileSize
+                : this.dataFileSize(this.pathResolver.resolvePath(input, country), country, true);
+    }
+
     /**
      * Loads an {@link Atlas} from the input location
      *
@@ -154,7 +203,7 @@ public class AtlasDataSource implements Serializable, AutoCloseable
             else if (FileSuffix.resourceFilter(FileSuffix.PBF).test(dataSource))
             {
                 this.getLogger().info("Loading Atlas from OSM protobuf {}", input);
-                this.atlas = this.loadPbf(dataSource, country);
+                this.atlas = this.loadPbf(dataSource, country, this.polygon);
                 intermediateAtlasHandler.accept(this.atlas);
             }
         }
@@ -177,7 +226,7 @@ public class AtlasDataSource implements Serializable, AutoCloseable
                     this.getLogger().info("Loading Atlas from {} OSM protobuf(s) found in {}",
                             pbfCount, input);
                     final List<Atlas> atlases = pbfResources.parallelStream()
-                            .map(dataSource -> this.loadPbf(dataSource, country))
+                            .map(dataSource -> this.loadPbf(dataSource, country, this.polygon))
                             .collect(Collectors.toList());
                     this.atlas = new MultiAtlas(atlases);
                 }
@@ -186,11 +235,145 @@ public class AtlasDataSource implements Serializable, AutoCloseable
         return this.atlas;
     }
 
+    /**
+     * Loads the part of an {@link Atlas} within some bounds from the input location. Osm Protobuf
+     * files are only loaded within the bounds, and the data files named after a shard are skipped
+     * when the shard does not overlap the bounds. The {@link Atlas} files left are cut to the
+     * bounds one at a time, so that only one {@link Atlas} file is in memory at once.
+     *
+     * @param input
+     *            location of the {@link Atlas} source
+     * @param country
+     *            country of the {@link Atlas}
+     * @param bounds
+     *            the {@link Rectangle} to load the {@link Atlas} within
+     * @return {@link Atlas} representation of the data source within the bounds, or null if there
+     *         is no data there
+     */
+    public Atlas load(final String input, final String country, final Rectangle bounds)
+    {
+        final List<Atlas> atlases = new ArrayList<>();
+        for (final Resource dataSource : this.sourceFiles(input, country))
+        {
+            final Optional<SlippyTile> shard = shard(dataSource);
+            if (shard.isPresent() && !shard.get().bounds().overlaps(bounds))
+            {
+                continue;
+            }
+            if (AtlasResourceLoader.HAS_ATLAS_EXTENSION.test(dataSource))
+            {
+                new AtlasResourceLoader().load(dataSource)
+                        .subAtlas(bounds, AtlasCutType.SOFT_CUT).ifPresent(atlases::add);
+            }
+            else
+            {
+                atlases.add(this.loadPbf(dataSource, country, MultiPolygon.forPolygon(bounds)));
+            }
+        }
+        this.atlas = atlases.isEmpty() ? null
+                : atlases.size() == 1 ? atlases.get(0) : new MultiAtlas(atlases);
+        return this.atlas;
+    }
+
     public void setAtlas(final Atlas atlas)
     {
         this.atlas = atlas;
     }
 
+    /**
+     * Finds the {@link SlippyTile}s covering the data of a country, to split it in tasks. The tiles
+     * come from the shards the data files are named after, like {@code ABC_9-168-233.atlas}, or
+     * else, for Osm Protobuf files, from the boundary of this data source, without loading any
+     * data. {@link Atlas} files not named after a shard, such as a single {@link Atlas} file for a
+     * whole country, are split from their bounds, so they are loaded once here. Each task then cuts
+     * its buffered tile out of them (see {@link #load(String, String, Rectangle)}). Osm Protobuf
+     * files without a boundary cannot be split.
+     *
+     * @param input
+     *            location of the {@link Atlas} source
+     * @param country
+     *            country of the {@link Atlas}
+     * @param zoom
+     *            the zoom of the {@link SlippyTile}s
+     * @return the {@link SlippyTile}s covering the data of the country, sorted by name, or empty if
+     *         the data files of the country cannot be split in tiles
+     */
+    public Optional<List<SlippyTile>> tiles(final String input, final String country,
+            final int zoom)
+    {
+        final Set<SlippyTile> tiles = new HashSet<>();
+        final Rectangle boundary = this.polygon.bounds();
+        for (final Resource dataSource : this.sourceFiles(input, country))
+        {
+            final Optional<SlippyTile> shard = shard(dataSource);
+            if (shard.isPresent())
+            {
+                final Rectangle shardBounds = shard.get().bounds();
+                // Tiles touching the shard along its edges hold none of its data
+                for (final SlippyTile tile : SlippyTile.allTiles(zoom, shardBounds))
+                {
+                    if (shardBounds.fullyGeometricallyEncloses(tile.bounds().center())
+                            || tile.bounds().fullyGeometricallyEncloses(shardBounds.center()))
+                    {
+                        tiles.add(tile);
+                    }
+                }
+            }
+            else if (AtlasResourceLoader.HAS_ATLAS_EXTENSION.test(dataSource))
+            {
+                final Rectangle atlasBounds = new AtlasResourceLoader().load(dataSource).bounds();
+                SlippyTile.allTiles(zoom, atlasBounds).forEach(tiles::add);
+            }
+            else if (!Rectangle.MAXIMUM.equals(boundary))
+            {
+                SlippyTile.allTiles(zoom, boundary).forEach(tiles::add);
+            }
+            else
+            {
+                this.getLogger().info(
+                        "{} is not named after a shard and has no boundary to be split in tiles",
+                        dataSource.getName());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(tiles.stream().sorted(Comparator.comparing(SlippyTile::getName))
+                .collect(Collectors.toList()));
+    }
+
+    private long dataFileSize(final String location, final String country,
+            final boolean recursive)
+    {
+        final PathFilter pbfFilter = new OsmPbfFilePathFilter();
+        final PathFilter atlasFilter = new CountrySpecificAtlasFilePathFilter(country);
+        final org.apache.hadoop.conf.Configuration hadoopConfiguration = new org.apache.hadoop.conf.Configuration();
+        this.sparkContext.forEach(hadoopConfiguration::set);
+        final Path path = new Path(location);
+        long size = 0;
+        try
+        {
+            final FileSystem fileSystem = path.getFileSystem(hadoopConfiguration);
+            if (!fileSystem.exists(path))
+            {
+                return 0;
+            }
+            final RemoteIterator<LocatedFileStatus> files = fileSystem.listFiles(path, recursive);
+            while (files.hasNext())
+            {
+                final LocatedFileStatus file = files.next();
+                if (pbfFilter.accept(file.getPath()) || atlasFilter.accept(file.getPath()))
+                {
+                    size += file.getLen();
+                }
+            }
+        }
+        catch (final IOException error)
+        {
+            throw new CoreException("Unable to list the data files of {} in {}", country,
+                    location, error);
+        }
+        return size;
+    }
+
     /**
      * Checks if logger is null, then sets and return the logger value.
      *
@@ -205,15 +388,39 @@ public class AtlasDataSource implements Serializable, AutoCloseable
         return this.logger;
     }
 
-    private Atlas loadPbf(final Resource input, final String country)
+    private Atlas loadPbf(final Resource input, final String country,
+            final MultiPolygon boundary)
     {
         // Setting the CountryBoundaryMap to the polygon boundary
         final List<Polygon> boundaries = new ArrayList<>(
-                new JtsMultiPolygonConverter().convert(this.polygon));
+                new JtsMultiPolygonConverter().convert(boundary));
         final CountryBoundaryMap map = CountryBoundaryMap
                 .fromBoundaryMap(Collections.singletonMap(country, boundaries));
         final AtlasLoadingOption option = AtlasLoadingOption.createOptionWithAllEnabled(map);
-        final Atlas raw = new RawAtlasGenerator(input, option, this.polygon).build();
+        final Atlas raw = new RawAtlasGenerator(input, option, boundary).build();
         return new AtlasSectionProcessor(raw, option).run();
     }
+
+    /**
+     * Finds the data files of a country the same way {@link #load(String, String, Consumer)} does:
+     * a single data file in the input itself, or else the {@link Atlas} files in the country
+     * directory, or else its Osm Protobuf files
+     */
+    private List<Resource> sourceFiles(final String input, final String country)
+    {
+        final PathFilter pbfFilter = new OsmPbfFilePathFilter();
+        final PathFilter atlasFilter = new CountrySpecificAtlasFilePathFilter(country);
+        final Optional<Resource> resource = this.loadHelper.collectSourceFile(input, pbfFilter,
+                atlasFilter);
+        if (resource.isPresent())
+        {
+            return Collections.singletonList(resource.get());
+        }
+        final String directory = this.pathResolver.resolvePath(input, country);
+        final List<Resource> atlasResources = this.loadHelper.collectSourceFiles(directory, true,
+                atlasFilter);
+        return atlasResources.isEmpty()
+                ? this.loadHelper.collectSourceFiles(directory, true, pbfFilter)
+                : atlasResources;
+    }
 }
@@ -0,0 +1,147 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openstreetmap.atlas.checks.base.CheckProfile;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The time budget of a single run of a {@link org.openstreetmap.atlas.checks.base.Check}, over a
+ * shard, a tile or a country. Checks are stopped cooperatively: the runner asks
+ * {@link #isExceeded()} between objects and stops iterating once the budget is exceeded, keeping
+ * the flags found so far. A check stuck on a single object is not interrupted.
+ * <p>
+ * Once {@link #start()}ed, a watchdog thread shared by all budgets marks the budget exceeded when
+ * its wall clock time runs out. Checks run together in a single thread, as in
+ * {@link FusedRunnableCheck}, are not started and {@link #charge(long)} the time they spend
+ * instead.
+ *
+ * @author agent
+ */
+public final class CheckBudget
+{
+    private static final Logger logger = LoggerFactory.getLogger(CheckBudget.class);
+    private static final ScheduledExecutorService WATCHDOG = Executors
+            .newSingleThreadScheduledExecutor(runnable ->
+            {
+                final Thread thread = new Thread(runnable, "Check Budget Watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final String name;
+    private final Duration budget;
+    private final long budgetNanoseconds;
+    private volatile AtlasObject lastObject = null;
+    private volatile boolean exceeded = false;
+    private long chargedNanoseconds = 0;
+    private boolean stopped = false;
+    private ScheduledFuture<?> alarm = null;
+
+    /**
+     * Default constructor
+     *
+     * @param name
+     *            name of the check run, for logging
+     * @param budget
+     *            the {@link Duration} the check run can take
+     */
+    public CheckBudget(final String name, final Duration budget)
+    {
+        this.name = name;
+        this.budget = budget;
+        this.budgetNanoseconds = TimeUnit.MILLISECONDS.toNanos(budget.asMilliseconds());
+    }
+
+    /**
+     * Charges time spent in the check, exceeding the budget once it is all spent
+     *
+     * @param nanoseconds
+     *            time spent, in nanoseconds
+     */
+    public void charge(final long nanoseconds)
+    {
+        this.chargedNanoseconds += nanoseconds;
+        if (!this.exceeded && this.chargedNanoseconds > this.budgetNanoseconds)
+        {
+            this.exceed();
+        }
+    }
+
+    /**
+     * Records the object being checked, to tell which object the check was at when it went over
+     * its budget
+     *
+     * @param object
+     *            the {@link AtlasObject} being checked
+     */
+    public void checking(final AtlasObject object)
+    {
+        this.lastObject = object;
+    }
+
+    /**
+     * @return {@code true} if the check went over its budget and should stop
+     */
+    public boolean isExceeded()
+    {
+        return this.exceeded;
+    }
+
+    /**
+     * Starts the wall clock of the budget
+     */
+    public synchronized void start()
+    {
+        if (this.alarm == null && !this.stopped)
+        {
+            this.alarm = WATCHDOG.schedule(this::exceed, this.budget.asMilliseconds(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the wall clock of the budget, once the check run is over
+     *
+     * @return the identifier of the object the check was at when it went over its budget (empty
+     *         if it had not checked any), or nothing if it stayed within its budget
+     */
+    public synchronized Optional<String> stop()
+    {
+        this.stopped = true;
+        if (this.alarm != null)
+        {
+            this.alarm.cancel(false);
+        }
+        return this.exceeded ? Optional.of(this.lastObjectIdentifier()) : Optional.empty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s budget of %s", this.name, this.budget);
+    }
+
+    private synchronized void exceed()
+    {
+        if (!this.stopped && !this.exceeded)
+        {
+            this.exceeded = true;
+            logger.warn("{} went over its time budget of {} while checking {}, stopping it.",
+                    this.name, this.budget, this.lastObjectIdentifier());
+        }
+    }
+
+    private String lastObjectIdentifier()
+    {
+        final AtlasObject object = this.lastObject;
+        return object == null ? "" : CheckProfile.identifier(object);
+    }
+}
@@ -0,0 +1,348 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.AtlasResourceLoader;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.streaming.resource.Resource;
+
+/**
+ * Shard {@link Atlas}es loaded on an executor, shared by all the tasks running on it. Neighbouring
+ * shards load each other's atlases to expand their network, so without it the same atlas file is
+ * deserialized again by every task whose expansion reaches it. Atlases are keyed by country and
+ * {@link Shard}. The cache is bounded by the size of the atlas files it holds, and evicts the least
+ * recently used atlases first. Atlases are reference counted, so that the atlases a running task
+ * holds are never evicted: the cache may go over its bound while all its atlases are in use.
+ * <p>
+ * Tasks take atlases through a {@link Lease}, which releases them all once closed.
+ *
+ * @author agent
+ */
+public final class ExecutorAtlasCache
+{
+    // Part of the maximum heap given to atlas files, which take a few times their size once loaded
+    private static final int HEAP_FRACTION = 8;
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static ExecutorAtlasCache executorCache;
+
+    // Least recently used first
+    private final Map<Key, CachedAtlas> atlases = new LinkedHashMap<>(INITIAL_CAPACITY,
+            LOAD_FACTOR, true);
+    private final long maximumBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Identifies the atlas of a {@link Shard} of a country
+     */
+    private static final class Key
+    {
+        private final String country;
+        private final String shardName;
+
+        Key(final String country, final Shard shard)
+        {
+            this.country = country;
+            this.shardName = shard.getName();
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof Key))
+            {
+                return false;
+            }
+            final Key that = (Key) other;
+            return this.country.equals(that.country) && this.shardName.equals(that.shardName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.country, this.shardName);
+        }
+    }
+
+    /**
+     * An atlas, loaded by the first task to ask for it, while the others wait
+     */
+    private static final class CachedAtlas
+    {
+        private int references;
+        private volatile boolean loaded;
+        private Optional<Atlas> atlas = Optional.empty();
+        private long bytes;
+
+        /**
+         * @return {@code true} if this call loaded the atlas
+         */
+        synchronized boolean load(final Supplier<Optional<Resource>> resources)
+        {
+            if (this.loaded)
+            {
+                return false;
+            }
+            final Optional<Resource> resource = resources.get();
+            this.atlas = resource.map(new AtlasResourceLoader()::load);
+            this.bytes = resource.map(Resource::length).orElse(0L);
+            this.loaded = true;
+            return true;
+        }
+    }
+
+    /**
+     * The atlases taken by a task. It fetches the atlases of the {@link Shard}s of a country from
+     * the executor's cache, loading the ones missing, and releases them all once closed.
+     */
+    public static final class Lease implements Function<Shard, Optional<Atlas>>, Closeable
+    {
+        private final ExecutorAtlasCache cache;
+        private final String country;
+        private final Function<Shard, Optional<Resource>> resources;
+        private final Queue<CachedAtlas> taken = new ConcurrentLinkedQueue<>();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        Lease(final ExecutorAtlasCache cache, final String country,
+                final Function<Shard, Optional<Resource>> resources)
+        {
+            this.cache = cache;
+            this.country = country;
+            this.resources = resources;
+        }
+
+        @Override
+        public Optional<Atlas> apply(final Shard shard)
+        {
+            final CachedAtlas cached = this.cache.acquire(new Key(this.country, shard),
+                    () -> this.resources.apply(shard), this);
+            this.taken.add(cached);
+            return cached.atlas;
+        }
+
+        /**
+         * Releases all the atlases taken, so that they can be evicted
+         */
+        @Override
+        public void close()
+        {
+            CachedAtlas cached = this.taken.poll();
+            while (cached != null)
+            {
+                this.cache.release(cached);
+                cached = this.taken.poll();
+            }
+        }
+
+        /**
+         * @return the number of atlases taken that were already cached
+         */
+        public long hitCount()
+        {
+            return this.hits.get();
+        }
+
+        /**
+         * @return the number of atlases taken that had to be loaded
+         */
+        public long missCount()
+        {
+            return this.misses.get();
+        }
+    }
+
+    /**
+     * @param maximumMegabytes
+     *            size of the atlas files held before evicting atlases, or empty for an eighth of
+     *            the maximum heap. Only the first call of an executor sets it.
+     * @return the cache of this executor, created if needed
+     */
+    public static synchronized ExecutorAtlasCache forExecutor(
+            final Optional<Long> maximumMegabytes)
+    {
+        if (executorCache == null)
+        {
+            executorCache = new ExecutorAtlasCache(
+                    maximumMegabytes.map(megabytes -> megabytes * BYTES_PER_MEGABYTE)
+                            .orElse(Runtime.getRuntime().maxMemory() / HEAP_FRACTION));
+        }
+        return executorCache;
+    }
+
+    /**
+     * Creates a cache not shared with the tasks of the executor
+     *
+     * @param maximumBytes
+     *            size of the atlas files held before evicting atlases
+     */
+    public ExecutorAtlasCache(final long maximumBytes)
+    {
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * @return the size of the atlas files of the atlases cached
+     */
+    public synchronized long bytes()
+    {
+        return this.bytes;
+    }
+
+    /**
+     * @return the number of atlases evicted to make room for others
+     */
+    public synchronized long evictionCount()
+    {
+        return this.evictions;
+    }
+
+    /**
+     * @return the number of times an atlas was asked for and was cached
+     */
+    public synchronized long hitCount()
+    {
+        return this.hits;
+    }
+
+    /**
+     * Starts taking atlases of a country
+     *
+     * @param country
+     *            the country ISO code
+     * @param resources
+     *            gets the atlas file of a {@link Shard} of the country, if it has one
+     * @return a {@link Lease} to close once the atlases it took are not needed anymore
+     */
+    public Lease lease(final String country, final Function<Shard, Optional<Resource>> resources)
+    {
+        return new Lease(this, country, resources);
+    }
+
+    /**
+     * @return the number of times an atlas was asked for and was not cached
+     */
+    public synchronized long missCount()
+    {
+        return this.misses;
+    }
+
+    /**
+     * @return the number of atlases cached
+     */
+    public synchronized int size()
+    {
+        return this.atlases.size();
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        final long requests = this.hits + this.misses;
+        return String.format(
+                "%s atlases (%s MB), %s hits, %s misses (%.1f%% hit rate), %s evictions",
+                this.atlases.size(), this.bytes / BYTES_PER_MEGABYTE, this.hits, this.misses,
+                requests == 0 ? 0.0 : this.hits * 100.0 / requests, this.evictions);
+    }
+
+    private CachedAtlas acquire(final Key key,
+            final Supplier<Optional<Resource>> resource, final Lease lease)
+    {
+        final CachedAtlas cached;
+        synchronized (this)
+        {
+            CachedAtlas existing = this.atlases.get(key);
+            if (existing == null)
+            {
+                existing = new CachedAtlas();
+                this.atlases.put(key, existing);
+                this.misses++;
+                lease.misses.incrementAndGet();
+            }
+            else
+            {
+                this.hits++;
+                lease.hits.incrementAndGet();
+            }
+            existing.references++;
+            cached = existing;
+        }
+
+        try
+        {
+            // Loaded outside of the cache lock, so that other atlases can be taken meanwhile
+            if (cached.load(resource))
+            {
+                synchronized (this)
+                {
+                    // A failed load of another task may have removed the atlas while this one
+                    // waited. Put it back, unless the atlas was taken again meanwhile, in which
+                    // case this one is only held by its tasks and is not counted.
+                    this.atlases.putIfAbsent(key, cached);
+                    if (this.atlases.get(key) == cached)
+                    {
+                        this.bytes += cached.bytes;
+                        this.evict();
+                    }
+                }
+            }
+            return cached;
+        }
+        catch (final RuntimeException e)
+        {
+            synchronized (this)
+            {
+                cached.references--;
+                if (!cached.loaded)
+                {
+                    this.atlases.remove(key, cached);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void evict()
+    {
+        final Iterator<CachedAtlas> iterator = this.atlases.values().iterator();
+        while (this.bytes > this.maximumBytes && iterator.hasNext())
+        {
+            final CachedAtlas cached = iterator.next();
+            if (cached.references == 0 && cached.loaded)
+            {
+                iterator.remove();
+                this.bytes -= cached.bytes;
+                this.evictions++;
+            }
+        }
+    }
+
+    private synchronized void release(final CachedAtlas cached)
+    {
+        if (cached.references > 0)
+        {
+            cached.references--;
+            this.evict();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.spark.HashPartitioner;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+
+import scala.Tuple2;
+
+/**
+ * Drops the flags found more than once, such as flags of features in the overlapping expansions of
+ * neighbouring {@link org.openstreetmap.atlas.geography.sharding.Shard}s, without shuffling the
+ * flags themselves. Flags are identified by a 128 bit hash of their check name and unique
+ * identifiers. Duplicates are first dropped within each partition. Then only the hashes, each with
+ * the partition holding it, are shuffled to pick the partition keeping each flag: the one of lowest
+ * index. The hashes of the flags each partition has to drop are then shuffled to the partition of
+ * the same index, which drops them, so that they never go through the driver.
+ *
+ * @author agent
+ */
+public final class FlagDeduplicator
+{
+    /**
+     * Drops the flags that other partitions hold too. Flags must be unique within each partition
+     * (see {@link #deduplicateWithinPartitions}), and as the flags are computed twice, the
+     * {@link JavaRDD} is best persisted.
+     *
+     * @param flags
+     *            flags, unique within each partition
+     * @return flags unique across partitions, in the same partitions
+     */
+    public static JavaRDD<UniqueCheckFlagContainer> deduplicateAcrossPartitions(
+            final JavaRDD<UniqueCheckFlagContainer> flags)
+    {
+        // Only hashes and partition indices are shuffled
+        final JavaPairRDD<Integer, Tuple2<Long, Long>> duplicates = flags
+                .mapPartitionsWithIndex((partition, iterator) -> stream(iterator)
+                        .map(flag -> new Tuple2<>(key(flag), partition)).iterator(), false)
+                .mapToPair(keyAndPartition -> keyAndPartition).groupByKey()
+                .flatMapToPair(keyAndPartitions -> duplicatePartitions(keyAndPartitions._1(),
+                        keyAndPartitions._2()).iterator())
+                // Integer keys hash to themselves, so each partition of the duplicates has the
+                // hashes of the flags to drop from the partition of the same index
+                .partitionBy(new HashPartitioner(flags.getNumPartitions()));
+
+        return flags.zipPartitions(duplicates.values(), (iterator, duplicatesIterator) ->
+        {
+            if (!duplicatesIterator.hasNext())
+            {
+                return iterator;
+            }
+            final Set<Tuple2<Long, Long>> duplicatesInPartition = new HashSet<>();
+            duplicatesIterator.forEachRemaining(duplicatesInPartition::add);
+            return stream(iterator).filter(flag -> !duplicatesInPartition.contains(key(flag)))
+                    .iterator();
+        });
+    }
+
+    /**
+     * Drops the flags found more than once within each partition
+     *
+     * @param flags
+     *            flags
+     * @return flags unique within each partition, in the same partitions
+     */
+    public static JavaRDD<UniqueCheckFlagContainer> deduplicateWithinPartitions(
+            final JavaRDD<UniqueCheckFlagContainer> flags)
+    {
+        return flags.mapPartitions(iterator ->
+        {
+            final Set<Tuple2<Long, Long>> keys = new HashSet<>();
+            return stream(iterator).filter(flag -> keys.add(key(flag))).iterator();
+        }, true);
+    }
+
+    /**
+     * @param flag
+     *            a flag
+     * @return a 128 bit hash of the check name and unique identifiers of the flag, as two longs
+     */
+    public static Tuple2<Long, Long> key(final UniqueCheckFlagContainer flag)
+    {
+        final ByteBuffer hash = ByteBuffer.wrap(flag.hash().asBytes());
+        return new Tuple2<>(hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * @return the partitions that should drop a flag, all but the one of lowest index
+     */
+    private static List<Tuple2<Integer, Tuple2<Long, Long>>> duplicatePartitions(
+            final Tuple2<Long, Long> key, final Iterable<Integer> partitions)
+    {
+        final List<Integer> sortedPartitions = StreamSupport
+                .stream(partitions.spliterator(), false).sorted().collect(Collectors.toList());
+        final List<Tuple2<Integer, Tuple2<Long, Long>>> duplicates = new ArrayList<>();
+        for (final Integer partition : sortedPartitions.subList(1, sortedPartitions.size()))
+        {
+            duplicates.add(new Tuple2<>(partition, key));
+        }
+        return duplicates;
+    }
+
+    private static <T> Stream<T> stream(final Iterator<T> iterator)
+    {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, 0), false);
+    }
+
+    private FlagDeduplicator()
+    {
+    }
+}
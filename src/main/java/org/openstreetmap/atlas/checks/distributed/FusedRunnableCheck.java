@@ -0,0 +1,139 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.event.MetricEvent;
+import org.openstreetmap.atlas.checks.utility.ItemTypeUtilities;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a group of {@link RunnableCheck}s in a single pass. Each shared {@link AtlasObject} is read
+ * once and dispatched to every {@link Check} in the group that supports its {@link ItemType},
+ * instead of each {@link Check} walking the whole
+ * {@link org.openstreetmap.atlas.geography.atlas.Atlas} on its own. Objects specific to a single
+ * {@link Check} (like complex entities from its
+ * {@link org.openstreetmap.atlas.geography.atlas.items.complex.Finder}) are taken from each
+ * {@link RunnableCheck} afterwards. Flags and {@link MetricEvent}s are posted exactly as
+ * {@link RunnableCheck#run()} does, with each {@link MetricEvent} holding the time spent in that
+ * {@link Check} only. Time budgets are charged with that same time, so that a {@link Check} going
+ * over its budget stops without stopping the rest of the group.
+ *
+ * @author agent
+ */
+public final class FusedRunnableCheck implements Runnable
+{
+    private static final Logger logger = LoggerFactory.getLogger(FusedRunnableCheck.class);
+
+    private final List<RunnableCheck> runnableChecks;
+    private final Iterable<? extends AtlasObject> objects;
+
+    /**
+     * Default constructor
+     *
+     * @param runnableChecks
+     *            {@link RunnableCheck}s to run together, each holding only the objects specific to
+     *            its {@link Check}
+     * @param objects
+     *            {@link AtlasObject}s shared by all the {@link RunnableCheck}s
+     */
+    public FusedRunnableCheck(final List<RunnableCheck> runnableChecks,
+            final Iterable<? extends AtlasObject> objects)
+    {
+        this.runnableChecks = runnableChecks;
+        this.objects = objects;
+    }
+
+    @Override
+    public void run()
+    {
+        final int size = this.runnableChecks.size();
+        final long[] nanoseconds = new long[size];
+        final boolean[] failed = new boolean[size];
+        final List<Set<ItemType>> itemTypes = this.runnableChecks.stream()
+                .map(runnableCheck -> runnableCheck.getCheck().supportedItemTypes())
+                .collect(Collectors.toList());
+
+        // Single pass over the shared objects, each going only to the checks supporting its type
+        for (final AtlasObject object : this.objects)
+        {
+            for (int index = 0; index < size; index++)
+            {
+                if (!failed[index] && !this.runnableChecks.get(index).isOverBudget()
+                        && ItemTypeUtilities.isOfTypes(object, itemTypes.get(index)))
+                {
+                    failed[index] = !this.checkObject(index, object, nanoseconds);
+                }
+            }
+        }
+
+        // Objects specific to each check, then complete
+        for (int index = 0; index < size; index++)
+        {
+            final RunnableCheck runnableCheck = this.runnableChecks.get(index);
+            if (!failed[index])
+            {
+                for (final AtlasObject object : runnableCheck.getObjects())
+                {
+                    if (runnableCheck.isOverBudget())
+                    {
+                        break;
+                    }
+                    if (!this.checkObject(index, object, nanoseconds))
+                    {
+                        failed[index] = true;
+                        break;
+                    }
+                }
+            }
+            if (!failed[index])
+            {
+                try
+                {
+                    runnableCheck.complete(Duration.milliseconds(
+                            TimeUnit.NANOSECONDS.toMillis(nanoseconds[index])));
+                }
+                catch (final Exception e)
+                {
+                    logger.error(String.format("%s failed to complete.", runnableCheck.getName()),
+                            e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one {@link RunnableCheck} over an object, timing it
+     *
+     * @return {@code false} if the {@link RunnableCheck} failed and should not be run any more
+     */
+    private boolean checkObject(final int index, final AtlasObject object,
+            final long[] nanoseconds)
+    {
+        final RunnableCheck runnableCheck = this.runnableChecks.get(index);
+        final long start = System.nanoTime();
+        try
+        {
+            runnableCheck.checkObject(object);
+            return true;
+        }
+        catch (final Exception e)
+        {
+            logger.error(String.format("%s failed to complete.", runnableCheck.getName()), e);
+            return false;
+        }
+        finally
+        {
+            final long elapsed = System.nanoTime() - start;
+            nanoseconds[index] += elapsed;
+            runnableCheck.charge(elapsed);
+        }
+    }
+}
@@ -1,66 +1,132 @@
 package org.openstreetmap.atlas.checks.distributed;
 
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CHECK_BUDGET;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CHECK_FILTER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CONFIGURATION_FILES;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CONFIGURATION_JSON;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.COUNTRIES;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.EXTERNAL_DATA_INPUT;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.FUSED_EXECUTION;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_ATLAS_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FLAG_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FLAG_PACK_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FORMATS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_GEOJSON_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_METRIC_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_TIPPECANOE_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PARALLEL_CHECK_OBJECTS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PARALLEL_COMPRESSION;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PROFILE_CHECKS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.checkSpecificObjectsToCheck;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.fusedCheckGroups;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.hasTimeBudget;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.objectsToCheck;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.runChecks;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.sharedObjectsToCheck;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.supportedItemTypes;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.parallelCompression;
+
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.spark.TaskContext;
 import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.VoidFunction;
+import org.apache.spark.storage.StorageLevel;
 import org.openstreetmap.atlas.checks.base.BaseCheck;
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.CheckProfile;
 import org.openstreetmap.atlas.checks.base.CheckResourceLoader;
 import org.openstreetmap.atlas.checks.base.ExternalDataFetcher;
 import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
 import org.openstreetmap.atlas.checks.constants.CommonConstants;
+import org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OutputFormats;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.event.CheckFlagFileProcessor;
 import org.openstreetmap.atlas.checks.event.CheckFlagGeoJsonProcessor;
+import org.openstreetmap.atlas.checks.event.CheckFlagPackProcessor;
 import org.openstreetmap.atlas.checks.event.CheckFlagTippecanoeProcessor;
 import org.openstreetmap.atlas.checks.event.MetricFileGenerator;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
 import org.openstreetmap.atlas.checks.maproulette.MapRouletteClient;
 import org.openstreetmap.atlas.checks.maproulette.MapRouletteConfiguration;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
 import org.openstreetmap.atlas.event.EventService;
+import org.openstreetmap.atlas.event.Processor;
+import org.openstreetmap.atlas.event.ShutdownEvent;
 import org.openstreetmap.atlas.exception.CoreException;
 import org.openstreetmap.atlas.generator.tools.spark.SparkJob;
 import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileOutput;
 import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFilePath;
+import org.openstreetmap.atlas.geography.Latitude;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.Longitude;
 import org.openstreetmap.atlas.geography.Rectangle;
 import org.openstreetmap.atlas.geography.atlas.Atlas;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
 import org.openstreetmap.atlas.geography.atlas.items.Relation;
 import org.openstreetmap.atlas.geography.atlas.items.complex.ComplexEntity;
 import org.openstreetmap.atlas.geography.atlas.items.complex.Finder;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
 import org.openstreetmap.atlas.streaming.resource.FileSuffix;
 import org.openstreetmap.atlas.utilities.collections.StringList;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
 import org.openstreetmap.atlas.utilities.configuration.MergedConfiguration;
 import org.openstreetmap.atlas.utilities.configuration.StandardConfiguration;
+import org.openstreetmap.atlas.utilities.filters.AtlasEntityPolygonsFilter;
 import org.openstreetmap.atlas.utilities.runtime.CommandMap;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
 import org.openstreetmap.atlas.utilities.scalars.Duration;
 import org.openstreetmap.atlas.utilities.threads.Pool;
 import org.openstreetmap.atlas.utilities.time.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
 import scala.Tuple2;
 
 /**
  * Executes integrity checks as a {@link SparkJob}. The job parallelizes on the number of countries.
- * Each slave will process a country and run all enabled checks.
+ * Each slave will process a country and run all enabled checks. Countries whose data files are too
+ * large for a single slave can be split in slippy tiles instead, each tile processed by a slave.
  *
  * @author mgostintsev
  */
 public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
 {
 
-    public static final String METRICS_FILENAME = "check-run-time.csv";
+    public static final String METRICS_FILENAME = IntegrityChecksSupport.METRICS_FILENAME;
+    private static final Switch<Integer> TILE_ZOOM = new Switch<>("tileZoom",
+            "Zoom of the slippy tiles that countries larger than tileThresholdMegabytes are split into, each tile checked by its own task. Countries are not split when absent",
+            Integer::valueOf, Optionality.OPTIONAL);
+    private static final Switch<Long> TILE_THRESHOLD = new Switch<>("tileThresholdMegabytes",
+            "Size in megabytes of the atlas or OSM protobuf files of a country above which it is split into tiles",
+            Long::valueOf, Optionality.OPTIONAL, "1024");
+    private static final Switch<Distance> TILE_BUFFER = new Switch<>("tileBufferDistance",
+            "Distance in kilometers that the atlas of each tile is loaded beyond the tile, for the checks to see the features crossing it",
+            distanceString -> Distance.kilometers(Double.valueOf(distanceString)),
+            Optionality.OPTIONAL, "1.0");
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
     // Indicator key for ignored countries
     private static final String IGNORED_KEY = "Ignored";
     private static final String INTERMEDIATE_ATLAS_EXTENSION = FileSuffix.ATLAS.toString()
@@ -85,7 +151,8 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
      * Executes all {@link BaseCheck}s on the given {@link Atlas}. Each check runs in a separate
      * thread. The checks go over all {@link AtlasEntity}s and {@link Relation}s.
      * {@link ComplexEntity}s can be processed by using the appropriate {@link Finder} and adding
-     * them to the {@link Iterable} of objects.
+     * them to the {@link Iterable} of objects. In fused mode, the checks are split in groups that
+     * each go over the {@link Atlas} once, using a {@link FusedRunnableCheck}.
      *
      * @param atlas
      *            the {@link Atlas} on which the checks will be run
@@ -93,15 +160,52 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
      *            the set of {@link BaseCheck}s to execute
      * @param configuration
      *            {@link MapRouletteConfiguration} to create a new {@link MapRouletteClient}s
+     * @param fused
+     *            whether to run the checks in fused groups
+     * @param parallelCheckObjects
+     *            whether thread safe checks can check their objects in parallel
+     * @param profile
+     *            whether to record a {@link CheckProfile} for each check
+     * @param budget
+     *            the time budget of the checks that do not have their own, or null for none
      */
+    @SuppressWarnings("squid:S107")
     private static void executeChecks(final String country, final Atlas atlas,
-            final Set<BaseCheck<?>> checksToRun, final MapRouletteConfiguration configuration)
+            final Set<BaseCheck<?>> checksToRun, final MapRouletteConfiguration configuration,
+            final boolean fused, final boolean parallelCheckObjects, final boolean profile,
+            final Duration budget)
     {
-        final Pool checkExecutionPool = new Pool(checksToRun.size(), "Check execution pool",
-                POOL_DURATION_BEFORE_KILL);
-        checksToRun.forEach(check -> checkExecutionPool.queue(new RunnableCheck(country, check,
-                objectsToCheck(atlas, check), MapRouletteClient.instance(configuration))));
-        checkExecutionPool.close();
+        if (fused)
+        {
+            final List<List<BaseCheck<?>>> checkGroups = fusedCheckGroups(checksToRun);
+            final Pool checkExecutionPool = new Pool(checkGroups.size(),
+                    "Fused check execution pool", POOL_DURATION_BEFORE_KILL);
+            checkGroups.forEach(checkGroup -> checkExecutionPool.queue(new FusedRunnableCheck(
+                    checkGroup.stream()
+                            .map(check -> new RunnableCheck(country, check,
+                                    checkSpecificObjectsToCheck(atlas, check),
+                                    MapRouletteClient.instance(configuration))
+                                            .withProfile(profile ? new CheckProfile() : null)
+                                            .withBudget(check.timeBudget().orElse(budget)))
+                            .collect(Collectors.toList()),
+                    sharedObjectsToCheck(atlas, atlasEntity -> true,
+                            supportedItemTypes(checkGroup)))));
+            checkExecutionPool.close();
+        }
+        else
+        {
+            final Pool checkExecutionPool = new Pool(checksToRun.size(), "Check execution pool",
+                    POOL_DURATION_BEFORE_KILL);
+            final ForkJoinPool forkJoinPool = parallelCheckObjects ? ForkJoinPool.commonPool()
+                    : null;
+            checksToRun.forEach(check -> checkExecutionPool
+                    .queue(new RunnableCheck(country, check, objectsToCheck(atlas, check),
+                            MapRouletteClient.instance(configuration))
+                                    .withForkJoinPool(forkJoinPool)
+                                    .withProfile(profile ? new CheckProfile() : null)
+                                    .withBudget(check.timeBudget().orElse(budget))));
+            checkExecutionPool.close();
+        }
     }
 
     private static SparkFilePath initializeOutput(final String output, final TaskContext context,
@@ -118,6 +222,28 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
         return new SparkFilePath(temporaryFilePath, targetFilePath);
     }
 
+    /**
+     * @return the intersection of two {@link Rectangle}s, if they intersect
+     */
+    private static Optional<Rectangle> intersection(final Rectangle one, final Rectangle other)
+    {
+        final long lowerLatitude = Math.max(one.lowerLeft().getLatitude().asDm7(),
+                other.lowerLeft().getLatitude().asDm7());
+        final long lowerLongitude = Math.max(one.lowerLeft().getLongitude().asDm7(),
+                other.lowerLeft().getLongitude().asDm7());
+        final long upperLatitude = Math.min(one.upperRight().getLatitude().asDm7(),
+                other.upperRight().getLatitude().asDm7());
+        final long upperLongitude = Math.min(one.upperRight().getLongitude().asDm7(),
+                other.upperRight().getLongitude().asDm7());
+        if (lowerLatitude > upperLatitude || lowerLongitude > upperLongitude)
+        {
+            return Optional.empty();
+        }
+        return Optional.of(Rectangle.forCorners(
+                new Location(Latitude.dm7(lowerLatitude), Longitude.dm7(lowerLongitude)),
+                new Location(Latitude.dm7(upperLatitude), Longitude.dm7(upperLongitude))));
+    }
+
     private static void writeAtlas(final Atlas atlas, final String country,
             final SparkFilePath output, final SparkFileHelper fileHelper)
     {
@@ -168,6 +294,13 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
                 .orElse(Rectangle.MAXIMUM);
         final boolean compressOutput = Boolean
                 .parseBoolean((String) commandMap.get(SparkJob.COMPRESS_OUTPUT));
+        final boolean fusedExecution = (Boolean) commandMap.get(FUSED_EXECUTION);
+        final boolean parallelCheckObjects = (Boolean) commandMap.get(PARALLEL_CHECK_OBJECTS);
+        final boolean profileChecks = (Boolean) commandMap.get(PROFILE_CHECKS);
+        final Duration checkBudget = ((Optional<Duration>) commandMap.getOption(CHECK_BUDGET))
+                .orElse(null);
+        final Set<OutputFormats> parallelCompression = ((Optional<Set<OutputFormats>>) commandMap
+                .getOption(PARALLEL_COMPRESSION)).orElse(null);
 
         final Map<String, String> sparkContext = this.configurationMap();
 
@@ -206,9 +339,52 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
         logger.info("Initialized countries: {}", infoMessage1);
         logger.info("Initialized checks: {}", infoMessage2);
 
+        // Atlas Helper to load different types of Atlas data
+        final AtlasDataSource atlasLoader = this.getAtlasDataSource(sparkContext,
+                checksConfiguration, pbfBoundary);
+
+        // Split the countries too large for a single task in tiles
+        final Optional<Integer> tileZoom = (Optional<Integer>) commandMap.getOption(TILE_ZOOM);
+        final long tileThreshold = (Long) commandMap.get(TILE_THRESHOLD) * BYTES_PER_MEGABYTE;
+        final Map<String, List<SlippyTile>> countryTiles = new HashMap<>();
+        if (tileZoom.isPresent())
+        {
+            // The tiles of each country come from the names of its data files, or else from the
+            // bounds of its atlas files or the boundary of its OSM protobuf files
+            for (final Tuple2<String, Set<BaseCheck<?>>> tuple : countryCheckTuples)
+            {
+                final String country = tuple._1();
+                if (atlasLoader.inputSize(input, country) > tileThreshold)
+                {
+                    final Optional<List<SlippyTile>> tiles = atlasLoader.tiles(input, country,
+                            tileZoom.get());
+                    if (tiles.isPresent())
+                    {
+                        countryTiles.put(country, tiles.get());
+                    }
+                    else
+                    {
+                        logger.warn(
+                                "Not splitting {} in tiles, its OSM protobuf files are not sharded and there is no boundary",
+                                country);
+                    }
+                }
+            }
+        }
+        final List<Tuple2<String, Set<BaseCheck<?>>>> tiledCountryCheckTuples = countryCheckTuples
+                .stream().filter(tuple -> countryTiles.containsKey(tuple._1()))
+                .collect(Collectors.toList());
+        countryCheckTuples.removeAll(tiledCountryCheckTuples);
+        if (!tiledCountryCheckTuples.isEmpty())
+        {
+            logger.info("Splitting countries in tiles of zoom {}: {}", tileZoom.get(),
+                    tiledCountryCheckTuples.stream().map(Tuple2::_1)
+                            .collect(Collectors.joining(",")));
+        }
+
         // Parallelize on the countries
         final JavaPairRDD<String, Set<BaseCheck<?>>> countryCheckRDD = this.getContext()
-                .parallelizePairs(countryCheckTuples, countryCheckTuples.size());
+                .parallelizePairs(countryCheckTuples, Math.max(1, countryCheckTuples.size()));
 
         // Set target and temporary folders
         final String targetOutputFolder = SparkFileHelper.parentPath(output);
@@ -217,10 +393,8 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
 
         // Useful file helper to create/delete/name files and directories
         final SparkFileHelper fileHelper = new SparkFileHelper(sparkContext);
-
-        // Atlas Helper to load different types of Atlas data
-        final AtlasDataSource atlasLoader = this.getAtlasDataSource(sparkContext,
-                checksConfiguration, pbfBoundary);
+        // Writes the output files of the processors
+        final OutputFileWriter fileWriter = new OutputFileWriter(sparkContext);
 
         // Create target folders
         fileHelper.mkdir(SparkFileHelper.combine(targetOutputFolder, OUTPUT_FLAG_FOLDER));
@@ -240,6 +414,7 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
                     checks.stream().map(BaseCheck::getCheckName).collect(Collectors.joining(",")));
 
             final Set<SparkFilePath> resultingFiles = new HashSet<>();
+            final int partition = TaskContext.getPartitionId();
 
             final SparkFilePath flagOutput;
             if (outputFormats.contains(OutputFormats.FLAGS))
@@ -247,23 +422,39 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
                 // Initialize flag output processor
                 flagOutput = initializeOutput(OUTPUT_FLAG_FOLDER, TaskContext.get(), country,
                         temporaryOutputFolder, targetOutputFolder);
-                EventService.get(country).register(
-                        new CheckFlagFileProcessor(fileHelper, flagOutput.getTemporaryPath())
-                                .withCompression(compressOutput));
+                EventService.get(country).register(new CheckFlagFileProcessor(fileWriter,
+                        flagOutput.getTemporaryPath(), partition).withCompression(compressOutput)
+                                .withParallelCompression(parallelCompression(
+                                        parallelCompression, OutputFormats.FLAGS, sparkContext)));
             }
             else
             {
                 flagOutput = null;
             }
+            final SparkFilePath flagPackOutput;
+            if (outputFormats.contains(OutputFormats.FLAGPACK))
+            {
+                // Initialize flag pack output processor
+                flagPackOutput = initializeOutput(OUTPUT_FLAG_PACK_FOLDER, TaskContext.get(),
+                        country, temporaryOutputFolder, targetOutputFolder);
+                EventService.get(country).register(new CheckFlagPackProcessor(sparkContext,
+                        flagPackOutput.getTemporaryPath(), partition));
+            }
+            else
+            {
+                flagPackOutput = null;
+            }
             final SparkFilePath geoJsonOutput;
             if (outputFormats.contains(OutputFormats.GEOJSON))
             {
                 // Initialize geojson output processor
                 geoJsonOutput = initializeOutput(OUTPUT_GEOJSON_FOLDER, TaskContext.get(), country,
                         temporaryOutputFolder, targetOutputFolder);
-                EventService.get(country).register(
-                        new CheckFlagGeoJsonProcessor(fileHelper, geoJsonOutput.getTemporaryPath())
-                                .withCompression(compressOutput));
+                EventService.get(country).register(new CheckFlagGeoJsonProcessor(fileWriter,
+                        geoJsonOutput.getTemporaryPath(), partition)
+                                .withCompression(compressOutput)
+                                .withParallelCompression(parallelCompression(
+                                        parallelCompression, OutputFormats.GEOJSON, sparkContext)));
             }
             else
             {
@@ -277,7 +468,8 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
                 metricOutput = initializeOutput(OUTPUT_METRIC_FOLDER, TaskContext.get(), country,
                         temporaryOutputFolder, targetOutputFolder);
                 EventService.get(country).register(new MetricFileGenerator(METRICS_FILENAME,
-                        fileHelper, metricOutput.getTemporaryPath()));
+                        fileWriter, metricOutput.getTemporaryPath(), profileChecks,
+                        hasTimeBudget(checks, checkBudget)));
             }
             else
             {
@@ -290,9 +482,12 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
                 tippecanoeOutput = initializeOutput(OUTPUT_TIPPECANOE_FOLDER, TaskContext.get(),
                         country, temporaryOutputFolder, targetOutputFolder);
                 EventService.get(country)
-                        .register(new CheckFlagTippecanoeProcessor(fileHelper,
-                                tippecanoeOutput.getTemporaryPath())
-                                        .withCompression(compressOutput));
+                        .register(new CheckFlagTippecanoeProcessor(fileWriter,
+                                tippecanoeOutput.getTemporaryPath(), partition)
+                                        .withCompression(compressOutput)
+                                        .withParallelCompression(parallelCompression(
+                                                parallelCompression, OutputFormats.TIPPECANOE,
+                                                sparkContext)));
             }
             else
             {
@@ -326,10 +521,13 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
                 }
                 else
                 {
-                    executeChecks(country, atlas, checks, mapRouletteConfiguration);
+                    executeChecks(country, atlas, checks, mapRouletteConfiguration,
+                            fusedExecution, parallelCheckObjects, profileChecks, checkBudget);
+                    GeometryCache.release(atlas).ifPresent(cache -> logger
+                            .info("Geometry cache of {}: {}", country, cache));
                     // Add output folders for handling later
-                    Stream.of(flagOutput, metricOutput, geoJsonOutput, tippecanoeOutput)
-                            .filter(Objects::nonNull).forEach(resultingFiles::add);
+                    Stream.of(flagOutput, flagPackOutput, metricOutput, geoJsonOutput,
+                            tippecanoeOutput).filter(Objects::nonNull).forEach(resultingFiles::add);
                 }
 
                 EventService.get(country).complete();
@@ -358,6 +556,19 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
             paths.forEach(fileHelper::commitByCopy);
         });
 
+        if (!tiledCountryCheckTuples.isEmpty())
+        {
+            if (mapRouletteConfiguration != null)
+            {
+                logger.warn("MapRoulette tasks are not uploaded for the countries split in tiles");
+            }
+            this.runTiledCountries(tiledCountryCheckTuples, input, targetOutputFolder,
+                    fileWriter, atlasLoader, countryTiles,
+                    (Distance) commandMap.get(TILE_BUFFER), pbfBoundary, outputFormats,
+                    compressOutput, parallelCompression, fusedExecution, parallelCheckObjects,
+                    profileChecks, checkBudget);
+        }
+
         try
         {
             // Clean up
@@ -389,6 +600,12 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
         return staticPaths;
     }
 
+    @Override
+    protected SwitchList switches()
+    {
+        return super.switches().with(TILE_ZOOM, TILE_THRESHOLD, TILE_BUFFER);
+    }
+
     /**
      * Basic sanity check to ensure we aren't processing an empty list of countries or integrity
      * checks
@@ -404,4 +621,197 @@ public class IntegrityCheckSparkJob extends IntegrityChecksCommandArguments
     {
         return !(countries.isEmpty() || checksToExecute.isEmpty());
     }
+
+    /**
+     * Processes the flags of the tiles of a country through an event service to produce output
+     * files
+     *
+     * @param targetOutputFolder
+     *            {@link String} output folder path
+     * @param configurationMap
+     *            the Hadoop configuration of the output file system
+     * @param fileWriter
+     *            {@link OutputFileWriter} of the output files
+     * @param outputFormats
+     *            {@link Set} of {@link OutputFormats}
+     * @param country
+     *            {@link String} ISO code for the country being processed
+     * @param compressOutput
+     *            whether to compress the output files
+     * @param parallelCompression
+     *            {@link Set} of the {@link OutputFormats} to compress in parallel blocks, or null
+     *            for none
+     * @return {@link VoidFunction} that takes an {@link Iterator} of {@link CheckFlagEvent}s
+     */
+    @SuppressWarnings({ "unchecked", "squid:S107" })
+    private VoidFunction<Iterator<CheckFlagEvent>> processTileFlags(
+            final String targetOutputFolder, final Map<String, String> configurationMap,
+            final OutputFileWriter fileWriter, final Set<OutputFormats> outputFormats,
+            final String country, final boolean compressOutput,
+            final Set<OutputFormats> parallelCompression)
+    {
+        return iterator ->
+        {
+            final int partition = TaskContext.getPartitionId();
+            final EventService<CheckFlagEvent> eventService = EventService
+                    .get(country + partition);
+            ShardedChecksHelper.registerOutputProcessors(eventService, targetOutputFolder,
+                    configurationMap, fileWriter, outputFormats, compressOutput,
+                    parallelCompression, country, partition);
+            iterator.forEachRemaining(eventService::post);
+            eventService.complete();
+        };
+    }
+
+    /**
+     * Checks the part of a country within a tile. The atlas of the tile is loaded with a buffer
+     * around it, for the checks to see the features crossing the tile, but only the features
+     * intersecting the tile are checked.
+     *
+     * @param input
+     *            {@link String} input folder path
+     * @param targetOutputFolder
+     *            {@link String} output folder path
+     * @param fileWriter
+     *            {@link OutputFileWriter} of the output files
+     * @param atlasLoader
+     *            the {@link AtlasDataSource} to load the atlas of each tile with
+     * @param tileBuffer
+     *            {@link Distance} the atlas of each tile is loaded beyond it
+     * @param pbfBoundary
+     *            {@link Rectangle} OSM protobuf data is loaded within
+     * @param outputFormats
+     *            {@link Set} of {@link OutputFormats}
+     * @param fused
+     *            whether to run the checks in fused groups
+     * @param parallelCheckObjects
+     *            whether thread safe checks can check their objects in parallel
+     * @param profile
+     *            whether to record a {@link CheckProfile} for each check
+     * @param budget
+     *            the time budget of the checks that do not have their own, or null for none
+     * @return {@link FlatMapFunction} that takes a {@link ShardedCheckFlagsTask} of a tile and
+     *         returns an {@link Iterator} of {@link UniqueCheckFlagContainer}s
+     */
+    @SuppressWarnings("squid:S107")
+    private FlatMapFunction<ShardedCheckFlagsTask, UniqueCheckFlagContainer> produceTileFlags(
+            final String input, final String targetOutputFolder,
+            final OutputFileWriter fileWriter, final AtlasDataSource atlasLoader,
+            final Distance tileBuffer, final Rectangle pbfBoundary,
+            final Set<OutputFormats> outputFormats, final boolean fused,
+            final boolean parallelCheckObjects, final boolean profile, final Duration budget)
+    {
+        return task ->
+        {
+            final Time timer = Time.now();
+            final Rectangle tileBounds = task.getShard().bounds();
+            final Atlas atlas = intersection(tileBounds.expand(tileBuffer), pbfBoundary)
+                    .map(bounds -> atlasLoader.load(input, task.getCountry(), bounds))
+                    .orElse(null);
+            if (atlas == null)
+            {
+                logger.info("No data in tile {} of {}", task.getShard().getName(),
+                        task.getCountry());
+                return Collections.emptyIterator();
+            }
+
+            final EventService eventService = task.getEventService();
+            final Queue<UniqueCheckFlagContainer> container = new ConcurrentLinkedQueue<>();
+            eventService.register(new Processor<CheckFlagEvent>()
+            {
+                @Override
+                public void process(final ShutdownEvent event)
+                {
+                    // no-op
+                }
+
+                @Override
+                @Subscribe
+                @AllowConcurrentEvents
+                public void process(final CheckFlagEvent event)
+                {
+                    container.add(new UniqueCheckFlagContainer(event));
+                }
+            });
+            if (outputFormats.contains(OutputFormats.METRICS))
+            {
+                eventService.register(new MetricFileGenerator(
+                        task.getShard().getName() + "_" + METRICS_FILENAME, fileWriter,
+                        SparkFileHelper.combine(targetOutputFolder, OUTPUT_METRIC_FOLDER,
+                                task.getCountry()),
+                        profile, hasTimeBudget(task.getChecks(), budget)));
+            }
+
+            runChecks(task.getCountry(), atlas, task.getChecks(),
+                    AtlasEntityPolygonsFilter.Type.INCLUDE
+                            .polygons(Collections.singleton(tileBounds)),
+                    eventService, fused, parallelCheckObjects, profile, budget);
+            GeometryCache.release(atlas).ifPresent(cache -> logger
+                    .info("Geometry cache of tile {}: {}", task.getShard().getName(), cache));
+            eventService.complete();
+            logger.info("Integrity checks finished in {} to execute for tile {} of {}.",
+                    timer.elapsedSince(), task.getShard().getName(), task.getCountry());
+            return container.iterator();
+        };
+    }
+
+    /**
+     * Runs the checks of countries split in tiles, each tile checked by its own task. The flags
+     * found in more than one tile, where the atlases of neighbouring tiles overlap, are dropped the
+     * same way as in the {@link ShardedIntegrityChecksSparkJob}, with a {@link FlagDeduplicator}.
+     */
+    @SuppressWarnings("squid:S107")
+    private void runTiledCountries(
+            final List<Tuple2<String, Set<BaseCheck<?>>>> countryCheckTuples,
+            final String input, final String targetOutputFolder,
+            final OutputFileWriter fileWriter, final AtlasDataSource atlasLoader,
+            final Map<String, List<SlippyTile>> countryTiles, final Distance tileBuffer,
+            final Rectangle pbfBoundary, final Set<OutputFormats> outputFormats,
+            final boolean compressOutput, final Set<OutputFormats> parallelCompression,
+            final boolean fused, final boolean parallelCheckObjects, final boolean profile,
+            final Duration budget)
+    {
+        try (Pool countryPool = new Pool(countryCheckTuples.size(),
+                "Tiled countries execution pool", POOL_DURATION_BEFORE_KILL))
+        {
+            for (final Tuple2<String, Set<BaseCheck<?>>> countryChecks : countryCheckTuples)
+            {
+                countryPool.queue(() ->
+                {
+                    final String country = countryChecks._1();
+                    final List<Check> checks = new ArrayList<>(countryChecks._2());
+                    final List<ShardedCheckFlagsTask> tasks = countryTiles
+                            .getOrDefault(country, Collections.emptyList()).stream()
+                            .map(tile -> new ShardedCheckFlagsTask(country, tile, checks))
+                            .collect(Collectors.toList());
+                    if (tasks.isEmpty())
+                    {
+                        logger.error("Could not find {} Atlas files. Skipping country!",
+                                country);
+                        return;
+                    }
+                    logger.info("Checking {} in {} tiles", country, tasks.size());
+                    this.getContext().setLocalProperty("callSite.short",
+                            String.format("Running checks on the tiles of %s", country));
+
+                    // Flags are deduplicated without shuffling them, so keep them for the two
+                    // passes it takes
+                    final JavaRDD<UniqueCheckFlagContainer> flags = FlagDeduplicator
+                            .deduplicateWithinPartitions(this.getContext()
+                                    .parallelize(tasks, tasks.size())
+                                    .flatMap(this.produceTileFlags(input, targetOutputFolder,
+                                            fileWriter, atlasLoader, tileBuffer, pbfBoundary,
+                                            outputFormats, fused, parallelCheckObjects,
+                                            profile, budget)))
+                            .persist(StorageLevel.MEMORY_AND_DISK_SER());
+                    FlagDeduplicator.deduplicateAcrossPartitions(flags)
+                            .map(UniqueCheckFlagContainer::getEvent)
+                            .foreachPartition(this.processTileFlags(targetOutputFolder,
+                                    this.configurationMap(), fileWriter, outputFormats, country,
+                                    compressOutput, parallelCompression));
+                    flags.unpersist();
+                });
+            }
+        }
+    }
 }
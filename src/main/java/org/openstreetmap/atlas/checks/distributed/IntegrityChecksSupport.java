@@ -0,0 +1,426 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openstreetmap.atlas.checks.atlas.CountrySpecificAtlasFilePathFilter;
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.CheckProfile;
+import org.openstreetmap.atlas.checks.constants.CommonConstants;
+import org.openstreetmap.atlas.checks.utility.ItemTypeUtilities;
+import org.openstreetmap.atlas.event.EventService;
+import org.openstreetmap.atlas.generator.tools.filesystem.FileSystemHelper;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
+import org.openstreetmap.atlas.utilities.collections.MultiIterable;
+import org.openstreetmap.atlas.utilities.collections.StringList;
+import org.openstreetmap.atlas.utilities.conversion.StringConverter;
+import org.openstreetmap.atlas.utilities.maps.MultiMap;
+import org.openstreetmap.atlas.utilities.runtime.Command.Optionality;
+import org.openstreetmap.atlas.utilities.runtime.Command.Switch;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
+import org.openstreetmap.atlas.utilities.threads.Pool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Switches, output folders and helpers shared by the Spark jobs running checks,
+ * {@link IntegrityChecksCommandArguments}, and by {@link LocalIntegrityChecksRunner}. Nothing here
+ * depends on Spark, so that the local runner runs without it on the classpath.
+ *
+ * @author agent
+ */
+public final class IntegrityChecksSupport
+{
+    /**
+     * @author brian_l_davis
+     */
+    enum OutputFormats
+    {
+        FLAGS,
+        FLAGPACK,
+        GEOJSON,
+        METRICS,
+        TIPPECANOE
+    }
+
+    public static final String METRICS_FILENAME = "check-run-time.csv";
+    // Outputs
+    static final String OUTPUT_ATLAS_FOLDER = "atlas";
+    static final String OUTPUT_FLAG_FOLDER = "flag";
+    static final String OUTPUT_FLAG_PACK_FOLDER = "flagpack";
+    static final String OUTPUT_GEOJSON_FOLDER = "geojson";
+    static final String OUTPUT_METRIC_FOLDER = "metric";
+    static final String OUTPUT_TIPPECANOE_FOLDER = "tippecanoe";
+    static final Switch<List<String>> CHECK_FILTER = new Switch<>("checkFilter",
+            "Comma-separated list of checks to run",
+            checks -> Arrays.asList(checks.split(CommonConstants.COMMA)), Optionality.OPTIONAL);
+    // Configuration
+    static final Switch<StringList> CONFIGURATION_FILES = new Switch<>("configFiles",
+            "Comma-separated list of configuration datasources.",
+            value -> StringList.split(value, CommonConstants.COMMA), Optionality.OPTIONAL);
+    static final Switch<String> CONFIGURATION_JSON = new Switch<>("configJson",
+            "Json formatted configuration.", StringConverter.IDENTITY, Optionality.OPTIONAL);
+    static final Switch<String> COUNTRIES = new Switch<>("countries",
+            "Comma-separated list of country ISO3 codes to be processed", StringConverter.IDENTITY,
+            Optionality.REQUIRED);
+    static final Switch<Set<OutputFormats>> OUTPUT_FORMATS = new Switch<>("outputFormats",
+            "Comma-separated list of output formats (flags, flagpack, metrics, geojson, tippecanoe).",
+            IntegrityChecksSupport::parseOutputFormats, Optionality.OPTIONAL,
+            "flags,metrics");
+    static final Switch<String> EXTERNAL_DATA_INPUT = new Switch<>("externalDataInput",
+            "Path to the root location that is common to all external data",
+            StringConverter.IDENTITY);
+    static final Switch<Boolean> FUSED_EXECUTION = new Switch<>("fusedExecution",
+            "If true, run groups of checks in a single pass over the Atlas instead of one pass per check.",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    static final Switch<Boolean> PARALLEL_CHECK_OBJECTS = new Switch<>("parallelCheckObjects",
+            "If true, thread safe checks split their objects in chunks that are checked in parallel.",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    static final Switch<Boolean> PROFILE_CHECKS = new Switch<>("profileChecks",
+            "If true, metric files include object counts, filter and flag times, a latency histogram and the slowest objects of each check.",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    static final Switch<Duration> CHECK_BUDGET = new Switch<>("checkBudgetMinutes",
+            "Time budget of each check on each shard, tile or country, in minutes. Checks going over it stop and output the flags found so far.",
+            minutes -> Duration.minutes(Double.valueOf(minutes)), Optionality.OPTIONAL);
+    static final Switch<Set<OutputFormats>> PARALLEL_COMPRESSION = new Switch<>(
+            "parallelCompression",
+            "Comma-separated list of output formats (flags, geojson, tippecanoe) whose compressed files are compressed in parallel blocks, as multi-member gzip files.",
+            IntegrityChecksSupport::parseOutputFormats, Optionality.OPTIONAL);
+    // Sharded checks
+    static final Switch<Distance> EXPANSION_DISTANCE = new Switch<>("shardBufferDistance",
+            "Distance to expand the bounds of the shard group to create a network in kilometers",
+            distanceString -> Distance.kilometers(Double.valueOf(distanceString)),
+            Optionality.OPTIONAL, "10.0");
+    static final String ATLAS_SHARDING_FILE = "sharding.txt";
+    static final Switch<String> SHARDING = new Switch<>("sharding",
+            "Sharding to load in place of sharding file in Atlas path", StringConverter.IDENTITY,
+            Optionality.OPTIONAL);
+    static final Switch<Boolean> MULTI_ATLAS = new Switch<>("multiAtlas",
+            "If true then use a multi atlas, else use a dynamic atlas. This works better for running on a single machine",
+            Boolean::getBoolean, Optionality.OPTIONAL, "false");
+    static final Switch<Long> ATLAS_CACHE_SIZE = new Switch<>("atlasCacheMegabytes",
+            "Size in megabytes of the atlas files each executor keeps loaded for its tasks to share. Defaults to an eighth of the executor heap",
+            Long::valueOf, Optionality.OPTIONAL);
+    private static final String ATLAS_FILENAME_PATTERN_FORMAT = "^%s_([0-9]+)-([0-9]+)-([0-9]+)";
+    private static final String PATH_SEPARATOR = "/";
+    private static final Logger logger = LoggerFactory.getLogger(IntegrityChecksSupport.class);
+
+    /**
+     * Joins paths with a separator, the same way the file helper of the Spark jobs does
+     *
+     * @param basePath
+     *            the path to start from
+     * @param paths
+     *            the paths to append, in order
+     * @return the joined path
+     */
+    public static String combine(final String basePath, final String... paths)
+    {
+        final StringBuilder path = new StringBuilder(basePath);
+        for (final String child : paths)
+        {
+            if (path.length() > 0 && !path.toString().endsWith(PATH_SEPARATOR))
+            {
+                path.append(PATH_SEPARATOR);
+            }
+            path.append(child.startsWith(PATH_SEPARATOR) ? child.substring(1) : child);
+        }
+        return path.toString();
+    }
+
+    /**
+     * Creates a map from country name to {@link List} of {@link Shard} definitions from
+     * {@link Atlas} files.
+     *
+     * @param countries
+     *            Set of countries to find out shards for
+     * @param atlasFolder
+     *            Path to {@link Atlas} folder
+     * @param sparkContext
+     *            Spark context (or configuration) as a key-value map
+     * @return A map from country name to {@link List} of {@link Shard} definitions
+     */
+    public static MultiMap<String, Shard> countryShardMapFromShardFiles(final Set<String> countries,
+            final String atlasFolder, final Map<String, String> sparkContext)
+    {
+        final MultiMap<String, Shard> countryShardMap = new MultiMap<>();
+        logger.info("Building country shard map from country shard files.");
+
+        countries.forEach(country ->
+        {
+            final String countryDirectory = combine(atlasFolder, country);
+            final CountrySpecificAtlasFilePathFilter atlasFilter = new CountrySpecificAtlasFilePathFilter(
+                    country);
+            final Pattern atlasFilePattern = Pattern
+                    .compile(String.format(ATLAS_FILENAME_PATTERN_FORMAT, country));
+
+            // Go over shard files for the country and use file name pattern to find out shards
+            FileSystemHelper.streamPathsRecursively(countryDirectory, sparkContext, atlasFilter, 0)
+                    .forEach(shardFile ->
+                    {
+                        final String shardFileName = shardFile.getName();
+                        final Matcher matcher = atlasFilePattern.matcher(shardFileName);
+                        if (matcher.find())
+                        {
+                            try
+                            {
+                                final String zoomString = matcher.group(1);
+                                final String xString = matcher.group(2);
+                                final String yString = matcher.group(3);
+                                countryShardMap.add(country,
+                                        new SlippyTile(Integer.parseInt(xString),
+                                                Integer.parseInt(yString),
+                                                Integer.parseInt(zoomString)));
+                            }
+                            catch (final Exception e)
+                            {
+                                logger.warn(String.format("Couldn't parse shard file name %s.",
+                                        shardFileName), e);
+                            }
+                        }
+                        else
+                        {
+                            logger.warn(String.format(
+                                    "Skipping atlas file %s, its name does not conform to the sharded standard.",
+                                    shardFileName));
+                        }
+                    });
+        });
+
+        return countryShardMap;
+    }
+
+    /**
+     * Splits checks into groups to be run with a {@link FusedRunnableCheck} each. There is one
+     * group per available processor, so that the {@link Atlas} is read once per thread rather than
+     * once per check.
+     *
+     * @param checks
+     *            the checks to split
+     * @param <C>
+     *            the check type
+     * @return a {@link List} of check groups
+     */
+    static <C extends Check> List<List<C>> fusedCheckGroups(
+            final Collection<C> checks)
+    {
+        final int groupCount = Math.max(1,
+                Math.min(checks.size(), Runtime.getRuntime().availableProcessors()));
+        final List<List<C>> groups = new ArrayList<>(groupCount);
+        for (int index = 0; index < groupCount; index++)
+        {
+            groups.add(new ArrayList<>());
+        }
+        int index = 0;
+        for (final C check : checks)
+        {
+            groups.get(index++ % groupCount).add(check);
+        }
+        return groups;
+    }
+
+    /**
+     * Gets the objects that only a given check will look at, that are not shared with other checks.
+     * These are the {@link org.openstreetmap.atlas.geography.atlas.items.complex.ComplexEntity}s
+     * found by the check's {@link Check#finder()}.
+     *
+     * @param atlas
+     *            the {@link Atlas} to get objects from
+     * @param check
+     *            the {@link Check} to get objects for
+     * @return an {@link Iterable} of {@link AtlasObject}s
+     */
+    static Iterable<AtlasObject> checkSpecificObjectsToCheck(final Atlas atlas,
+            final Check check)
+    {
+        return new MultiIterable<>(
+                check.finder().map(finder -> finder.find(atlas)).orElse(Collections.emptyList()));
+    }
+
+    static Iterable<AtlasObject> objectsToCheck(final Atlas atlas, final Check check)
+    {
+        return objectsToCheck(atlas, check, atlasEntity -> true);
+    }
+
+    static Iterable<AtlasObject> objectsToCheck(final Atlas atlas, final Check check,
+            final Predicate<AtlasEntity> geoFilter)
+    {
+        return new MultiIterable<>(
+                sharedObjectsToCheck(atlas, geoFilter, check.supportedItemTypes()),
+                checkSpecificObjectsToCheck(atlas, check));
+    }
+
+    /**
+     * Runs checks in parallel on the objects of an {@link Atlas} that pass a geographic filter,
+     * posting their flags and metrics to an {@link EventService}. In fused mode, the checks are
+     * split in groups that each go over the {@link Atlas} once, using a {@link FusedRunnableCheck}.
+     *
+     * @param country
+     *            the country the {@link Atlas} is from
+     * @param atlas
+     *            the {@link Atlas} to check
+     * @param checks
+     *            the checks to run
+     * @param geoFilter
+     *            a {@link Predicate} to filter {@link AtlasEntity}s by
+     * @param eventService
+     *            the {@link EventService} to post flags and metrics to
+     * @param fused
+     *            whether to run the checks in fused groups
+     * @param parallelCheckObjects
+     *            whether thread safe checks can check their objects in parallel
+     * @param profile
+     *            whether to record a {@link CheckProfile} for each check
+     * @param budget
+     *            the time budget of the checks that do not have their own, or null for none
+     */
+    @SuppressWarnings("squid:S107")
+    static void runChecks(final String country, final Atlas atlas,
+            final Collection<? extends Check> checks, final Predicate<AtlasEntity> geoFilter,
+            final EventService eventService, final boolean fused,
+            final boolean parallelCheckObjects, final boolean profile, final Duration budget)
+    {
+        final List<Runnable> runnableChecks = runnableChecks(country, atlas, checks, geoFilter,
+                eventService, fused, parallelCheckObjects ? ForkJoinPool.commonPool() : null,
+                profile, budget);
+        try (Pool checkPool = new Pool(runnableChecks.size(),
+                fused ? "Fused Checks Execution Pool" : "Checks Execution Pool"))
+        {
+            runnableChecks.forEach(checkPool::queue);
+        }
+    }
+
+    /**
+     * Makes the runnables that check the objects of an {@link Atlas} that pass a geographic
+     * filter, posting their flags and metrics to an {@link EventService}: one {@link RunnableCheck}
+     * per check, or in fused mode one {@link FusedRunnableCheck} per group of checks.
+     *
+     * @param country
+     *            the country the {@link Atlas} is from
+     * @param atlas
+     *            the {@link Atlas} to check
+     * @param checks
+     *            the checks to run
+     * @param geoFilter
+     *            a {@link Predicate} to filter {@link AtlasEntity}s by
+     * @param eventService
+     *            the {@link EventService} to post flags and metrics to
+     * @param fused
+     *            whether to run the checks in fused groups
+     * @param forkJoinPool
+     *            the {@link ForkJoinPool} thread safe checks check their objects in parallel in,
+     *            or null to check them sequentially. Ignored in fused mode
+     * @param profile
+     *            whether to record a {@link CheckProfile} for each check
+     * @param budget
+     *            the time budget of the checks that do not have their own, or null for none
+     * @return the {@link Runnable}s to run
+     */
+    @SuppressWarnings("squid:S107")
+    static List<Runnable> runnableChecks(final String country, final Atlas atlas,
+            final Collection<? extends Check> checks, final Predicate<AtlasEntity> geoFilter,
+            final EventService eventService, final boolean fused,
+            final ForkJoinPool forkJoinPool, final boolean profile, final Duration budget)
+    {
+        if (fused)
+        {
+            // Groups of checks, each group going over the atlas once
+            return fusedCheckGroups(new ArrayList<Check>(checks)).stream()
+                    .<Runnable> map(checkGroup -> new FusedRunnableCheck(checkGroup.stream()
+                            .map(check -> new RunnableCheck(country, check,
+                                    checkSpecificObjectsToCheck(atlas, check), eventService)
+                                            .withProfile(profile ? new CheckProfile() : null)
+                                            .withBudget(check.timeBudget().orElse(budget)))
+                            .collect(Collectors.toList()),
+                            sharedObjectsToCheck(atlas, geoFilter,
+                                    supportedItemTypes(checkGroup))))
+                    .collect(Collectors.toList());
+        }
+        return checks.stream()
+                .<Runnable> map(check -> new RunnableCheck(country, check,
+                        objectsToCheck(atlas, check, geoFilter), eventService)
+                                .withForkJoinPool(forkJoinPool)
+                                .withProfile(profile ? new CheckProfile() : null)
+                                .withBudget(check.timeBudget().orElse(budget)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tells if any of a group of checks runs with a time budget, so that metric files have a
+     * budget overrun column
+     *
+     * @param checks
+     *            the checks
+     * @param budget
+     *            the time budget of the checks that do not have their own, or null for none
+     * @return {@code true} if a check has a time budget
+     */
+    static boolean hasTimeBudget(final Collection<? extends Check> checks,
+            final Duration budget)
+    {
+        return budget != null || checks.stream().anyMatch(check -> check.timeBudget().isPresent());
+    }
+
+    /**
+     * Gets the objects that every check will look at
+     *
+     * @param atlas
+     *            the {@link Atlas} to get objects from
+     * @param geoFilter
+     *            a {@link Predicate} to filter {@link AtlasEntity}s by
+     * @param itemTypes
+     *            the {@link ItemType}s of {@link AtlasEntity}s to get, see
+     *            {@link Check#supportedItemTypes()}
+     * @return an {@link Iterable} of {@link AtlasEntity}s
+     */
+    static Iterable<AtlasEntity> sharedObjectsToCheck(final Atlas atlas,
+            final Predicate<AtlasEntity> geoFilter, final Set<ItemType> itemTypes)
+    {
+        return Iterables.filter(ItemTypeUtilities.entitiesOfTypes(atlas, itemTypes), geoFilter);
+    }
+
+    /**
+     * Gets the union of the {@link ItemType}s supported by a group of checks
+     *
+     * @param checks
+     *            the checks
+     * @return a {@link Set} of {@link ItemType}s
+     */
+    static Set<ItemType> supportedItemTypes(final Collection<? extends Check> checks)
+    {
+        final Set<ItemType> itemTypes = EnumSet.noneOf(ItemType.class);
+        checks.forEach(check -> itemTypes.addAll(check.supportedItemTypes()));
+        return itemTypes;
+    }
+
+    private static Set<OutputFormats> parseOutputFormats(final String csvFormats)
+    {
+        return Stream.of(csvFormats.split(","))
+                .map(format -> Enum.valueOf(OutputFormats.class, format.toUpperCase()))
+                .collect(Collectors.toSet());
+    }
+
+    private IntegrityChecksSupport()
+    {
+        // Hide constructor
+    }
+}
@@ -0,0 +1,388 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.ATLAS_CACHE_SIZE;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.ATLAS_SHARDING_FILE;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CHECK_BUDGET;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CHECK_FILTER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CONFIGURATION_FILES;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CONFIGURATION_JSON;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.COUNTRIES;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.EXPANSION_DISTANCE;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.EXTERNAL_DATA_INPUT;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.FUSED_EXECUTION;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.METRICS_FILENAME;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.MULTI_ATLAS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FORMATS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_METRIC_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PARALLEL_CHECK_OBJECTS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PARALLEL_COMPRESSION;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PROFILE_CHECKS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.SHARDING;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.combine;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.hasTimeBudget;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.runnableChecks;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.atlasFetcher;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.contextAtlas;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.contextGroups;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.cutContext;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.registerOutputProcessors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.CheckResourceLoader;
+import org.openstreetmap.atlas.checks.base.ExternalDataFetcher;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.constants.CommonConstants;
+import org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OutputFormats;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.checks.event.MetricFileGenerator;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+import org.openstreetmap.atlas.event.EventService;
+import org.openstreetmap.atlas.event.Processor;
+import org.openstreetmap.atlas.event.ShutdownEvent;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.generator.sharding.AtlasSharding;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.geography.sharding.Sharding;
+import org.openstreetmap.atlas.utilities.collections.StringList;
+import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.configuration.MergedConfiguration;
+import org.openstreetmap.atlas.utilities.configuration.StandardConfiguration;
+import org.openstreetmap.atlas.utilities.conversion.StringConverter;
+import org.openstreetmap.atlas.utilities.filters.AtlasEntityPolygonsFilter;
+import org.openstreetmap.atlas.utilities.maps.MultiMap;
+import org.openstreetmap.atlas.utilities.runtime.Command;
+import org.openstreetmap.atlas.utilities.runtime.CommandMap;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
+import org.openstreetmap.atlas.utilities.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.hash.HashCode;
+
+/**
+ * Runs the sharded checks on a single machine, without starting a Spark context. It takes the same
+ * inputs as {@link ShardedIntegrityChecksSparkJob} and writes the same output folders, using the
+ * same atlases, check runners and output processors.<br>
+ * Shards and checks are all tasks of one work stealing {@link ForkJoinPool}: each country forks a
+ * task per shard, and each shard forks a task per check (or group of fused checks) once its atlas
+ * is loaded, so that idle threads pick up the checks of other shards instead of waiting on a pool
+ * per country or per check. Thread safe checks with {@code parallelCheckObjects} split their
+ * objects in the same pool. Each shard gets its own instances of the checks, as the Spark tasks do.
+ *
+ * @author agent
+ */
+public class LocalIntegrityChecksRunner extends Command
+{
+    static final Switch<String> INPUT = new Switch<>("input",
+            "Path of the folder holding a folder of sharded atlas files per country",
+            StringConverter.IDENTITY, Optionality.REQUIRED);
+    static final Switch<String> OUTPUT = new Switch<>("output",
+            "Path of the folder to write outputs to", StringConverter.IDENTITY,
+            Optionality.REQUIRED);
+    static final Switch<Boolean> COMPRESS_OUTPUT = new Switch<>("compressOutput",
+            "Whether to gzip the flag, geojson and tippecanoe outputs", Boolean::valueOf,
+            Optionality.OPTIONAL, "true");
+    static final Switch<Integer> PARALLELISM = new Switch<>("parallelism",
+            "Number of threads checking shards. Defaults to the number of available processors",
+            Integer::valueOf, Optionality.OPTIONAL);
+    private static final Logger logger = LoggerFactory
+            .getLogger(LocalIntegrityChecksRunner.class);
+
+    public static void main(final String[] args)
+    {
+        new LocalIntegrityChecksRunner().run(args);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected int onRun(final CommandMap command)
+    {
+        final Time start = Time.now();
+        final String input = (String) command.get(INPUT);
+        final String output = (String) command.get(OUTPUT);
+        final String externalDataInput = Optional
+                .ofNullable((String) command.get(EXTERNAL_DATA_INPUT)).orElse(input);
+        final Set<OutputFormats> outputFormats = (Set<OutputFormats>) command.get(OUTPUT_FORMATS);
+        final Set<OutputFormats> parallelCompression = ((Optional<Set<OutputFormats>>) command
+                .getOption(PARALLEL_COMPRESSION)).orElse(null);
+        final StringList countries = StringList.split((String) command.get(COUNTRIES),
+                CommonConstants.COMMA);
+        final Optional<List<String>> checkFilter = (Optional<List<String>>) command
+                .getOption(CHECK_FILTER);
+
+        final Configuration checksConfiguration = new MergedConfiguration(Stream
+                .concat(Stream.of(ConfigurationResolver.loadConfiguration(command,
+                        CONFIGURATION_FILES, CONFIGURATION_JSON)),
+                        Stream.of(checkFilter
+                                .<Configuration> map(permitlist -> new StandardConfiguration(
+                                        "PermitListConfiguration",
+                                        Collections.singletonMap(
+                                                "CheckResourceLoader.checks.permitlist",
+                                                permitlist)))
+                                .orElse(ConfigurationResolver.emptyConfiguration())))
+                .collect(Collectors.toList()));
+
+        // No cluster configuration, the file writer uses the default file systems
+        final Map<String, String> configurationMap = new HashMap<>();
+        final OutputFileWriter fileWriter = new OutputFileWriter(configurationMap);
+        final CheckResourceLoader checkLoader = new CheckResourceLoader(checksConfiguration,
+                new ExternalDataFetcher(externalDataInput, configurationMap));
+        final Sharding sharding = AtlasSharding.forString(
+                ((Optional<String>) command.getOption(SHARDING)).orElse(
+                        "dynamic@" + combine(input, ATLAS_SHARDING_FILE)),
+                configurationMap);
+
+        if (countries.isEmpty())
+        {
+            throw new CoreException("No countries found to run.");
+        }
+        final List<String> countriesToRun = new ArrayList<>();
+        for (final String country : countries)
+        {
+            if (checkLoader.loadChecksForCountry(country).isEmpty())
+            {
+                logger.warn("No checks loaded for country {}. Skipping execution", country);
+            }
+            else
+            {
+                countriesToRun.add(country);
+            }
+        }
+        if (countriesToRun.isEmpty())
+        {
+            throw new CoreException("No checks loaded for any of the countries provided.");
+        }
+        final MultiMap<String, Shard> countryShards = IntegrityChecksSupport
+                .countryShardMapFromShardFiles(new HashSet<>(countriesToRun), input,
+                        configurationMap);
+        if (countryShards.isEmpty())
+        {
+            throw new CoreException("No atlas files found in input.");
+        }
+        if (!countriesToRun.stream().allMatch(countryShards::containsKey))
+        {
+            throw new CoreException(
+                    "Unable to find standardized named shard files in the path {}/<countryName> for the countries {}",
+                    input, countriesToRun.stream()
+                            .filter(country -> !countryShards.containsKey(country))
+                            .collect(Collectors.toSet()));
+        }
+
+        final LocalRun run = new LocalRun(input, output, configurationMap, fileWriter,
+                checkLoader, sharding, (Distance) command.get(EXPANSION_DISTANCE),
+                (Boolean) command.get(MULTI_ATLAS), (Boolean) command.get(FUSED_EXECUTION),
+                (Boolean) command.get(PARALLEL_CHECK_OBJECTS),
+                (Boolean) command.get(PROFILE_CHECKS),
+                ((Optional<Duration>) command.getOption(CHECK_BUDGET)).orElse(null),
+                ((Optional<Long>) command.getOption(ATLAS_CACHE_SIZE)).orElse(null));
+        final ForkJoinPool pool = new ForkJoinPool(((Optional<Integer>) command
+                .getOption(PARALLELISM)).orElse(Runtime.getRuntime().availableProcessors()));
+        try
+        {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(countryShards.entrySet()
+                    .stream()
+                    .map(countryShard -> ForkJoinTask.adapt(() -> run.checkCountry(pool,
+                            countryShard.getKey(), countryShard.getValue(), outputFormats,
+                            (Boolean) command.get(COMPRESS_OUTPUT), parallelCompression)))
+                    .collect(Collectors.toList()))));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        logger.info("Local checks completed in {}", start.elapsedSince());
+        return 0;
+    }
+
+    @Override
+    protected SwitchList switches()
+    {
+        return new SwitchList().with(INPUT, OUTPUT, COUNTRIES, CONFIGURATION_FILES,
+                CONFIGURATION_JSON, CHECK_FILTER, OUTPUT_FORMATS, EXTERNAL_DATA_INPUT, SHARDING,
+                EXPANSION_DISTANCE, MULTI_ATLAS, ATLAS_CACHE_SIZE, FUSED_EXECUTION,
+                PARALLEL_CHECK_OBJECTS, PROFILE_CHECKS, CHECK_BUDGET, COMPRESS_OUTPUT,
+                PARALLEL_COMPRESSION, PARALLELISM);
+    }
+
+    /**
+     * The settings of a run, shared by the tasks of all shards
+     */
+    private static final class LocalRun
+    {
+        private final String input;
+        private final String output;
+        private final Map<String, String> configurationMap;
+        private final OutputFileWriter fileWriter;
+        private final CheckResourceLoader checkLoader;
+        private final Sharding sharding;
+        private final Distance shardDistanceExpansion;
+        private final boolean multiAtlas;
+        private final boolean fused;
+        private final boolean parallelCheckObjects;
+        private final boolean profile;
+        private final Duration budget;
+        private final Long atlasCacheMegabytes;
+        // Stands for the Spark partition in the names of the output files
+        private final AtomicInteger partitions = new AtomicInteger();
+
+        @SuppressWarnings("squid:S107")
+        LocalRun(final String input, final String output,
+                final Map<String, String> configurationMap, final OutputFileWriter fileWriter,
+                final CheckResourceLoader checkLoader, final Sharding sharding,
+                final Distance shardDistanceExpansion, final boolean multiAtlas,
+                final boolean fused, final boolean parallelCheckObjects, final boolean profile,
+                final Duration budget, final Long atlasCacheMegabytes)
+        {
+            this.input = input;
+            this.output = output;
+            this.configurationMap = configurationMap;
+            this.fileWriter = fileWriter;
+            this.checkLoader = checkLoader;
+            this.sharding = sharding;
+            this.shardDistanceExpansion = shardDistanceExpansion;
+            this.multiAtlas = multiAtlas;
+            this.fused = fused;
+            this.parallelCheckObjects = parallelCheckObjects;
+            this.profile = profile;
+            this.budget = budget;
+            this.atlasCacheMegabytes = atlasCacheMegabytes;
+        }
+
+        /**
+         * Checks the shards of a country in parallel and writes its flag outputs as the flags
+         * come. Flags of features found in more than one shard are written once: only the hashes
+         * of the flags written are kept, to drop the next ones.
+         */
+        void checkCountry(final ForkJoinPool pool, final String country,
+                final List<Shard> shards, final Set<OutputFormats> outputFormats,
+                final boolean compressOutput, final Set<OutputFormats> parallelCompression)
+        {
+            final Time start = Time.now();
+            final EventService<CheckFlagEvent> eventService = EventService.get(country);
+            registerOutputProcessors(eventService, this.output, this.configurationMap,
+                    this.fileWriter, outputFormats, compressOutput, parallelCompression, country,
+                    this.partitions.getAndIncrement());
+            final Set<HashCode> flagged = ConcurrentHashMap.newKeySet();
+            try
+            {
+                ForkJoinTask.invokeAll(shards.stream()
+                        .map(shard -> ForkJoinTask.adapt(() -> this.checkShard(pool, country,
+                                shard, flagged, eventService)))
+                        .collect(Collectors.toList()));
+            }
+            finally
+            {
+                eventService.complete();
+            }
+            logger.info("Checked {} shards of {} in {}, {} flags", shards.size(), country,
+                    start.elapsedSince(), flagged.size());
+        }
+
+        /**
+         * Checks a shard, like {@link ShardedIntegrityChecksSparkJob} does, forking a task per
+         * check in the {@link ForkJoinPool}. Flags whose hash is not in the flagged ones yet are
+         * posted to the {@link EventService} of the country.
+         */
+        @SuppressWarnings("unchecked")
+        void checkShard(final ForkJoinPool pool, final String country, final Shard shard,
+                final Set<HashCode> flagged, final EventService<CheckFlagEvent> countryService)
+        {
+            // Checks keep state while they run, so each shard gets its own
+            final ShardedCheckFlagsTask task = new ShardedCheckFlagsTask(country, shard,
+                    new ArrayList<>(this.checkLoader.loadChecksForCountry(country)));
+            final ExecutorAtlasCache.Lease fetcher = atlasFetcher(this.input, task.getCountry(),
+                    this.configurationMap, this.atlasCacheMegabytes);
+            try
+            {
+                final AtlasEntityPolygonsFilter boundaryFilter = AtlasEntityPolygonsFilter.Type
+                        .INCLUDE.polygons(Collections.singleton(task.getShard().bounds()));
+                final EventService eventService = task.getEventService();
+                eventService.register(new Processor<CheckFlagEvent>()
+                {
+                    @Override
+                    public void process(final ShutdownEvent event)
+                    {
+                        // no-op
+                    }
+
+                    @Override
+                    @Subscribe
+                    @AllowConcurrentEvents
+                    public void process(final CheckFlagEvent event)
+                    {
+                        if (flagged.add(UniqueCheckFlagContainer.hash(event.getCheckName(),
+                                event.getCheckFlag().getUniqueIdentifiers())))
+                        {
+                            countryService.post(new CheckFlagEvent(event.getCheckName(),
+                                    event.getCheckFlag().makeComplete()));
+                        }
+                    }
+                });
+                eventService.register(new MetricFileGenerator(
+                        task.getShard().getName() + "_" + METRICS_FILENAME, this.fileWriter,
+                        combine(this.output, OUTPUT_METRIC_FOLDER, task.getCountry()),
+                        this.profile, hasTimeBudget(task.getChecks(), this.budget)));
+
+                final SortedMap<Distance, List<Check>> contextGroups = contextGroups(
+                        task.getChecks(), this.shardDistanceExpansion);
+                final Optional<Atlas> atlas = contextAtlas(task.getShard(),
+                        contextGroups.lastKey(), fetcher, this.sharding, this.multiAtlas);
+                if (atlas.isPresent())
+                {
+                    // Checks needing less context run on cuts of the atlas of the shard, all
+                    // together
+                    final List<Atlas> groupAtlases = new ArrayList<>();
+                    final List<Runnable> checks = new ArrayList<>();
+                    for (final Map.Entry<Distance, List<Check>> contextGroup : contextGroups
+                            .entrySet())
+                    {
+                        final Optional<Atlas> groupAtlas = contextGroup.getKey()
+                                .equals(contextGroups.lastKey()) ? atlas
+                                        : cutContext(atlas.get(), task.getShard(),
+                                                contextGroup.getKey());
+                        groupAtlas.ifPresent(checkedAtlas ->
+                        {
+                            groupAtlases.add(checkedAtlas);
+                            checks.addAll(runnableChecks(task.getCountry(), checkedAtlas,
+                                    contextGroup.getValue(), boundaryFilter, eventService,
+                                    this.fused, this.parallelCheckObjects ? pool : null,
+                                    this.profile, this.budget));
+                        });
+                    }
+                    ForkJoinTask.invokeAll(
+                            checks.stream().map(ForkJoinTask::adapt).collect(Collectors.toList()));
+                    groupAtlases.forEach(checkedAtlas -> GeometryCache.release(checkedAtlas)
+                            .ifPresent(cache -> logger.info("Geometry cache of shard {}: {}",
+                                    task.getShard().getName(), cache)));
+                }
+                eventService.complete();
+            }
+            finally
+            {
+                fetcher.close();
+            }
+        }
+    }
+}
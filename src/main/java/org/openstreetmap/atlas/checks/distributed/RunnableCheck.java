@@ -1,8 +1,15 @@
 package org.openstreetmap.atlas.checks.distributed;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.CheckProfile;
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.event.MetricEvent;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
@@ -25,6 +32,16 @@ import org.slf4j.LoggerFactory;
 public final class RunnableCheck extends RunnableCheckBase<Check> implements Runnable
 {
     private static final Logger logger = LoggerFactory.getLogger(RunnableCheck.class);
+    // Number of objects checked by a single parallel task
+    private static final int CHUNK_SIZE = 1_000;
+    // Maximum number of pending parallel tasks per thread of the pool
+    private static final int MAXIMUM_PENDING_CHUNKS_PER_THREAD = 4;
+
+    private ForkJoinPool forkJoinPool = null;
+    private CheckProfile profile = null;
+    private CheckBudget budget = null;
+    // Set once a chunk failed, so that the other chunks stop checking objects
+    private volatile boolean stopped = false;
 
     /**
      * Default constructor
@@ -72,26 +89,218 @@ public final class RunnableCheck extends RunnableCheckBase<Check> implements Run
         try
         {
             final Time timer = Time.now();
-            this.getObjects().forEach(object ->
+            if (this.budget != null)
+            {
+                this.budget.start();
+            }
+            if (this.forkJoinPool != null && this.getCheck().isThreadSafe())
+            {
+                this.checkObjectsInParallel();
+            }
+            else
             {
-                final Optional<CheckFlag> flag = this.getCheck().check(object);
-                if (flag.isPresent())
+                for (final AtlasObject object : this.getObjects())
                 {
-                    this.addTask(flag.get());
-                    this.getEventService().post(new CheckFlagEvent(this.getName(), flag.get()));
+                    if (this.isOverBudget())
+                    {
+                        break;
+                    }
+                    this.checkObject(object);
                 }
-            });
+            }
+            this.complete(timer.elapsedSince());
+        }
+        catch (final Exception e)
+        {
+            logger.error(String.format("%s failed to complete.", this.getName()), e);
+            if (this.budget != null)
+            {
+                this.budget.stop();
+            }
+        }
+    }
+
+    /**
+     * Sets a time budget for the {@link Check}. Once it is over budget, the {@link Check} stops
+     * checking objects, and completes with the flags found so far. The overrun is recorded in its
+     * {@link MetricEvent}, with the object it was checking. See {@link CheckBudget}.
+     *
+     * @param budget
+     *            the {@link Duration} the {@link Check} can run for, or {@code null} for no budget
+     * @return this {@link RunnableCheck}
+     */
+    public RunnableCheck withBudget(final Duration budget)
+    {
+        this.budget = budget == null ? null : new CheckBudget(this.getName(), budget);
+        return this;
+    }
+
+    /**
+     * Sets a {@link ForkJoinPool} to check objects in parallel with. It is only used if the
+     * {@link Check} is thread safe (see {@link Check#isThreadSafe()}). The objects are then split
+     * in chunks that are checked by the threads of the pool, so that a single slow {@link Check}
+     * can use all of them.
+     *
+     * @param forkJoinPool
+     *            the {@link ForkJoinPool} to use, or {@code null} to check objects sequentially
+     * @return this {@link RunnableCheck}
+     */
+    public RunnableCheck withForkJoinPool(final ForkJoinPool forkJoinPool)
+    {
+        this.forkJoinPool = forkJoinPool;
+        return this;
+    }
 
-            this.getCheck().clear();
-            final Duration checkRunTime = timer.elapsedSince();
+    /**
+     * Sets a {@link CheckProfile} to record the cost of each object in. The profile is posted with
+     * the {@link MetricEvent} of the {@link Check} once it completes.
+     *
+     * @param profile
+     *            the {@link CheckProfile} to record to, or {@code null} to not profile
+     * @return this {@link RunnableCheck}
+     */
+    public RunnableCheck withProfile(final CheckProfile profile)
+    {
+        this.profile = profile;
+        return this;
+    }
+
+    /**
+     * Charges time spent in the {@link Check} to its budget, for runs that do not go through
+     * {@link #run()}
+     *
+     * @param nanoseconds
+     *            time spent, in nanoseconds
+     */
+    void charge(final long nanoseconds)
+    {
+        if (this.budget != null)
+        {
+            this.budget.charge(nanoseconds);
+        }
+    }
+
+    /**
+     * Runs the {@link Check} over a single {@link AtlasObject}, posting a resulting
+     * {@link CheckFlag} to {@link RunnableCheckBase#eventService} and {@link MapRouletteClient}
+     *
+     * @param object
+     *            {@link AtlasObject} to check
+     */
+    void checkObject(final AtlasObject object)
+    {
+        if (this.budget != null)
+        {
+            this.budget.checking(object);
+        }
+        final Optional<CheckFlag> flag = this.profile == null ? this.getCheck().check(object)
+                : this.getCheck().check(object, this.profile);
+        if (flag.isPresent())
+        {
+            this.addTask(flag.get());
+            this.getEventService().post(new CheckFlagEvent(this.getName(), flag.get()));
+        }
+    }
+
+    /**
+     * Clears the {@link Check}, posts its {@link MetricEvent} and uploads any MapRoulette tasks
+     *
+     * @param checkRunTime
+     *            {@link Duration} the {@link Check} took to run
+     */
+    void complete(final Duration checkRunTime)
+    {
+        this.getCheck().clear();
+        final String budgetOverrun = this.budget == null ? null
+                : this.budget.stop().orElse(null);
+        if (budgetOverrun == null)
+        {
             logger.info("{} completed in {}.", this.getName(), checkRunTime);
-            this.getEventService().post(new MetricEvent(this.getName(), checkRunTime));
+        }
+        else
+        {
+            logger.warn("{} stopped over budget in {}, at object {}.", this.getName(),
+                    checkRunTime, budgetOverrun);
+        }
+        this.getEventService().post(
+                new MetricEvent(this.getName(), checkRunTime, this.profile, budgetOverrun));
+
+        this.uploadTasks();
+    }
+
+    /**
+     * @return {@code true} if the {@link Check} went over its budget and should stop
+     */
+    boolean isOverBudget()
+    {
+        return this.budget != null && this.budget.isExceeded();
+    }
 
-            this.uploadTasks();
+    /**
+     * Checks all the objects by submitting chunks of them to the {@link ForkJoinPool}. The number
+     * of pending chunks is bounded, so that only a limited number of objects are held at once. If
+     * a chunk fails, the other chunks are stopped and awaited before the failure is thrown, so that
+     * no flag is posted once the {@link Check} failed.
+     */
+    private void checkObjectsInParallel()
+    {
+        final int maximumPendingChunks = MAXIMUM_PENDING_CHUNKS_PER_THREAD
+                * this.forkJoinPool.getParallelism();
+        final Deque<ForkJoinTask<?>> pendingChunks = new ArrayDeque<>();
+        boolean completed = false;
+        try
+        {
+            List<AtlasObject> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (final AtlasObject object : this.getObjects())
+            {
+                if (this.isOverBudget())
+                {
+                    break;
+                }
+                chunk.add(object);
+                if (chunk.size() >= CHUNK_SIZE)
+                {
+                    pendingChunks.add(this.submitChunk(chunk));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    while (pendingChunks.size() > maximumPendingChunks)
+                    {
+                        pendingChunks.poll().join();
+                    }
+                }
+            }
+            if (!chunk.isEmpty() && !this.isOverBudget())
+            {
+                pendingChunks.add(this.submitChunk(chunk));
+            }
+            while (!pendingChunks.isEmpty())
+            {
+                pendingChunks.poll().join();
+            }
+            completed = true;
         }
-        catch (final Exception e)
+        finally
         {
-            logger.error(String.format("%s failed to complete.", this.getName()), e);
+            if (!completed)
+            {
+                this.stopped = true;
+                pendingChunks.forEach(pendingChunk -> pendingChunk.cancel(false));
+                pendingChunks.forEach(ForkJoinTask::quietlyJoin);
+            }
         }
     }
+
+    private ForkJoinTask<?> submitChunk(final List<AtlasObject> chunk)
+    {
+        return this.forkJoinPool.submit(() ->
+        {
+            for (final AtlasObject object : chunk)
+            {
+                if (this.stopped || this.isOverBudget())
+                {
+                    break;
+                }
+                this.checkObject(object);
+            }
+        });
+    }
 }
@@ -0,0 +1,572 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per {@link Shard} checkpoints of a sharded run, so that a run that failed part way through can be
+ * resumed without checking again the {@link Shard}s it completed. Once its checks are done, each
+ * {@link Shard} commits its flags and metric files together with a completion marker. The marker
+ * holds a fingerprint of the inputs of the {@link Shard}: the atlas files it loads, its own and
+ * those of the neighbours its expansion reaches, and the checks run on it with their
+ * configuration and the software version. A resumed run takes the
+ * flags of a {@link Shard} from its checkpoint when the marker matches the fingerprint of its
+ * current inputs, and checks it again otherwise. An incremental run takes them from the
+ * checkpoints of a previous run to another output, carrying over the flags and metric files of
+ * the {@link Shard}s whose inputs did not change, so that only the changed {@link Shard}s and the
+ * neighbours they are loaded by are checked again.
+ * <p>
+ * The flag output files of a country are written once all its {@link Shard}s are checked, and are
+ * then marked as written. A resumed run skips the countries marked, and deletes the flag output
+ * files a failed run left for the others before writing them again.
+ * <p>
+ * Metric files are written in a staging folder unique to each task attempt, and moved to the
+ * metric folder on commit. The marker is written last, and both the marker and the flags are
+ * written to a temporary file first and then renamed, so a {@link Shard} is either fully committed
+ * or checked again. This relies on renames being atomic, which they are on HDFS and local file
+ * systems, but not on object stores like S3.
+ *
+ * @author agent
+ */
+public class ShardCheckpoint implements Serializable
+{
+    private static final long serialVersionUID = -3484012931622457208L;
+    private static final Logger logger = LoggerFactory.getLogger(ShardCheckpoint.class);
+    private static final String CHECKPOINT_FOLDER = "checkpoint";
+    private static final String STAGING_FOLDER = "staging";
+    private static final String MARKER_EXTENSION = ".complete";
+    private static final String OUTPUTS_MARKER = "outputs" + MARKER_EXTENSION;
+    // Folders the flags of a country are output to once all its shards are checked
+    private static final List<String> FLAG_OUTPUT_FOLDERS = Arrays.asList(
+            IntegrityChecksSupport.OUTPUT_FLAG_FOLDER,
+            IntegrityChecksSupport.OUTPUT_FLAG_PACK_FOLDER,
+            IntegrityChecksSupport.OUTPUT_GEOJSON_FOLDER,
+            IntegrityChecksSupport.OUTPUT_TIPPECANOE_FOLDER);
+    private static final String FLAGS_EXTENSION = ".flags";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final String ATLAS_EXTENSION = ".atlas";
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final String SHARD_FILE_SEPARATOR = "_";
+    // The version in the manifest of the jar, empty when not running from a jar
+    private static final String SOFTWARE_VERSION = Optional
+            .ofNullable(ShardCheckpoint.class.getPackage().getImplementationVersion())
+            .orElse("");
+
+    private final String output;
+    private final Map<String, String> sparkContext;
+    private final boolean resume;
+    private final String previousOutput;
+
+    /**
+     * @param output
+     *            the output folder of the run, the checkpoints being in its {@code checkpoint}
+     *            folder
+     * @param sparkContext
+     *            the Spark configuration, to access the file system
+     * @param resume
+     *            whether to take the flags of the {@link Shard}s from the checkpoints of a
+     *            previous run
+     */
+    public ShardCheckpoint(final String output, final Map<String, String> sparkContext,
+            final boolean resume)
+    {
+        this(output, sparkContext, resume, null);
+    }
+
+    /**
+     * @param output
+     *            the output folder of the run, the checkpoints being in its {@code checkpoint}
+     *            folder
+     * @param sparkContext
+     *            the Spark configuration, to access the file system
+     * @param resume
+     *            whether to take the flags of the {@link Shard}s from the checkpoints of a
+     *            previous run
+     * @param previousOutput
+     *            the output folder of a previous checkpointed run to carry the outputs of the
+     *            unchanged {@link Shard}s over from, or null for a full run
+     */
+    public ShardCheckpoint(final String output, final Map<String, String> sparkContext,
+            final boolean resume, final String previousOutput)
+    {
+        this.output = output;
+        this.sparkContext = sparkContext;
+        this.resume = resume;
+        this.previousOutput = previousOutput;
+    }
+
+    /**
+     * Fingerprints the checks run on the {@link Shard}s of a country, from their names, their
+     * configuration resolved for the country, and the version of the software running them. To be
+     * computed once per country, on the driver.
+     *
+     * @param configuration
+     *            the configuration of the checks, resolved for the country
+     * @param checkNames
+     *            the names of the checks run
+     * @return the fingerprint, as a hexadecimal string
+     */
+    public static String checksFingerprint(
+            final org.openstreetmap.atlas.utilities.configuration.Configuration configuration,
+            final Collection<String> checkNames)
+    {
+        final MessageDigest digest = messageDigest();
+        digest.update(SOFTWARE_VERSION.getBytes(StandardCharsets.UTF_8));
+        checkNames.stream().sorted().forEach(name ->
+        {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update(canonical(configuration.get(name).valueOption().orElse(null))
+                    .getBytes(StandardCharsets.UTF_8));
+        });
+        return hexadecimal(digest);
+    }
+
+    /**
+     * @return a configuration value as a string that does not depend on the order of its keys
+     */
+    private static String canonical(final Object value)
+    {
+        if (value instanceof Map)
+        {
+            final Map<String, String> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach(
+                    (key, nested) -> sorted.put(String.valueOf(key), canonical(nested)));
+            return sorted.toString();
+        }
+        if (value instanceof Collection)
+        {
+            return ((Collection<?>) value).stream().map(ShardCheckpoint::canonical)
+                    .collect(Collectors.toList()).toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static String hexadecimal(final MessageDigest digest)
+    {
+        final StringBuilder fingerprint = new StringBuilder();
+        for (final byte value : digest.digest())
+        {
+            fingerprint.append(String.format("%02x", value));
+        }
+        return fingerprint.toString();
+    }
+
+    private static MessageDigest messageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        }
+        catch (final NoSuchAlgorithmException e)
+        {
+            throw new CoreException("Unable to digest with {}.", FINGERPRINT_ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Deletes the flag output files of a country, before they are all written again from the flags
+     * of its {@link Shard}s, so that a resumed run does not output the flags a failed run already
+     * output a second time. The metric files are left, being committed with each {@link Shard}.
+     *
+     * @param country
+     *            the country ISO code
+     */
+    public void clearOutputs(final String country)
+    {
+        try
+        {
+            final Path marker = this.outputsMarker(country);
+            final FileSystem fileSystem = marker.getFileSystem(this.hadoopConfiguration());
+            fileSystem.delete(marker, false);
+            for (final String folder : FLAG_OUTPUT_FOLDERS)
+            {
+                final Path countryOutput = new Path(
+                        SparkFileHelper.combine(this.output, folder, country));
+                if (fileSystem.delete(countryOutput, true))
+                {
+                    logger.info("Deleted the previous outputs of {} in {}.", country,
+                            countryOutput);
+                }
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to clear the outputs of {}.", country, e);
+        }
+    }
+
+    /**
+     * Commits the outputs of a {@link Shard}. The metric files of the {@link Shard} committed by a
+     * previous attempt are replaced by the ones in the staging folder, then the flags and the
+     * completion marker are written.
+     *
+     * @param country
+     *            the country ISO code
+     * @param shard
+     *            the {@link Shard} checked
+     * @param fingerprint
+     *            the fingerprint of the inputs of the {@link Shard}
+     * @param flags
+     *            the flags of the {@link Shard}
+     * @param stagingFolder
+     *            the staging folder the metric files of the {@link Shard} were written in
+     */
+    public void commit(final String country, final Shard shard, final String fingerprint,
+            final Collection<UniqueCheckFlagContainer> flags, final String stagingFolder)
+    {
+        try
+        {
+            final Path metrics = this.metricFolder(this.output, country);
+            final FileSystem fileSystem = metrics.getFileSystem(this.hadoopConfiguration());
+            // The shard is not complete anymore until its new outputs are all committed
+            final Path marker = this.shardFile(this.output, country, shard, MARKER_EXTENSION);
+            fileSystem.delete(marker, false);
+            fileSystem.mkdirs(metrics);
+            for (final FileStatus previous : this.metricFiles(fileSystem, metrics, shard))
+            {
+                fileSystem.delete(previous.getPath(), false);
+            }
+            final Path staging = new Path(stagingFolder);
+            if (fileSystem.exists(staging))
+            {
+                for (final FileStatus staged : fileSystem.listStatus(staging))
+                {
+                    this.rename(fileSystem, staged.getPath(),
+                            new Path(metrics, staged.getPath().getName()));
+                }
+                fileSystem.delete(staging, true);
+            }
+
+            final Path flagsFile = this.shardFile(this.output, country, shard, FLAGS_EXTENSION);
+            final Path temporaryFlagsFile = this.temporary(flagsFile);
+            try (ObjectOutputStream objects = new ObjectOutputStream(
+                    new GZIPOutputStream(fileSystem.create(temporaryFlagsFile, true))))
+            {
+                objects.writeObject(new ArrayList<>(flags));
+            }
+            this.rename(fileSystem, temporaryFlagsFile, flagsFile);
+
+            final Path temporaryMarker = this.temporary(marker);
+            try (Writer writer = new OutputStreamWriter(fileSystem.create(temporaryMarker, true),
+                    StandardCharsets.UTF_8))
+            {
+                writer.write(fingerprint);
+            }
+            this.rename(fileSystem, temporaryMarker, marker);
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to commit the checkpoint of shard {} of {}.",
+                    shard.getName(), country, e);
+        }
+    }
+
+    /**
+     * Marks the flag output files of a country as all written, for a resumed run to skip it
+     *
+     * @param country
+     *            the country ISO code
+     */
+    public void commitOutputs(final String country)
+    {
+        final Path marker = this.outputsMarker(country);
+        try
+        {
+            final FileSystem fileSystem = marker.getFileSystem(this.hadoopConfiguration());
+            final Path temporaryMarker = this.temporary(marker);
+            fileSystem.create(temporaryMarker, true).close();
+            this.rename(fileSystem, temporaryMarker, marker);
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to commit the outputs of {}.", country, e);
+        }
+    }
+
+    /**
+     * Fingerprints the inputs of a {@link Shard}, from the length and checksum of the atlas files
+     * it loads. On file systems without checksums, the modification time of the files is used
+     * instead, so a rebuilt atlas file has its {@link Shard}s checked again even when its content
+     * did not change.
+     *
+     * @param input
+     *            the input folder, holding a folder of atlas files per country
+     * @param country
+     *            the country ISO code
+     * @param shards
+     *            the {@link Shard}s whose atlas files are loaded
+     * @param checksFingerprint
+     *            the fingerprint of the checks run, see {@link #checksFingerprint}
+     * @return the fingerprint, as a hexadecimal string
+     */
+    public String fingerprint(final String input, final String country,
+            final Iterable<? extends Shard> shards, final String checksFingerprint)
+    {
+        try
+        {
+            final MessageDigest digest = messageDigest();
+            digest.update(checksFingerprint.getBytes(StandardCharsets.UTF_8));
+            final Configuration configuration = this.hadoopConfiguration();
+            for (final String shardName : StreamSupport.stream(shards.spliterator(), false)
+                    .map(Shard::getName).sorted().collect(Collectors.toList()))
+            {
+                final Path atlasFile = new Path(SparkFileHelper.combine(input, country,
+                        country + SHARD_FILE_SEPARATOR + shardName + ATLAS_EXTENSION));
+                final FileSystem fileSystem = atlasFile.getFileSystem(configuration);
+                if (!fileSystem.exists(atlasFile))
+                {
+                    continue;
+                }
+                final FileStatus status = fileSystem.getFileStatus(atlasFile);
+                digest.update(atlasFile.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update(Long.toString(status.getLen()).getBytes(StandardCharsets.UTF_8));
+                final FileChecksum checksum = fileSystem.getFileChecksum(atlasFile);
+                if (checksum == null)
+                {
+                    digest.update(Long.toString(status.getModificationTime())
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+                else
+                {
+                    digest.update(checksum.getBytes());
+                }
+            }
+            return hexadecimal(digest);
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to fingerprint the inputs of {}.", country, e);
+        }
+    }
+
+    /**
+     * @param country
+     *            the country ISO code
+     * @return true if the flag output files of the country were all written by a previous run to
+     *         the same output
+     */
+    public boolean outputsCommitted(final String country)
+    {
+        final Path marker = this.outputsMarker(country);
+        try
+        {
+            return marker.getFileSystem(this.hadoopConfiguration()).exists(marker);
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to read the checkpoint of {}.", country, e);
+        }
+    }
+
+    /**
+     * Takes the flags of a {@link Shard} from a checkpoint committed with the same inputs: from
+     * this run's output when resuming, and then from the previous output. Outputs taken from the
+     * previous output are carried over to this run's output and committed there.
+     *
+     * @param country
+     *            the country ISO code
+     * @param shard
+     *            the {@link Shard} to reuse the flags of
+     * @param fingerprint
+     *            the fingerprint of the current inputs of the {@link Shard}
+     * @return the flags of the {@link Shard}, if a checkpoint with the same inputs was found
+     */
+    public Optional<List<UniqueCheckFlagContainer>> reusedFlags(final String country,
+            final Shard shard, final String fingerprint)
+    {
+        if (this.resume)
+        {
+            final Optional<List<UniqueCheckFlagContainer>> flags = this
+                    .completedFlags(this.output, country, shard, fingerprint);
+            if (flags.isPresent())
+            {
+                return flags;
+            }
+        }
+        if (this.previousOutput != null)
+        {
+            final Optional<List<UniqueCheckFlagContainer>> flags = this
+                    .completedFlags(this.previousOutput, country, shard, fingerprint);
+            if (flags.isPresent())
+            {
+                this.carryOver(country, shard, fingerprint, flags.get());
+                return flags;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param country
+     *            the country ISO code
+     * @param shard
+     *            the {@link Shard} to check
+     * @return a new staging folder for the metric files of the {@link Shard}, unique to the
+     *         calling task attempt
+     */
+    public String stagingFolder(final String country, final Shard shard)
+    {
+        return SparkFileHelper.combine(this.output, CHECKPOINT_FOLDER, country, STAGING_FOLDER,
+                shard.getName() + "-" + UUID.randomUUID());
+    }
+
+    /**
+     * Copies the metric files of an unchanged {@link Shard} from the previous output, and commits
+     * them with its flags to this run's output
+     */
+    private void carryOver(final String country, final Shard shard, final String fingerprint,
+            final List<UniqueCheckFlagContainer> flags)
+    {
+        final String stagingFolder = this.stagingFolder(country, shard);
+        try
+        {
+            final Configuration configuration = this.hadoopConfiguration();
+            final Path previousMetrics = this.metricFolder(this.previousOutput, country);
+            final FileSystem previousFileSystem = previousMetrics.getFileSystem(configuration);
+            final Path staging = new Path(stagingFolder);
+            final FileSystem fileSystem = staging.getFileSystem(configuration);
+            for (final FileStatus metricFile : this.metricFiles(previousFileSystem,
+                    previousMetrics, shard))
+            {
+                FileUtil.copy(previousFileSystem, metricFile.getPath(), fileSystem,
+                        new Path(staging, metricFile.getPath().getName()), false, configuration);
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to carry over the metrics of shard {} of {}.",
+                    shard.getName(), country, e);
+        }
+        this.commit(country, shard, fingerprint, flags, stagingFolder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<List<UniqueCheckFlagContainer>> completedFlags(final String outputFolder,
+            final String country, final Shard shard, final String fingerprint)
+    {
+        final Path marker = this.shardFile(outputFolder, country, shard, MARKER_EXTENSION);
+        try
+        {
+            final FileSystem fileSystem = marker.getFileSystem(this.hadoopConfiguration());
+            if (!fileSystem.exists(marker))
+            {
+                return Optional.empty();
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(fileSystem.open(marker), StandardCharsets.UTF_8)))
+            {
+                if (!fingerprint.equals(reader.readLine()))
+                {
+                    logger.info("Inputs of shard {} of {} changed since its checkpoint in {}.",
+                            shard.getName(), country, outputFolder);
+                    return Optional.empty();
+                }
+            }
+            try (ObjectInputStream objects = new ObjectInputStream(new GZIPInputStream(fileSystem
+                    .open(this.shardFile(outputFolder, country, shard, FLAGS_EXTENSION)))))
+            {
+                return Optional.of((List<UniqueCheckFlagContainer>) objects.readObject());
+            }
+        }
+        catch (final IOException | ClassNotFoundException e)
+        {
+            logger.warn("Unable to read the checkpoint of shard {} of {} in {}. Checking it again.",
+                    shard.getName(), country, outputFolder, e);
+            return Optional.empty();
+        }
+    }
+
+    private Configuration hadoopConfiguration()
+    {
+        final Configuration configuration = new Configuration();
+        this.sparkContext.forEach(configuration::set);
+        return configuration;
+    }
+
+    /**
+     * @return the metric files of a {@link Shard} in a metric folder
+     */
+    private FileStatus[] metricFiles(final FileSystem fileSystem, final Path metricFolder,
+            final Shard shard) throws IOException
+    {
+        if (!fileSystem.exists(metricFolder))
+        {
+            return new FileStatus[0];
+        }
+        final String shardPrefix = shard.getName() + SHARD_FILE_SEPARATOR;
+        return fileSystem.listStatus(metricFolder,
+                path -> path.getName().startsWith(shardPrefix));
+    }
+
+    private Path metricFolder(final String outputFolder, final String country)
+    {
+        return new Path(SparkFileHelper.combine(outputFolder,
+                IntegrityChecksSupport.OUTPUT_METRIC_FOLDER, country));
+    }
+
+    private Path outputsMarker(final String country)
+    {
+        return new Path(
+                SparkFileHelper.combine(this.output, CHECKPOINT_FOLDER, country, OUTPUTS_MARKER));
+    }
+
+    private void rename(final FileSystem fileSystem, final Path source, final Path target)
+            throws IOException
+    {
+        fileSystem.delete(target, false);
+        if (!fileSystem.rename(source, target))
+        {
+            throw new IOException(String.format("Unable to move %s to %s", source, target));
+        }
+    }
+
+    private Path shardFile(final String outputFolder, final String country, final Shard shard,
+            final String extension)
+    {
+        return new Path(SparkFileHelper.combine(outputFolder, CHECKPOINT_FOLDER, country,
+                shard.getName() + extension));
+    }
+
+    /**
+     * @return a temporary file next to a path, unique to the calling task attempt
+     */
+    private Path temporary(final Path path)
+    {
+        return new Path(path.getParent(),
+                path.getName() + "-" + UUID.randomUUID() + TEMPORARY_EXTENSION);
+    }
+}
@@ -0,0 +1,337 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Orders and groups sharded tasks by their estimated cost, so that the most expensive
+ * {@link Shard}s start first and cheap {@link Shard}s share partitions instead of each paying the
+ * cost of a Spark task. Costs are estimated from the run times in the metric files of a previous
+ * run when they exist, and from the size of the atlas files otherwise. Tasks can also be grouped
+ * by location, for neighbouring {@link Shard}s to share the atlases they load.
+ *
+ * @author agent
+ */
+public final class ShardScheduler
+{
+    private static final Logger logger = LoggerFactory.getLogger(ShardScheduler.class);
+    private static final String METRIC_HEADER_PREFIX = "name,";
+    private static final String SHARD_NAME_GROUP = "([0-9]+-[0-9]+-[0-9]+)";
+    // Bits of each coordinate in the Z-order curve locality scheduling sorts shards along
+    private static final int CURVE_BITS = 16;
+    private static final double LATITUDE_RANGE = 180.0;
+    private static final double LONGITUDE_RANGE = 360.0;
+
+    /**
+     * A group of tasks with their total cost
+     *
+     * @param <T>
+     *            the type of task
+     */
+    private static final class Partition<T>
+    {
+        private final List<T> tasks = new ArrayList<>();
+        private double cost = 0;
+
+        void add(final T task, final double taskCost)
+        {
+            this.tasks.add(task);
+            this.cost += taskCost;
+        }
+
+        double getCost()
+        {
+            return this.cost;
+        }
+
+        List<T> getTasks()
+        {
+            return this.tasks;
+        }
+    }
+
+    /**
+     * Reads the size of the atlas files of a country
+     *
+     * @param countryDirectory
+     *            the folder holding the atlas files of the country
+     * @param country
+     *            the country ISO code
+     * @param sparkContext
+     *            the Spark configuration, to access the file system
+     * @return the size in bytes of each atlas file, keyed by {@link Shard} name
+     */
+    public static Map<String, Long> atlasFileSizes(final String countryDirectory,
+            final String country, final Map<String, String> sparkContext)
+    {
+        final Pattern atlasFilePattern = Pattern
+                .compile(String.format("^%s_%s\\.atlas", country, SHARD_NAME_GROUP));
+        final Map<String, Long> sizes = new HashMap<>();
+        for (final FileStatus status : listFiles(countryDirectory, sparkContext))
+        {
+            final Matcher matcher = atlasFilePattern.matcher(status.getPath().getName());
+            if (matcher.find())
+            {
+                sizes.merge(matcher.group(1), status.getLen(), Long::sum);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Estimates the cost of some {@link Shard}s. The run time of a {@link Shard} in a previous run
+     * is used when it exists. Other {@link Shard}s get their atlas file size, scaled by the
+     * average run time per byte of the {@link Shard}s that have both. {@link Shard}s with neither
+     * get the average cost.
+     *
+     * @param shardNames
+     *            the names of the {@link Shard}s to estimate the cost of
+     * @param atlasFileSizes
+     *            atlas file sizes in bytes, keyed by {@link Shard} name
+     * @param previousRunTimes
+     *            run times in milliseconds of a previous run, keyed by {@link Shard} name
+     * @return the cost of each {@link Shard}, keyed by {@link Shard} name
+     */
+    public static Map<String, Double> estimateCosts(final Collection<String> shardNames,
+            final Map<String, Long> atlasFileSizes, final Map<String, Long> previousRunTimes)
+    {
+        long sizeWithRunTime = 0;
+        long runTimeWithSize = 0;
+        for (final Map.Entry<String, Long> runTime : previousRunTimes.entrySet())
+        {
+            if (atlasFileSizes.containsKey(runTime.getKey()))
+            {
+                sizeWithRunTime += atlasFileSizes.get(runTime.getKey());
+                runTimeWithSize += runTime.getValue();
+            }
+        }
+        final double runTimePerByte = sizeWithRunTime > 0
+                ? (double) runTimeWithSize / sizeWithRunTime
+                : previousRunTimes.isEmpty() ? 1.0 : 0.0;
+
+        final Map<String, Double> costs = new HashMap<>();
+        for (final String shardName : shardNames)
+        {
+            if (previousRunTimes.containsKey(shardName))
+            {
+                costs.put(shardName, (double) previousRunTimes.get(shardName));
+            }
+            else if (atlasFileSizes.containsKey(shardName) && runTimePerByte > 0)
+            {
+                costs.put(shardName, atlasFileSizes.get(shardName) * runTimePerByte);
+            }
+        }
+        final double averageCost = costs.values().stream().mapToDouble(Double::doubleValue)
+                .average().orElse(1.0);
+        shardNames.forEach(shardName -> costs.putIfAbsent(shardName, averageCost));
+        return costs;
+    }
+
+    /**
+     * Reads the total check run time of each {@link Shard} from the metric files of a previous
+     * sharded run
+     *
+     * @param metricDirectory
+     *            the folder holding the metric files of a country
+     * @param sparkContext
+     *            the Spark configuration, to access the file system
+     * @return the run time in milliseconds of each {@link Shard}, keyed by {@link Shard} name
+     */
+    public static Map<String, Long> previousRunTimes(final String metricDirectory,
+            final Map<String, String> sparkContext)
+    {
+        final Pattern metricFilePattern = Pattern.compile(String.format("^%s_%s", SHARD_NAME_GROUP,
+                IntegrityCheckSparkJob.METRICS_FILENAME.replace(".csv", "")));
+        final Map<String, Long> runTimes = new HashMap<>();
+        for (final FileStatus status : listFiles(metricDirectory, sparkContext))
+        {
+            final Matcher matcher = metricFilePattern.matcher(status.getPath().getName());
+            if (matcher.find())
+            {
+                try
+                {
+                    runTimes.merge(matcher.group(1), runTime(status.getPath(), sparkContext),
+                            Long::sum);
+                }
+                catch (final IOException | RuntimeException e)
+                {
+                    logger.warn("Unable to read metric file {}.", status.getPath(), e);
+                }
+            }
+        }
+        return runTimes;
+    }
+
+    /**
+     * Orders and groups tasks by cost. Tasks are taken from the most to the least expensive. A task
+     * costing at least a fair share of the total (the total divided by the number of partitions)
+     * gets its own partition, cheaper tasks go to the first partition they fit in without going
+     * over a fair share. Partitions are returned from the most to the least expensive.
+     *
+     * @param tasks
+     *            the tasks to schedule
+     * @param cost
+     *            the estimated cost of a task
+     * @param partitions
+     *            the targeted number of partitions
+     * @param <T>
+     *            the type of task
+     * @return the tasks grouped in partitions, most expensive first
+     */
+    public static <T> List<List<T>> schedule(final List<T> tasks, final ToDoubleFunction<T> cost,
+            final int partitions)
+    {
+        final double fairShare = tasks.stream().mapToDouble(cost).sum() / Math.max(1, partitions);
+        final List<T> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(Comparator.comparingDouble(cost).reversed());
+
+        final List<Partition<T>> scheduled = new ArrayList<>();
+        for (final T task : sortedTasks)
+        {
+            final double taskCost = cost.applyAsDouble(task);
+            Partition<T> target = null;
+            if (taskCost < fairShare)
+            {
+                target = scheduled.stream()
+                        .filter(partition -> partition.getCost() + taskCost <= fairShare)
+                        .findFirst().orElse(null);
+            }
+            if (target == null)
+            {
+                target = new Partition<>();
+                scheduled.add(target);
+            }
+            target.add(task, taskCost);
+        }
+
+        scheduled.sort(Comparator.comparingDouble(Partition<T>::getCost).reversed());
+        return scheduled.stream().map(Partition::getTasks).collect(Collectors.toList());
+    }
+
+    /**
+     * Groups tasks by location, so that the tasks of neighbouring {@link Shard}s, which load each
+     * other's atlases, tend to run in the same partition, on the same executor, and share its
+     * {@link ExecutorAtlasCache}. Tasks are sorted along a Z-order curve over the centers of their
+     * {@link Shard}s, then cut in partitions of consecutive tasks.
+     *
+     * @param tasks
+     *            the tasks to schedule
+     * @param shard
+     *            the {@link Shard} of a task
+     * @param partitions
+     *            the targeted number of partitions
+     * @param <T>
+     *            the type of task
+     * @return the tasks grouped in partitions of neighbouring {@link Shard}s
+     */
+    public static <T> List<List<T>> scheduleByLocality(final List<T> tasks,
+            final Function<T, Shard> shard, final int partitions)
+    {
+        final List<T> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(Comparator.comparingLong(task -> zOrder(shard.apply(task))));
+        final int partitionCount = Math.max(1, Math.min(partitions, sortedTasks.size()));
+        final List<List<T>> scheduled = new ArrayList<>(partitionCount);
+        for (int index = 0; index < partitionCount; index++)
+        {
+            scheduled.add(new ArrayList<>(sortedTasks.subList(
+                    index * sortedTasks.size() / partitionCount,
+                    (index + 1) * sortedTasks.size() / partitionCount)));
+        }
+        return scheduled;
+    }
+
+    private static Configuration hadoopConfiguration(final Map<String, String> sparkContext)
+    {
+        final Configuration configuration = new Configuration();
+        sparkContext.forEach(configuration::set);
+        return configuration;
+    }
+
+    private static List<FileStatus> listFiles(final String directory,
+            final Map<String, String> sparkContext)
+    {
+        final Path path = new Path(directory);
+        try
+        {
+            final FileSystem fileSystem = path.getFileSystem(hadoopConfiguration(sparkContext));
+            if (!fileSystem.exists(path))
+            {
+                return new ArrayList<>();
+            }
+            final List<FileStatus> files = new ArrayList<>();
+            for (final FileStatus status : fileSystem.listStatus(path))
+            {
+                if (status.isFile())
+                {
+                    files.add(status);
+                }
+            }
+            return files;
+        }
+        catch (final IOException e)
+        {
+            logger.warn("Unable to list files in {}.", directory, e);
+            return new ArrayList<>();
+        }
+    }
+
+    private static long runTime(final Path metricFile, final Map<String, String> sparkContext)
+            throws IOException
+    {
+        final FileSystem fileSystem = metricFile.getFileSystem(hadoopConfiguration(sparkContext));
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(fileSystem.open(metricFile), StandardCharsets.UTF_8)))
+        {
+            // The duration is the second column, whether or not the file holds profiles
+            return reader.lines().filter(line -> !line.startsWith(METRIC_HEADER_PREFIX))
+                    .map(line -> line.split(","))
+                    .filter(columns -> columns.length > 1 && !columns[1].isEmpty())
+                    .mapToLong(columns -> Long.parseLong(columns[1])).sum();
+        }
+    }
+
+    /**
+     * @return the position of the center of a {@link Shard} along a Z-order curve, interleaving
+     *         the bits of its latitude and longitude
+     */
+    private static long zOrder(final Shard shard)
+    {
+        final Location center = shard.bounds().center();
+        final long latitude = (long) ((center.getLatitude().asDegrees() + LATITUDE_RANGE / 2)
+                / LATITUDE_RANGE * ((1 << CURVE_BITS) - 1));
+        final long longitude = (long) ((center.getLongitude().asDegrees() + LONGITUDE_RANGE / 2)
+                / LONGITUDE_RANGE * ((1 << CURVE_BITS) - 1));
+        long position = 0;
+        for (int bit = 0; bit < CURVE_BITS; bit++)
+        {
+            position |= (latitude >> bit & 1) << 2 * bit + 1 | (longitude >> bit & 1) << 2 * bit;
+        }
+        return position;
+    }
+
+    private ShardScheduler()
+    {
+    }
+}
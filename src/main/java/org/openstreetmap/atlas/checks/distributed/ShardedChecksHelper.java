@@ -0,0 +1,283 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FLAG_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FLAG_PACK_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_GEOJSON_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_TIPPECANOE_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.combine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OutputFormats;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.checks.event.CheckFlagFileProcessor;
+import org.openstreetmap.atlas.checks.event.CheckFlagGeoJsonProcessor;
+import org.openstreetmap.atlas.checks.event.CheckFlagPackProcessor;
+import org.openstreetmap.atlas.checks.event.CheckFlagTippecanoeProcessor;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
+import org.openstreetmap.atlas.event.EventService;
+import org.openstreetmap.atlas.generator.tools.caching.HadoopAtlasFileCache;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.dynamic.DynamicAtlas;
+import org.openstreetmap.atlas.geography.atlas.dynamic.policy.DynamicAtlasPolicy;
+import org.openstreetmap.atlas.geography.atlas.multi.MultiAtlas;
+import org.openstreetmap.atlas.geography.atlas.sub.AtlasCutType;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.geography.sharding.Sharding;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
+
+/**
+ * Loads the atlases of shards and writes the flag outputs of countries the same way for
+ * {@link ShardedIntegrityChecksSparkJob}, {@link IntegrityCheckSparkJob} and
+ * {@link LocalIntegrityChecksRunner}. Nothing here depends on Spark, so that the local runner does
+ * not need it: the Spark jobs give the output processors the partition of their task, and the
+ * local runner a partition of its own.
+ *
+ * @author agent
+ */
+public final class ShardedChecksHelper
+{
+    /**
+     * Get the fetcher to use for Atlas files. The fetcher uses a hadoop cache to reduce remote
+     * reads, and shares the atlases it loads with the other tasks of the executor through its
+     * {@link ExecutorAtlasCache}.
+     *
+     * @param input
+     *            {@link String} input folder path
+     * @param country
+     *            {@link String} country code
+     * @param configuration
+     *            the Hadoop configuration of the input file system
+     * @param atlasCacheMegabytes
+     *            size of the {@link ExecutorAtlasCache}, or null for the default
+     * @return {@link ExecutorAtlasCache.Lease} that fetches atlases, to close once the task is done
+     */
+    static ExecutorAtlasCache.Lease atlasFetcher(final String input, final String country,
+            final Map<String, String> configuration, final Long atlasCacheMegabytes)
+    {
+        final HadoopAtlasFileCache cache = new HadoopAtlasFileCache(input, configuration);
+        return ExecutorAtlasCache.forExecutor(Optional.ofNullable(atlasCacheMegabytes))
+                .lease(country, shard -> cache.get(country, shard));
+    }
+
+    /**
+     * Builds the atlas of a shard reaching some distance around it. Checks that need no context get
+     * the atlas of the shard alone, and checks that need an unbounded context a
+     * {@link DynamicAtlas} loading neighbouring shards as the checks follow features into them,
+     * however far.
+     *
+     * @param shard
+     *            the {@link Shard} to check
+     * @param radius
+     *            the {@link Distance} to expand the shard by, or {@link Check#UNBOUNDED_CONTEXT}
+     * @param fetcher
+     *            {@link ExecutorAtlasCache.Lease} that fetches atlases
+     * @param sharding
+     *            the {@link Sharding} of the atlases
+     * @param multiAtlas
+     *            boolean whether to use a multi or dynamic Atlas, for a bounded radius
+     * @return the {@link Atlas}, if any shard has one
+     */
+    static Optional<Atlas> contextAtlas(final Shard shard, final Distance radius,
+            final ExecutorAtlasCache.Lease fetcher, final Sharding sharding,
+            final boolean multiAtlas)
+    {
+        if (radius.asMeters() <= 0)
+        {
+            return fetcher.apply(shard);
+        }
+        final boolean unbounded = isUnbounded(radius);
+        // Use dynamic or multi atlas (multi runs faster locally). Only a dynamic atlas can follow
+        // features as far as they go.
+        if (multiAtlas && !unbounded)
+        {
+            final List<Atlas> atlases = StreamSupport
+                    .stream(sharding.shards(shard.bounds().expand(radius)).spliterator(), true)
+                    .map(fetcher).filter(Optional::isPresent).map(Optional::get)
+                    .collect(Collectors.toList());
+            return atlases.isEmpty() ? Optional.empty() : Optional.of(new MultiAtlas(atlases));
+        }
+        if (unbounded)
+        {
+            // Loading all the shards the features reach up front would load the whole country, so
+            // neighbouring shards are loaded when the checks reach into them
+            return Optional.of(new DynamicAtlas(
+                    new DynamicAtlasPolicy(fetcher, sharding, Collections.singleton(shard),
+                            shard.bounds()).withAggressivelyExploreRelations(true)
+                                    .withExtendIndefinitely(true)));
+        }
+        final DynamicAtlasPolicy policy = new DynamicAtlasPolicy(fetcher, sharding,
+                Collections.singleton(shard), shard.bounds().expand(radius))
+                        .withDeferredLoading(true).withAggressivelyExploreRelations(true)
+                        .withExtendIndefinitely(false);
+        final DynamicAtlas atlas = new DynamicAtlas(policy);
+        atlas.preemptiveLoad();
+        return Optional.of(atlas);
+    }
+
+    /**
+     * Groups checks by how far the atlas of a shard has to reach for them, see
+     * {@link Check#contextRadius()}. Checks that do not say get the default distance, which is the
+     * farthest the job loads shards by default, and checks that need an unbounded context
+     * {@link Check#UNBOUNDED_CONTEXT}. The shard is loaded once for the widest radius, the last
+     * key, and the other groups run on cuts of that atlas, see {@link #cutContext}.
+     *
+     * @param checks
+     *            the checks to group
+     * @param defaultDistance
+     *            the default {@link Distance} to expand shards by
+     * @return the checks by context radius, from the smallest radius
+     */
+    static SortedMap<Distance, List<Check>> contextGroups(final Collection<Check> checks,
+            final Distance defaultDistance)
+    {
+        final SortedMap<Distance, List<Check>> groups = new TreeMap<>(
+                Comparator.comparingDouble(Distance::asMeters));
+        for (final Check check : checks)
+        {
+            final Distance radius = check.contextRadius()
+                    .map(contextRadius -> isUnbounded(contextRadius) ? Check.UNBOUNDED_CONTEXT
+                            : contextRadius)
+                    .orElse(defaultDistance);
+            groups.computeIfAbsent(radius, key -> new ArrayList<>()).add(check);
+        }
+        if (groups.isEmpty())
+        {
+            groups.put(defaultDistance, new ArrayList<>());
+        }
+        return groups;
+    }
+
+    /**
+     * Cuts the context of a smaller radius out of the atlas loaded for the widest radius of a
+     * shard, so that checks needing less context do not go through the objects of the neighbouring
+     * shards, without loading the shard again.
+     *
+     * @param atlas
+     *            the {@link Atlas} loaded for the shard, see {@link #contextAtlas}
+     * @param shard
+     *            the {@link Shard} to check
+     * @param radius
+     *            the {@link Distance} to expand the shard by
+     * @return the cut {@link Atlas}, if anything is left in it
+     */
+    static Optional<Atlas> cutContext(final Atlas atlas, final Shard shard, final Distance radius)
+    {
+        return atlas.subAtlas(
+                radius.asMeters() <= 0 ? shard.bounds() : shard.bounds().expand(radius),
+                AtlasCutType.SOFT_CUT);
+    }
+
+    /**
+     * @param radius
+     *            a context radius
+     * @return true if the radius stands for an unbounded context
+     */
+    static boolean isUnbounded(final Distance radius)
+    {
+        return radius.asMeters() >= Check.UNBOUNDED_CONTEXT.asMeters();
+    }
+
+    /**
+     * Gets the configuration to compress an output format in parallel blocks with, as expected by
+     * the {@code withParallelCompression} of the output processors
+     *
+     * @param parallelCompression
+     *            the {@link OutputFormats} to compress in parallel blocks, or null for none
+     * @param format
+     *            the {@link OutputFormats} being written
+     * @param configuration
+     *            the Hadoop configuration of the output file system
+     * @return the configuration, or null if the format is compressed on the writing thread
+     */
+    static Map<String, String> parallelCompression(
+            final Set<OutputFormats> parallelCompression, final OutputFormats format,
+            final Map<String, String> configuration)
+    {
+        return parallelCompression != null && parallelCompression.contains(format)
+                ? configuration
+                : null;
+    }
+
+    /**
+     * Registers the processors writing the flag outputs of a country to an {@link EventService}
+     *
+     * @param eventService
+     *            the {@link EventService} flags are posted to
+     * @param output
+     *            {@link String} output folder path
+     * @param configurationMap
+     *            the Hadoop configuration of the output file system
+     * @param fileWriter
+     *            {@link OutputFileWriter} of the output files
+     * @param outputFormats
+     *            {@link Set} of
+     *            {@link org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OutputFormats}
+     * @param compressOutput
+     *            whether to compress the output files
+     * @param parallelCompression
+     *            {@link Set} of the output formats to compress in parallel blocks, or null for none
+     * @param country
+     *            {@link String} ISO code for the country being processed
+     * @param partition
+     *            the partition the outputs are written from, to tell apart the files of the
+     *            country written at the same time
+     */
+    @SuppressWarnings("squid:S107")
+    static void registerOutputProcessors(final EventService<CheckFlagEvent> eventService,
+            final String output, final Map<String, String> configurationMap,
+            final OutputFileWriter fileWriter, final Set<OutputFormats> outputFormats,
+            final boolean compressOutput, final Set<OutputFormats> parallelCompression,
+            final String country, final int partition)
+    {
+        if (outputFormats.contains(OutputFormats.FLAGS))
+        {
+            eventService.register(new CheckFlagFileProcessor(fileWriter,
+                    combine(output, OUTPUT_FLAG_FOLDER, country), partition)
+                            .withCompression(compressOutput)
+                            .withParallelCompression(parallelCompression(parallelCompression,
+                                    OutputFormats.FLAGS, configurationMap)));
+        }
+
+        if (outputFormats.contains(OutputFormats.FLAGPACK))
+        {
+            eventService.register(new CheckFlagPackProcessor(configurationMap,
+                    combine(output, OUTPUT_FLAG_PACK_FOLDER, country), partition));
+        }
+
+        if (outputFormats.contains(OutputFormats.GEOJSON))
+        {
+            eventService.register(new CheckFlagGeoJsonProcessor(fileWriter,
+                    combine(output, OUTPUT_GEOJSON_FOLDER, country), partition)
+                            .withCompression(compressOutput)
+                            .withParallelCompression(parallelCompression(parallelCompression,
+                                    OutputFormats.GEOJSON, configurationMap)));
+        }
+
+        if (outputFormats.contains(OutputFormats.TIPPECANOE))
+        {
+            eventService.register(new CheckFlagTippecanoeProcessor(fileWriter,
+                    combine(output, OUTPUT_TIPPECANOE_FOLDER, country), partition)
+                            .withCompression(compressOutput)
+                            .withParallelCompression(parallelCompression(parallelCompression,
+                                    OutputFormats.TIPPECANOE, configurationMap)));
+        }
+    }
+
+    private ShardedChecksHelper()
+    {
+        // Hide constructor
+    }
+}
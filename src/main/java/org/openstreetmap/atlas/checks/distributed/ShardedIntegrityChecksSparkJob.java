@@ -1,6 +1,32 @@
 package org.openstreetmap.atlas.checks.distributed;
 
-import static org.openstreetmap.atlas.checks.distributed.IntegrityCheckSparkJob.METRICS_FILENAME;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.ATLAS_CACHE_SIZE;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.ATLAS_SHARDING_FILE;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CHECK_BUDGET;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CHECK_FILTER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CONFIGURATION_FILES;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.CONFIGURATION_JSON;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.COUNTRIES;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.EXPANSION_DISTANCE;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.EXTERNAL_DATA_INPUT;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.FUSED_EXECUTION;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.METRICS_FILENAME;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.MULTI_ATLAS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_FORMATS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OUTPUT_METRIC_FOLDER;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PARALLEL_CHECK_OBJECTS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PARALLEL_COMPRESSION;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.PROFILE_CHECKS;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.SHARDING;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.countryShardMapFromShardFiles;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.hasTimeBudget;
+import static org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.runChecks;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.atlasFetcher;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.contextAtlas;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.contextGroups;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.cutContext;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.isUnbounded;
+import static org.openstreetmap.atlas.checks.distributed.ShardedChecksHelper.registerOutputProcessors;
 
 import java.util.Collections;
 import java.util.Iterator;
@@ -9,41 +35,41 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.PairFunction;
 import org.apache.spark.api.java.function.VoidFunction;
 import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.util.LongAccumulator;
 import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.CheckProfile;
 import org.openstreetmap.atlas.checks.base.CheckResourceLoader;
 import org.openstreetmap.atlas.checks.base.ExternalDataFetcher;
 import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
 import org.openstreetmap.atlas.checks.constants.CommonConstants;
+import org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OutputFormats;
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
-import org.openstreetmap.atlas.checks.event.CheckFlagFileProcessor;
-import org.openstreetmap.atlas.checks.event.CheckFlagGeoJsonProcessor;
-import org.openstreetmap.atlas.checks.event.CheckFlagTippecanoeProcessor;
+import org.openstreetmap.atlas.checks.event.MetricEvent;
 import org.openstreetmap.atlas.checks.event.MetricFileGenerator;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
 import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
 import org.openstreetmap.atlas.event.EventService;
 import org.openstreetmap.atlas.event.Processor;
 import org.openstreetmap.atlas.event.ShutdownEvent;
 import org.openstreetmap.atlas.exception.CoreException;
 import org.openstreetmap.atlas.generator.sharding.AtlasSharding;
-import org.openstreetmap.atlas.generator.tools.caching.HadoopAtlasFileCache;
 import org.openstreetmap.atlas.generator.tools.spark.SparkJob;
 import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.geography.atlas.Atlas;
-import org.openstreetmap.atlas.geography.atlas.AtlasResourceLoader;
-import org.openstreetmap.atlas.geography.atlas.dynamic.DynamicAtlas;
-import org.openstreetmap.atlas.geography.atlas.dynamic.policy.DynamicAtlasPolicy;
-import org.openstreetmap.atlas.geography.atlas.multi.MultiAtlas;
 import org.openstreetmap.atlas.geography.sharding.Shard;
 import org.openstreetmap.atlas.geography.sharding.Sharding;
 import org.openstreetmap.atlas.utilities.collections.StringList;
@@ -64,8 +90,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 
-import scala.Serializable;
-
 /**
  * A spark job for generating integrity checks in a sharded fashion. This allows for a lower local
  * memory profile as well as better parallelization.<br>
@@ -79,17 +103,29 @@ import scala.Serializable;
  */
 public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArguments
 {
-    private static final Switch<Distance> EXPANSION_DISTANCE = new Switch<>("shardBufferDistance",
-            "Distance to expand the bounds of the shard group to create a network in kilometers",
-            distanceString -> Distance.kilometers(Double.valueOf(distanceString)),
-            Optionality.OPTIONAL, "10.0");
-    private static final String ATLAS_SHARDING_FILE = "sharding.txt";
-    private static final Switch<String> SHARDING = new Switch<>("sharding",
-            "Sharding to load in place of sharding file in Atlas path", StringConverter.IDENTITY,
-            Optionality.OPTIONAL);
-    private static final Switch<Boolean> MULTI_ATLAS = new Switch<>("multiAtlas",
-            "If true then use a multi atlas, else use a dynamic atlas. This works better for running on a single machine",
-            Boolean::getBoolean, Optionality.OPTIONAL, "false");
+    private static final Switch<Boolean> COST_AWARE_SCHEDULING = new Switch<>(
+            "costAwareScheduling",
+            "If true, run the most expensive shards first and group cheap shards in shared partitions",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    private static final Switch<String> PREVIOUS_OUTPUT = new Switch<>("previousOutput",
+            "Output folder of a previous sharded run, whose metrics are used to estimate shard costs, and whose checkpoints are used by incremental runs",
+            StringConverter.IDENTITY, Optionality.OPTIONAL);
+    private static final Switch<Boolean> LOCALITY_AWARE_SCHEDULING = new Switch<>(
+            "localityAwareScheduling",
+            "If true, group neighbouring shards in shared partitions, so that they share the atlases they load. Ignored with cost aware scheduling",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    private static final Switch<Boolean> CHECKPOINT = new Switch<>("checkpoint",
+            "If true, commit the flags and metrics of each shard together with a completion marker, so that a failed run can be resumed",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    private static final Switch<Boolean> RESUME = new Switch<>("resume",
+            "If true, reuse the flags of the shards a previous checkpointed run to the same output completed with the same inputs, and check only the others. Implies checkpoint",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    private static final Switch<Boolean> INCREMENTAL = new Switch<>("incremental",
+            "If true, carry over the flags and metrics of the shards whose inputs did not change since the checkpointed run in previousOutput, and check only the others. Implies checkpoint",
+            Boolean::valueOf, Optionality.OPTIONAL, "false");
+    // Partitions per core targeted by cost aware and locality aware scheduling, to leave room for
+    // balancing
+    private static final int PARTITIONS_PER_CORE = 3;
 
     private static final Long POOL_MINUTES_BEFORE_KILL = 1440L;
     private static final Logger logger = LoggerFactory
@@ -123,6 +159,10 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
         final String output = this.output(commandMap);
         final Set<OutputFormats> outputFormats = (Set<OutputFormats>) commandMap
                 .get(OUTPUT_FORMATS);
+        final Set<OutputFormats> parallelCompression = ((Optional<Set<OutputFormats>>) commandMap
+                .getOption(PARALLEL_COMPRESSION)).orElse(null);
+        final boolean compressOutput = Boolean
+                .parseBoolean((String) commandMap.get(SparkJob.COMPRESS_OUTPUT));
         final StringList countries = StringList.split((String) commandMap.get(COUNTRIES),
                 CommonConstants.COMMA);
         final Optional<List<String>> checkFilter = (Optional<List<String>>) commandMap
@@ -142,8 +182,8 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
 
         final Map<String, String> sparkContext = this.configurationMap();
 
-        // File loading helpers
-        final SparkFileHelper fileHelper = new SparkFileHelper(sparkContext);
+        // Writes the output files of the processors
+        final OutputFileWriter fileWriter = new OutputFileWriter(sparkContext);
         // Get the file fetcher
         final ExternalDataFetcher fileFetcher = new ExternalDataFetcher(externalDataInput,
                 this.configurationMap());
@@ -167,6 +207,21 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
         final Duration maxPoolDuration = Duration
                 .minutes(alternateMaxPoolMinutes.orElse(POOL_MINUTES_BEFORE_KILL));
 
+        // Checkpoint shards to resume from, or to carry over to later incremental runs
+        final boolean resume = (Boolean) commandMap.get(RESUME);
+        final boolean incremental = (Boolean) commandMap.get(INCREMENTAL);
+        final Optional<String> previousOutput = (Optional<String>) commandMap
+                .getOption(PREVIOUS_OUTPUT);
+        if (incremental && !previousOutput.isPresent())
+        {
+            throw new CoreException("Incremental runs need the previousOutput to carry over.");
+        }
+        final boolean checkpointed = resume || incremental || (Boolean) commandMap.get(CHECKPOINT);
+        final ShardCheckpoint checkpoint = checkpointed
+                ? new ShardCheckpoint(output, sparkContext, resume,
+                        incremental ? previousOutput.get() : null)
+                : null;
+
         // Check inputs
         if (countries.isEmpty())
         {
@@ -216,6 +271,24 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
                 checkPool.queue(() ->
                 {
                     final String country = countryShard.getKey();
+                    if (checkpoint != null)
+                    {
+                        if (resume && checkpoint.outputsCommitted(country))
+                        {
+                            logger.info("Outputs of {} were written before, skipping it",
+                                    country);
+                            return;
+                        }
+                        // Flags already output by a failed run are output again below
+                        checkpoint.clearOutputs(country);
+                    }
+                    // The checks and their configuration are part of the inputs of each shard
+                    final String checksFingerprint = checkpoint == null ? null
+                            : ShardCheckpoint.checksFingerprint(
+                                    checkLoader.getConfigurationForCountry(country),
+                                    this.countryChecks.get(country).stream()
+                                            .map(Check::getCheckName)
+                                            .collect(Collectors.toList()));
                     // Generate a task for each shard
                     final List<ShardedCheckFlagsTask> tasksForCountry = countryShard
                             .getValue().stream().map(shard -> new ShardedCheckFlagsTask(country,
@@ -226,12 +299,72 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
                     this.getContext().setLocalProperty("callSite.short", String
                             .format("Running checks on %s", tasksForCountry.get(0).getCountry()));
 
-                    this.getContext().parallelize(tasksForCountry, tasksForCountry.size())
-                            .flatMap(this.produceFlags(input, output, this.configurationMap(),
-                                    fileHelper, shardingBroadcast, distanceToLoadShards,
-                                    (Boolean) commandMap.get(MULTI_ATLAS)))
-                            .distinct().map(UniqueCheckFlagContainer::getEvent).foreachPartition(
-                                    this.processFlags(output, fileHelper, outputFormats, country));
+                    final JavaRDD<ShardedCheckFlagsTask> tasks;
+                    if ((Boolean) commandMap.get(COST_AWARE_SCHEDULING))
+                    {
+                        final List<List<ShardedCheckFlagsTask>> partitions = this
+                                .scheduleByCost(tasksForCountry, input,
+                                        previousOutput,
+                                        sparkContext);
+                        tasks = this.getContext().parallelize(partitions, partitions.size())
+                                .flatMap(List::iterator);
+                    }
+                    else if ((Boolean) commandMap.get(LOCALITY_AWARE_SCHEDULING))
+                    {
+                        final List<List<ShardedCheckFlagsTask>> partitions = ShardScheduler
+                                .scheduleByLocality(tasksForCountry,
+                                        ShardedCheckFlagsTask::getShard,
+                                        this.getContext().defaultParallelism()
+                                                * PARTITIONS_PER_CORE);
+                        tasks = this.getContext().parallelize(partitions, partitions.size())
+                                .flatMap(List::iterator);
+                    }
+                    else
+                    {
+                        tasks = this.getContext().parallelize(tasksForCountry,
+                                tasksForCountry.size());
+                    }
+                    final LongAccumulator atlasCacheHits = this.getContext().sc()
+                            .longAccumulator("Atlas cache hits of " + country);
+                    final LongAccumulator atlasCacheMisses = this.getContext().sc()
+                            .longAccumulator("Atlas cache misses of " + country);
+                    final LongAccumulator reusedShards = this.getContext().sc()
+                            .longAccumulator("Shards reused of " + country);
+
+                    // Flags are deduplicated without shuffling them, so keep them for the two
+                    // passes it takes
+                    final JavaRDD<UniqueCheckFlagContainer> flags = FlagDeduplicator
+                            .deduplicateWithinPartitions(tasks.flatMap(this.produceFlags(input,
+                                    output, this.configurationMap(), fileWriter,
+                                    shardingBroadcast, distanceToLoadShards,
+                                    (Boolean) commandMap.get(MULTI_ATLAS),
+                                    (Boolean) commandMap.get(FUSED_EXECUTION),
+                                    (Boolean) commandMap.get(PARALLEL_CHECK_OBJECTS),
+                                    (Boolean) commandMap.get(PROFILE_CHECKS),
+                                    ((Optional<Duration>) commandMap.getOption(CHECK_BUDGET))
+                                            .orElse(null),
+                                    ((Optional<Long>) commandMap.getOption(ATLAS_CACHE_SIZE))
+                                            .orElse(null),
+                                    atlasCacheHits, atlasCacheMisses, checkpoint,
+                                    checksFingerprint, reusedShards)))
+                            .persist(StorageLevel.MEMORY_AND_DISK_SER());
+                    FlagDeduplicator.deduplicateAcrossPartitions(flags)
+                            .map(UniqueCheckFlagContainer::getEvent).foreachPartition(
+                                    this.processFlags(output, this.configurationMap(),
+                                            fileWriter, outputFormats, compressOutput,
+                                            parallelCompression, country));
+                    flags.unpersist();
+                    if (checkpoint != null)
+                    {
+                        checkpoint.commitOutputs(country);
+                    }
+                    logger.info("Atlas caches of {}: {} hits, {} misses", country,
+                            atlasCacheHits.value(), atlasCacheMisses.value());
+                    if (resume || incremental)
+                    {
+                        logger.info("Reused {} of the {} shards of {} from their checkpoints",
+                                reusedShards.value(), tasksForCountry.size(), country);
+                    }
                 });
             }
         }
@@ -242,28 +375,9 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
     @Override
     protected SwitchList switches()
     {
-        return super.switches().with(EXPANSION_DISTANCE, MULTI_ATLAS, SHARDING);
-    }
-
-    /**
-     * Get the fetcher to use for Atlas files. The fetcher uses a hadoop cache to reduce remote
-     * reads.
-     *
-     * @param input
-     *            {@link String} input folder path
-     * @param country
-     *            {@link String} country code
-     * @param configuration
-     *            {@link org.openstreetmap.atlas.generator.tools.spark.SparkJob} configuration map
-     * @return {@link Function} that fetches atlases/
-     */
-    private Function<Shard, Optional<Atlas>> atlasFetcher(final String input, final String country,
-            final Map<String, String> configuration)
-    {
-        final HadoopAtlasFileCache cache = new HadoopAtlasFileCache(input, configuration);
-        final AtlasResourceLoader loader = new AtlasResourceLoader();
-        return (Function<Shard, Optional<Atlas>> & Serializable) shard -> cache.get(country, shard)
-                .map(loader::load);
+        return super.switches().with(EXPANSION_DISTANCE, MULTI_ATLAS, SHARDING,
+                COST_AWARE_SCHEDULING, PREVIOUS_OUTPUT, ATLAS_CACHE_SIZE,
+                LOCALITY_AWARE_SCHEDULING, CHECKPOINT, RESUME, INCREMENTAL);
     }
 
     /**
@@ -272,44 +386,34 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
      *
      * @param output
      *            {@link String} output folder path
-     * @param fileHelper
-     *            {@link SparkFileHelper}
+     * @param configurationMap
+     *            the Hadoop configuration of the output file system
+     * @param fileWriter
+     *            {@link OutputFileWriter} of the output files
      * @param outputFormats
      *            {@link Set} of
-     *            {@link org.openstreetmap.atlas.checks.distributed.IntegrityChecksCommandArguments.OutputFormats}
+     *            {@link org.openstreetmap.atlas.checks.distributed.IntegrityChecksSupport.OutputFormats}
+     * @param compressOutput
+     *            whether to compress the output files
+     * @param parallelCompression
+     *            {@link Set} of the output formats to compress in parallel blocks, or null for none
      * @param country
      *            {@link String} ISO code for the country being processed
      * @return {@link VoidFunction} that takes an {@link Iterator} of {@link CheckFlagEvent}s
      */
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({ "unchecked", "squid:S107" })
     private VoidFunction<Iterator<CheckFlagEvent>> processFlags(final String output,
-            final SparkFileHelper fileHelper, final Set<OutputFormats> outputFormats,
-            final String country)
+            final Map<String, String> configurationMap, final OutputFileWriter fileWriter,
+            final Set<OutputFormats> outputFormats, final boolean compressOutput,
+            final Set<OutputFormats> parallelCompression, final String country)
     {
         return iterator ->
         {
+            final int partition = TaskContext.getPartitionId();
             final EventService<CheckFlagEvent> eventService = EventService
-                    .get(country + TaskContext.getPartitionId());
-
-            if (outputFormats.contains(OutputFormats.FLAGS))
-            {
-                eventService.register(new CheckFlagFileProcessor(fileHelper,
-                        SparkFileHelper.combine(output, OUTPUT_FLAG_FOLDER, country)));
-            }
-
-            if (outputFormats.contains(OutputFormats.GEOJSON))
-            {
-
-                eventService.register(new CheckFlagGeoJsonProcessor(fileHelper,
-                        SparkFileHelper.combine(output, OUTPUT_GEOJSON_FOLDER, country)));
-            }
-
-            if (outputFormats.contains(OutputFormats.TIPPECANOE))
-            {
-                eventService.register(new CheckFlagTippecanoeProcessor(fileHelper,
-                        SparkFileHelper.combine(output, OUTPUT_TIPPECANOE_FOLDER, country)));
-            }
-
+                    .get(country + partition);
+            registerOutputProcessors(eventService, output, configurationMap, fileWriter,
+                    outputFormats, compressOutput, parallelCompression, country, partition);
             iterator.forEachRemaining(eventService::post);
             eventService.complete();
         };
@@ -325,94 +429,215 @@ public class ShardedIntegrityChecksSparkJob extends IntegrityChecksCommandArgume
      *            {@link String} output folder path
      * @param configurationMap
      *            {@link org.openstreetmap.atlas.generator.tools.spark.SparkJob} configuration map
-     * @param fileHelper
-     *            {@link SparkFileHelper}
+     * @param fileWriter
+     *            {@link OutputFileWriter} of the output files
      * @param sharding
      *            spark {@link Broadcast} of the current {@link Sharding}
      * @param shardDistanceExpansion
      *            {@link Distance} to expand the shard group
      * @param multiAtlas
      *            boolean whether to use a multi or dynamic Atlas
+     * @param fused
+     *            boolean whether to run checks in fused groups, with a {@link FusedRunnableCheck}
+     * @param parallelCheckObjects
+     *            boolean whether thread safe checks can check their objects in parallel
+     * @param profile
+     *            boolean whether to record a {@link CheckProfile} for each check
+     * @param budget
+     *            the time budget of the checks that do not have their own, or null for none
+     * @param atlasCacheMegabytes
+     *            size of the {@link ExecutorAtlasCache}, or null for the default
+     * @param atlasCacheHits
+     *            counts the atlases found in the {@link ExecutorAtlasCache}
+     * @param atlasCacheMisses
+     *            counts the atlases loaded in the {@link ExecutorAtlasCache}
+     * @param checkpoint
+     *            {@link ShardCheckpoint} to commit each shard to, or null to not checkpoint them
+     * @param checksFingerprint
+     *            the fingerprint of the checks of the country, see
+     *            {@link ShardCheckpoint#checksFingerprint}
+     * @param reusedShards
+     *            counts the shards whose flags are taken from a checkpoint
      * @return {@link FlatMapFunction} that takes {@link ShardedCheckFlagsTask} and returns a
      *         {@link Iterator} of {@link UniqueCheckFlagContainer}s
      */
     @SuppressWarnings("unchecked")
     private FlatMapFunction<ShardedCheckFlagsTask, UniqueCheckFlagContainer> produceFlags(
             final String input, final String output, final Map<String, String> configurationMap,
-            final SparkFileHelper fileHelper, final Broadcast<Sharding> sharding,
-            final Distance shardDistanceExpansion, final boolean multiAtlas)
+            final OutputFileWriter fileWriter, final Broadcast<Sharding> sharding,
+            final Distance shardDistanceExpansion, final boolean multiAtlas, final boolean fused,
+            final boolean parallelCheckObjects, final boolean profile, final Duration budget,
+            final Long atlasCacheMegabytes, final LongAccumulator atlasCacheHits,
+            final LongAccumulator atlasCacheMisses, final ShardCheckpoint checkpoint,
+            final String checksFingerprint, final LongAccumulator reusedShards)
     {
         return task ->
         {
-            // Get the atlas
-            final Function<Shard, Optional<Atlas>> fetcher = this.atlasFetcher(input,
-                    task.getCountry(), configurationMap);
-            final Atlas atlas;
-
-            // Use dynamic or multi atlas (multi runs faster locally)
-            if (multiAtlas)
-            {
-                atlas = new MultiAtlas(
-                        StreamSupport
-                                .stream(sharding.getValue()
-                                        .shards(task.getShard().bounds()
-                                                .expand(shardDistanceExpansion))
-                                        .spliterator(), true)
-                                .map(fetcher).filter(Optional::isPresent).map(Optional::get)
-                                .collect(Collectors.toList()));
-            }
-            else
+            // The atlas of the shard reaches as far as the checks run on it need
+            final SortedMap<Distance, List<Check>> contextGroups = contextGroups(
+                    task.getChecks(), shardDistanceExpansion);
+            final Distance contextRadius = contextGroups.lastKey();
+            // Skip the shards completed by this run or a previous one with the same inputs. The
+            // shards an unbounded context reaches are only known once checked, so the fingerprint
+            // covers the ones within the default distance.
+            final String fingerprint = checkpoint == null ? null
+                    : checkpoint.fingerprint(input, task.getCountry(),
+                            sharding.getValue().shards(task.getShard().bounds()
+                                    .expand(isUnbounded(contextRadius) ? shardDistanceExpansion
+                                            : contextRadius)),
+                            checksFingerprint);
+            if (checkpoint != null)
             {
-                final DynamicAtlasPolicy policy = new DynamicAtlasPolicy(fetcher,
-                        sharding.getValue(), Collections.singleton(task.getShard()),
-                        task.getShard().bounds().expand(shardDistanceExpansion))
-                                .withDeferredLoading(true).withAggressivelyExploreRelations(true)
-                                .withExtendIndefinitely(false);
-                atlas = new DynamicAtlas(policy);
-                ((DynamicAtlas) atlas).preemptiveLoad();
+                final Optional<List<UniqueCheckFlagContainer>> reusedFlags = checkpoint
+                        .reusedFlags(task.getCountry(), task.getShard(), fingerprint);
+                if (reusedFlags.isPresent())
+                {
+                    logger.info("Reusing the flags of shard {} from its checkpoint",
+                            task.getShard().getName());
+                    reusedShards.add(1L);
+                    return reusedFlags.get().iterator();
+                }
             }
 
-            final AtlasEntityPolygonsFilter boundaryFilter = AtlasEntityPolygonsFilter.Type.INCLUDE
-                    .polygons(Collections.singleton(task.getShard().bounds()));
-
-            // Prepare the event service
-            final EventService eventService = task.getEventService();
-            final Queue<UniqueCheckFlagContainer> container = new ConcurrentLinkedQueue<>();
-            eventService.register(new Processor<CheckFlagEvent>()
+            // Get the atlas
+            final ExecutorAtlasCache.Lease fetcher = atlasFetcher(input, task.getCountry(),
+                    configurationMap, atlasCacheMegabytes);
+            try
             {
-                @Override
-                public void process(final ShutdownEvent event)
+                final AtlasEntityPolygonsFilter boundaryFilter = AtlasEntityPolygonsFilter.Type
+                        .INCLUDE.polygons(Collections.singleton(task.getShard().bounds()));
+
+                // Prepare the event service
+                final EventService eventService = task.getEventService();
+                final Queue<UniqueCheckFlagContainer> container = new ConcurrentLinkedQueue<>();
+                eventService.register(new Processor<CheckFlagEvent>()
                 {
-                    // no-op
-                }
+                    @Override
+                    public void process(final ShutdownEvent event)
+                    {
+                        // no-op
+                    }
+
+                    @Override
+                    @Subscribe
+                    @AllowConcurrentEvents
+                    public void process(final CheckFlagEvent event)
+                    {
+                        container.add(new UniqueCheckFlagContainer(event));
+                    }
+                });
+                // Metrics are output on a per shard level, staged until the shard is committed when
+                // checkpointing
+                final String metricFolder = SparkFileHelper.combine(output, OUTPUT_METRIC_FOLDER,
+                        task.getCountry());
+                final String metricOutput = checkpoint == null ? metricFolder
+                        : checkpoint.stagingFolder(task.getCountry(), task.getShard());
+                final MetricFileGenerator metricFileGenerator = new MetricFileGenerator(
+                        task.getShard().getName() + "_" + METRICS_FILENAME, fileWriter,
+                        metricOutput, profile, hasTimeBudget(task.getChecks(), budget));
+                eventService.register(metricFileGenerator);
+                // Shards where a check went over its budget are not complete, and not reused
+                final AtomicBoolean overBudget = new AtomicBoolean(false);
+                eventService.register(new Processor<MetricEvent>()
+                {
+                    @Override
+                    public void process(final ShutdownEvent event)
+                    {
+                        // no-op
+                    }
+
+                    @Override
+                    @Subscribe
+                    @AllowConcurrentEvents
+                    public void process(final MetricEvent event)
+                    {
+                        if (event.getBudgetOverrun().isPresent())
+                        {
+                            overBudget.set(true);
+                        }
+                    }
+                });
 
-                @Override
-                @Subscribe
-                @AllowConcurrentEvents
-                public void process(final CheckFlagEvent event)
+                final Optional<Atlas> atlas = contextAtlas(task.getShard(), contextRadius,
+                        fetcher, sharding.getValue(), multiAtlas);
+                if (atlas.isPresent())
                 {
-                    container.add(new UniqueCheckFlagContainer(event));
+                    // Checks needing less context run on cuts of the atlas of the shard
+                    for (final Map.Entry<Distance, List<Check>> contextGroup : contextGroups
+                            .entrySet())
+                    {
+                        final Optional<Atlas> groupAtlas = contextGroup.getKey()
+                                .equals(contextRadius) ? atlas
+                                        : cutContext(atlas.get(), task.getShard(),
+                                                contextGroup.getKey());
+                        groupAtlas.ifPresent(checkedAtlas -> runChecks(task.getCountry(),
+                                checkedAtlas, contextGroup.getValue(), boundaryFilter,
+                                eventService, fused, parallelCheckObjects, profile, budget));
+                        groupAtlas.flatMap(GeometryCache::release)
+                                .ifPresent(cache -> logger.info(
+                                        "Geometry cache of shard {} within {}: {}",
+                                        task.getShard().getName(), contextGroup.getKey(),
+                                        cache));
+                    }
                 }
-            });
-            // Metrics are output on a per shard level
-            final MetricFileGenerator metricFileGenerator = new MetricFileGenerator(
-                    task.getShard().getName() + "_" + METRICS_FILENAME, fileHelper,
-                    SparkFileHelper.combine(output, OUTPUT_METRIC_FOLDER, task.getCountry()));
-            eventService.register(metricFileGenerator);
-
-            // Run all checks in parallel
-            try (Pool checkPool = new Pool(task.getChecks().size(),
-                    "Sharded Checks Execution Pool"))
-            {
-                for (final Check check : task.getChecks())
+                eventService.complete();
+                if (checkpoint != null && !overBudget.get())
                 {
-                    checkPool.queue(new RunnableCheck(task.getCountry(), check,
-                            objectsToCheck(atlas, check, boundaryFilter), eventService));
+                    checkpoint.commit(task.getCountry(), task.getShard(), fingerprint, container,
+                            metricOutput);
                 }
+                return container.iterator();
+            }
+            finally
+            {
+                // The atlases of the task can now be evicted
+                fetcher.close();
+                atlasCacheHits.add(fetcher.hitCount());
+                atlasCacheMisses.add(fetcher.missCount());
+                logger.info("Atlas cache of executor after shard {}: {}",
+                        task.getShard().getName(),
+                        ExecutorAtlasCache
+                                .forExecutor(Optional.ofNullable(atlasCacheMegabytes)));
             }
-
-            eventService.complete();
-            return container.iterator();
         };
     }
+
+    /**
+     * Groups the tasks of a country in partitions of similar estimated cost, most expensive first.
+     * Costs come from the run times in the metric files of a previous run when there is one, and
+     * from the size of the atlas files otherwise.
+     *
+     * @param tasks
+     *            {@link ShardedCheckFlagsTask}s of a country
+     * @param input
+     *            {@link String} input folder path
+     * @param previousOutput
+     *            {@link Optional} output folder path of a previous run
+     * @param sparkContext
+     *            {@link org.openstreetmap.atlas.generator.tools.spark.SparkJob} configuration map
+     * @return the tasks grouped in partitions
+     */
+    private List<List<ShardedCheckFlagsTask>> scheduleByCost(
+            final List<ShardedCheckFlagsTask> tasks, final String input,
+            final Optional<String> previousOutput, final Map<String, String> sparkContext)
+    {
+        final String country = tasks.get(0).getCountry();
+        final Map<String, Long> atlasFileSizes = ShardScheduler
+                .atlasFileSizes(SparkFileHelper.combine(input, country), country, sparkContext);
+        final Map<String, Long> previousRunTimes = previousOutput
+                .map(path -> ShardScheduler.previousRunTimes(
+                        SparkFileHelper.combine(path, OUTPUT_METRIC_FOLDER, country),
+                        sparkContext))
+                .orElse(Collections.emptyMap());
+        final Map<String, Double> costs = ShardScheduler.estimateCosts(
+                tasks.stream().map(task -> task.getShard().getName()).collect(Collectors.toList()),
+                atlasFileSizes, previousRunTimes);
+        final int partitionCount = Math.min(tasks.size(),
+                this.getContext().defaultParallelism() * PARTITIONS_PER_CORE);
+        final List<List<ShardedCheckFlagsTask>> partitions = ShardScheduler.schedule(tasks,
+                task -> costs.get(task.getShard().getName()), partitionCount);
+        logger.info("Scheduled {} shards of {} in {} partitions, using {} previous run times",
+                tasks.size(), country, partitions.size(), previousRunTimes.size());
+        return partitions;
+    }
 }
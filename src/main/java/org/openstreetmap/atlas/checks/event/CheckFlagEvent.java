@@ -5,8 +5,12 @@ import static org.openstreetmap.atlas.geography.geojson.GeoJsonConstants.PROPERT
 import static org.openstreetmap.atlas.geography.geojson.GeoJsonConstants.TYPE;
 import static org.openstreetmap.atlas.geography.geojson.GeoJsonUtils.OSM_IDENTIFIER;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,8 +22,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.openstreetmap.atlas.checks.base.Check;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.checks.flag.FlaggedObject;
+import org.openstreetmap.atlas.checks.flag.FlaggedPoint;
+import org.openstreetmap.atlas.checks.flag.FlaggedPolyline;
 import org.openstreetmap.atlas.checks.flag.FlaggedRelation;
 import org.openstreetmap.atlas.event.Event;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.Location;
 import org.openstreetmap.atlas.geography.geojson.GeoJsonBuilder;
 import org.openstreetmap.atlas.geography.geojson.GeoJsonBuilder.GeometryWithProperties;
 import org.openstreetmap.atlas.geography.geojson.GeoJsonObject;
@@ -30,6 +38,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Wraps a {@link CheckFlag} for submission to the
@@ -45,15 +55,30 @@ public final class CheckFlagEvent extends Event
     private static final String GEOMETRIES = "geometries";
     private static final String FEATURES = "features";
     private static final String FEATURE_COLLECTION = "FeatureCollection";
+    private static final String FEATURE = "Feature";
+    private static final String COORDINATES = "coordinates";
+    private static final String POINT = "Point";
+    private static final String LINE_STRING = "LineString";
     public static final String INSTRUCTIONS = "instructions";
     public static final String IDENTIFIERS = "identifiers";
     public static final String FIX_SUGGESTIONS = "fix_suggestions";
 
     private static final Gson GSON = new Gson();
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = GSON
+            .getAdapter(JsonElement.class);
 
     private final String checkName;
     private final CheckFlag flag;
 
+    /**
+     * Writes a JSON value
+     */
+    @FunctionalInterface
+    private interface JsonValueWriter
+    {
+        void write(JsonWriter out) throws IOException;
+    }
+
     /**
      * Converts give {@link CheckFlag} to {@link GeoJsonObject} with additional key-value parameters
      *
@@ -213,6 +238,77 @@ public final class CheckFlagEvent extends Event
         return flagJson;
     }
 
+    /**
+     * Writes given {@link CheckFlag} to a {@link Writer}, with the same members as
+     * {@link #flagToJson(CheckFlag, Map)}. The coordinates and properties of the flagged geometries
+     * are written as they are read, without building any {@link JsonObject} of them.
+     *
+     * @param flag
+     *            {@link CheckFlag} to write
+     * @param additionalProperties
+     *            additional key-value parameters to be added in "properties" element of the
+     *            top-level JSON object
+     * @param writer
+     *            {@link Writer} to write to
+     * @throws IOException
+     *             if the {@link Writer} fails
+     */
+    public static void writeFlagJson(final CheckFlag flag,
+            final Map<String, String> additionalProperties, final Writer writer)
+            throws IOException
+    {
+        final JsonWriter out = jsonWriter(writer);
+        out.beginObject();
+        if (!flag.getFlaggedObjects().isEmpty())
+        {
+            out.name(TYPE).value(FEATURE_COLLECTION);
+            out.name(FEATURES).beginArray();
+            for (final FlaggedObject flaggedObject : flag.getFlaggedObjects())
+            {
+                if (flaggedObject instanceof FlaggedPoint
+                        || flaggedObject instanceof FlaggedPolyline)
+                {
+                    writeFeature(out, flaggedObject);
+                }
+            }
+            // Features of FlaggedRelation if any, after the geometries
+            for (final FlaggedObject flaggedRelation : flag.getFlaggedRelations())
+            {
+                JSON_ELEMENT_ADAPTER.write(out,
+                        flaggedRelation.asGeoJsonFeature(flag.getIdentifier()));
+            }
+            out.endArray();
+        }
+
+        // Additional properties replace the ones of the same name in place, as in flagToJson
+        final Map<String, JsonValueWriter> properties = new LinkedHashMap<>();
+        properties.put("id", propertyOut -> propertyOut.value(flag.getIdentifier()));
+        properties.put(INSTRUCTIONS, propertyOut -> propertyOut.value(flag.getInstructions()));
+        properties.put(IDENTIFIERS, propertyOut ->
+        {
+            propertyOut.beginArray();
+            for (final String identifier : flag.getUniqueIdentifiers())
+            {
+                propertyOut.value(identifier);
+            }
+            propertyOut.endArray();
+        });
+        additionalProperties.forEach(
+                (key, value) -> properties.put(key, propertyOut -> propertyOut.value(value)));
+        out.name(PROPERTIES).beginObject();
+        for (final Map.Entry<String, JsonValueWriter> property : properties.entrySet())
+        {
+            out.name(property.getKey());
+            property.getValue().write(out);
+        }
+        out.endObject();
+
+        out.name(FIX_SUGGESTIONS);
+        JSON_ELEMENT_ADAPTER.write(out, getFixSuggestionDescriptions(flag));
+        out.endObject();
+        out.flush();
+    }
+
     /**
      * Extracts a decorator based on the collective features properties. Currently the only
      * decoration is the highest class highway tag withing all of the feature properties for flags
@@ -294,6 +390,14 @@ public final class CheckFlagEvent extends Event
                 .collect(Collectors.toList());
     }
 
+    private static JsonWriter jsonWriter(final Writer writer)
+    {
+        // Same settings as JsonElement.toString()
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setLenient(true);
+        return jsonWriter;
+    }
+
     /**
      * Populates osmids of flaggedRelation features to a {@link Set<JsonElement>}
      *
@@ -345,6 +449,53 @@ public final class CheckFlagEvent extends Event
         return geometriesOfFlaggedRelations;
     }
 
+    /**
+     * Writes a flagged point or polyline as a GeoJSON feature, a {@code Point} or a
+     * {@code LineString}, with its properties
+     */
+    private static void writeFeature(final JsonWriter out, final FlaggedObject flaggedObject)
+            throws IOException
+    {
+        out.beginObject();
+        out.name(TYPE).value(FEATURE);
+        out.name(GEOMETRY).beginObject();
+        final Iterable<Location> geometry = flaggedObject.getGeometry();
+        if (geometry instanceof Location)
+        {
+            out.name(TYPE).value(POINT);
+            out.name(COORDINATES);
+            writeCoordinates(out, (Location) geometry);
+        }
+        else
+        {
+            out.name(TYPE).value(LINE_STRING);
+            out.name(COORDINATES).beginArray();
+            for (final Location location : geometry)
+            {
+                writeCoordinates(out, location);
+            }
+            out.endArray();
+        }
+        out.endObject();
+        out.name(PROPERTIES).beginObject();
+        for (final Map.Entry<String, String> property : flaggedObject.getProperties()
+                .entrySet())
+        {
+            out.name(property.getKey()).value(property.getValue());
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    private static void writeCoordinates(final JsonWriter out, final Location location)
+            throws IOException
+    {
+        out.beginArray();
+        out.value(location.getLongitude().asDegrees());
+        out.value(location.getLatitude().asDegrees());
+        out.endArray();
+    }
+
     /**
      * Construct a {@link CheckFlagEvent}
      *
@@ -368,42 +519,16 @@ public final class CheckFlagEvent extends Event
 
     public String asLineDelimitedGeoJsonFeatures(final Consumer<JsonObject> jsonMutator)
     {
-        final JsonObject flagGeoJsonFeature = this.flag.asGeoJsonFeature();
-        final JsonObject flagGeoJsonProperties = flagGeoJsonFeature.get("properties")
-                .getAsJsonObject();
-        flagGeoJsonProperties.addProperty("flag:check", this.getCheckName());
-        flagGeoJsonProperties.addProperty("flag:timestamp", this.getTimestamp().toString());
-
-        jsonMutator.accept(flagGeoJsonFeature);
-
-        final StringBuilder builder = new StringBuilder().append(flagGeoJsonFeature.toString());
-
-        final FlaggedObject[] flaggedObjects = this.flag.getFlaggedObjects()
-                .toArray(new FlaggedObject[0]);
-        final int flaggedObjectsSize = flaggedObjects.length;
-
-        if (flaggedObjectsSize > 0)
+        final StringWriter writer = new StringWriter();
+        try
         {
-            builder.append('\n');
-
-            // loop through all the flagged objects except the last, give a new line
-            int index = 0;
-            for (; index < flaggedObjectsSize - 1; ++index)
-            {
-                final JsonObject feature = flaggedObjects[index]
-                        .asGeoJsonFeature(this.flag.getIdentifier());
-                jsonMutator.accept(feature);
-                builder.append(feature.toString()).append('\n');
-            }
-
-            // dont give a new line to the last
-            final JsonObject feature = flaggedObjects[index]
-                    .asGeoJsonFeature(this.flag.getIdentifier());
-            jsonMutator.accept(feature);
-            builder.append(feature.toString());
+            this.writeLineDelimitedGeoJsonFeatures(writer, jsonMutator);
         }
-
-        return builder.toString();
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to write flag {}", e, this.flag.getIdentifier());
+        }
+        return writer.toString();
     }
 
     /**
@@ -442,12 +567,8 @@ public final class CheckFlagEvent extends Event
      */
     public JsonObject toGeoJsonFeatureCollection()
     {
-        final Map<String, String> contextualProperties = new HashMap<>();
-        contextualProperties.put("generator", this.getCheckName());
-        contextualProperties.put("timestamp", this.getTimestamp().toString());
-
         // Generate json for check flag with given contextual properties
-        return flagToJson(this.getCheckFlag(), contextualProperties);
+        return flagToJson(this.getCheckFlag(), this.contextualProperties());
     }
 
     /**
@@ -456,6 +577,88 @@ public final class CheckFlagEvent extends Event
     @Override
     public String toString()
     {
-        return this.toGeoJsonFeatureCollection().toString();
+        final StringWriter writer = new StringWriter();
+        try
+        {
+            this.writeGeoJsonFeatureCollection(writer);
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to write flag {}", e, this.flag.getIdentifier());
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the GeoJson Feature representation, as in {@link #toGeoJsonFeature()}
+     *
+     * @param writer
+     *            {@link Writer} to write to
+     * @throws IOException
+     *             if the {@link Writer} fails
+     */
+    public void writeGeoJsonFeature(final Writer writer) throws IOException
+    {
+        final JsonWriter out = jsonWriter(writer);
+        JSON_ELEMENT_ADAPTER.write(out, this.toGeoJsonFeature());
+        out.flush();
+    }
+
+    /**
+     * Writes the GeoJson FeatureCollection representation, as in {@link #toString()}
+     *
+     * @param writer
+     *            {@link Writer} to write to
+     * @throws IOException
+     *             if the {@link Writer} fails
+     */
+    public void writeGeoJsonFeatureCollection(final Writer writer) throws IOException
+    {
+        writeFlagJson(this.getCheckFlag(), this.contextualProperties(), writer);
+    }
+
+    /**
+     * Writes the {@link CheckFlag} and each of its flagged objects as GeoJson features, one per
+     * line, as in {@link #asLineDelimitedGeoJsonFeatures(Consumer)}
+     *
+     * @param writer
+     *            {@link Writer} to write to
+     * @param jsonMutator
+     *            changes each feature before it is written
+     * @throws IOException
+     *             if the {@link Writer} fails
+     */
+    public void writeLineDelimitedGeoJsonFeatures(final Writer writer,
+            final Consumer<JsonObject> jsonMutator) throws IOException
+    {
+        final JsonObject flagGeoJsonFeature = this.flag.asGeoJsonFeature();
+        final JsonObject flagGeoJsonProperties = flagGeoJsonFeature.get("properties")
+                .getAsJsonObject();
+        flagGeoJsonProperties.addProperty("flag:check", this.getCheckName());
+        flagGeoJsonProperties.addProperty("flag:timestamp", this.getTimestamp().toString());
+        jsonMutator.accept(flagGeoJsonFeature);
+
+        final JsonWriter out = jsonWriter(writer);
+        JSON_ELEMENT_ADAPTER.write(out, flagGeoJsonFeature);
+        out.flush();
+
+        for (final FlaggedObject flaggedObject : this.flag.getFlaggedObjects())
+        {
+            final JsonObject feature = flaggedObject.asGeoJsonFeature(this.flag.getIdentifier());
+            jsonMutator.accept(feature);
+            writer.write('\n');
+            // A new JsonWriter per line, as a JsonWriter holds a single top level value
+            final JsonWriter lineOut = jsonWriter(writer);
+            JSON_ELEMENT_ADAPTER.write(lineOut, feature);
+            lineOut.flush();
+        }
+    }
+
+    private Map<String, String> contextualProperties()
+    {
+        final Map<String, String> contextualProperties = new HashMap<>();
+        contextualProperties.put("generator", this.getCheckName());
+        contextualProperties.put("timestamp", this.getTimestamp().toString());
+        return contextualProperties;
     }
 }
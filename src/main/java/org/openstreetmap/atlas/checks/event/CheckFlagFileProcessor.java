@@ -1,7 +1,6 @@
 package org.openstreetmap.atlas.checks.event;
 
 import org.openstreetmap.atlas.event.ShutdownEvent;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,14 +19,30 @@ public final class CheckFlagFileProcessor extends FileProcessor<CheckFlagEvent>
     /**
      * Default constructor
      *
-     * @param fileHelper
-     *            {@link SparkFileHelper} for I/O operations
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
      * @param outputFolder
      *            output folder path to write files to
      */
-    public CheckFlagFileProcessor(final SparkFileHelper fileHelper, final String outputFolder)
+    public CheckFlagFileProcessor(final OutputFileWriter fileWriter, final String outputFolder)
     {
-        super(fileHelper, outputFolder);
+        super(fileWriter, outputFolder);
+    }
+
+    /**
+     * Constructor for processors writing to the same folder at the same time
+     *
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
+     * @param outputFolder
+     *            output folder path to write files to
+     * @param partition
+     *            the partition the processor writes from, in the file names
+     */
+    public CheckFlagFileProcessor(final OutputFileWriter fileWriter, final String outputFolder,
+            final int partition)
+    {
+        super(fileWriter, outputFolder, partition);
     }
 
     @Override
@@ -35,7 +50,7 @@ public final class CheckFlagFileProcessor extends FileProcessor<CheckFlagEvent>
     @AllowConcurrentEvents
     public void process(final CheckFlagEvent event)
     {
-        this.process(event.toString());
+        this.process(event::writeGeoJsonFeatureCollection);
     }
 
     @Override
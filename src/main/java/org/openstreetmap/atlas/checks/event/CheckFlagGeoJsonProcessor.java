@@ -1,24 +1,25 @@
 package org.openstreetmap.atlas.checks.event;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Date;
+import java.util.Map;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.spark.TaskContext;
 import org.openstreetmap.atlas.checks.constants.CommonConstants;
 import org.openstreetmap.atlas.checks.distributed.GeoJsonPathFilter;
+import org.openstreetmap.atlas.checks.utility.ParallelGzipOutputStream;
 import org.openstreetmap.atlas.event.Processor;
 import org.openstreetmap.atlas.event.ShutdownEvent;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 
 /**
  * A {@link Processor} for {@link CheckFlagEvent}s to write them into GeoJson files
@@ -32,17 +33,26 @@ public final class CheckFlagGeoJsonProcessor implements Processor<CheckFlagEvent
     private static final int MIN_BATCH_SIZE = 100;
     private static final int BUCKET_CAPACITY = 100;
     private static final int BUCKET_INCREMENT = 25;
+    private static final String FEATURE_COLLECTION_PREFIX = "{\"type\":\"FeatureCollection\",\"features\":[";
+    private static final String FEATURE_COLLECTION_SUFFIX = "]}";
 
     private static final Logger logger = LoggerFactory.getLogger(CheckFlagGeoJsonProcessor.class);
 
-    // File helper to write files
-    private final SparkFileHelper fileHelper;
+    // Writer of the output files
+    private final OutputFileWriter fileWriter;
 
     // Directory to write files in
     private final String directory;
 
-    // Event Features bucketed by Challenge
-    private final ConcurrentHashMap<String, Vector<JsonObject>> featureBuckets = new ConcurrentHashMap<>();
+    // Partition the processor writes from, in the file names
+    private final int partition;
+
+    // Sequence of the files written, so that files written within the same millisecond do not
+    // share a name
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    // Event Features bucketed by Challenge, already serialized
+    private final ConcurrentHashMap<String, Vector<String>> featureBuckets = new ConcurrentHashMap<>();
 
     // Bucket locks used to synchronize filling and emptying buckets
     private final ConcurrentHashMap<String, ReadWriteLock> bucketLocks = new ConcurrentHashMap<>();
@@ -50,6 +60,9 @@ public final class CheckFlagGeoJsonProcessor implements Processor<CheckFlagEvent
     // Whether or not to compress output file
     private boolean compressOutput = true;
 
+    // Hadoop configuration to write files compressed in parallel blocks with, if any
+    private Map<String, String> parallelCompression;
+
     // Batch size override
     private int batchSizeOverride;
 
@@ -57,17 +70,34 @@ public final class CheckFlagGeoJsonProcessor implements Processor<CheckFlagEvent
     private boolean hasWritten;
 
     /**
-     * Default constructor
+     * Default constructor, for a single processor writing to the output folder
+     *
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
+     * @param outputFolder
+     *            output folder path to write files to
+     */
+    public CheckFlagGeoJsonProcessor(final OutputFileWriter fileWriter, final String outputFolder)
+    {
+        this(fileWriter, outputFolder, 0);
+    }
+
+    /**
+     * Constructor for processors writing to the same output folder at the same time
      *
-     * @param fileHelper
-     *            {@link SparkFileHelper} for I/O operations
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
      * @param outputFolder
      *            output folder path to write files to
+     * @param partition
+     *            the partition the processor writes from, in the file names
      */
-    public CheckFlagGeoJsonProcessor(final SparkFileHelper fileHelper, final String outputFolder)
+    public CheckFlagGeoJsonProcessor(final OutputFileWriter fileWriter, final String outputFolder,
+            final int partition)
     {
-        this.fileHelper = fileHelper;
+        this.fileWriter = fileWriter;
         this.directory = outputFolder;
+        this.partition = partition;
         this.hasWritten = false;
     }
 
@@ -79,15 +109,26 @@ public final class CheckFlagGeoJsonProcessor implements Processor<CheckFlagEvent
         final String challenge = event.getCheckFlag().getChallengeName()
                 .orElse(event.getCheckName());
 
-        final Vector<JsonObject> featureBucket = this.featureBuckets.computeIfAbsent(challenge,
+        final Vector<String> featureBucket = this.featureBuckets.computeIfAbsent(challenge,
                 key -> new Vector<>(BUCKET_CAPACITY, BUCKET_INCREMENT));
         final ReadWriteLock bucketLock = this.bucketLocks.computeIfAbsent(challenge,
                 key -> new ReentrantReadWriteLock());
 
+        final StringWriter feature = new StringWriter();
+        try
+        {
+            event.writeGeoJsonFeature(feature);
+        }
+        catch (final IOException e)
+        {
+            logger.warn("CheckFlag geojson serialization is failed.", e);
+            return;
+        }
+
         bucketLock.readLock().lock();
         try
         {
-            featureBucket.add(event.toGeoJsonFeature());
+            featureBucket.add(feature.toString());
         }
         finally
         {
@@ -159,6 +200,22 @@ public final class CheckFlagGeoJsonProcessor implements Processor<CheckFlagEvent
         return this;
     }
 
+    /**
+     * Sets compressed output files to be compressed in parallel blocks, with a
+     * {@link ParallelGzipOutputStream}, rather than on the writing thread
+     *
+     * @param configuration
+     *            the Hadoop configuration of the file system to write to, or {@code null} to
+     *            compress on the writing thread
+     * @return the {@link CheckFlagGeoJsonProcessor}
+     */
+    public CheckFlagGeoJsonProcessor withParallelCompression(
+            final Map<String, String> configuration)
+    {
+        this.parallelCompression = configuration;
+        return this;
+    }
+
     /**
      * Returns bucket size based on the number of Checks we have bucketed so far
      *
@@ -179,36 +236,51 @@ public final class CheckFlagGeoJsonProcessor implements Processor<CheckFlagEvent
 
     protected String getFilename(final String challenge, final int size)
     {
-        return String.format("%s-%sP%s-%s%s", challenge, new Date().getTime(),
-                TaskContext.getPartitionId(), size,
+        return String.format("%s-%sP%s-%s-%s%s", challenge, new Date().getTime(), this.partition,
+                this.sequence.getAndIncrement(), size,
                 new GeoJsonPathFilter(this.compressOutput).getExtension());
     }
 
     /**
      * Writes a new file with the cached in String buffer
      */
-    private void write(final String challenge, final Vector<JsonObject> featureBucket)
+    private void write(final String challenge, final Vector<String> featureBucket)
     {
         if (featureBucket.size() > 0)
         {
-            final JsonObject featureCollection = new JsonObject();
-            featureCollection.addProperty("type", "FeatureCollection");
-            final JsonArray featureJsonArray = new JsonArray();
-            featureBucket.forEach(featureJsonArray::add);
-            featureCollection.add("features", featureJsonArray);
-            this.fileHelper.write(this.directory,
-                    this.getFilename(challenge, featureJsonArray.size()),
-                    featureCollection.toString());
+            // Same as the String form of a FeatureCollection JsonObject
+            final StringBuilder featureCollection = new StringBuilder(FEATURE_COLLECTION_PREFIX);
+            for (int index = 0; index < featureBucket.size(); index++)
+            {
+                if (index > 0)
+                {
+                    featureCollection.append(',');
+                }
+                featureCollection.append(featureBucket.get(index));
+            }
+            featureCollection.append(FEATURE_COLLECTION_SUFFIX);
+            this.writeFile(this.getFilename(challenge, featureBucket.size()), featureCollection);
             this.hasWritten = true;
             featureBucket.clear();
         }
         else if (!this.hasWritten)
         {
             logger.warn("Writing empty file with no content in {}.", this.directory);
-            this.fileHelper.write(this.directory,
-                    String.format("%s%s", "empty",
-                            new GeoJsonPathFilter(this.compressOutput).getExtension()),
+            this.writeFile(String.format("%s%s", "empty",
+                    new GeoJsonPathFilter(this.compressOutput).getExtension()),
                     CommonConstants.EMPTY_STRING);
         }
     }
+
+    private void writeFile(final String filename, final CharSequence content)
+    {
+        if (this.compressOutput && this.parallelCompression != null)
+        {
+            ParallelGzipFiles.write(this.parallelCompression, this.directory, filename, content);
+        }
+        else
+        {
+            this.fileWriter.write(this.directory, filename, content);
+        }
+    }
 }
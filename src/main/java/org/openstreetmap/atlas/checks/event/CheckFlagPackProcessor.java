@@ -0,0 +1,129 @@
+package org.openstreetmap.atlas.checks.event;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.flag.FlagPack;
+import org.openstreetmap.atlas.checks.flag.FlagPackWriter;
+import org.openstreetmap.atlas.event.Processor;
+import org.openstreetmap.atlas.event.ShutdownEvent;
+import org.openstreetmap.atlas.geography.Rectangle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * A {@link Processor} for {@link CheckFlagEvent}s to write them into a {@link FlagPack}. Each
+ * processor writes a single pack, streaming its blocks as they fill up, and completes it on
+ * {@link ShutdownEvent}. The pack is created with the first flag, so no pack is written without
+ * flags. Each flag is indexed by its check name, country and bounding box.
+ *
+ * @author agent
+ */
+public final class CheckFlagPackProcessor implements Processor<CheckFlagEvent>
+{
+    private static final Logger logger = LoggerFactory.getLogger(CheckFlagPackProcessor.class);
+
+    private final Map<String, String> configuration;
+    private final String directory;
+    // Partition the processor writes from, for the file name
+    private final int partition;
+    private FlagPackWriter writer = null;
+
+    /**
+     * Default constructor, for a single processor writing to the output folder
+     *
+     * @param configuration
+     *            the Hadoop configuration of the file system to write to
+     * @param outputFolder
+     *            output folder path to write the pack to
+     */
+    public CheckFlagPackProcessor(final Map<String, String> configuration,
+            final String outputFolder)
+    {
+        this(configuration, outputFolder, 0);
+    }
+
+    /**
+     * Constructor for processors writing to the same output folder at the same time
+     *
+     * @param configuration
+     *            the Hadoop configuration of the file system to write to
+     * @param outputFolder
+     *            output folder path to write the pack to
+     * @param partition
+     *            the partition the processor writes from, in the file name
+     */
+    public CheckFlagPackProcessor(final Map<String, String> configuration,
+            final String outputFolder, final int partition)
+    {
+        this.configuration = configuration;
+        this.directory = outputFolder;
+        this.partition = partition;
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void process(final CheckFlagEvent event)
+    {
+        final CheckFlag flag = event.getCheckFlag();
+        final Rectangle bounds = flag.iterator().hasNext() ? flag.bounds() : Rectangle.MAXIMUM;
+        final StringWriter json = new StringWriter();
+        try
+        {
+            event.writeGeoJsonFeatureCollection(json);
+            this.writer().add(event.getCheckName(), flag.getCountryISO(), bounds,
+                    json.toString());
+        }
+        catch (final IOException e)
+        {
+            logger.warn("Unable to add flag {} to the flag pack.", flag.getIdentifier(), e);
+        }
+    }
+
+    @Override
+    @Subscribe
+    public void process(final ShutdownEvent event)
+    {
+        final FlagPackWriter openWriter;
+        synchronized (this)
+        {
+            openWriter = this.writer;
+        }
+        // No pack is written without flags
+        if (openWriter == null)
+        {
+            return;
+        }
+        try
+        {
+            openWriter.close();
+        }
+        catch (final Exception e)
+        {
+            logger.warn("Flag pack write is failed.", e);
+        }
+    }
+
+    private synchronized FlagPackWriter writer() throws IOException
+    {
+        if (this.writer == null)
+        {
+            final Configuration hadoopConfiguration = new Configuration();
+            this.configuration.forEach(hadoopConfiguration::set);
+            final Path path = new Path(this.directory, String.format("%sP%s%s",
+                    new Date().getTime(), this.partition, FlagPack.EXTENSION));
+            this.writer = new FlagPackWriter(
+                    path.getFileSystem(hadoopConfiguration).create(path, true));
+        }
+        return this.writer;
+    }
+}
@@ -2,10 +2,8 @@ package org.openstreetmap.atlas.checks.event;
 
 import java.util.Date;
 
-import org.apache.spark.TaskContext;
 import org.openstreetmap.atlas.checks.distributed.GeoJsonPathFilter;
 import org.openstreetmap.atlas.checks.vectortiles.TippecanoeCheckSettings;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,14 +25,30 @@ public class CheckFlagTippecanoeProcessor extends FileProcessor<CheckFlagEvent>
     /**
      * Default constructor
      *
-     * @param fileHelper
-     *            {@link SparkFileHelper} instance for I/O operations
+     * @param fileWriter
+     *            {@link OutputFileWriter} instance for I/O operations
      * @param directory
      *            The directory to write output
      */
-    public CheckFlagTippecanoeProcessor(final SparkFileHelper fileHelper, final String directory)
+    public CheckFlagTippecanoeProcessor(final OutputFileWriter fileWriter, final String directory)
     {
-        super(fileHelper, directory);
+        super(fileWriter, directory);
+    }
+
+    /**
+     * Constructor for processors writing to the same folder at the same time
+     *
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
+     * @param directory
+     *            The directory to write output
+     * @param partition
+     *            the partition the processor writes from, in the file names
+     */
+    public CheckFlagTippecanoeProcessor(final OutputFileWriter fileWriter, final String directory,
+            final int partition)
+    {
+        super(fileWriter, directory, partition);
     }
 
     @Override
@@ -42,7 +56,8 @@ public class CheckFlagTippecanoeProcessor extends FileProcessor<CheckFlagEvent>
     @AllowConcurrentEvents
     public void process(final CheckFlagEvent event)
     {
-        super.process(event.asLineDelimitedGeoJsonFeatures(TippecanoeCheckSettings.JSON_MUTATOR));
+        super.process(writer -> event.writeLineDelimitedGeoJsonFeatures(writer,
+                TippecanoeCheckSettings.JSON_MUTATOR));
     }
 
     @Override
@@ -60,12 +75,14 @@ public class CheckFlagTippecanoeProcessor extends FileProcessor<CheckFlagEvent>
     }
 
     /**
+     * @param count
+     *            the number of events in the file
      * @return the name of the file to be used in {@code #write()} method to write files
      */
     @Override
-    protected String getFilename()
+    protected String getFilename(final int count)
     {
-        return String.format("%sP%s-%s%s", new Date().getTime(), TaskContext.getPartitionId(),
-                getCount(), new GeoJsonPathFilter(doesCompressOutput()).getExtension());
+        return String.format("%sP%s-%s-%s%s", new Date().getTime(), getPartition(),
+                nextSequence(), count, new GeoJsonPathFilter(doesCompressOutput()).getExtension());
     }
 }
@@ -1,20 +1,29 @@
 package org.openstreetmap.atlas.checks.event;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.spark.TaskContext;
 import org.openstreetmap.atlas.checks.distributed.LogFilePathFilter;
+import org.openstreetmap.atlas.checks.utility.ParallelGzipOutputStream;
 import org.openstreetmap.atlas.event.Event;
 import org.openstreetmap.atlas.event.Processor;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A useful base class to handle common functionality for file processors.
+ * A useful base class to handle common functionality for file processors. Events are appended to
+ * striped buffers, so that threads posting events at the same time rarely share one. A full buffer
+ * is handed as a batch to a background writer thread through a bounded queue, which slows down
+ * posting threads only when the writer falls behind. {@link #write()} flushes what is left and
+ * waits for all the batches to be written.
  *
  * @author mkalender
  * @param <T>
@@ -25,40 +34,128 @@ public abstract class FileProcessor<T extends Event> implements Processor<T>
     // Default number of events to batch
     public static final int BATCH_SIZE = 2500;
     private static final Logger logger = LoggerFactory.getLogger(FileProcessor.class);
-    // File helper to write files
-    private final SparkFileHelper fileHelper;
+    // Number of full batches waiting for the writer before posting threads block
+    private static final int QUEUE_CAPACITY = 4;
+    // Number of buffers threads are spread over
+    private static final int STRIPES = Runtime.getRuntime().availableProcessors();
+    // Marks the end of the batches for the writer thread
+    private static final Batch END_OF_BATCHES = new Batch(new StringBuilder(), 0);
+    // Per thread buffer events are written to before being appended, reused unless it grew large
+    private static final ThreadLocal<StringWriter> EVENT_BUFFER = ThreadLocal
+            .withInitial(StringWriter::new);
+    private static final int MAXIMUM_EVENT_BUFFER_CAPACITY = 1 << 20;
+
+    // Writer of the output files
+    private final OutputFileWriter fileWriter;
 
     // Directory to write files in
     private final String directory;
 
-    // Buffer to hold events generated so far
-    private final StringBuffer buffer;
+    // Partition the processor writes from, in the file names
+    private final int partition;
+
+    // Buffers to hold events generated so far
+    private final Stripe[] stripes;
+
+    // Full batches waiting to be written
+    private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    // Guards the writer thread, which is started with the first full batch
+    private final Object writerLock = new Object();
+    private Thread writer;
 
     // Number of events to be batched
     private int batchSize = BATCH_SIZE;
 
-    // Thread safe counter
+    // Thread safe counter of the events not written yet
     private final AtomicInteger counter;
 
-    // A lock useful to handle synchronization when we write files
-    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+    // Sequence of the files written, so that files written within the same millisecond do not
+    // share a name
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    // Line written at the top of each file
+    private String header;
 
     // Whether or not to compress output file
     private boolean compressOutput = true;
 
+    // Hadoop configuration to write files compressed in parallel blocks with, if any
+    private Map<String, String> parallelCompression;
+
+    /**
+     * Writes an event to a {@link Writer}
+     */
+    @FunctionalInterface
+    public interface EventWriter
+    {
+        /**
+         * @param writer
+         *            {@link Writer} to write the event to
+         * @throws IOException
+         *             if the {@link Writer} fails
+         */
+        void write(Writer writer) throws IOException;
+    }
+
     /**
-     * Default constructor
+     * Events of a full buffer, waiting to be written in a file
+     */
+    private static final class Batch
+    {
+        private final StringBuilder content;
+        private final int count;
+
+        Batch(final StringBuilder content, final int count)
+        {
+            this.content = content;
+            this.count = count;
+        }
+    }
+
+    /**
+     * One of the buffers events are appended to
+     */
+    private static final class Stripe
+    {
+        private StringBuilder buffer = new StringBuilder();
+        private int count;
+    }
+
+    /**
+     * Default constructor, for a single processor writing to the directory
+     *
+     * @param fileWriter
+     *            {@link OutputFileWriter} instance for I/O operations
+     * @param directory
+     *            directory path to write files to
+     */
+    public FileProcessor(final OutputFileWriter fileWriter, final String directory)
+    {
+        this(fileWriter, directory, 0);
+    }
+
+    /**
+     * Constructor for processors writing to the same directory at the same time
      *
-     * @param fileHelper
-     *            {@link SparkFileHelper} instance for I/O operations
+     * @param fileWriter
+     *            {@link OutputFileWriter} instance for I/O operations
      * @param directory
      *            directory path to write files to
+     * @param partition
+     *            the partition the processor writes from, in the file names
      */
-    public FileProcessor(final SparkFileHelper fileHelper, final String directory)
+    public FileProcessor(final OutputFileWriter fileWriter, final String directory,
+            final int partition)
     {
-        this.fileHelper = fileHelper;
+        this.fileWriter = fileWriter;
         this.directory = directory;
-        this.buffer = new StringBuffer();
+        this.partition = partition;
+        this.stripes = new Stripe[Math.max(1, STRIPES)];
+        for (int index = 0; index < this.stripes.length; index++)
+        {
+            this.stripes[index] = new Stripe();
+        }
         this.counter = new AtomicInteger(0);
     }
 
@@ -76,7 +173,7 @@ public abstract class FileProcessor<T extends Event> implements Processor<T>
     }
 
     /**
-     * @return the number of events processed in the current batch
+     * @return the number of events processed and not written yet
      */
     public final int getCount()
     {
@@ -84,50 +181,40 @@ public abstract class FileProcessor<T extends Event> implements Processor<T>
     }
 
     /**
-     * Processes given String and writes batched events into a file if needed
+     * Processes given String and hands batched events to the writer thread if needed
      *
      * @param event
      *            a character set to process
      */
     public void process(final String event)
     {
-        // Process new event
-        this.fileLock.readLock().lock();
+        this.append(event);
+    }
 
+    /**
+     * Processes an event written by given {@link EventWriter}, without making a {@link String} of
+     * it, and hands batched events to the writer thread if needed
+     *
+     * @param eventWriter
+     *            writes the event to process
+     */
+    public void process(final EventWriter eventWriter)
+    {
+        final StringWriter eventBuffer = EVENT_BUFFER.get();
+        eventBuffer.getBuffer().setLength(0);
         try
         {
-            this.buffer.append(String.format("%s%s", event, System.lineSeparator()));
-            this.counter.incrementAndGet();
+            eventWriter.write(eventBuffer);
         }
         catch (final Exception e)
         {
             logger.warn("Event processing is failed.", e);
+            return;
         }
-        finally
-        {
-            this.fileLock.readLock().unlock();
-        }
-
-        // Write batched events to a file if needed
-        if (this.counter.get() >= this.getBatchSize())
+        this.append(eventBuffer.getBuffer());
+        if (eventBuffer.getBuffer().capacity() > MAXIMUM_EVENT_BUFFER_CAPACITY)
         {
-            this.fileLock.writeLock().lock();
-
-            try
-            {
-                if (this.getCount() >= this.getBatchSize())
-                {
-                    this.write();
-                }
-            }
-            catch (final Exception e)
-            {
-                logger.warn("File write is failed.", e);
-            }
-            finally
-            {
-                this.fileLock.writeLock().unlock();
-            }
+            EVENT_BUFFER.remove();
         }
     }
 
@@ -155,28 +242,237 @@ public abstract class FileProcessor<T extends Event> implements Processor<T>
         return this;
     }
 
+    /**
+     * Sets compressed output files to be compressed in parallel blocks, with a
+     * {@link ParallelGzipOutputStream}, rather than on the writer thread
+     *
+     * @param configuration
+     *            the Hadoop configuration of the file system to write to, or {@code null} to
+     *            compress on the writer thread
+     * @return the {@link FileProcessor}
+     */
+    public FileProcessor<T> withParallelCompression(final Map<String, String> configuration)
+    {
+        this.parallelCompression = configuration;
+        return this;
+    }
+
     /**
      * @return the name of the file to be used in {@code #write()} method to write files
      */
     protected String getFilename()
     {
-        return String.format("%sP%s-%s%s", new Date().getTime(), TaskContext.getPartitionId(),
-                this.getCount(), new LogFilePathFilter(this.compressOutput).getExtension());
+        return this.getFilename(this.getCount());
+    }
+
+    /**
+     * @param count
+     *            the number of events in the file
+     * @return the name of the file to be used in {@code #write()} method to write files
+     */
+    protected String getFilename(final int count)
+    {
+        return String.format("%sP%s-%s-%s%s", new Date().getTime(), this.getPartition(),
+                this.nextSequence(), count,
+                new LogFilePathFilter(this.compressOutput).getExtension());
+    }
+
+    /**
+     * @return the next number of the sequence of the files written by this {@link FileProcessor},
+     *         for their names
+     */
+    protected int nextSequence()
+    {
+        return this.sequence.getAndIncrement();
+    }
+
+    /**
+     * @return the partition the {@link FileProcessor} writes from
+     */
+    protected int getPartition()
+    {
+        return this.partition;
+    }
+
+    /**
+     * Sets a line to write at the top of each file, which does not count as an event
+     *
+     * @param header
+     *            the header line
+     * @return the {@link FileProcessor}
+     */
+    protected FileProcessor<T> withHeader(final String header)
+    {
+        this.header = header;
+        return this;
     }
 
     /**
-     * Writes a new file with the cached in String buffer
+     * Writes the events buffered so far in new files, and waits for all the files to be written.
+     * At least one file is written, even when there are no events.
      */
     protected void write()
     {
-        final int count = this.getCount();
-        if (count == 0)
+        synchronized (this.writerLock)
+        {
+            final List<Batch> remaining = new ArrayList<>();
+            StringBuilder content = new StringBuilder();
+            int count = 0;
+            for (final Stripe stripe : this.stripes)
+            {
+                synchronized (stripe)
+                {
+                    if (count > 0 && count + stripe.count > this.getBatchSize())
+                    {
+                        remaining.add(new Batch(content, count));
+                        content = new StringBuilder();
+                        count = 0;
+                    }
+                    content.append(stripe.buffer);
+                    count += stripe.count;
+                    stripe.buffer.setLength(0);
+                    stripe.count = 0;
+                }
+            }
+            remaining.add(new Batch(content, count));
+
+            if (count == 0)
+            {
+                logger.warn("Writing empty file with no content in {}.", this.directory);
+            }
+            for (final Batch batch : remaining)
+            {
+                this.submit(batch);
+            }
+            this.stopWriter();
+        }
+    }
+
+    private void append(final CharSequence event)
+    {
+        final Stripe stripe = this.stripes[(int) (Thread.currentThread().getId()
+                % this.stripes.length)];
+        Batch full = null;
+        synchronized (stripe)
+        {
+            stripe.buffer.append(event).append(System.lineSeparator());
+            stripe.count++;
+            if (stripe.count >= this.getBatchSize())
+            {
+                full = this.seal(stripe);
+            }
+        }
+        this.counter.incrementAndGet();
+
+        if (full != null)
+        {
+            try
+            {
+                this.submit(full);
+            }
+            catch (final Exception e)
+            {
+                logger.warn("File write is failed.", e);
+            }
+        }
+    }
+
+    private Batch seal(final Stripe stripe)
+    {
+        final Batch batch = new Batch(stripe.buffer, stripe.count);
+        stripe.buffer = new StringBuilder(batch.content.capacity());
+        stripe.count = 0;
+        return batch;
+    }
+
+    private void startWriter()
+    {
+        this.writer = new Thread(() ->
+        {
+            try
+            {
+                Batch batch = this.batches.take();
+                while (batch != END_OF_BATCHES)
+                {
+                    this.writeBatch(batch);
+                    batch = this.batches.take();
+                }
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }, String.format("%s writer", this.getClass().getSimpleName()));
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void stopWriter()
+    {
+        if (this.writer == null)
         {
-            logger.warn("Writing empty file with no content in {}.", this.directory);
+            return;
         }
+        try
+        {
+            this.batches.put(END_OF_BATCHES);
+            this.writer.join();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for files to be written in {}.",
+                    this.directory);
+        }
+        this.writer = null;
+    }
 
-        this.fileHelper.write(this.directory, this.getFilename(), this.buffer.toString());
-        this.buffer.delete(0, this.buffer.length());
-        this.counter.set(0);
+    private void submit(final Batch batch)
+    {
+        synchronized (this.writerLock)
+        {
+            if (this.writer == null)
+            {
+                this.startWriter();
+            }
+            try
+            {
+                this.batches.put(batch);
+            }
+            catch (final InterruptedException e)
+            {
+                // Write on this thread rather than losing the events
+                Thread.currentThread().interrupt();
+                this.writeBatch(batch);
+            }
+        }
+    }
+
+    private void writeBatch(final Batch batch)
+    {
+        try
+        {
+            final String header = this.header == null ? ""
+                    : this.header + System.lineSeparator();
+            if (this.compressOutput && this.parallelCompression != null)
+            {
+                ParallelGzipFiles.write(this.parallelCompression, this.directory,
+                        this.getFilename(batch.count), header, batch.content);
+            }
+            else
+            {
+                // The batch is streamed to the file, without a copy of it
+                this.fileWriter.write(this.directory, this.getFilename(batch.count), header,
+                        batch.content);
+            }
+        }
+        catch (final Exception e)
+        {
+            logger.warn("File write is failed.", e);
+        }
+        finally
+        {
+            this.counter.addAndGet(-batch.count);
+        }
     }
 }
@@ -1,5 +1,10 @@
 package org.openstreetmap.atlas.checks.event;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.atlas.checks.base.CheckProfile;
 import org.openstreetmap.atlas.utilities.scalars.Duration;
 
 /**
@@ -11,8 +16,13 @@ import org.openstreetmap.atlas.utilities.scalars.Duration;
  */
 public final class MetricEvent extends org.openstreetmap.atlas.event.Event
 {
+    private static final String ENTRY_FORMAT = "%s:%s";
+    private static final String ENTRY_SEPARATOR = ";";
+
     private final String name;
     private final Duration duration;
+    private final CheckProfile profile;
+    private final String budgetOverrun;
 
     /**
      * @return header following {@code toString()} method format
@@ -22,6 +32,29 @@ public final class MetricEvent extends org.openstreetmap.atlas.event.Event
         return "name,duration (ms)";
     }
 
+    /**
+     * @param profile
+     *            whether the profile columns are included
+     * @param budget
+     *            whether the budget overrun column is included
+     * @return header following {@code toString(profile, budget)} method format
+     */
+    public static String header(final boolean profile, final boolean budget)
+    {
+        final String header = profile ? profileHeader() : header();
+        return budget ? String.format("%s,%s", header, "budget overrun (last object)") : header;
+    }
+
+    /**
+     * @return header following {@code toProfileString()} method format
+     */
+    public static String profileHeader()
+    {
+        return String.format("%s,%s", header(),
+                "offered,filtered out,flagged,filter time (ms),flag time (ms),"
+                        + "latency histogram (ns upper bound:count),slowest objects (id:ns)");
+    }
+
     /**
      * Default constructor
      *
@@ -31,9 +64,54 @@ public final class MetricEvent extends org.openstreetmap.atlas.event.Event
      *            {@link Duration} of the metric
      */
     public MetricEvent(final String name, final Duration duration)
+    {
+        this(name, duration, null);
+    }
+
+    /**
+     * Constructor for a metric with a {@link CheckProfile}
+     *
+     * @param name
+     *            name of metric
+     * @param duration
+     *            {@link Duration} of the metric
+     * @param profile
+     *            {@link CheckProfile} of the check run the metric is about, can be {@code null}
+     */
+    public MetricEvent(final String name, final Duration duration, final CheckProfile profile)
+    {
+        this(name, duration, profile, null);
+    }
+
+    /**
+     * Constructor for a metric of a check run with a time budget
+     *
+     * @param name
+     *            name of metric
+     * @param duration
+     *            {@link Duration} of the metric
+     * @param profile
+     *            {@link CheckProfile} of the check run the metric is about, can be {@code null}
+     * @param budgetOverrun
+     *            identifier of the object the check was at when it went over its time budget, or
+     *            {@code null} if it did not
+     */
+    public MetricEvent(final String name, final Duration duration, final CheckProfile profile,
+            final String budgetOverrun)
     {
         this.name = name;
         this.duration = duration;
+        this.profile = profile;
+        this.budgetOverrun = budgetOverrun;
+    }
+
+    /**
+     * @return the identifier of the object the check was at when it went over its time budget, if
+     *         it did
+     */
+    public Optional<String> getBudgetOverrun()
+    {
+        return Optional.ofNullable(this.budgetOverrun);
     }
 
     /**
@@ -52,6 +130,53 @@ public final class MetricEvent extends org.openstreetmap.atlas.event.Event
         return this.name;
     }
 
+    /**
+     * @return the {@link CheckProfile} of the metric, if it was profiled
+     */
+    public Optional<CheckProfile> getProfile()
+    {
+        return Optional.ofNullable(this.profile);
+    }
+
+    /**
+     * @return this metric following {@code profileHeader()} format, with empty profile columns if
+     *         the metric was not profiled
+     */
+    public String toProfileString()
+    {
+        if (this.profile == null)
+        {
+            return String.format("%s,,,,,,,", this);
+        }
+        return String.format("%s,%s,%s,%s,%s,%s,%s,%s", this, this.profile.getOffered(),
+                this.profile.getFilteredOut(), this.profile.getFlagged(),
+                TimeUnit.NANOSECONDS.toMillis(this.profile.getFilterNanoseconds()),
+                TimeUnit.NANOSECONDS.toMillis(this.profile.getFlagNanoseconds()),
+                this.profile.getLatencyHistogram().entrySet().stream()
+                        .map(entry -> String.format(ENTRY_FORMAT, entry.getKey(),
+                                entry.getValue()))
+                        .collect(Collectors.joining(ENTRY_SEPARATOR)),
+                this.profile.getSlowestObjects().entrySet().stream()
+                        .map(entry -> String.format(ENTRY_FORMAT, entry.getKey(),
+                                entry.getValue()))
+                        .collect(Collectors.joining(ENTRY_SEPARATOR)));
+    }
+
+    /**
+     * @param profile
+     *            whether to include the profile columns
+     * @param budget
+     *            whether to include the budget overrun column, empty if the check did not go over
+     *            its budget
+     * @return this metric following {@code header(profile, budget)} format
+     */
+    public String toString(final boolean profile, final boolean budget)
+    {
+        final String metric = profile ? this.toProfileString() : this.toString();
+        return budget ? String.format("%s,%s", metric, this.getBudgetOverrun().orElse(""))
+                : metric;
+    }
+
     @Override
     public String toString()
     {
@@ -4,7 +4,6 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.Optional;
 
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.FileSuffix;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +15,11 @@ import com.google.common.eventbus.Subscribe;
  * A {@link org.openstreetmap.atlas.event.Processor} for {@link MetricEvent}s to write them into
  * files. By default this supports maximum {@code FileProcessor.BATCH_SIZE} metrics. If number of
  * metrics go beyond that limit, the newest metrics will override the previous ones in the file,
- * because the file name is going to be the same for both write operations.
+ * because the file name is going to be the same for both write operations. Each file starts with a
+ * header line. When profiling is enabled, metrics are written with their
+ * {@link org.openstreetmap.atlas.checks.base.CheckProfile} in extra columns (see
+ * {@link MetricEvent#profileHeader()}). When check time budgets are enabled, a last column holds
+ * the object each check was at when it went over its budget.
  *
  * @author mkalender
  */
@@ -26,21 +29,65 @@ public final class MetricFileGenerator extends FileProcessor<MetricEvent>
 
     private final String label;
     private final FileSuffix suffix;
+    private final boolean profile;
+    private final boolean budget;
 
     /**
      * Default constructor
      *
      * @param label
      *            label for the metric file
-     * @param fileHelper
-     *            {@link SparkFileHelper} for I/O operations
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
      * @param outputFolder
      *            output folder path to write files to
      */
-    public MetricFileGenerator(final String label, final SparkFileHelper fileHelper,
+    public MetricFileGenerator(final String label, final OutputFileWriter fileWriter,
             final String outputFolder)
     {
-        super(fileHelper, outputFolder);
+        this(label, fileWriter, outputFolder, false);
+    }
+
+    /**
+     * Constructor for metric files with profile columns
+     *
+     * @param label
+     *            label for the metric file
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
+     * @param outputFolder
+     *            output folder path to write files to
+     * @param profile
+     *            whether to write the {@link org.openstreetmap.atlas.checks.base.CheckProfile} of
+     *            each metric
+     */
+    public MetricFileGenerator(final String label, final OutputFileWriter fileWriter,
+            final String outputFolder, final boolean profile)
+    {
+        this(label, fileWriter, outputFolder, profile, false);
+    }
+
+    /**
+     * Constructor for metric files with profile and budget overrun columns
+     *
+     * @param label
+     *            label for the metric file
+     * @param fileWriter
+     *            {@link OutputFileWriter} for I/O operations
+     * @param outputFolder
+     *            output folder path to write files to
+     * @param profile
+     *            whether to write the {@link org.openstreetmap.atlas.checks.base.CheckProfile} of
+     *            each metric
+     * @param budget
+     *            whether to write the budget overrun of each metric
+     */
+    public MetricFileGenerator(final String label, final OutputFileWriter fileWriter,
+            final String outputFolder, final boolean profile, final boolean budget)
+    {
+        super(fileWriter, outputFolder);
+        this.profile = profile;
+        this.budget = budget;
         final Optional<FileSuffix> knownSuffix = Arrays.stream(FileSuffix.values())
                 .filter(suffix -> label.endsWith(suffix.toString()))
                 .filter(fileSuffix -> !FileSuffix.NONE.equals(fileSuffix)).findFirst();
@@ -55,8 +102,8 @@ public final class MetricFileGenerator extends FileProcessor<MetricEvent>
             this.suffix = FileSuffix.CSV;
         }
 
-        // This will make sure we have a header for the csv file
-        this.process(MetricEvent.header());
+        // This will make sure we have a header in each csv file
+        this.withHeader(MetricEvent.header(profile, budget));
     }
 
     @Override
@@ -64,7 +111,7 @@ public final class MetricFileGenerator extends FileProcessor<MetricEvent>
     @AllowConcurrentEvents
     public void process(final MetricEvent event)
     {
-        this.process(event.toString());
+        this.process(event.toString(this.profile, this.budget));
     }
 
     @Override
@@ -82,8 +129,9 @@ public final class MetricFileGenerator extends FileProcessor<MetricEvent>
     }
 
     @Override
-    protected String getFilename()
+    protected String getFilename(final int count)
     {
-        return String.format("%s-%s%s", this.label, new Date().getTime(), this.suffix);
+        return String.format("%s-%s-%s%s", this.label, new Date().getTime(), this.nextSequence(),
+                this.suffix);
     }
 }
@@ -0,0 +1,107 @@
+package org.openstreetmap.atlas.checks.event;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.openstreetmap.atlas.exception.CoreException;
+
+/**
+ * Writes the output files of the processors, on any file system Hadoop supports. Files whose name
+ * ends with {@code .gz} are compressed. It does not depend on Spark, so that the processors run
+ * without it.
+ *
+ * @author agent
+ */
+public class OutputFileWriter implements Serializable
+{
+    private static final String GZIP_EXTENSION = ".gz";
+    // Number of characters encoded at once, to not make a copy of large contents
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long serialVersionUID = -1371938437581853461L;
+
+    private final HashMap<String, String> configuration;
+
+    /**
+     * @param configuration
+     *            the Hadoop configuration of the file system to write to
+     */
+    public OutputFileWriter(final Map<String, String> configuration)
+    {
+        this.configuration = new HashMap<>(configuration);
+    }
+
+    /**
+     * Creates a file, replacing any file with the same name
+     *
+     * @param directory
+     *            directory to write the file in
+     * @param filename
+     *            name of the file
+     * @return the {@link OutputStream} of the file, not compressed whatever its name
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    public OutputStream create(final String directory, final String filename) throws IOException
+    {
+        final Configuration hadoopConfiguration = new Configuration();
+        this.configuration.forEach(hadoopConfiguration::set);
+        final Path path = new Path(directory, filename);
+        return path.getFileSystem(hadoopConfiguration).create(path, true);
+    }
+
+    /**
+     * Writes a file made of some parts, in order, compressed if its name says so
+     *
+     * @param directory
+     *            directory to write the file in
+     * @param filename
+     *            name of the file
+     * @param parts
+     *            contents of the file
+     */
+    public void write(final String directory, final String filename, final CharSequence... parts)
+    {
+        try (Writer writer = this.writer(directory, filename))
+        {
+            for (final CharSequence part : parts)
+            {
+                for (int start = 0; start < part.length(); start += CHUNK_SIZE)
+                {
+                    writer.append(part, start, Math.min(part.length(), start + CHUNK_SIZE));
+                }
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to write {} in {}", filename, directory, e);
+        }
+    }
+
+    /**
+     * Creates a file to write text to, compressed if its name says so
+     *
+     * @param directory
+     *            directory to write the file in
+     * @param filename
+     *            name of the file
+     * @return a UTF-8 {@link Writer} of the file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    public Writer writer(final String directory, final String filename) throws IOException
+    {
+        final OutputStream output = this.create(directory, filename);
+        return new OutputStreamWriter(
+                filename.endsWith(GZIP_EXTENSION) ? new GZIPOutputStream(output) : output,
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package org.openstreetmap.atlas.checks.event;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.openstreetmap.atlas.checks.utility.ParallelGzipOutputStream;
+import org.openstreetmap.atlas.exception.CoreException;
+
+/**
+ * Writes output files compressed with a {@link ParallelGzipOutputStream}, in place of
+ * {@link OutputFileWriter} which compresses them on the writing thread
+ *
+ * @author agent
+ */
+final class ParallelGzipFiles
+{
+    // Number of characters encoded at once, to not make a copy of large contents
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Writes a gzip file made of some parts, in order
+     *
+     * @param configuration
+     *            the Hadoop configuration of the file system to write to
+     * @param directory
+     *            directory to write the file in
+     * @param filename
+     *            name of the file
+     * @param parts
+     *            contents of the file
+     */
+    static void write(final Map<String, String> configuration, final String directory,
+            final String filename, final CharSequence... parts)
+    {
+        final Configuration hadoopConfiguration = new Configuration();
+        configuration.forEach(hadoopConfiguration::set);
+        final Path path = new Path(directory, filename);
+        try (Writer writer = new OutputStreamWriter(new ParallelGzipOutputStream(
+                path.getFileSystem(hadoopConfiguration).create(path, true)),
+                StandardCharsets.UTF_8))
+        {
+            for (final CharSequence part : parts)
+            {
+                for (int start = 0; start < part.length(); start += CHUNK_SIZE)
+                {
+                    writer.append(part, start, Math.min(part.length(), start + CHUNK_SIZE));
+                }
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new CoreException("Unable to write {}", path, e);
+        }
+    }
+
+    private ParallelGzipFiles()
+    {
+    }
+}
@@ -0,0 +1,489 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.spark.serializer.KryoRegistrator;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.Latitude;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.Longitude;
+import org.openstreetmap.atlas.geography.MultiPolygon;
+import org.openstreetmap.atlas.geography.PolyLine;
+import org.openstreetmap.atlas.geography.Polygon;
+import org.openstreetmap.atlas.geography.atlas.change.FeatureChange;
+import org.openstreetmap.atlas.geography.atlas.complete.CompleteArea;
+import org.openstreetmap.atlas.geography.atlas.complete.CompleteEdge;
+import org.openstreetmap.atlas.geography.atlas.complete.CompleteLine;
+import org.openstreetmap.atlas.geography.atlas.complete.CompleteNode;
+import org.openstreetmap.atlas.geography.atlas.complete.CompletePoint;
+import org.openstreetmap.atlas.geography.atlas.items.Area;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasItem;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.Edge;
+import org.openstreetmap.atlas.geography.atlas.items.Line;
+import org.openstreetmap.atlas.geography.atlas.items.Node;
+import org.openstreetmap.atlas.geography.atlas.items.Point;
+import org.openstreetmap.atlas.geography.atlas.items.Relation;
+import org.openstreetmap.atlas.utilities.maps.MultiMap;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+
+/**
+ * Registers compact Kryo serializers for {@link CheckFlag}s, their {@link FlaggedObject}s and
+ * {@link UniqueCheckFlagContainer}s, which Spark otherwise moves between stages with Java
+ * serialization. Flagged features are written as their identifier, tags and geometry only, and
+ * read back as complete entities, as {@link CheckFlag#makeComplete()} would make them. Single
+ * {@link Location}s are packed in a {@code long}, geometries are written as the varint deltas
+ * between consecutive coordinates, and tag keys and values are written once per record, then
+ * referred to by index. Relations and fix suggestions are rare, and their members and changes
+ * deep, so they keep Java serialization.
+ * <p>
+ * Enable it with the {@code spark.serializer->org.apache.spark.serializer.KryoSerializer} and
+ * {@code spark.kryo.registrator->org.openstreetmap.atlas.checks.flag.FlagKryoRegistrator} spark
+ * options.
+ *
+ * @author agent
+ */
+public class FlagKryoRegistrator implements KryoRegistrator
+{
+    // Graph context keys of the strings written and read so far, cleared by Kryo after each record
+    private static final String WRITTEN_STRINGS = FlagKryoRegistrator.class.getName() + ".written";
+    private static final String READ_STRINGS = FlagKryoRegistrator.class.getName() + ".read";
+    private static final int LATITUDE_SHIFT = 32;
+    private static final long LONGITUDE_MASK = 0xFFFFFFFFL;
+
+    private static final byte AREA = 0;
+    private static final byte EDGE = 1;
+    private static final byte LINE = 2;
+    private static final byte LOCATION = 0;
+    private static final byte NODE = 1;
+    private static final byte POINT = 2;
+
+    /**
+     * Writes the identifier, challenge name, instructions and flagged objects of a
+     * {@link CheckFlag}
+     */
+    public static class CheckFlagSerializer extends Serializer<CheckFlag>
+    {
+        private final JavaSerializer fallback = new JavaSerializer();
+
+        @Override
+        public CheckFlag read(final Kryo kryo, final Input input, final Class<CheckFlag> type)
+        {
+            final CheckFlag flag = new CheckFlag(input.readString());
+            final String challengeName = input.readString();
+            if (challengeName != null)
+            {
+                flag.setChallengeName(challengeName);
+            }
+            final int instructions = input.readVarInt(true);
+            for (int index = 0; index < instructions; index++)
+            {
+                flag.addInstruction(input.readString());
+            }
+            final int flaggedObjects = input.readVarInt(true);
+            for (int index = 0; index < flaggedObjects; index++)
+            {
+                flag.addObject((FlaggedObject) kryo.readClassAndObject(input));
+            }
+            if (input.readBoolean())
+            {
+                @SuppressWarnings("unchecked")
+                final Set<FeatureChange> fixSuggestions = kryo.readObject(input, HashSet.class,
+                        this.fallback);
+                flag.addFixSuggestions(fixSuggestions);
+            }
+            return flag;
+        }
+
+        @Override
+        public void write(final Kryo kryo, final Output output, final CheckFlag flag)
+        {
+            output.writeString(flag.getIdentifier());
+            output.writeString(flag.getChallengeName().orElse(null));
+            output.writeVarInt(flag.getRawInstructions().size(), true);
+            flag.getRawInstructions().forEach(output::writeString);
+            output.writeVarInt(flag.getFlaggedObjects().size(), true);
+            flag.getFlaggedObjects().forEach(object -> kryo.writeClassAndObject(output, object));
+            final boolean hasFixSuggestions = !flag.getFixSuggestions().isEmpty();
+            output.writeBoolean(hasFixSuggestions);
+            if (hasFixSuggestions)
+            {
+                kryo.writeObject(output, new HashSet<>(flag.getFixSuggestions()), this.fallback);
+            }
+        }
+    }
+
+    /**
+     * Writes a {@link FlaggedPoint} as its {@link Location}, and the identifier and tags of its
+     * {@link Node} or {@link Point} if it has one
+     */
+    public static class FlaggedPointSerializer extends Serializer<FlaggedPoint>
+    {
+        @Override
+        public FlaggedPoint read(final Kryo kryo, final Input input,
+                final Class<FlaggedPoint> type)
+        {
+            final byte kind = input.readByte();
+            final Location location = unpack(input.readLong());
+            if (kind == LOCATION)
+            {
+                return new FlaggedPoint(location);
+            }
+            final long identifier = input.readVarLong(false);
+            final Map<String, String> tags = readTags(kryo, input);
+            final Set<Long> relationIdentifiers = readIdentifiers(input, new HashSet<>());
+            if (kind == NODE)
+            {
+                final SortedSet<Long> inEdgeIdentifiers = readIdentifiers(input, new TreeSet<>());
+                final SortedSet<Long> outEdgeIdentifiers = readIdentifiers(input, new TreeSet<>());
+                return new FlaggedPoint(new CompleteNode(identifier, location, tags,
+                        inEdgeIdentifiers, outEdgeIdentifiers, relationIdentifiers));
+            }
+            return new FlaggedPoint(
+                    new CompletePoint(identifier, location, tags, relationIdentifiers));
+        }
+
+        @Override
+        public void write(final Kryo kryo, final Output output, final FlaggedPoint flaggedPoint)
+        {
+            final AtlasObject object = flaggedPoint.getObject().orElse(null);
+            if (object instanceof Node)
+            {
+                output.writeByte(NODE);
+            }
+            else if (object instanceof Point)
+            {
+                output.writeByte(POINT);
+            }
+            else
+            {
+                output.writeByte(LOCATION);
+            }
+            output.writeLong(pack((Location) flaggedPoint.getGeometry()));
+            if (object instanceof AtlasItem)
+            {
+                final AtlasItem item = (AtlasItem) object;
+                output.writeVarLong(item.getIdentifier(), false);
+                writeTags(kryo, output, item.getTags());
+                writeIdentifiers(output, relationIdentifiers(item));
+                if (object instanceof Node)
+                {
+                    writeIdentifiers(output, identifiers(((Node) object).inEdges()));
+                    writeIdentifiers(output, identifiers(((Node) object).outEdges()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a {@link FlaggedPolyline} as the identifier, tags and delta encoded geometry of its
+     * {@link Area}, {@link Edge} or {@link Line}
+     */
+    public static class FlaggedPolylineSerializer extends Serializer<FlaggedPolyline>
+    {
+        @Override
+        public FlaggedPolyline read(final Kryo kryo, final Input input,
+                final Class<FlaggedPolyline> type)
+        {
+            final byte kind = input.readByte();
+            final long identifier = input.readVarLong(false);
+            final Map<String, String> tags = readTags(kryo, input);
+            final Set<Long> relationIdentifiers = readIdentifiers(input, new HashSet<>());
+            final List<Location> locations = readLocations(input);
+            switch (kind)
+            {
+                case AREA:
+                    return new FlaggedPolyline(new CompleteArea(identifier,
+                            new Polygon(locations), tags, relationIdentifiers));
+                case EDGE:
+                    final long start = input.readVarLong(false);
+                    final long end = input.readVarLong(false);
+                    return new FlaggedPolyline(new CompleteEdge(identifier,
+                            new PolyLine(locations), tags, start, end, relationIdentifiers));
+                case LINE:
+                    return new FlaggedPolyline(new CompleteLine(identifier,
+                            new PolyLine(locations), tags, relationIdentifiers));
+                default:
+                    throw new CoreException("Unknown FlaggedPolyline item kind {}", kind);
+            }
+        }
+
+        @Override
+        public void write(final Kryo kryo, final Output output,
+                final FlaggedPolyline flaggedPolyline)
+        {
+            final AtlasItem item = (AtlasItem) flaggedPolyline.getObject()
+                    .orElseThrow(() -> new CoreException("FlaggedPolyline has no Atlas Item"));
+            final PolyLine shape;
+            if (item instanceof Area)
+            {
+                output.writeByte(AREA);
+                shape = ((Area) item).asPolygon();
+            }
+            else if (item instanceof Edge)
+            {
+                output.writeByte(EDGE);
+                shape = ((Edge) item).asPolyLine();
+            }
+            else if (item instanceof Line)
+            {
+                output.writeByte(LINE);
+                shape = ((Line) item).asPolyLine();
+            }
+            else
+            {
+                throw new CoreException("FlaggedPolyline has improper Atlas Item {}", item);
+            }
+            output.writeVarLong(item.getIdentifier(), false);
+            writeTags(kryo, output, item.getTags());
+            writeIdentifiers(output, relationIdentifiers(item));
+            writeLocations(output, shape);
+            if (item instanceof Edge)
+            {
+                output.writeVarLong(((Edge) item).start().getIdentifier(), false);
+                output.writeVarLong(((Edge) item).end().getIdentifier(), false);
+            }
+        }
+    }
+
+    /**
+     * Writes the {@link Relation} of a {@link FlaggedRelation} with Java serialization, and its
+     * {@link MultiPolygon} as delta encoded outer and inner rings
+     */
+    public static class FlaggedRelationSerializer extends Serializer<FlaggedRelation>
+    {
+        private final JavaSerializer fallback = new JavaSerializer();
+
+        @Override
+        public FlaggedRelation read(final Kryo kryo, final Input input,
+                final Class<FlaggedRelation> type)
+        {
+            final Relation relation = (Relation) kryo.readObject(input, AtlasEntity.class,
+                    this.fallback);
+            final MultiMap<Polygon, Polygon> outersToInners = new MultiMap<>();
+            final int outers = input.readVarInt(true);
+            for (int outerIndex = 0; outerIndex < outers; outerIndex++)
+            {
+                final Polygon outer = new Polygon(readLocations(input));
+                final int inners = input.readVarInt(true);
+                final List<Polygon> innerPolygons = new ArrayList<>(inners);
+                for (int innerIndex = 0; innerIndex < inners; innerIndex++)
+                {
+                    innerPolygons.add(new Polygon(readLocations(input)));
+                }
+                outersToInners.put(outer, innerPolygons);
+            }
+            return new FlaggedRelation(relation, new MultiPolygon(outersToInners));
+        }
+
+        @Override
+        public void write(final Kryo kryo, final Output output,
+                final FlaggedRelation flaggedRelation)
+        {
+            kryo.writeObject(output, flaggedRelation.getObject()
+                    .orElseThrow(() -> new CoreException("FlaggedRelation has no Relation")),
+                    this.fallback);
+            final MultiPolygon multiPolygon = flaggedRelation.getMultipolygonGeometry();
+            output.writeVarInt(multiPolygon.outers().size(), true);
+            for (final Polygon outer : multiPolygon.outers())
+            {
+                writeLocations(output, outer);
+                final List<Polygon> inners = multiPolygon.innersOf(outer);
+                output.writeVarInt(inners.size(), true);
+                inners.forEach(inner -> writeLocations(output, inner));
+            }
+        }
+    }
+
+    /**
+     * Writes the check name and unique identifiers of a {@link UniqueCheckFlagContainer}, along
+     * with its {@link CheckFlag}
+     */
+    public static class UniqueCheckFlagContainerSerializer
+            extends Serializer<UniqueCheckFlagContainer>
+    {
+        @Override
+        public UniqueCheckFlagContainer read(final Kryo kryo, final Input input,
+                final Class<UniqueCheckFlagContainer> type)
+        {
+            final String checkName = input.readString();
+            final int size = input.readVarInt(true);
+            final Set<String> uniqueIdentifiers = new HashSet<>(size);
+            for (int index = 0; index < size; index++)
+            {
+                uniqueIdentifiers.add(input.readString());
+            }
+            return new UniqueCheckFlagContainer(checkName, uniqueIdentifiers,
+                    kryo.readObject(input, CheckFlag.class));
+        }
+
+        @Override
+        public void write(final Kryo kryo, final Output output,
+                final UniqueCheckFlagContainer container)
+        {
+            output.writeString(container.getCheckName());
+            output.writeVarInt(container.getUniqueIdentifiers().size(), true);
+            container.getUniqueIdentifiers().forEach(output::writeString);
+            kryo.writeObject(output, container.getCheckFlag());
+        }
+    }
+
+    private static Set<Long> identifiers(final Set<? extends AtlasEntity> entities)
+    {
+        return entities.stream().map(AtlasEntity::getIdentifier).collect(Collectors.toSet());
+    }
+
+    private static long pack(final Location location)
+    {
+        return (long) location.getLatitude().asDm7() << LATITUDE_SHIFT
+                | location.getLongitude().asDm7() & LONGITUDE_MASK;
+    }
+
+    private static <T extends Set<Long>> T readIdentifiers(final Input input, final T identifiers)
+    {
+        final int size = input.readVarInt(true);
+        for (int index = 0; index < size; index++)
+        {
+            identifiers.add(input.readVarLong(false));
+        }
+        return identifiers;
+    }
+
+    private static List<Location> readLocations(final Input input)
+    {
+        final int size = input.readVarInt(true);
+        final List<Location> locations = new ArrayList<>(size);
+        long latitude = 0;
+        long longitude = 0;
+        for (int index = 0; index < size; index++)
+        {
+            latitude += input.readVarLong(false);
+            longitude += input.readVarLong(false);
+            locations.add(new Location(Latitude.dm7(latitude), Longitude.dm7(longitude)));
+        }
+        return locations;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String readString(final Kryo kryo, final Input input)
+    {
+        List<String> strings = (List<String>) kryo.getGraphContext().get(READ_STRINGS);
+        if (strings == null)
+        {
+            strings = new ArrayList<>();
+            kryo.getGraphContext().put(READ_STRINGS, strings);
+        }
+        final int reference = input.readVarInt(true);
+        if (reference > 0)
+        {
+            return strings.get(reference - 1);
+        }
+        final String value = input.readString();
+        strings.add(value);
+        return value;
+    }
+
+    private static Map<String, String> readTags(final Kryo kryo, final Input input)
+    {
+        final int size = input.readVarInt(true);
+        final Map<String, String> tags = new HashMap<>(size * 2);
+        for (int index = 0; index < size; index++)
+        {
+            tags.put(readString(kryo, input), readString(kryo, input));
+        }
+        return tags;
+    }
+
+    private static Set<Long> relationIdentifiers(final AtlasItem item)
+    {
+        final Set<Relation> relations = item.relations();
+        return relations == null ? new HashSet<>() : identifiers(relations);
+    }
+
+    private static Location unpack(final long packed)
+    {
+        return new Location(Latitude.dm7(packed >> LATITUDE_SHIFT),
+                Longitude.dm7((int) (packed & LONGITUDE_MASK)));
+    }
+
+    private static void writeIdentifiers(final Output output, final Set<Long> identifiers)
+    {
+        output.writeVarInt(identifiers.size(), true);
+        identifiers.forEach(identifier -> output.writeVarLong(identifier, false));
+    }
+
+    private static void writeLocations(final Output output, final PolyLine locations)
+    {
+        // Consecutive points are close, so their deltas fit in one or two bytes
+        output.writeVarInt(locations.size(), true);
+        long latitude = 0;
+        long longitude = 0;
+        for (final Location location : locations)
+        {
+            final long nextLatitude = location.getLatitude().asDm7();
+            final long nextLongitude = location.getLongitude().asDm7();
+            output.writeVarLong(nextLatitude - latitude, false);
+            output.writeVarLong(nextLongitude - longitude, false);
+            latitude = nextLatitude;
+            longitude = nextLongitude;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeString(final Kryo kryo, final Output output, final String value)
+    {
+        Map<String, Integer> strings = (Map<String, Integer>) kryo.getGraphContext()
+                .get(WRITTEN_STRINGS);
+        if (strings == null)
+        {
+            strings = new HashMap<>();
+            kryo.getGraphContext().put(WRITTEN_STRINGS, strings);
+        }
+        final Integer reference = strings.get(value);
+        if (reference != null)
+        {
+            output.writeVarInt(reference, true);
+            return;
+        }
+        // 0 announces a new string, which later ones refer to by its 1 based index
+        output.writeVarInt(0, true);
+        output.writeString(value);
+        strings.put(value, strings.size() + 1);
+    }
+
+    private static void writeTags(final Kryo kryo, final Output output,
+            final Map<String, String> tags)
+    {
+        output.writeVarInt(tags.size(), true);
+        tags.forEach((key, value) ->
+        {
+            writeString(kryo, output, key);
+            writeString(kryo, output, value);
+        });
+    }
+
+    @Override
+    public void registerClasses(final Kryo kryo)
+    {
+        kryo.register(CheckFlag.class, new CheckFlagSerializer());
+        kryo.register(FlaggedPoint.class, new FlaggedPointSerializer());
+        kryo.register(FlaggedPolyline.class, new FlaggedPolylineSerializer());
+        kryo.register(FlaggedRelation.class, new FlaggedRelationSerializer());
+        kryo.register(UniqueCheckFlagContainer.class, new UniqueCheckFlagContainerSerializer());
+    }
+}
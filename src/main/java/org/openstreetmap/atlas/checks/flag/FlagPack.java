@@ -0,0 +1,204 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.openstreetmap.atlas.geography.Latitude;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.Longitude;
+import org.openstreetmap.atlas.geography.Rectangle;
+
+/**
+ * A flag pack is a binary container of flags, indexed by check name, country and bounding box, so
+ * that readers can count flags or get the flags of one check without going through the others.
+ * <p>
+ * Flags are grouped in blocks holding the flags of a single check and country, each deflated on
+ * its own. A block starts with the number of its flags, followed by the bounding box (in dm7) and
+ * length of each flag, followed by the flags themselves, each a line of line delimited GeoJson as
+ * in the flag log files. The file starts with a magic number and a version, and ends with a footer
+ * listing the blocks, followed by the offset of the footer and the magic number again:
+ *
+ * <pre>
+ * magic (int) | version (byte) | blocks | footer | footer offset (long) | magic (int)
+ * footer: block count (int) | block entries
+ * block entry: offset (long) | compressed length (int) | length (int) | check name (UTF)
+ *              | country (UTF) | flag count (int) | bounding box (4 int)
+ * </pre>
+ *
+ * See {@link FlagPackWriter} and {@link FlagPackReader}.
+ *
+ * @author agent
+ */
+public final class FlagPack
+{
+    /**
+     * Extension of flag pack files
+     */
+    public static final String EXTENSION = ".flagpack";
+    // "ACFP"
+    static final int MAGIC = 0x41434650;
+    static final byte VERSION = 1;
+    // Number of bytes of the header, and of the trailer after the footer
+    static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES;
+    static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+    // Number of ints describing each flag in a block: its bounding box and its length
+    static final int FLAG_ENTRY_INTS = 5;
+
+    /**
+     * A block of the flags of a single check and country, as listed in the footer of a flag pack
+     */
+    public static final class Block
+    {
+        private final long offset;
+        private final int compressedLength;
+        private final int length;
+        private final String checkName;
+        private final String country;
+        private final int count;
+        private final int[] bounds;
+
+        static Block read(final DataInput input) throws IOException
+        {
+            final long offset = input.readLong();
+            final int compressedLength = input.readInt();
+            final int length = input.readInt();
+            final String checkName = input.readUTF();
+            final String country = input.readUTF();
+            final int count = input.readInt();
+            final int[] bounds = new int[4];
+            for (int index = 0; index < bounds.length; index++)
+            {
+                bounds[index] = input.readInt();
+            }
+            return new Block(offset, compressedLength, length, checkName, country, count, bounds);
+        }
+
+        @SuppressWarnings("squid:S107")
+        Block(final long offset, final int compressedLength, final int length,
+                final String checkName, final String country, final int count,
+                final int[] bounds)
+        {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.checkName = checkName;
+            this.country = country;
+            this.count = count;
+            this.bounds = bounds;
+        }
+
+        /**
+         * @return the bounding box of the flags of the block
+         */
+        public Rectangle bounds()
+        {
+            return FlagPack.bounds(this.bounds, 0);
+        }
+
+        /**
+         * @return the name of the check of the flags of the block
+         */
+        public String getCheckName()
+        {
+            return this.checkName;
+        }
+
+        /**
+         * @return the number of flags in the block
+         */
+        public int getCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * @return the country of the flags of the block
+         */
+        public String getCountry()
+        {
+            return this.country;
+        }
+
+        /**
+         * @param bounds
+         *            a {@link Rectangle}
+         * @return {@code true} if the bounding box of the block overlaps the {@link Rectangle}
+         */
+        public boolean overlaps(final Rectangle bounds)
+        {
+            return FlagPack.overlaps(this.bounds, 0, dm7(bounds));
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s flags of %s in %s", this.count, this.checkName,
+                    this.country);
+        }
+
+        int getCompressedLength()
+        {
+            return this.compressedLength;
+        }
+
+        int getLength()
+        {
+            return this.length;
+        }
+
+        long getOffset()
+        {
+            return this.offset;
+        }
+
+        void write(final DataOutput output) throws IOException
+        {
+            output.writeLong(this.offset);
+            output.writeInt(this.compressedLength);
+            output.writeInt(this.length);
+            output.writeUTF(this.checkName);
+            output.writeUTF(this.country);
+            output.writeInt(this.count);
+            for (final int value : this.bounds)
+            {
+                output.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * @return a {@link Rectangle} from the four dm7 coordinates at an index of an array
+     */
+    static Rectangle bounds(final int[] values, final int index)
+    {
+        return Rectangle.forCorners(
+                new Location(Latitude.dm7(values[index]), Longitude.dm7(values[index + 1])),
+                new Location(Latitude.dm7(values[index + 2]), Longitude.dm7(values[index + 3])));
+    }
+
+    /**
+     * @return the dm7 coordinates of the lower left and upper right corners of a {@link Rectangle}
+     */
+    static int[] dm7(final Rectangle bounds)
+    {
+        return new int[] { (int) bounds.lowerLeft().getLatitude().asDm7(),
+                (int) bounds.lowerLeft().getLongitude().asDm7(),
+                (int) bounds.upperRight().getLatitude().asDm7(),
+                (int) bounds.upperRight().getLongitude().asDm7() };
+    }
+
+    /**
+     * @return {@code true} if the four dm7 coordinates at an index of an array overlap a bounding
+     *         box
+     */
+    static boolean overlaps(final int[] values, final int index, final int[] bounds)
+    {
+        return values[index] <= bounds[2] && values[index + 2] >= bounds[0]
+                && values[index + 1] <= bounds[3] && values[index + 3] >= bounds[1];
+    }
+
+    private FlagPack()
+    {
+    }
+}
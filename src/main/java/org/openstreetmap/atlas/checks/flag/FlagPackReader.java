@@ -0,0 +1,360 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.Rectangle;
+
+/**
+ * Reads a {@link FlagPack}. The footer is read when the reader is opened, so that flags can be
+ * counted per check and country without decompressing anything, and only the blocks of a check or
+ * overlapping a bounding box are decompressed when reading flags. Flags are read as lines of line
+ * delimited GeoJson, as written in the flag log files.
+ *
+ * @author agent
+ */
+public final class FlagPackReader implements Closeable
+{
+    private final File file;
+    private final FileChannel channel;
+    private final List<FlagPack.Block> blocks;
+
+    /**
+     * A decompressed block
+     */
+    private static final class DecompressedBlock
+    {
+        private final byte[] bytes;
+        private final int count;
+        private final int[] entries;
+        private final int flagsOffset;
+
+        DecompressedBlock(final byte[] bytes) throws IOException
+        {
+            this.bytes = bytes;
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            this.count = input.readInt();
+            this.entries = new int[this.count * FlagPack.FLAG_ENTRY_INTS];
+            for (int index = 0; index < this.entries.length; index++)
+            {
+                this.entries[index] = input.readInt();
+            }
+            this.flagsOffset = Integer.BYTES + this.entries.length * Integer.BYTES;
+        }
+
+        InputStream flagLines()
+        {
+            return new ByteArrayInputStream(this.bytes, this.flagsOffset,
+                    this.bytes.length - this.flagsOffset);
+        }
+
+        List<String> flags(final int[] bounds)
+        {
+            final List<String> flags = new ArrayList<>();
+            int offset = this.flagsOffset;
+            for (int index = 0; index < this.count; index++)
+            {
+                final int entry = index * FlagPack.FLAG_ENTRY_INTS;
+                final int length = this.entries[entry + FlagPack.FLAG_ENTRY_INTS - 1];
+                if (bounds == null || FlagPack.overlaps(this.entries, entry, bounds))
+                {
+                    flags.add(new String(this.bytes, offset, length, StandardCharsets.UTF_8));
+                }
+                // Skip the line separator
+                offset += length + 1;
+            }
+            return flags;
+        }
+    }
+
+    /**
+     * Reads a flag pack as line delimited GeoJson, as in the flag log files
+     *
+     * @param file
+     *            the flag pack {@link File}
+     * @return an {@link InputStream} of the flags of the pack, one per line, that closes the pack
+     *         when closed
+     */
+    public static InputStream logStream(final File file)
+    {
+        return new FlagPackReader(file).logStream();
+    }
+
+    /**
+     * @param file
+     *            the flag pack {@link File} to read
+     */
+    public FlagPackReader(final File file)
+    {
+        this.file = file;
+        try
+        {
+            this.channel = new RandomAccessFile(file, "r").getChannel();
+        }
+        catch (final IOException error)
+        {
+            throw new CoreException("Unable to open flag pack {}", file, error);
+        }
+        try
+        {
+            this.blocks = Collections.unmodifiableList(this.readFooter());
+        }
+        catch (final IOException | RuntimeException error)
+        {
+            this.close();
+            throw new CoreException("Unable to read the footer of flag pack {}", file, error);
+        }
+    }
+
+    /**
+     * @return the {@link FlagPack.Block}s of the pack, as listed in its footer
+     */
+    public List<FlagPack.Block> blocks()
+    {
+        return this.blocks;
+    }
+
+    /**
+     * @return the names of the checks that have flags in the pack
+     */
+    public Set<String> checkNames()
+    {
+        return this.blocks.stream().map(FlagPack.Block::getCheckName)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            this.channel.close();
+        }
+        catch (final IOException error)
+        {
+            throw new CoreException("Unable to close flag pack {}", this.file, error);
+        }
+    }
+
+    /**
+     * @return the number of flags in the pack
+     */
+    public long count()
+    {
+        return this.blocks.stream().mapToLong(FlagPack.Block::getCount).sum();
+    }
+
+    /**
+     * @return the number of flags in the pack per check name
+     */
+    public Map<String, Long> countsByCheck()
+    {
+        return this.blocks.stream().collect(Collectors.groupingBy(FlagPack.Block::getCheckName,
+                TreeMap::new, Collectors.summingLong(FlagPack.Block::getCount)));
+    }
+
+    /**
+     * @return all the flags of the pack, as lines of line delimited GeoJson
+     */
+    public Stream<String> flags()
+    {
+        return this.flags(block -> true, null);
+    }
+
+    /**
+     * @param bounds
+     *            a bounding box
+     * @return the flags of the pack whose bounding box overlaps the given one, as lines of line
+     *         delimited GeoJson
+     */
+    public Stream<String> flags(final Rectangle bounds)
+    {
+        return this.flags(block -> block.overlaps(bounds), FlagPack.dm7(bounds));
+    }
+
+    /**
+     * @param checkName
+     *            the name of a check
+     * @return the flags of the check, as lines of line delimited GeoJson
+     */
+    public Stream<String> flags(final String checkName)
+    {
+        return this.flags(block -> block.getCheckName().equals(checkName), null);
+    }
+
+    /**
+     * @return an {@link InputStream} of the flags of the pack, one per line, as in the flag log
+     *         files. Closing it closes this reader.
+     */
+    public InputStream logStream()
+    {
+        final Iterator<FlagPack.Block> remaining = this.blocks.iterator();
+        final Enumeration<InputStream> blockStreams = new Enumeration<InputStream>()
+        {
+            @Override
+            public boolean hasMoreElements()
+            {
+                return remaining.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement()
+            {
+                if (!remaining.hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return FlagPackReader.this.decompress(remaining.next()).flagLines();
+            }
+        };
+        return new FilterInputStream(new SequenceInputStream(blockStreams))
+        {
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    FlagPackReader.this.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Flag pack %s with %s flags in %s blocks", this.file.getName(),
+                this.count(), this.blocks.size());
+    }
+
+    private DecompressedBlock decompress(final FlagPack.Block block)
+    {
+        final ByteBuffer compressed = ByteBuffer.allocate(block.getCompressedLength());
+        final Inflater inflater = new Inflater();
+        try
+        {
+            this.readFully(compressed, block.getOffset());
+            inflater.setInput(compressed.array());
+            final byte[] bytes = new byte[block.getLength()];
+            int length = 0;
+            while (length < bytes.length && !inflater.finished())
+            {
+                final int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != bytes.length)
+            {
+                throw new CoreException("Block {} is truncated", block);
+            }
+            return new DecompressedBlock(bytes);
+        }
+        catch (final IOException | DataFormatException error)
+        {
+            throw new CoreException("Unable to read block {} of flag pack {}", block, this.file,
+                    error);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private Stream<String> flags(final Predicate<FlagPack.Block> blockFilter,
+            final int[] bounds)
+    {
+        return this.blocks.stream().filter(blockFilter)
+                .flatMap(block -> this.decompress(block).flags(bounds).stream());
+    }
+
+    private List<FlagPack.Block> readFooter() throws IOException
+    {
+        final long size = this.channel.size();
+        if (size < FlagPack.HEADER_LENGTH + Integer.BYTES + FlagPack.TRAILER_LENGTH)
+        {
+            throw new CoreException("{} is too small to be a flag pack", this.file);
+        }
+        final ByteBuffer header = ByteBuffer.allocate(FlagPack.HEADER_LENGTH);
+        this.readFully(header, 0);
+        header.flip();
+        if (header.getInt() != FlagPack.MAGIC)
+        {
+            throw new CoreException("{} is not a flag pack", this.file);
+        }
+        final byte version = header.get();
+        if (version != FlagPack.VERSION)
+        {
+            throw new CoreException("Unsupported flag pack version {}", version);
+        }
+
+        final ByteBuffer trailer = ByteBuffer.allocate(FlagPack.TRAILER_LENGTH);
+        this.readFully(trailer, size - FlagPack.TRAILER_LENGTH);
+        trailer.flip();
+        final long footerOffset = trailer.getLong();
+        if (trailer.getInt() != FlagPack.MAGIC || footerOffset < FlagPack.HEADER_LENGTH
+                || footerOffset > size - FlagPack.TRAILER_LENGTH)
+        {
+            throw new CoreException("{} is not a complete flag pack", this.file);
+        }
+
+        final ByteBuffer footer = ByteBuffer
+                .allocate((int) (size - FlagPack.TRAILER_LENGTH - footerOffset));
+        this.readFully(footer, footerOffset);
+        final DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(footer.array()));
+        final int blockCount = input.readInt();
+        final List<FlagPack.Block> footerBlocks = new ArrayList<>(blockCount);
+        for (int index = 0; index < blockCount; index++)
+        {
+            footerBlocks.add(FlagPack.Block.read(input));
+        }
+        return footerBlocks;
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException
+    {
+        long offset = position;
+        while (buffer.hasRemaining())
+        {
+            final int read = this.channel.read(buffer, offset);
+            if (read < 0)
+            {
+                throw new CoreException("Unexpected end of flag pack {}", this.file);
+            }
+            offset += read;
+        }
+    }
+}
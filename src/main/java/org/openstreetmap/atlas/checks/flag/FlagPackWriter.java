@@ -0,0 +1,198 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.openstreetmap.atlas.geography.Rectangle;
+
+/**
+ * Writes flags in a {@link FlagPack}. Flags are buffered per check and country until they fill a
+ * block, which is then deflated and written, so that only one block per check and country is held
+ * in memory. The footer is written on {@link #close()}. Flags can be added from several threads.
+ *
+ * @author agent
+ */
+public final class FlagPackWriter implements Closeable
+{
+    // Number of flag bytes, and of flags, that fill a block
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final int BLOCK_FLAGS = 10_000;
+
+    private final DataOutputStream output;
+    private final Map<String, PendingBlock> pendingBlocks = new LinkedHashMap<>();
+    private final List<FlagPack.Block> blocks = new ArrayList<>();
+    private long position;
+    private boolean closed = false;
+
+    /**
+     * Flags of a check and country waiting to fill a block
+     */
+    private static final class PendingBlock
+    {
+        private final String checkName;
+        private final String country;
+        private final ByteArrayOutputStream flags = new ByteArrayOutputStream();
+        private int[] entries = new int[FlagPack.FLAG_ENTRY_INTS * 16];
+        private int count;
+        private final int[] bounds = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Integer.MIN_VALUE };
+
+        PendingBlock(final String checkName, final String country)
+        {
+            this.checkName = checkName;
+            this.country = country;
+        }
+
+        void add(final int[] flagBounds, final byte[] flag)
+        {
+            if ((this.count + 1) * FlagPack.FLAG_ENTRY_INTS > this.entries.length)
+            {
+                final int[] grown = new int[this.entries.length * 2];
+                System.arraycopy(this.entries, 0, grown, 0, this.entries.length);
+                this.entries = grown;
+            }
+            final int index = this.count * FlagPack.FLAG_ENTRY_INTS;
+            System.arraycopy(flagBounds, 0, this.entries, index, flagBounds.length);
+            this.entries[index + flagBounds.length] = flag.length;
+            this.bounds[0] = Math.min(this.bounds[0], flagBounds[0]);
+            this.bounds[1] = Math.min(this.bounds[1], flagBounds[1]);
+            this.bounds[2] = Math.max(this.bounds[2], flagBounds[2]);
+            this.bounds[3] = Math.max(this.bounds[3], flagBounds[3]);
+            this.flags.write(flag, 0, flag.length);
+            this.flags.write('\n');
+            this.count++;
+        }
+
+        boolean isFull()
+        {
+            return this.count >= BLOCK_FLAGS || this.flags.size() >= BLOCK_BYTES;
+        }
+
+        byte[] toBytes() throws IOException
+        {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Integer.BYTES
+                    + this.count * FlagPack.FLAG_ENTRY_INTS * Integer.BYTES + this.flags.size());
+            final DataOutputStream data = new DataOutputStream(bytes);
+            data.writeInt(this.count);
+            for (int index = 0; index < this.count * FlagPack.FLAG_ENTRY_INTS; index++)
+            {
+                data.writeInt(this.entries[index]);
+            }
+            this.flags.writeTo(data);
+            data.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * @param output
+     *            the {@link OutputStream} to write the flag pack to, closed with this writer
+     * @throws IOException
+     *             if writing the header fails
+     */
+    public FlagPackWriter(final OutputStream output) throws IOException
+    {
+        this.output = new DataOutputStream(output);
+        this.output.writeInt(FlagPack.MAGIC);
+        this.output.writeByte(FlagPack.VERSION);
+        this.position = FlagPack.HEADER_LENGTH;
+    }
+
+    /**
+     * Adds a flag
+     *
+     * @param checkName
+     *            the name of the check of the flag
+     * @param country
+     *            the country of the flag
+     * @param bounds
+     *            the bounding box of the flag
+     * @param flag
+     *            the flag, as a line of line delimited GeoJson
+     * @throws IOException
+     *             if writing a full block fails
+     */
+    public synchronized void add(final String checkName, final String country,
+            final Rectangle bounds, final String flag) throws IOException
+    {
+        final PendingBlock block = this.pendingBlocks.computeIfAbsent(
+                checkName + '\u0000' + country, key -> new PendingBlock(checkName, country));
+        block.add(FlagPack.dm7(bounds), flag.getBytes(StandardCharsets.UTF_8));
+        if (block.isFull())
+        {
+            this.writeBlock(block);
+            this.pendingBlocks.remove(checkName + '\u0000' + country);
+        }
+    }
+
+    /**
+     * Writes the remaining blocks and the footer, and closes the {@link OutputStream}
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        try
+        {
+            final List<PendingBlock> remaining = new ArrayList<>(this.pendingBlocks.values());
+            remaining.sort(Comparator.comparing((PendingBlock block) -> block.checkName)
+                    .thenComparing(block -> block.country));
+            for (final PendingBlock block : remaining)
+            {
+                this.writeBlock(block);
+            }
+            this.pendingBlocks.clear();
+
+            final long footerOffset = this.position;
+            this.output.writeInt(this.blocks.size());
+            for (final FlagPack.Block block : this.blocks)
+            {
+                block.write(this.output);
+            }
+            this.output.writeLong(footerOffset);
+            this.output.writeInt(FlagPack.MAGIC);
+            this.output.flush();
+        }
+        finally
+        {
+            this.output.close();
+        }
+    }
+
+    private void writeBlock(final PendingBlock block) throws IOException
+    {
+        final byte[] bytes = block.toBytes();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(compressed, deflater))
+        {
+            deflated.write(bytes);
+        }
+        finally
+        {
+            deflater.end();
+        }
+        compressed.writeTo(this.output);
+        this.blocks.add(new FlagPack.Block(this.position, compressed.size(), bytes.length,
+                block.checkName, block.country, block.count, block.bounds.clone()));
+        this.position += compressed.size();
+    }
+}
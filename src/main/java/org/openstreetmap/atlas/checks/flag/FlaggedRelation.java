@@ -157,6 +157,14 @@ public class FlaggedRelation extends FlaggedObject
         return this.relation.members();
     }
 
+    /**
+     * @return the geometry of the relation, as a {@link MultiPolygon}
+     */
+    MultiPolygon getMultipolygonGeometry()
+    {
+        return this.multipolygonGeometry;
+    }
+
     @Override
     protected Optional<AtlasObject> getObject()
     {
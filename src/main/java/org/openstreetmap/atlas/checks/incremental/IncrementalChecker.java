@@ -0,0 +1,303 @@
+package org.openstreetmap.atlas.checks.incremental;
+
+import static org.openstreetmap.atlas.geography.geojson.GeoJsonConstants.PROPERTIES;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasItem;
+import org.openstreetmap.atlas.geography.atlas.items.Edge;
+import org.openstreetmap.atlas.geography.atlas.items.LineItem;
+import org.openstreetmap.atlas.geography.atlas.items.LocationItem;
+import org.openstreetmap.atlas.geography.atlas.items.Node;
+import org.openstreetmap.atlas.geography.atlas.items.Relation;
+import org.openstreetmap.atlas.geography.atlas.items.RelationMember;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Updates a set of flags after an {@link OsmChange}, without checking the whole {@link Atlas}
+ * again. The entities the change touches are found in the {@link Atlas} built after the change,
+ * by OSM identifier and by the locations of the changed nodes, and extended with their
+ * neighbourhood: the relations they are members of, the nodes and edges they are connected to,
+ * and for relations their members. Each check then checks the affected entities alone, through
+ * {@link Check#check(org.openstreetmap.atlas.geography.atlas.items.AtlasObject)}.
+ * <p>
+ * Previous flags of these checks that flag an affected entity are superseded, and retired. So are
+ * the ones that flag an entity the change touches in the {@link Atlas} from before the change,
+ * which covers the deleted entities. The other previous flags are retained as they are.
+ * <p>
+ * Checks that look at a wider context than the neighbourhood of the entity they flag, and the
+ * complex entities from {@link Check#finder()}, are not updated this way, and need full runs.
+ *
+ * @author agent
+ */
+public class IncrementalChecker
+{
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalChecker.class);
+    private static final String GENERATOR = "generator";
+    private static final String IDENTIFIERS = CheckFlagEvent.IDENTIFIERS;
+
+    private final Collection<? extends Check> checks;
+    private final Set<String> checkNames;
+
+    /**
+     * The flags after an {@link OsmChange}: the previous flags retained and retired, as log lines,
+     * and the new flags
+     */
+    public static final class Update
+    {
+        private final List<String> retained = new ArrayList<>();
+        private final List<String> retired = new ArrayList<>();
+        private final List<CheckFlagEvent> added = new ArrayList<>();
+
+        /**
+         * @return the new flags of the affected entities
+         */
+        public List<CheckFlagEvent> getAdded()
+        {
+            return Collections.unmodifiableList(this.added);
+        }
+
+        /**
+         * @return the previous flags not affected by the change
+         */
+        public List<String> getRetained()
+        {
+            return Collections.unmodifiableList(this.retained);
+        }
+
+        /**
+         * @return the previous flags superseded by the change
+         */
+        public List<String> getRetired()
+        {
+            return Collections.unmodifiableList(this.retired);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s flags retained, %s retired and %s added",
+                    this.retained.size(), this.retired.size(), this.added.size());
+        }
+    }
+
+    /**
+     * Gets the unique identifier of an {@link AtlasEntity}, as in flags
+     *
+     * @param entity
+     *            an {@link AtlasEntity}
+     * @return its item type and identifier, as in
+     *         {@link org.openstreetmap.atlas.checks.flag.FlaggedObject#getUniqueIdentifier()}
+     */
+    public static String uniqueIdentifier(final AtlasEntity entity)
+    {
+        final String type = entity.getType().name();
+        return type.charAt(0) + type.substring(1).toLowerCase(Locale.ROOT)
+                + entity.getIdentifier();
+    }
+
+    private static boolean isTouched(final OsmChange change, final AtlasEntity entity)
+    {
+        switch (entity.getType())
+        {
+            case NODE:
+            case POINT:
+                return change.getNodes().contains(entity.getOsmIdentifier());
+            case EDGE:
+            case LINE:
+            case AREA:
+                return change.getWays().contains(entity.getOsmIdentifier());
+            case RELATION:
+                return change.getRelations().contains(entity.getOsmIdentifier());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param checks
+     *            the checks to update the flags of
+     */
+    public IncrementalChecker(final Collection<? extends Check> checks)
+    {
+        this.checks = checks;
+        this.checkNames = checks.stream().map(Check::getCheckName).collect(Collectors.toSet());
+    }
+
+    /**
+     * Finds the entities of an {@link Atlas} affected by a change
+     *
+     * @param change
+     *            the {@link OsmChange}
+     * @param atlas
+     *            the {@link Atlas} built after the change
+     * @return the entities touched by the change, with their neighbourhood
+     */
+    public Set<AtlasEntity> affectedEntities(final OsmChange change, final Atlas atlas)
+    {
+        final Set<AtlasEntity> affected = new HashSet<>();
+        for (final AtlasEntity entity : atlas.entities())
+        {
+            if (isTouched(change, entity))
+            {
+                this.addNeighbourhood(entity, affected);
+            }
+        }
+        // Nodes that only shape ways are found by location
+        for (final Location location : change.getLocations())
+        {
+            for (final AtlasItem item : atlas.itemsContaining(location))
+            {
+                this.addNeighbourhood(item, affected);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Updates flags after a change
+     *
+     * @param change
+     *            the {@link OsmChange}
+     * @param atlas
+     *            the {@link Atlas} built after the change
+     * @param previousAtlas
+     *            the {@link Atlas} from before the change, to retire the flags of the entities
+     *            deleted
+     * @param previousFlags
+     *            the flags from before the change, as log lines
+     * @return the {@link Update} of the flags
+     */
+    public Update update(final OsmChange change, final Atlas atlas,
+            final Optional<Atlas> previousAtlas, final Iterable<String> previousFlags)
+    {
+        final Set<AtlasEntity> affected = this.affectedEntities(change, atlas);
+        final Set<String> previousIdentifiers = new HashSet<>();
+        previousAtlas.ifPresent(before ->
+        {
+            for (final AtlasEntity entity : before.entities())
+            {
+                if (isTouched(change, entity))
+                {
+                    previousIdentifiers.add(uniqueIdentifier(entity));
+                    // The neighbours of deleted entities are left in the atlas after the change
+                    this.addNeighboursAt(entity, atlas, affected);
+                }
+            }
+        });
+        final Set<String> affectedIdentifiers = affected.stream()
+                .map(IncrementalChecker::uniqueIdentifier).collect(Collectors.toSet());
+        affectedIdentifiers.addAll(previousIdentifiers);
+        logger.info("{} entities affected by a change of {}", affected.size(), change);
+
+        final Update update = new Update();
+        for (final String line : previousFlags)
+        {
+            if (line.trim().isEmpty())
+            {
+                continue;
+            }
+            if (this.isSuperseded(line, affectedIdentifiers))
+            {
+                update.retired.add(line);
+            }
+            else
+            {
+                update.retained.add(line);
+            }
+        }
+        for (final Check check : this.checks)
+        {
+            affected.stream()
+                    .filter(entity -> check.supportedItemTypes().contains(entity.getType()))
+                    .forEach(entity -> check.check(entity).ifPresent(flag -> update.added
+                            .add(new CheckFlagEvent(check.getCheckName(), flag))));
+        }
+        logger.info("Updated flags: {}", update);
+        return update;
+    }
+
+    private void addNeighbourhood(final AtlasEntity entity, final Set<AtlasEntity> affected)
+    {
+        affected.add(entity);
+        affected.addAll(entity.relations());
+        if (entity instanceof Edge)
+        {
+            final Edge edge = (Edge) entity;
+            affected.add(edge.start());
+            affected.add(edge.end());
+            affected.addAll(edge.connectedEdges());
+        }
+        else if (entity instanceof Node)
+        {
+            affected.addAll(((Node) entity).connectedEdges());
+        }
+        else if (entity instanceof Relation)
+        {
+            for (final RelationMember member : ((Relation) entity).members())
+            {
+                affected.add(member.getEntity());
+            }
+        }
+    }
+
+    /**
+     * Adds the nodes of an {@link Atlas} at the ends of an entity from another {@link Atlas}, and
+     * the edges connected to them
+     */
+    private void addNeighboursAt(final AtlasEntity entity, final Atlas atlas,
+            final Set<AtlasEntity> affected)
+    {
+        final List<Location> locations = new ArrayList<>();
+        if (entity instanceof LocationItem)
+        {
+            locations.add(((LocationItem) entity).getLocation());
+        }
+        else if (entity instanceof LineItem)
+        {
+            locations.add(((LineItem) entity).asPolyLine().first());
+            locations.add(((LineItem) entity).asPolyLine().last());
+        }
+        for (final Location location : locations)
+        {
+            for (final Node node : atlas.nodesAt(location))
+            {
+                this.addNeighbourhood(node, affected);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if a flag is from one of the checks updated, and flags an affected
+     *         entity
+     */
+    private boolean isSuperseded(final String line, final Set<String> affectedIdentifiers)
+    {
+        final JsonObject properties = new JsonParser().parse(line).getAsJsonObject()
+                .getAsJsonObject(PROPERTIES);
+        return properties != null && properties.has(GENERATOR)
+                && this.checkNames.contains(properties.get(GENERATOR).getAsString())
+                && properties.has(IDENTIFIERS)
+                && StreamSupport.stream(properties.getAsJsonArray(IDENTIFIERS).spliterator(), false)
+                        .map(JsonElement::getAsString).anyMatch(affectedIdentifiers::contains);
+    }
+}
@@ -0,0 +1,166 @@
+package org.openstreetmap.atlas.checks.incremental;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openstreetmap.atlas.checks.utility.CompressionUtilities;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.streaming.resource.Resource;
+
+/**
+ * The OSM elements touched by an OSM change file (osc): the identifiers of the nodes, ways and
+ * relations it creates, modifies or deletes, and the locations of the nodes it creates or
+ * modifies. Nodes that only shape a way do not become atlas entities, so their locations are what
+ * ties them to the atlas items they shape.
+ *
+ * @author agent
+ */
+public final class OsmChange
+{
+    private static final String NODE = "node";
+    private static final String WAY = "way";
+    private static final String RELATION = "relation";
+    private static final String IDENTIFIER = "id";
+    private static final String LATITUDE = "lat";
+    private static final String LONGITUDE = "lon";
+    private static final String DELETE = "delete";
+
+    private final Set<Long> nodes = new HashSet<>();
+    private final Set<Long> ways = new HashSet<>();
+    private final Set<Long> relations = new HashSet<>();
+    private final List<Location> locations = new ArrayList<>();
+
+    /**
+     * Reads an OSM change file, gzipped or not
+     *
+     * @param resource
+     *            the OSM change file
+     * @return the {@link OsmChange} read
+     */
+    public static OsmChange read(final Resource resource)
+    {
+        final OsmChange change = new OsmChange();
+        try (InputStream input = CompressionUtilities
+                .getUncompressedInputStream(resource.read()))
+        {
+            final XMLInputFactory factory = XMLInputFactory.newInstance();
+            // Change files never need external entities
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            final XMLStreamReader reader = factory.createXMLStreamReader(input);
+            boolean deleting = false;
+            while (reader.hasNext())
+            {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    deleting |= DELETE.equals(reader.getLocalName());
+                    change.add(reader, deleting);
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT
+                        && DELETE.equals(reader.getLocalName()))
+                {
+                    deleting = false;
+                }
+            }
+            reader.close();
+        }
+        catch (final IOException | XMLStreamException e)
+        {
+            throw new CoreException("Unable to read OSM change file {}", resource.getName(), e);
+        }
+        return change;
+    }
+
+    /**
+     * @return the locations of the nodes created or modified
+     */
+    public List<Location> getLocations()
+    {
+        return Collections.unmodifiableList(this.locations);
+    }
+
+    /**
+     * @return the OSM identifiers of the nodes touched
+     */
+    public Set<Long> getNodes()
+    {
+        return Collections.unmodifiableSet(this.nodes);
+    }
+
+    /**
+     * @return the OSM identifiers of the relations touched
+     */
+    public Set<Long> getRelations()
+    {
+        return Collections.unmodifiableSet(this.relations);
+    }
+
+    /**
+     * @return the OSM identifiers of the ways touched
+     */
+    public Set<Long> getWays()
+    {
+        return Collections.unmodifiableSet(this.ways);
+    }
+
+    /**
+     * @return {@code true} if the change touches nothing
+     */
+    public boolean isEmpty()
+    {
+        return this.nodes.isEmpty() && this.ways.isEmpty() && this.relations.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s nodes, %s ways and %s relations", this.nodes.size(),
+                this.ways.size(), this.relations.size());
+    }
+
+    private void add(final XMLStreamReader reader, final boolean deleting)
+    {
+        final String element = reader.getLocalName();
+        if (!NODE.equals(element) && !WAY.equals(element) && !RELATION.equals(element))
+        {
+            // Members of ways and relations, tags and the change blocks themselves
+            return;
+        }
+        final long identifier = Long.parseLong(reader.getAttributeValue(null, IDENTIFIER));
+        if (WAY.equals(element))
+        {
+            this.ways.add(identifier);
+        }
+        else if (RELATION.equals(element))
+        {
+            this.relations.add(identifier);
+        }
+        else
+        {
+            this.nodes.add(identifier);
+            final String latitude = reader.getAttributeValue(null, LATITUDE);
+            final String longitude = reader.getAttributeValue(null, LONGITUDE);
+            // Deleted nodes are not in the atlas anymore, and may come without a location
+            if (!deleting && latitude != null && longitude != null)
+            {
+                this.locations.add(Location.forString(latitude + "," + longitude));
+            }
+        }
+    }
+
+    private OsmChange()
+    {
+        // Read from change files
+    }
+}
@@ -48,7 +48,7 @@ public class MapRouletteUploadCommand extends MapRouletteCommand
 {
 
     private static final Switch<File> INPUT_DIRECTORY = new Switch<>("logfiles",
-            "Path to folder containing log files to upload to MapRoulette.", File::new,
+            "Path to folder containing log files or flag packs to upload to MapRoulette.", File::new,
             Optionality.REQUIRED);
     private static final Switch<File> CONFIG_LOCATION = new Switch<>("config",
             "Path to a file containing MapRoulette challenge configuration.", File::new,
@@ -68,7 +68,8 @@ public final class CompressionUtilities
     private static InputStream decompressedInputStream(final InputStream inputStream)
             throws IOException, CompressorException
     {
-        final InputStream uncompressed = new CompressorStreamFactory()
+        // Read all the members of multi-member streams, as written by ParallelGzipOutputStream
+        final InputStream uncompressed = new CompressorStreamFactory(true)
                 .createCompressorInputStream(inputStream);
         final BufferedInputStream buffered = new BufferedInputStream(uncompressed);
         try
@@ -0,0 +1,261 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A thread safe set of unordered pairs of primitive {@code long}s, such as the identifiers of two
+ * features found to intersect, to keep track of millions of pairs without boxing them or making
+ * {@link String}s of them. A pair is stored as its smaller then its larger value, so that
+ * {@code (a, b)} and {@code (b, a)} are the same pair. It works as {@link ConcurrentLongSet} does,
+ * with two slots per pair, so about 22 to 43 bytes per pair.
+ *
+ * @author agent
+ */
+public final class ConcurrentLongPairSet
+{
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 26;
+    // Resize when a table is three quarters full
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    // Marks empty slots, the (0, 0) pair itself is tracked aside
+    private static final long EMPTY = 0L;
+    // Constants of the MurmurHash3 64 bit finalizer
+    private static final long MIX_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final boolean offHeap;
+
+    /**
+     * An open addressing hash table with linear probing, each pair taking two consecutive slots
+     */
+    private static final class Segment
+    {
+        private final boolean offHeap;
+        private LongBuffer table;
+        private int size;
+        private boolean containsZero;
+
+        Segment(final boolean offHeap)
+        {
+            this.offHeap = offHeap;
+            this.table = allocate(INITIAL_SEGMENT_CAPACITY, offHeap);
+        }
+
+        synchronized boolean add(final long smaller, final long larger, final long hash)
+        {
+            if (smaller == EMPTY && larger == EMPTY)
+            {
+                final boolean added = !this.containsZero;
+                this.containsZero = true;
+                return added;
+            }
+            final int mask = this.capacity() - 1;
+            int slot = (int) hash & mask;
+            while (!this.isEmpty(slot))
+            {
+                if (this.holds(slot, smaller, larger))
+                {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            this.table.put(2 * slot, smaller);
+            this.table.put(2 * slot + 1, larger);
+            this.size++;
+            if (this.size * LOAD_DENOMINATOR > this.capacity() * LOAD_NUMERATOR
+                    && this.capacity() < MAXIMUM_SEGMENT_CAPACITY)
+            {
+                this.resize(this.capacity() * 2);
+            }
+            return true;
+        }
+
+        synchronized void clear()
+        {
+            this.table = allocate(INITIAL_SEGMENT_CAPACITY, this.offHeap);
+            this.size = 0;
+            this.containsZero = false;
+        }
+
+        synchronized boolean contains(final long smaller, final long larger, final long hash)
+        {
+            if (smaller == EMPTY && larger == EMPTY)
+            {
+                return this.containsZero;
+            }
+            final int mask = this.capacity() - 1;
+            int slot = (int) hash & mask;
+            while (!this.isEmpty(slot))
+            {
+                if (this.holds(slot, smaller, larger))
+                {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        synchronized int size()
+        {
+            return this.size + (this.containsZero ? 1 : 0);
+        }
+
+        private int capacity()
+        {
+            return this.table.capacity() / 2;
+        }
+
+        private boolean holds(final int slot, final long smaller, final long larger)
+        {
+            return this.table.get(2 * slot) == smaller && this.table.get(2 * slot + 1) == larger;
+        }
+
+        private boolean isEmpty(final int slot)
+        {
+            return this.table.get(2 * slot) == EMPTY && this.table.get(2 * slot + 1) == EMPTY;
+        }
+
+        private void resize(final int capacity)
+        {
+            final LongBuffer previous = this.table;
+            this.table = allocate(capacity, this.offHeap);
+            final int mask = capacity - 1;
+            for (int index = 0; index < previous.capacity(); index += 2)
+            {
+                final long smaller = previous.get(index);
+                final long larger = previous.get(index + 1);
+                if (smaller != EMPTY || larger != EMPTY)
+                {
+                    int slot = (int) mix(smaller, larger) & mask;
+                    while (!this.isEmpty(slot))
+                    {
+                        slot = (slot + 1) & mask;
+                    }
+                    this.table.put(2 * slot, smaller);
+                    this.table.put(2 * slot + 1, larger);
+                }
+            }
+        }
+    }
+
+    private static LongBuffer allocate(final int capacity, final boolean offHeap)
+    {
+        return offHeap ? ByteBuffer.allocateDirect(2 * capacity * Long.BYTES)
+                .order(ByteOrder.nativeOrder()).asLongBuffer() : LongBuffer.allocate(2 * capacity);
+    }
+
+    private static long mix(final long smaller, final long larger)
+    {
+        long hash = smaller * MIX_1 ^ larger;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_1;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_2;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+
+    /**
+     * Creates an empty set on the heap
+     */
+    public ConcurrentLongPairSet()
+    {
+        this(false);
+    }
+
+    /**
+     * Creates an empty set
+     *
+     * @param offHeap
+     *            whether to keep the pairs in direct memory rather than on the heap
+     */
+    public ConcurrentLongPairSet(final boolean offHeap)
+    {
+        this.offHeap = offHeap;
+        for (int index = 0; index < SEGMENTS; index++)
+        {
+            this.segments[index] = new Segment(offHeap);
+        }
+    }
+
+    /**
+     * Adds a pair to the set
+     *
+     * @param first
+     *            one value of the pair
+     * @param second
+     *            the other value of the pair
+     * @return {@code true} if the pair was not in the set yet, in either order
+     */
+    public boolean add(final long first, final long second)
+    {
+        final long smaller = Math.min(first, second);
+        final long larger = Math.max(first, second);
+        final long hash = mix(smaller, larger);
+        return this.segment(hash).add(smaller, larger, hash);
+    }
+
+    /**
+     * Removes all the pairs, and releases the memory they took
+     */
+    public void clear()
+    {
+        for (final Segment segment : this.segments)
+        {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @param first
+     *            one value of the pair
+     * @param second
+     *            the other value of the pair
+     * @return {@code true} if the set holds the pair, in either order
+     */
+    public boolean contains(final long first, final long second)
+    {
+        final long smaller = Math.min(first, second);
+        final long larger = Math.max(first, second);
+        final long hash = mix(smaller, larger);
+        return this.segment(hash).contains(smaller, larger, hash);
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size() == 0;
+    }
+
+    public boolean isOffHeap()
+    {
+        return this.offHeap;
+    }
+
+    /**
+     * @return the number of pairs in the set. It is only exact when no other thread is adding
+     *         pairs.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (final Segment segment : this.segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segment(final long hash)
+    {
+        // High bits pick the segment, low bits the slot within it
+        return this.segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+}
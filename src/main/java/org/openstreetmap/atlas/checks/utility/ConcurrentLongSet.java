@@ -0,0 +1,239 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A thread safe set of primitive {@code long}s, to keep track of millions of identifiers without
+ * boxing them. Values are spread over segments, each an open addressing hash table guarded by its
+ * own lock, so that concurrent threads rarely wait on each other. Tables take 8 bytes per slot
+ * and are kept between 3/8 and 3/4 full, so about 11 to 21 bytes per value. They are on the heap
+ * by default, or in direct memory, out of reach of the garbage collector, when off heap.
+ *
+ * @author agent
+ */
+public final class ConcurrentLongSet
+{
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 27;
+    // Resize when a table is three quarters full
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    // Marks empty slots, zero itself is tracked aside
+    private static final long EMPTY = 0L;
+    // Constants of the MurmurHash3 64 bit finalizer
+    private static final long MIX_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final boolean offHeap;
+
+    /**
+     * An open addressing hash table with linear probing
+     */
+    private static final class Segment
+    {
+        private final boolean offHeap;
+        private LongBuffer table;
+        private int size;
+        private boolean containsZero;
+
+        Segment(final boolean offHeap)
+        {
+            this.offHeap = offHeap;
+            this.table = allocate(INITIAL_SEGMENT_CAPACITY, offHeap);
+        }
+
+        synchronized boolean add(final long value, final long hash)
+        {
+            if (value == EMPTY)
+            {
+                final boolean added = !this.containsZero;
+                this.containsZero = true;
+                return added;
+            }
+            final int mask = this.table.capacity() - 1;
+            int slot = (int) hash & mask;
+            long current = this.table.get(slot);
+            while (current != EMPTY)
+            {
+                if (current == value)
+                {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+                current = this.table.get(slot);
+            }
+            this.table.put(slot, value);
+            this.size++;
+            if (this.size * LOAD_DENOMINATOR > this.table.capacity() * LOAD_NUMERATOR
+                    && this.table.capacity() < MAXIMUM_SEGMENT_CAPACITY)
+            {
+                this.resize(this.table.capacity() * 2);
+            }
+            return true;
+        }
+
+        synchronized void clear()
+        {
+            this.table = allocate(INITIAL_SEGMENT_CAPACITY, this.offHeap);
+            this.size = 0;
+            this.containsZero = false;
+        }
+
+        synchronized boolean contains(final long value, final long hash)
+        {
+            if (value == EMPTY)
+            {
+                return this.containsZero;
+            }
+            final int mask = this.table.capacity() - 1;
+            int slot = (int) hash & mask;
+            long current = this.table.get(slot);
+            while (current != EMPTY)
+            {
+                if (current == value)
+                {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+                current = this.table.get(slot);
+            }
+            return false;
+        }
+
+        synchronized int size()
+        {
+            return this.size + (this.containsZero ? 1 : 0);
+        }
+
+        private void resize(final int capacity)
+        {
+            final LongBuffer previous = this.table;
+            this.table = allocate(capacity, this.offHeap);
+            final int mask = capacity - 1;
+            for (int index = 0; index < previous.capacity(); index++)
+            {
+                final long value = previous.get(index);
+                if (value != EMPTY)
+                {
+                    int slot = (int) mix(value) & mask;
+                    while (this.table.get(slot) != EMPTY)
+                    {
+                        slot = (slot + 1) & mask;
+                    }
+                    this.table.put(slot, value);
+                }
+            }
+        }
+    }
+
+    private static LongBuffer allocate(final int capacity, final boolean offHeap)
+    {
+        return offHeap ? ByteBuffer.allocateDirect(capacity * Long.BYTES)
+                .order(ByteOrder.nativeOrder()).asLongBuffer() : LongBuffer.allocate(capacity);
+    }
+
+    private static long mix(final long value)
+    {
+        long hash = value;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_1;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_2;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+
+    /**
+     * Creates an empty set on the heap
+     */
+    public ConcurrentLongSet()
+    {
+        this(false);
+    }
+
+    /**
+     * Creates an empty set
+     *
+     * @param offHeap
+     *            whether to keep the values in direct memory rather than on the heap
+     */
+    public ConcurrentLongSet(final boolean offHeap)
+    {
+        this.offHeap = offHeap;
+        for (int index = 0; index < SEGMENTS; index++)
+        {
+            this.segments[index] = new Segment(offHeap);
+        }
+    }
+
+    /**
+     * Adds a value to the set
+     *
+     * @param value
+     *            the value to add
+     * @return {@code true} if the value was not in the set yet
+     */
+    public boolean add(final long value)
+    {
+        final long hash = mix(value);
+        return this.segment(hash).add(value, hash);
+    }
+
+    /**
+     * Removes all the values, and releases the memory they took
+     */
+    public void clear()
+    {
+        for (final Segment segment : this.segments)
+        {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @param value
+     *            the value to look for
+     * @return {@code true} if the set holds the value
+     */
+    public boolean contains(final long value)
+    {
+        final long hash = mix(value);
+        return this.segment(hash).contains(value, hash);
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size() == 0;
+    }
+
+    public boolean isOffHeap()
+    {
+        return this.offHeap;
+    }
+
+    /**
+     * @return the number of values in the set. It is only exact when no other thread is adding
+     *         values.
+     */
+    public int size()
+    {
+        int size = 0;
+        for (final Segment segment : this.segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segment(final long hash)
+    {
+        // High bits pick the segment, low bits the slot within it
+        return this.segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+}
@@ -5,10 +5,13 @@ import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.openstreetmap.atlas.checks.flag.FlagPack;
+import org.openstreetmap.atlas.checks.flag.FlagPackReader;
 import org.openstreetmap.atlas.streaming.resource.File;
 
 /**
@@ -28,7 +31,8 @@ public final class FileUtility
     public enum LogOutputFileType
     {
         LOG,
-        COMPRESSED_LOG
+        COMPRESSED_LOG,
+        FLAG_PACK
     }
 
     /**
@@ -51,11 +55,16 @@ public final class FileUtility
         {
             return Optional.of(LogOutputFileType.LOG);
         }
+        else if (logFile.getName().endsWith(FlagPack.EXTENSION))
+        {
+            return Optional.of(LogOutputFileType.FLAG_PACK);
+        }
         return Optional.empty();
     }
 
     /**
-     * Read a file that we know we should be able to handle
+     * Read a file that we know we should be able to handle. Flag packs are read as line delimited
+     * GeoJson, as log files.
      *
      * @param inputFile
      *            Some file with a valid, appropriate extension.
@@ -74,6 +83,12 @@ public final class FileUtility
         {
             return new BufferedReader(new FileReader(inputFile.getPathString()));
         }
+        if (fileType == LogOutputFileType.FLAG_PACK)
+        {
+            return new BufferedReader(new InputStreamReader(
+                    FlagPackReader.logStream(new java.io.File(inputFile.getPathString())),
+                    StandardCharsets.UTF_8));
+        }
         return new BufferedReader(new InputStreamReader(
                 new GZIPInputStream(new FileInputStream(inputFile.getPathString()))));
     }
@@ -0,0 +1,305 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.PolyLine;
+import org.openstreetmap.atlas.geography.Polygon;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.Area;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
+import org.openstreetmap.atlas.geography.atlas.items.LineItem;
+import org.openstreetmap.atlas.utilities.scalars.Surface;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Geometries of the entities of an {@link Atlas}, shared by all the checks running on it so that
+ * an entity's {@link Polygon}, {@link Surface}, JTS {@link Geometry} and {@link PreparedGeometry}
+ * are built at most once rather than once per check and per neighbour. There is one cache per
+ * {@link Atlas}, bounded by the number of points it holds, evicting the least recently used
+ * entities first. It is thread safe, and records hits and misses.
+ *
+ * @author agent
+ */
+public final class GeometryCache
+{
+    // Points held by a cache before it starts evicting entities
+    public static final long MAXIMUM_POINTS = 2_000_000L;
+
+    // Caches are dropped with their atlas, unless released before. Atlases are weak keys, compared
+    // by identity, and looking up the cache of an atlas does not lock.
+    private static final Cache<Atlas, GeometryCache> CACHES = CacheBuilder.newBuilder().weakKeys()
+            .build();
+
+    private final Cache<Key, Geometries> cache;
+
+    /**
+     * Identifies an entity within an {@link Atlas}
+     */
+    private static final class Key
+    {
+        private final ItemType type;
+        private final long identifier;
+
+        Key(final AtlasEntity entity)
+        {
+            this.type = entity.getType();
+            this.identifier = entity.getIdentifier();
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof Key))
+            {
+                return false;
+            }
+            final Key that = (Key) other;
+            return this.type == that.type && this.identifier == that.identifier;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.type, this.identifier);
+        }
+    }
+
+    /**
+     * The geometries of one entity. Apart from the shape of areas and lines, they are computed
+     * when first asked for. Concurrent threads may compute the same geometry twice, which is
+     * harmless as they get equal values. The entity itself is not kept, as it would keep its
+     * {@link Atlas} from being collected.
+     */
+    private static final class Geometries
+    {
+        private final PolyLine shape;
+        private volatile Surface surface;
+        private volatile Optional<Geometry> geometry;
+        private volatile Optional<PreparedGeometry> preparedGeometry;
+
+        private static Optional<Geometry> parse(final String wkt)
+        {
+            try
+            {
+                return Optional.of(new WKTReader().read(wkt));
+            }
+            catch (final ParseException | IllegalArgumentException e)
+            {
+                // Such as rings with too few points
+                return Optional.empty();
+            }
+        }
+
+        Geometries(final AtlasEntity entity)
+        {
+            if (entity instanceof Area)
+            {
+                this.shape = ((Area) entity).asPolygon();
+            }
+            else if (entity instanceof LineItem)
+            {
+                this.shape = ((LineItem) entity).asPolyLine();
+            }
+            else
+            {
+                this.shape = null;
+                this.geometry = parse(entity.toWkt());
+            }
+        }
+
+        Optional<Geometry> geometry()
+        {
+            if (this.geometry == null)
+            {
+                // Areas and lines have the WKT of their shape
+                this.geometry = parse(this.shape.toWkt());
+            }
+            return this.geometry;
+        }
+
+        Polygon polygon()
+        {
+            return (Polygon) this.shape;
+        }
+
+        Optional<PreparedGeometry> preparedGeometry()
+        {
+            if (this.preparedGeometry == null)
+            {
+                this.preparedGeometry = this.geometry().map(PreparedGeometryFactory::prepare);
+            }
+            return this.preparedGeometry;
+        }
+
+        Surface surface()
+        {
+            if (this.surface == null)
+            {
+                this.surface = this.polygon().surface();
+            }
+            return this.surface;
+        }
+
+        int weight()
+        {
+            return this.shape == null ? 1 : Math.max(1, this.shape.size());
+        }
+    }
+
+    /**
+     * @param atlas
+     *            an {@link Atlas}
+     * @return the {@link GeometryCache} of the {@link Atlas}, created if needed
+     */
+    public static GeometryCache forAtlas(final Atlas atlas)
+    {
+        try
+        {
+            return CACHES.get(atlas, () -> new GeometryCache(MAXIMUM_POINTS));
+        }
+        catch (final ExecutionException e)
+        {
+            throw new CoreException("Unable to create the geometry cache of {}", atlas.getName(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Drops the {@link GeometryCache} of an {@link Atlas}, once no check needs it anymore
+     *
+     * @param atlas
+     *            an {@link Atlas}
+     * @return the dropped {@link GeometryCache}, if there was one, to report its statistics
+     */
+    public static Optional<GeometryCache> release(final Atlas atlas)
+    {
+        return Optional.ofNullable(CACHES.asMap().remove(atlas));
+    }
+
+    /**
+     * Creates a cache not bound to any {@link Atlas}
+     *
+     * @param maximumPoints
+     *            points held before evicting entities
+     */
+    public GeometryCache(final long maximumPoints)
+    {
+        this.cache = CacheBuilder.newBuilder().maximumWeight(maximumPoints)
+                .weigher((final Key key, final Geometries geometries) -> geometries.weight())
+                .recordStats().build();
+    }
+
+    /**
+     * @return the number of entities evicted to make room for others
+     */
+    public long evictionCount()
+    {
+        return this.cache.stats().evictionCount();
+    }
+
+    /**
+     * Parses the WKT of an entity, so that the {@link Geometry} is the one the entity's WKT
+     * describes
+     *
+     * @param entity
+     *            an {@link AtlasEntity}
+     * @return the JTS {@link Geometry} of the entity, or empty if its WKT can not be parsed
+     */
+    public Optional<Geometry> geometry(final AtlasEntity entity)
+    {
+        return this.geometries(entity).geometry();
+    }
+
+    /**
+     * @return the number of times geometries of an entity were asked for and were cached
+     */
+    public long hitCount()
+    {
+        return this.cache.stats().hitCount();
+    }
+
+    /**
+     * @return the number of times geometries of an entity were asked for and were not cached
+     */
+    public long missCount()
+    {
+        return this.cache.stats().missCount();
+    }
+
+    /**
+     * @param area
+     *            an {@link Area}
+     * @return the {@link Polygon} of the {@link Area}
+     */
+    public Polygon polygon(final Area area)
+    {
+        return this.geometries(area).polygon();
+    }
+
+    /**
+     * @param entity
+     *            an {@link AtlasEntity}
+     * @return the entity's {@link Geometry} prepared for repeated predicates, or empty if its WKT
+     *         can not be parsed
+     */
+    public Optional<PreparedGeometry> preparedGeometry(final AtlasEntity entity)
+    {
+        return this.geometries(entity).preparedGeometry();
+    }
+
+    /**
+     * @return the number of entities cached
+     */
+    public long size()
+    {
+        return this.cache.size();
+    }
+
+    /**
+     * @param area
+     *            an {@link Area}
+     * @return the {@link Surface} of the {@link Area}'s {@link Polygon}
+     */
+    public Surface surface(final Area area)
+    {
+        return this.geometries(area).surface();
+    }
+
+    @Override
+    public String toString()
+    {
+        final CacheStats stats = this.cache.stats();
+        return String.format("%s entities, %s hits, %s misses (%.1f%% hit rate), %s evictions",
+                this.cache.size(), stats.hitCount(), stats.missCount(), stats.hitRate() * 100,
+                stats.evictionCount());
+    }
+
+    private Geometries geometries(final AtlasEntity entity)
+    {
+        try
+        {
+            return this.cache.get(new Key(entity), () -> new Geometries(entity));
+        }
+        catch (final ExecutionException e)
+        {
+            throw new CoreException("Unable to cache geometries of {} {}", e.getCause(),
+                    entity.getType(), entity.getIdentifier());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.openstreetmap.atlas.checks.utility;
 
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.locationtech.jts.geom.TopologyException;
 import org.openstreetmap.atlas.geography.Location;
@@ -8,6 +9,7 @@ import org.openstreetmap.atlas.geography.PolyLine;
 import org.openstreetmap.atlas.geography.Polygon;
 import org.openstreetmap.atlas.geography.atlas.items.LineItem;
 import org.openstreetmap.atlas.geography.clipping.Clip;
+import org.openstreetmap.atlas.utilities.scalars.Surface;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +33,34 @@ public final class IntersectionUtilities
      */
     public static double findIntersectionPercentage(final Polygon polygon,
             final Polygon otherPolygon)
+    {
+        return findIntersectionPercentage(polygon, otherPolygon, polygon::surface,
+                otherPolygon::surface);
+    }
+
+    /**
+     * Overloaded: avoid recomputing the {@link Surface}s of the {@link Polygon}s if they're given.
+     *
+     * @param polygon
+     *            {@link Polygon} to check for intersection
+     * @param otherPolygon
+     *            Another {@link Polygon} to check against for intersection
+     * @param surface
+     *            the {@link Surface} of polygon
+     * @param otherSurface
+     *            the {@link Surface} of otherPolygon
+     * @return percentage of overlap as a double; 0 if unable to clip
+     */
+    public static double findIntersectionPercentage(final Polygon polygon,
+            final Polygon otherPolygon, final Surface surface, final Surface otherSurface)
+    {
+        return findIntersectionPercentage(polygon, otherPolygon, () -> surface,
+                () -> otherSurface);
+    }
+
+    private static double findIntersectionPercentage(final Polygon polygon,
+            final Polygon otherPolygon, final Supplier<Surface> surface,
+            final Supplier<Surface> otherSurface)
     {
         Clip clip = null;
         try
@@ -67,8 +97,8 @@ public final class IntersectionUtilities
         }
 
         // Pick the smaller building's area as baseline
-        final long baselineArea = Math.min(polygon.surface().asDm7Squared(),
-                otherPolygon.surface().asDm7Squared());
+        final long baselineArea = Math.min(surface.get().asDm7Squared(),
+                otherSurface.get().asDm7Squared());
         return (double) intersectionArea / baselineArea;
     }
 
@@ -0,0 +1,102 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
+
+/**
+ * Utilities to select {@link AtlasEntity}s by {@link ItemType}, so that checks are only given the
+ * types of entities they handle.
+ *
+ * @author agent
+ */
+public final class ItemTypeUtilities
+{
+    private static final Set<ItemType> ALL_TYPES = EnumSet.allOf(ItemType.class);
+
+    /**
+     * @return a new {@link Set} of all the {@link ItemType}s
+     */
+    public static Set<ItemType> allItemTypes()
+    {
+        return EnumSet.copyOf(ALL_TYPES);
+    }
+
+    /**
+     * Gets all the {@link AtlasEntity}s of some {@link ItemType}s from an {@link Atlas}. Only the
+     * indices of the requested types are read.
+     *
+     * @param atlas
+     *            {@link Atlas} to get the entities from
+     * @param itemTypes
+     *            {@link Set} of {@link ItemType}s to get
+     * @return an {@link Iterable} of {@link AtlasEntity}s
+     */
+    public static Iterable<AtlasEntity> entitiesOfTypes(final Atlas atlas,
+            final Set<ItemType> itemTypes)
+    {
+        if (itemTypes.containsAll(ALL_TYPES))
+        {
+            return atlas.entities();
+        }
+        final List<Iterable<? extends AtlasEntity>> entities = new ArrayList<>();
+        for (final ItemType itemType : itemTypes)
+        {
+            switch (itemType)
+            {
+                case NODE:
+                    entities.add(atlas.nodes());
+                    break;
+                case EDGE:
+                    entities.add(atlas.edges());
+                    break;
+                case AREA:
+                    entities.add(atlas.areas());
+                    break;
+                case LINE:
+                    entities.add(atlas.lines());
+                    break;
+                case POINT:
+                    entities.add(atlas.points());
+                    break;
+                case RELATION:
+                    entities.add(atlas.relations());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return () -> entities.stream()
+                .<AtlasEntity> flatMap(iterable -> StreamSupport.stream(iterable.spliterator(),
+                        false))
+                .iterator();
+    }
+
+    /**
+     * Tests if an {@link AtlasObject} is of one of the given {@link ItemType}s. Objects that are
+     * not {@link AtlasEntity}s, like complex entities, are always accepted.
+     *
+     * @param object
+     *            {@link AtlasObject} to test
+     * @param itemTypes
+     *            {@link Set} of accepted {@link ItemType}s
+     * @return {@code true} if the object is accepted
+     */
+    public static boolean isOfTypes(final AtlasObject object, final Set<ItemType> itemTypes)
+    {
+        return !(object instanceof AtlasEntity)
+                || itemTypes.contains(((AtlasEntity) object).getType());
+    }
+
+    private ItemTypeUtilities()
+    {
+        // Hide constructor
+    }
+}
@@ -0,0 +1,212 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A gzip {@link OutputStream} that compresses blocks of its data in parallel, in the manner of
+ * pigz. Each block is compressed on its own as a complete gzip member, and the members are written
+ * in order, so that the output is a standard multi-member gzip file that any gzip reader
+ * decompresses as a whole (see {@link java.util.zip.GZIPInputStream}). Blocks are compressed by a
+ * bounded pool of threads shared by all the streams, and each stream only keeps a bounded number
+ * of blocks in flight, so that a fast writer waits for the compression to catch up rather than
+ * holding all of its data.
+ *
+ * @author agent
+ */
+public final class ParallelGzipOutputStream extends OutputStream
+{
+    // Size of the blocks compressed on their own, as in pigz
+    public static final int BLOCK_SIZE = 128 * 1024;
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    // Number of blocks a stream can have in flight before writing waits for the oldest one
+    private static final int MAXIMUM_PENDING_BLOCKS = 2 * THREADS;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService COMPRESSORS = Executors.newFixedThreadPool(THREADS,
+            runnable ->
+            {
+                final Thread thread = new Thread(runnable, String.format(
+                        "Parallel Gzip Compressor %s", THREAD_COUNT.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final OutputStream output;
+    private final int blockSize;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private byte[] block;
+    private int blockLength = 0;
+    private boolean written = false;
+    private boolean closed = false;
+
+    private static byte[] compress(final byte[] block, final int length) throws IOException
+    {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed))
+        {
+            gzip.write(block, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Default constructor, with blocks of {@link #BLOCK_SIZE}
+     *
+     * @param output
+     *            the {@link OutputStream} to write the compressed data to, closed with this stream
+     */
+    public ParallelGzipOutputStream(final OutputStream output)
+    {
+        this(output, BLOCK_SIZE);
+    }
+
+    /**
+     * @param output
+     *            the {@link OutputStream} to write the compressed data to, closed with this stream
+     * @param blockSize
+     *            number of bytes compressed on their own
+     */
+    public ParallelGzipOutputStream(final OutputStream output, final int blockSize)
+    {
+        if (blockSize <= 0)
+        {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.output = output;
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Compresses the remaining data, writes all the blocks in order and closes the underlying
+     * {@link OutputStream}. An empty stream is written as an empty gzip member, so that it still
+     * is a valid gzip file.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        try
+        {
+            if (this.blockLength > 0 || !this.written)
+            {
+                this.submitBlock();
+            }
+            while (!this.pendingBlocks.isEmpty())
+            {
+                this.writeOldestBlock();
+            }
+            this.output.flush();
+        }
+        finally
+        {
+            this.block = null;
+            this.pendingBlocks.forEach(pending -> pending.cancel(false));
+            this.pendingBlocks.clear();
+            this.output.close();
+        }
+    }
+
+    /**
+     * Writes the blocks compressed so far. The current block is not compressed until it is full,
+     * so that flushing does not degrade compression.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        this.ensureOpen();
+        while (!this.pendingBlocks.isEmpty() && this.pendingBlocks.peekFirst().isDone())
+        {
+            this.writeOldestBlock();
+        }
+        this.output.flush();
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException
+    {
+        this.ensureOpen();
+        if (offset < 0 || length < 0 || offset + length > bytes.length)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        int position = offset;
+        int remaining = length;
+        while (remaining > 0)
+        {
+            final int copied = Math.min(remaining, this.blockSize - this.blockLength);
+            System.arraycopy(bytes, position, this.block, this.blockLength, copied);
+            this.blockLength += copied;
+            position += copied;
+            remaining -= copied;
+            if (this.blockLength == this.blockSize)
+            {
+                this.submitBlock();
+            }
+        }
+    }
+
+    @Override
+    public void write(final int value) throws IOException
+    {
+        this.ensureOpen();
+        this.block[this.blockLength++] = (byte) value;
+        if (this.blockLength == this.blockSize)
+        {
+            this.submitBlock();
+        }
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (this.closed)
+        {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    private void submitBlock() throws IOException
+    {
+        final byte[] full = this.block;
+        final int length = this.blockLength;
+        this.pendingBlocks.addLast(COMPRESSORS.submit(() -> compress(full, length)));
+        this.written = true;
+        this.block = new byte[this.blockSize];
+        this.blockLength = 0;
+        while (this.pendingBlocks.size() > MAXIMUM_PENDING_BLOCKS)
+        {
+            this.writeOldestBlock();
+        }
+    }
+
+    private void writeOldestBlock() throws IOException
+    {
+        final Future<byte[]> oldest = this.pendingBlocks.pollFirst();
+        try
+        {
+            this.output.write(oldest.get());
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        }
+        catch (final ExecutionException e)
+        {
+            throw new IOException("Block compression failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.utilities.tuples.Tuple;
+
+/**
+ * Finds all the pairs of intersecting entities of two sets at once, rather than querying the
+ * {@link org.openstreetmap.atlas.geography.atlas.Atlas} spatial index once per entity. The entities
+ * of one set are bulk loaded in a packed STR-tree, which the entities of the other set query in
+ * parallel. Candidates sharing an envelope are then tested with an exact predicate against the
+ * {@link PreparedGeometry} of the querying entity. Geometries come from the
+ * {@link GeometryCache} of the entities' atlas, so they are shared with the checks.
+ *
+ * @author agent
+ */
+public final class SpatialJoin
+{
+    // Number of entities in a node of the STR-tree
+    private static final int NODE_CAPACITY = 10;
+
+    /**
+     * Joins two sets of entities
+     *
+     * @param left
+     *            entities whose prepared geometries test the candidates
+     * @param right
+     *            entities indexed in the STR-tree
+     * @param predicate
+     *            exact predicate between the {@link PreparedGeometry} of a left entity and the
+     *            {@link Geometry} of a right entity, such as {@link PreparedGeometry#intersects}
+     * @param <L>
+     *            type of the left entities
+     * @param <R>
+     *            type of the right entities
+     * @return the pairs of left and right entities matching the predicate
+     */
+    @SuppressWarnings("unchecked")
+    public static <L extends AtlasEntity, R extends AtlasEntity> List<Tuple<L, R>> join(
+            final Iterable<L> left, final Iterable<R> right,
+            final BiPredicate<PreparedGeometry, Geometry> predicate)
+    {
+        final STRtree index = index(right);
+        return StreamSupport.stream(left.spliterator(), false).collect(Collectors.toList())
+                .parallelStream()
+                .flatMap(leftEntity -> matches(leftEntity, index, predicate).stream()
+                        .map(rightEntity -> new Tuple<L, R>(leftEntity, (R) rightEntity)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Indexes the pairs of a join by entity, both ways. Only identifiers are kept, so that the
+     * index does not keep the entities' atlas from being collected.
+     *
+     * @param pairs
+     *            pairs of entities, such as the result of a {@link #selfJoin}
+     * @param <T>
+     *            type of the entities
+     * @return the identifiers of the entities each entity is paired with, keyed by entity
+     *         identifier
+     */
+    public static <T extends AtlasEntity> Map<Long, List<Long>> neighbours(
+            final List<Tuple<T, T>> pairs)
+    {
+        final Map<Long, List<Long>> neighbours = new HashMap<>();
+        for (final Tuple<T, T> pair : pairs)
+        {
+            neighbours.computeIfAbsent(pair.getFirst().getIdentifier(), key -> new ArrayList<>())
+                    .add(pair.getSecond().getIdentifier());
+            neighbours.computeIfAbsent(pair.getSecond().getIdentifier(), key -> new ArrayList<>())
+                    .add(pair.getFirst().getIdentifier());
+        }
+        return neighbours;
+    }
+
+    /**
+     * Joins a set of entities with itself. The predicate is expected to be symmetric, as each
+     * unordered pair is tested and returned once, with the entity of lower identifier first. An
+     * entity is never paired with itself.
+     *
+     * @param entities
+     *            entities to join
+     * @param predicate
+     *            exact symmetric predicate between the {@link PreparedGeometry} of an entity and
+     *            the {@link Geometry} of another, such as {@link PreparedGeometry#intersects}
+     * @param <T>
+     *            type of the entities
+     * @return the pairs of entities matching the predicate
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends AtlasEntity> List<Tuple<T, T>> selfJoin(final Iterable<T> entities,
+            final BiPredicate<PreparedGeometry, Geometry> predicate)
+    {
+        final STRtree index = index(entities);
+        return StreamSupport.stream(entities.spliterator(), false).collect(Collectors.toList())
+                .parallelStream()
+                .flatMap(entity -> matches(entity,
+                        candidate -> candidate.getIdentifier() > entity.getIdentifier(), index,
+                        predicate).stream().map(other -> new Tuple<T, T>(entity, (T) other)))
+                .collect(Collectors.toList());
+    }
+
+    private static <T extends AtlasEntity> STRtree index(final Iterable<T> entities)
+    {
+        final STRtree index = new STRtree(NODE_CAPACITY);
+        for (final T entity : entities)
+        {
+            GeometryCache.forAtlas(entity.getAtlas()).geometry(entity).ifPresent(
+                    geometry -> index.insert(geometry.getEnvelopeInternal(), entity));
+        }
+        // Build now, as queries from parallel threads would otherwise race to build it
+        index.build();
+        return index;
+    }
+
+    private static List<AtlasEntity> matches(final AtlasEntity entity,
+            final Predicate<AtlasEntity> candidateFilter, final STRtree index,
+            final BiPredicate<PreparedGeometry, Geometry> predicate)
+    {
+        final GeometryCache geometries = GeometryCache.forAtlas(entity.getAtlas());
+        final Optional<PreparedGeometry> prepared = geometries.preparedGeometry(entity);
+        if (!prepared.isPresent())
+        {
+            return new ArrayList<>();
+        }
+        final List<AtlasEntity> matches = new ArrayList<>();
+        for (final Object candidate : index
+                .query(prepared.get().getGeometry().getEnvelopeInternal()))
+        {
+            final AtlasEntity candidateEntity = (AtlasEntity) candidate;
+            if (candidateFilter.test(candidateEntity)
+                    && geometries.geometry(candidateEntity)
+                            .map(geometry -> predicate.test(prepared.get(), geometry))
+                            .orElse(false))
+            {
+                matches.add(candidateEntity);
+            }
+        }
+        return matches;
+    }
+
+    private static List<AtlasEntity> matches(final AtlasEntity entity, final STRtree index,
+            final BiPredicate<PreparedGeometry, Geometry> predicate)
+    {
+        return matches(entity, candidate -> true, index, predicate);
+    }
+
+    private SpatialJoin()
+    {
+    }
+}
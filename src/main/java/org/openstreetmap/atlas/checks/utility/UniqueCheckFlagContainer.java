@@ -1,12 +1,18 @@
 package org.openstreetmap.atlas.checks.utility;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Set;
 
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 /**
  * A container used to deduplicate check flags based on checkName and unique IDs
  *
@@ -15,11 +21,36 @@ import org.openstreetmap.atlas.checks.flag.CheckFlag;
  */
 public class UniqueCheckFlagContainer implements Serializable
 {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
 
     private String checkName;
     private Set<String> uniqueIdentifiers;
     private CheckFlag checkFlag;
 
+    /**
+     * @param checkName
+     *            {@link String} check name
+     * @param uniqueIdentifiers
+     *            {@link Set} of {@link String}s from {@link CheckFlag#getUniqueIdentifiers()}
+     * @return a 128 bit hash of the check name and unique identifiers, identifying a flag without
+     *         keeping it
+     */
+    public static HashCode hash(final String checkName, final Set<String> uniqueIdentifiers)
+    {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, checkName);
+        // Unique identifiers are a set, so hash them in a stable order
+        uniqueIdentifiers.stream().sorted().forEach(identifier -> putString(hasher, identifier));
+        return hasher.hash();
+    }
+
+    private static void putString(final Hasher hasher, final String value)
+    {
+        // The length keeps ("ab", "c") and ("a", "bc") apart
+        final String nonNullValue = value == null ? "" : value;
+        hasher.putInt(nonNullValue.length()).putString(nonNullValue, StandardCharsets.UTF_8);
+    }
+
     /**
      * @param checkFlagEvent
      *            {@link CheckFlagEvent}
@@ -82,6 +113,14 @@ public class UniqueCheckFlagContainer implements Serializable
         return this.uniqueIdentifiers;
     }
 
+    /**
+     * @return a 128 bit hash of the check name and unique identifiers of this flag
+     */
+    public HashCode hash()
+    {
+        return hash(this.checkName, this.uniqueIdentifiers);
+    }
+
     @Override
     public int hashCode()
     {
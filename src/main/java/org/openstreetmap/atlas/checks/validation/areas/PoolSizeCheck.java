@@ -54,6 +54,12 @@ public class PoolSizeCheck extends BaseCheck<Long>
                 MINIMUM_SIZE_DEFAULT);
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     /**
      * This function will validate if the supplied atlas object is valid for the check
      *
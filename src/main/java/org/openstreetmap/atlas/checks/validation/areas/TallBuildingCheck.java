@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
@@ -54,7 +55,7 @@ public class TallBuildingCheck extends BaseCheck<Long>
     private static final double MAX_LEVEL_TAG_VALUE_DEFAULT = 100;
     private static final double OUTLIER_MULTIPLIER_DEFAULT = 3;
     private final double outlierMultiplier;
-    private final Map<Rectangle, Tuple4<String, Double, Double, Double>> storedAreasWithStatistics = new HashMap<>();
+    private final Map<Rectangle, Tuple4<String, Double, Double, Double>> storedAreasWithStatistics = new ConcurrentHashMap<>();
     private final Set<String> invalidHeightCharacters;
     private static final Set<String> INVALID_CHARACTER_DEFAULT = Set.of("~", "`", "!", "@", "#",
             "$", "%", "^", "&", "*", "(", ")", "-", "_", "+", "=", "{", "[", "}", "]", "|", "\\",
@@ -87,6 +88,12 @@ public class TallBuildingCheck extends BaseCheck<Long>
                 "invalid.height.characters", INVALID_CHARACTER_DEFAULT));
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     /**
      * This function will validate if the supplied atlas object is valid for the check.
      *
@@ -115,7 +122,11 @@ public class TallBuildingCheck extends BaseCheck<Long>
     @Override
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
-        markAsFlagged(object.getOsmIdentifier());
+        // Pieces of the same OSM feature can be checked at once from several threads
+        if (!this.markAsFlagged(object.getOsmIdentifier()))
+        {
+            return Optional.empty();
+        }
         final Map<String, String> tags = object.getOsmTags();
 
         // level tag logic
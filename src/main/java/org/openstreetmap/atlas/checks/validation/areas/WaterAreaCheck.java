@@ -3,6 +3,7 @@ package org.openstreetmap.atlas.checks.validation.areas;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -12,6 +13,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
 import org.openstreetmap.atlas.checks.utility.IntersectionUtilities;
 import org.openstreetmap.atlas.geography.Location;
 import org.openstreetmap.atlas.geography.PolyLine;
@@ -19,6 +21,7 @@ import org.openstreetmap.atlas.geography.Polygon;
 import org.openstreetmap.atlas.geography.Segment;
 import org.openstreetmap.atlas.geography.atlas.items.Area;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.items.Line;
 import org.openstreetmap.atlas.geography.atlas.items.LineItem;
 import org.openstreetmap.atlas.tags.filters.TaggableFilter;
@@ -125,6 +128,12 @@ public class WaterAreaCheck extends BaseCheck<Long>
                 string -> this.waterwayCrossingIgnore.add(TaggableFilter.forDefinition(string)));
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.AREA);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -136,14 +145,15 @@ public class WaterAreaCheck extends BaseCheck<Long>
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
         final Area area = (Area) object;
-        final Polygon areaPolygon = area.getClosedGeometry();
+        final GeometryCache geometries = GeometryCache.forAtlas(area.getAtlas());
+        final Polygon areaPolygon = geometries.polygon(area);
         final List<Line> waterways = Iterables
                 .stream(area.getAtlas().linesIntersecting(areaPolygon,
                         atlasObject -> matchesFilter(this.waterwayFilters, atlasObject)))
                 .collectToList();
         CheckFlag flag = this.checkForMissingWaterway(null, area, waterways);
         flag = this.checkForNoExitingWays(flag, areaPolygon, area, waterways);
-        flag = this.checkForOverlappingWaterways(flag, area);
+        flag = this.checkForOverlappingWaterways(flag, area, geometries);
 
         if (flag != null)
         {
@@ -167,8 +177,7 @@ public class WaterAreaCheck extends BaseCheck<Long>
      */
     private boolean alreadyFlagged(final List<? extends AtlasObject> objects)
     {
-        return this.getFlaggedIdentifiers().containsAll(objects.parallelStream()
-                .map(AtlasObject::getOsmIdentifier).collect(Collectors.toList()));
+        return objects.stream().allMatch(object -> this.isFlagged(object.getOsmIdentifier()));
     }
 
     /**
@@ -248,29 +257,32 @@ public class WaterAreaCheck extends BaseCheck<Long>
      *            The flag to add data to. May be null.
      * @param area
      *            The area to check for overlapping waterways
+     * @param geometries
+     *            The {@link GeometryCache} of the area's atlas
      * @return The modified CheckFlag (or new CheckFlag, if the passed CheckFlag was null)
      */
-    private CheckFlag checkForOverlappingWaterways(final CheckFlag flag, final Area area)
+    private CheckFlag checkForOverlappingWaterways(final CheckFlag flag, final Area area,
+            final GeometryCache geometries)
     {
         CheckFlag returnFlag = flag;
+        final Polygon areaPolygon = geometries.polygon(area);
 
-        final List<Pair<Segment, List<Area>>> possibleAreaIntersections = area.getClosedGeometry()
-                .segments().stream()
+        final List<Pair<Segment, List<Area>>> possibleAreaIntersections = areaPolygon.segments()
+                .stream()
                 .map(segment -> Pair.of(segment,
                         Iterables
                                 .stream(area.getAtlas().areasIntersecting(segment.bounds(),
                                         atlasObject -> matchesFilter(this.areaFilters, atlasObject)
                                                 && !area.equals(atlasObject)
-                                                && area.getClosedGeometry().intersects(
-                                                        atlasObject.getClosedGeometry())))
+                                                && areaPolygon.intersects(
+                                                        geometries.polygon(atlasObject))))
                                 .collectToList()))
                 .filter(pair -> !pair.getRight().isEmpty()).collect(Collectors.toList());
 
         final List<Area> areaIntersections = possibleAreaIntersections.stream()
                 .flatMap(pair -> pair.getRight().stream()).distinct()
                 .filter(tArea -> !this
-                        .intersections(area.getClosedGeometry(), tArea.getClosedGeometry())
-                        .isEmpty())
+                        .intersections(areaPolygon, geometries.polygon(tArea)).isEmpty())
                 .filter(tArea -> matchesFilter(this.waterwayCrossingIgnore, tArea)
                         && matchesFilter(this.waterwayCrossingIgnore, area)
                         || !matchesFilter(this.waterwayCrossingIgnore, tArea)
@@ -305,8 +317,7 @@ public class WaterAreaCheck extends BaseCheck<Long>
         final List<Area> areaOverlaps = possibleAreaIntersections.stream()
                 .flatMap(pair -> pair.getRight().stream()).distinct()
                 .filter(tArea -> IntersectionUtilities.findIntersectionPercentage(
-                        tArea.getClosedGeometry(),
-                        area.getClosedGeometry()) >= this.minimumIntersect)
+                        geometries.polygon(tArea), areaPolygon) >= this.minimumIntersect)
                 .collect(Collectors.toList());
         if (!areaOverlaps.isEmpty())
         {
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -19,6 +20,7 @@ import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
 import org.openstreetmap.atlas.geography.atlas.items.Edge;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.items.Node;
 import org.openstreetmap.atlas.geography.atlas.items.Relation;
 import org.openstreetmap.atlas.geography.atlas.items.RelationMember;
@@ -47,7 +49,7 @@ import com.google.common.collect.ImmutableMap;
  *
  * @author sayas01
  */
-public class AtGradeSignPostCheck extends BaseCheck<String>
+public class AtGradeSignPostCheck extends BaseCheck<Long>
 {
     /**
      * A class for holding flagged intersection items and corresponding flag instruction index
@@ -143,6 +145,12 @@ public class AtGradeSignPostCheck extends BaseCheck<String>
         this.highwayFilter = new HashSet<>(this.connectedHighwayTypes.keySet());
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.NODE);
+    }
+
     /**
      * This function will validate if the supplied atlas object is valid for the check.
      *
@@ -154,7 +162,7 @@ public class AtGradeSignPostCheck extends BaseCheck<String>
     public boolean validCheckForObject(final AtlasObject object)
     {
         return object instanceof Node && ((Node) object).valence() >= MINIMUM_NODE_VALENCE
-                && !this.isFlagged(String.valueOf(object.getIdentifier()));
+                && !this.isFlagged(object.getIdentifier());
     }
 
     /**
@@ -230,7 +238,7 @@ public class AtGradeSignPostCheck extends BaseCheck<String>
         final Set<AtlasEntity> entitiesToBeFlagged = flaggedIntersection.getFlaggedItems();
         final List<String> identifiers = this.getIdentifiers(entitiesToBeFlagged);
         entitiesToBeFlagged.add(intersectingNode);
-        this.markAsFlagged(String.valueOf(intersectingNode.getIdentifier()));
+        this.markAsFlagged(intersectingNode.getIdentifier());
         return Optional.of(this.createFlag(entitiesToBeFlagged,
                 this.getLocalizedInstruction(instructionIndex, intersectingNode.getOsmIdentifier(),
                         new StringList(identifiers).join(", "))));
@@ -514,7 +522,7 @@ public class AtGradeSignPostCheck extends BaseCheck<String>
             // Flag if destination sign tag is missing
             if (!destinationSignRelationsMissingTag.isEmpty())
             {
-                this.markAsFlagged(String.valueOf(intersectingNode.getIdentifier()));
+                this.markAsFlagged(intersectingNode.getIdentifier());
                 instructionIndex = INSTRUCTION_INDEX_ONE;
                 entitiesToBeFlagged.addAll(destinationSignRelationsMissingTag);
             }
@@ -1,6 +1,7 @@
 package org.openstreetmap.atlas.checks.validation.intersections;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,10 +15,9 @@ import java.util.stream.Stream;
 import org.apache.commons.lang.StringUtils;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
 import org.openstreetmap.atlas.geography.atlas.Atlas;
 import org.openstreetmap.atlas.geography.atlas.items.Area;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
@@ -66,6 +66,12 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
         super(configuration);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.RELATION);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -195,19 +201,18 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
     }
 
     /**
-     * Transforms wkt geometry to Geometry object, for polygons it takes their boundaries
+     * Transforms the wkt geometry of an entity to Geometry object, for polygons it takes their
+     * boundaries
      *
-     * @param wkt
-     *            geometry in form of wkt
+     * @param entity
+     *            entity to get the geometry of
      * @return geometry object
-     * @throws ParseException
-     *             when parsing failes
      */
-    private Geometry getGeometryForIntersection(final String wkt) throws ParseException
+    private Geometry getGeometryForIntersection(final AtlasEntity entity)
     {
-
-        final WKTReader wktReader = new WKTReader();
-        Geometry geometry1 = wktReader.read(wkt);
+        Geometry geometry1 = GeometryCache.forAtlas(entity.getAtlas()).geometry(entity)
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Unable to parse the geometry of %s", entity)));
         if (geometry1.getGeometryType().equals(Geometry.TYPENAME_POLYGON))
         {
             geometry1 = geometry1.getBoundary();
@@ -216,26 +221,19 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
     }
 
     /**
-     * Finds intersection points of two geometries given in a form of wkt
+     * Finds intersection points of the geometries of two entities
      *
-     * @param wktFirst
-     *            first wkt geometry
-     * @param wktSecond
-     *            second wkt geometry
+     * @param first
+     *            first entity
+     * @param second
+     *            second entity
      * @return array of intersection coordinates
      */
-    private Coordinate[] getIntersectionPoints(final String wktFirst, final String wktSecond)
+    private Coordinate[] getIntersectionPoints(final AtlasEntity first, final AtlasEntity second)
     {
-        try
-        {
-            final Geometry geometry1 = this.getGeometryForIntersection(wktFirst);
-            final Geometry geometry2 = this.getGeometryForIntersection(wktSecond);
-            return geometry1.intersection(geometry2).getCoordinates();
-        }
-        catch (final ParseException e)
-        {
-            throw new IllegalStateException(e);
-        }
+        final Geometry geometry1 = this.getGeometryForIntersection(first);
+        final Geometry geometry2 = this.getGeometryForIntersection(second);
+        return geometry1.intersection(geometry2).getCoordinates();
     }
 
     /**
@@ -275,7 +273,7 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
         {
             if (this.checkAtlasEntityAsBoundary(areaToCheck, boundaryTags))
             {
-                return this.isCrossingNotTouching(atlasEntity.toWkt(), areaToCheck.toWkt());
+                return this.isCrossingNotTouching(atlasEntity, areaToCheck);
             }
             return false;
         };
@@ -298,7 +296,7 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
         {
             if (this.checkAtlasEntityAsBoundary(lineToCheck, boundaryTags))
             {
-                return this.isCrossingNotTouching(atlasEntity.toWkt(), lineToCheck.toWkt());
+                return this.isCrossingNotTouching(atlasEntity, lineToCheck);
             }
             return false;
         };
@@ -332,18 +330,18 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
      *            boundary tags that are both in entity and relationBoundary
      * @param matchingBoundaries
      *            relations that are intersecting
-     * @param areaWkt
-     *            wkt geometry of area
+     * @param intersectingEntity
+     *            area or line intersecting currentEntity
      * @param osmIdentifier
      *            osm id of area
      */
     private void handleIntersections(final RelationBoundary relationBoundary,
             final Set<String> instructions, final AtlasEntity currentEntity,
             final Set<String> currentMatchedTags, final Set<Relation> matchingBoundaries,
-            final String areaWkt, final long osmIdentifier)
+            final AtlasEntity intersectingEntity, final long osmIdentifier)
     {
-        final Coordinate[] intersectingPoints = this.getIntersectionPoints(currentEntity.toWkt(),
-                areaWkt);
+        final Coordinate[] intersectingPoints = this.getIntersectionPoints(currentEntity,
+                intersectingEntity);
         final String firstBoundaries = this
                 .entityIdsToString(relationBoundary.getRelationsByBoundaryTags(currentMatchedTags));
         final String secondBoundaries = this.entityIdsToString(matchingBoundaries);
@@ -371,35 +369,29 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
     }
 
     /**
-     * Checks whether two geometries are crossing and not touching
+     * Checks whether the geometries of two entities are crossing and not touching
      *
-     * @param wktFirst
-     *            first geometry
-     * @param wktSecond
-     *            second geometry
+     * @param first
+     *            first entity
+     * @param second
+     *            second entity
      * @return boolean if geometries are crossing not touching
      */
-    private boolean isCrossingNotTouching(final String wktFirst, final String wktSecond)
+    private boolean isCrossingNotTouching(final AtlasEntity first, final AtlasEntity second)
     {
-        final WKTReader wktReader = new WKTReader();
-        try
+        final GeometryCache geometries = GeometryCache.forAtlas(first.getAtlas());
+        final Optional<Geometry> geometry1 = geometries.geometry(first);
+        final Optional<Geometry> geometry2 = geometries.geometry(second);
+        if (!geometry1.isPresent() || !geometry2.isPresent()
+                || geometry1.get().equals(geometry2.get()))
         {
-            final Geometry geometry1 = wktReader.read(wktFirst);
-            final Geometry geometry2 = wktReader.read(wktSecond);
-            if (geometry1.equals(geometry2))
-            {
-                return false;
-            }
-            if (this.isAnyGeometryInvalid(geometry1, geometry2))
-            {
-                return false;
-            }
-            return this.isIntersectingNotTouching(geometry1, geometry2);
+            return false;
         }
-        catch (final ParseException e)
+        if (this.isAnyGeometryInvalid(geometry1.get(), geometry2.get()))
         {
             return false;
         }
+        return this.isIntersectingNotTouching(geometry1.get(), geometry2.get());
     }
 
     /**
@@ -468,7 +460,7 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
                         .map(Optional::get).collect(Collectors.toSet()));
                 objectsToFlag.addAll(matchingBoundaries);
                 this.handleIntersections(relationBoundary, instructions, atlasEntity,
-                        currentMatchedTags, matchingBoundaries, area.toWkt(),
+                        currentMatchedTags, matchingBoundaries, area,
                         area.getOsmIdentifier());
             }
             matchedTags.addAll(currentMatchedTags);
@@ -512,7 +504,7 @@ public class BoundaryIntersectionCheck extends BaseCheck<Long>
                 objectsToFlag.addAll(matchingBoundaries);
                 objectsToFlag.add(lineItem);
                 this.handleIntersections(relationBoundary, instructions, atlasEntity,
-                        currentMatchedTags, matchingBoundaries, lineItem.toWkt(),
+                        currentMatchedTags, matchingBoundaries, lineItem,
                         lineItem.getOsmIdentifier());
             }
             matchedTags.addAll(currentMatchedTags);
@@ -1,28 +1,43 @@
 package org.openstreetmap.atlas.checks.validation.intersections;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.locationtech.jts.geom.prep.PreparedGeometry;
 
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
 import org.openstreetmap.atlas.checks.utility.IntersectionUtilities;
+import org.openstreetmap.atlas.checks.utility.SpatialJoin;
 import org.openstreetmap.atlas.geography.Polygon;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
 import org.openstreetmap.atlas.geography.atlas.items.Area;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.tags.BuildingTag;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
 import org.openstreetmap.atlas.utilities.scalars.Surface;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 /**
  * Flags the buildings that intersect/overlap with other buildings.
  *
  * @author sid
  * @author mkalender
  */
-public class IntersectingBuildingsCheck extends BaseCheck<String>
+public class IntersectingBuildingsCheck extends BaseCheck<Long>
 {
     /**
      * Differentiate intersection and overlap and create separate descriptions for MapRoulette
@@ -52,32 +67,14 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
     // Minimum number of points for a polygon
     private static final int MINIMUM_POINT_COUNT_FOR_POLYGON = 3;
 
-    // Format to use to generate unique identifier tuples from areas
-    private static final String UNIQUE_IDENTIFIER_FORMAT = "%s,%s";
-
     // Minimum intersection to be contained
     private static final double OVERLAP_LOWER_LIMIT = 1.0;
 
     // Overlap below this limit is not considered to be intersecting
     private final double intersectionLowerLimit;
 
-    /**
-     * Generates a unique identifier tuple as a {@link String} for given {@link Area}s identifiers
-     *
-     * @param area
-     *            First {@link Area} instance
-     * @param otherArea
-     *            Another {@link Area} instance
-     * @return A unique identifier tuple in {@link String}
-     */
-    private static String getIdentifierTuple(final Area area, final Area otherArea)
-    {
-        return area.getIdentifier() < otherArea.getIdentifier()
-                ? String.format(UNIQUE_IDENTIFIER_FORMAT, area.getIdentifier(),
-                        otherArea.getIdentifier())
-                : String.format(UNIQUE_IDENTIFIER_FORMAT, otherArea.getIdentifier(),
-                        area.getIdentifier());
-    }
+    // Identifiers of the buildings intersecting each building, per atlas being checked
+    private transient volatile LoadingCache<Atlas, Map<Long, List<Long>>> intersectingBuildings;
 
     /**
      * Default constructor
@@ -93,6 +90,12 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
                 "intersection.lower.limit", INTERSECTION_LOWER_LIMIT_DEFAULT, Double::valueOf);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.AREA);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -103,20 +106,21 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
         final Area building = (Area) object;
+        // Buildings are compared with all their neighbours, so share their geometries
+        final GeometryCache geometries = GeometryCache.forAtlas(object.getAtlas());
 
         // Fetch building's area as polygon and make sure it has at least 3 points
-        final Polygon buildingPolygon = building.asPolygon();
+        final Polygon buildingPolygon = geometries.polygon(building);
         if (buildingPolygon.size() < MINIMUM_POINT_COUNT_FOR_POLYGON)
         {
             return Optional.empty();
         }
 
-        // Fetch possibly intersecting buildings
-        final Iterable<Area> possiblyIntersectingBuildings = object.getAtlas().areasIntersecting(
-                building.bounds(),
-                area -> BuildingTag.isBuilding(area)
-                        && building.getIdentifier() != area.getIdentifier()
-                        && area.intersects(buildingPolygon));
+        // Fetch intersecting buildings, found for all the buildings of the atlas at once
+        final Iterable<Area> possiblyIntersectingBuildings = this
+                .getIntersectingBuildings(object.getAtlas())
+                .getOrDefault(building.getIdentifier(), Collections.emptyList()).stream()
+                .map(object.getAtlas()::area).collect(Collectors.toList());
 
         // Assuming that we'd find intersections/overlaps below, create a flag
         final CheckFlag flag = new CheckFlag(this.getTaskIdentifier(object));
@@ -127,30 +131,29 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
         for (final Area otherBuilding : possiblyIntersectingBuildings)
         {
             // Fetch other building's area as polygon and make sure it has at least 3 points
-            final Polygon otherBuildingsPolygon = otherBuilding.asPolygon();
+            final Polygon otherBuildingsPolygon = geometries.polygon(otherBuilding);
             if (otherBuildingsPolygon.size() < MINIMUM_POINT_COUNT_FOR_POLYGON)
             {
                 continue;
             }
 
-            // Create a unique identifier for building tuple to avoid processing same buildings more
-            // than once
-            final String uniqueIdentifier = getIdentifierTuple(building, otherBuilding);
-            if (this.isFlagged(getIdentifierTuple(building, otherBuilding)))
+            // Avoid processing same buildings more than once
+            if (this.isFlagged(building.getIdentifier(), otherBuilding.getIdentifier()))
             {
                 continue;
             }
 
             // Find intersection type
             final IntersectionType resultType = this.findIntersectionType(buildingPolygon,
-                    otherBuildingsPolygon);
+                    otherBuildingsPolygon, geometries.surface(building),
+                    geometries.surface(otherBuilding));
 
             // Flag based on intersection type
             if (resultType == IntersectionType.OVERLAP)
             {
                 // Get object and otherBuilding as a Surfaces
-                final Surface objectAsSurface = ((Area) object).asPolygon().surface();
-                final Surface otherBuildingAsSurface = otherBuilding.asPolygon().surface();
+                final Surface objectAsSurface = geometries.surface(building);
+                final Surface otherBuildingAsSurface = geometries.surface(otherBuilding);
                 // If object is larger than otherBuilding, the instruction states object contains
                 // otherBuilding
                 if (objectAsSurface.isLargerThan(otherBuildingAsSurface))
@@ -171,14 +174,14 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
                     flag.addObject(otherBuilding, this.getLocalizedInstruction(0,
                             object.getOsmIdentifier(), otherBuilding.getOsmIdentifier()));
                 }
-                this.markAsFlagged(uniqueIdentifier);
+                this.markAsFlagged(building.getIdentifier(), otherBuilding.getIdentifier());
                 hadIntersection = true;
             }
             else if (resultType == IntersectionType.INTERSECT)
             {
                 flag.addObject(otherBuilding, this.getLocalizedInstruction(1,
                         object.getOsmIdentifier(), otherBuilding.getOsmIdentifier()));
-                this.markAsFlagged(uniqueIdentifier);
+                this.markAsFlagged(building.getIdentifier(), otherBuilding.getIdentifier());
                 hadIntersection = true;
             }
         }
@@ -197,6 +200,35 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
         return FALLBACK_INSTRUCTIONS;
     }
 
+    /**
+     * Joins the buildings of an {@link Atlas} with themselves, the first time a building of the
+     * {@link Atlas} is checked, rather than querying the {@link Atlas} for the neighbours of each
+     * building
+     *
+     * @param atlas
+     *            {@link Atlas} being checked
+     * @return identifiers of the buildings intersecting each building, keyed by identifier
+     */
+    private Map<Long, List<Long>> getIntersectingBuildings(final Atlas atlas)
+    {
+        if (this.intersectingBuildings == null)
+        {
+            synchronized (this)
+            {
+                if (this.intersectingBuildings == null)
+                {
+                    // Weak keys, to let go of the atlases once checked
+                    this.intersectingBuildings = CacheBuilder.newBuilder().weakKeys()
+                            .build(CacheLoader.from((final Atlas key) -> SpatialJoin
+                                    .neighbours(SpatialJoin.selfJoin(
+                                            key.areas(BuildingTag::isBuilding),
+                                            PreparedGeometry::intersects))));
+                }
+            }
+        }
+        return this.intersectingBuildings.getUnchecked(atlas);
+    }
+
     /**
      * Find {@link IntersectionType} for given {@link Polygon}s. There are some edge cases where
      * there are minor boundary intersections. So we do additional area check to filter off the
@@ -206,12 +238,17 @@ public class IntersectingBuildingsCheck extends BaseCheck<String>
      *            {@link Polygon} to check for intersection
      * @param otherPolygon
      *            Another {@link Polygon} to check against for intersection
+     * @param surface
+     *            {@link Surface} of the first {@link Polygon}
+     * @param otherSurface
+     *            {@link Surface} of the other {@link Polygon}
      * @return {@link IntersectionType} between given {@link Polygon}s
      */
-    private IntersectionType findIntersectionType(final Polygon polygon, final Polygon otherPolygon)
+    private IntersectionType findIntersectionType(final Polygon polygon, final Polygon otherPolygon,
+            final Surface surface, final Surface otherSurface)
     {
         final double proportion = IntersectionUtilities.findIntersectionPercentage(polygon,
-                otherPolygon);
+                otherPolygon, surface, otherSurface);
         if (proportion >= OVERLAP_LOWER_LIMIT)
         {
             return IntersectionType.OVERLAP;
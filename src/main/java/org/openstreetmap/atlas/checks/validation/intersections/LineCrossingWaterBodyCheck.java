@@ -16,6 +16,7 @@ import java.util.stream.Stream;
 import org.openstreetmap.atlas.checks.atlas.predicates.TypePredicates;
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
 import org.openstreetmap.atlas.checks.utility.IntersectionUtilities;
 import org.openstreetmap.atlas.geography.GeometricSurface;
 import org.openstreetmap.atlas.geography.Location;
@@ -239,6 +240,12 @@ public class LineCrossingWaterBodyCheck extends BaseCheck<Long>
                 SHAPEPOINTS_MAX_DEFAULT);
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -253,10 +260,15 @@ public class LineCrossingWaterBodyCheck extends BaseCheck<Long>
     @SuppressWarnings("squid:S2293")
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
-        // Immediately mark as processed so other shards do not pick this up
-        this.markAsFlagged(object.getOsmIdentifier());
+        // Immediately mark as processed so other shards, or other threads, do not pick this up
+        if (!this.markAsFlagged(object.getOsmIdentifier()))
+        {
+            return Optional.empty();
+        }
+        final GeometryCache geometries = GeometryCache.forAtlas(object.getAtlas());
         // First convert the waterbody to a GeometricSurface for use in querying
-        final GeometricSurface waterbody = object instanceof Area ? ((Area) object).asPolygon()
+        final GeometricSurface waterbody = object instanceof Area
+                ? geometries.polygon((Area) object)
                 : new RelationOrAreaToMultiPolygonConverter().convert((Relation) object);
 
         if (waterbody instanceof MultiPolygon)
@@ -285,7 +297,8 @@ public class LineCrossingWaterBodyCheck extends BaseCheck<Long>
                                         && !NONOFFENDING_BUILDINGS.test(area)
                                         && LevelTag.areOnSameLevel(object, area)
                                         && !this.getInteractionsPerWaterbodyComponent(waterbody,
-                                                object, area.asPolygon(), newFlag).isEmpty()))
+                                                object, geometries.polygon(area), newFlag)
+                                                .isEmpty()))
                 : new MultiIterable<AtlasItem>(
                         this.collectOffendingLineItems(atlas, object, waterbody, newFlag));
         // This waterbody has no invalid crossings
@@ -473,6 +486,7 @@ public class LineCrossingWaterBodyCheck extends BaseCheck<Long>
             return Set.of(Tuple.createTuple((Polygon) waterbody, intersectionLocations));
         }
 
+        final GeometryCache geometries = GeometryCache.forAtlas(object.getAtlas());
         // Get all non-sliced outer polygon members of the waterbody multipolygon relation
         final Set<Tuple<PolyLine, Set<Location>>> membersIntersections = ((Relation) object)
                 .members().stream()
@@ -486,7 +500,7 @@ public class LineCrossingWaterBodyCheck extends BaseCheck<Long>
                 .map(member ->
                 {
                     final PolyLine waterbodyComponentGeometry = member.getEntity() instanceof Area
-                            ? new Polygon((Area) member.getEntity())
+                            ? geometries.polygon((Area) member.getEntity())
                             : new PolyLine((LineItem) member.getEntity());
                     final Set<Location> intersectionLocations = intersectingFeature
                             .intersections(waterbodyComponentGeometry);
@@ -13,6 +13,7 @@ import java.util.stream.Collectors;
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.checks.utility.CommonTagFilters;
+import org.openstreetmap.atlas.checks.utility.GeometryCache;
 import org.openstreetmap.atlas.checks.utility.IntersectionUtilities;
 import org.openstreetmap.atlas.geography.Location;
 import org.openstreetmap.atlas.geography.PolyLine;
@@ -160,13 +161,14 @@ public class OceanBleedingCheck extends BaseCheck<Long>
                             && this.isInvalidlyInteractingWithOcean(
                                     oceanIsArea ? oceanBoundary : ((LineItem) object).asPolyLine())
                                     .test(lineItem));
+            // Buildings are often near several ocean features, so share their polygons
+            final GeometryCache geometries = GeometryCache.forAtlas(object.getAtlas());
             final Iterable<Area> intersectingBuildingFeatures = object.getAtlas().areasIntersecting(
                     oceanBoundary,
-                    area -> (oceanIsArea
-                            && !oceanBoundary.fullyGeometricallyEncloses(area.asPolygon())
+                    area -> BuildingTag.isBuilding(area) && (oceanIsArea
+                            && !oceanBoundary.fullyGeometricallyEncloses(geometries.polygon(area))
                             || object instanceof LineItem && ((LineItem) object).asPolyLine()
-                                    .intersects(area.asPolygon()))
-                            && BuildingTag.isBuilding(area));
+                                    .intersects(geometries.polygon(area))));
             intersectingLinearFeatures.forEach(offendingLineItems::add);
             intersectingBuildingFeatures.forEach(offendingBuildings::add);
         }
@@ -42,6 +42,12 @@ public class MalformedPolyLineCheck extends BaseCheck<Long>
         super(configuration);
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -35,6 +35,12 @@ public class LongSegmentCheck extends BaseCheck<Long>
                 DISTANCE_MINIMUM_KILOMERTERS_DEFAULT, Distance::kilometers);
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     /**
      * Validate if given {@link AtlasObject} is actually an {@link Edge}, which is a Main Edge and
      * is not a Ferry
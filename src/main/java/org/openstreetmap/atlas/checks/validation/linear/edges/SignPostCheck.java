@@ -37,7 +37,7 @@ import org.openstreetmap.atlas.utilities.scalars.Distance;
  * @author mkalender
  * @author bbreithaupt
  */
-public class SignPostCheck extends BaseCheck<String>
+public class SignPostCheck extends BaseCheck<Long>
 {
     private static final long serialVersionUID = 8042255121118115024L;
 
@@ -103,7 +103,7 @@ public class SignPostCheck extends BaseCheck<String>
     {
         // Must be a main Edge, and must not have been flagged already
         return TypePredicates.IS_EDGE.test(object) && ((Edge) object).isMainEdge()
-                && !this.isFlagged(String.valueOf(object.getOsmIdentifier()))
+                && !this.isFlagged(object.getOsmIdentifier())
                 // Must be a link defined in the rampEdgeFilter
                 && this.rampEdgeFilter.test(object) && ((Edge) object).highwayTag().isLink()
                 // Must be longer than the configurable limit
@@ -176,7 +176,7 @@ public class SignPostCheck extends BaseCheck<String>
         // Return the flag if it has any flagged objects in it
         if (!flag.getFlaggedObjects().isEmpty())
         {
-            this.markAsFlagged(String.valueOf(object.getOsmIdentifier()));
+            this.markAsFlagged(object.getOsmIdentifier());
             return Optional.of(flag);
         }
 
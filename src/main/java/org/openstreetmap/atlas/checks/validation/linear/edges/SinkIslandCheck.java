@@ -28,6 +28,7 @@ import org.openstreetmap.atlas.tags.SyntheticBoundaryNodeTag;
 import org.openstreetmap.atlas.tags.VehicleTag;
 import org.openstreetmap.atlas.tags.annotations.validation.Validators;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
 
 /**
  * This check flags islands of roads where it is impossible to get out. The simplest is a one-way
@@ -104,6 +105,15 @@ public class SinkIslandCheck extends BaseCheck<Long>
                                 || this.intersectsAirportOrBuilding((Edge) object)));
     }
 
+    /**
+     * Islands are explored over the road network, up to the configured tree size.
+     */
+    @Override
+    protected Optional<Distance> defaultContextRadius()
+    {
+        return Optional.of(UNBOUNDED_CONTEXT);
+    }
+
     @Override
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
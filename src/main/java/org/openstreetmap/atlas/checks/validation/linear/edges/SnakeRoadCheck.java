@@ -16,6 +16,7 @@ import org.openstreetmap.atlas.tags.HighwayTag;
 import org.openstreetmap.atlas.tags.JunctionTag;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
 import org.openstreetmap.atlas.utilities.scalars.Angle;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
 
 /**
  * This check flags edges that form Snake Roads. A Snake Road is defined as a road that should be
@@ -88,6 +89,15 @@ public class SnakeRoadCheck extends BaseCheck<Long>
                 && isValidEdgeToConsider((Edge) object);
     }
 
+    /**
+     * Snake roads are walked along their whole way, however far it goes.
+     */
+    @Override
+    protected Optional<Distance> defaultContextRadius()
+    {
+        return Optional.of(UNBOUNDED_CONTEXT);
+    }
+
     @Override
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
@@ -1,6 +1,7 @@
 package org.openstreetmap.atlas.checks.validation.points;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -9,6 +10,7 @@ import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
 import org.openstreetmap.atlas.geography.atlas.items.Edge;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.items.Point;
 import org.openstreetmap.atlas.tags.AddressStreetTag;
 import org.openstreetmap.atlas.tags.annotations.validation.Validators;
@@ -50,6 +52,12 @@ public class AddressStreetNameCheck extends BaseCheck<Long>
                 SEARCH_DISTANCE_DEFAULT, Distance::meters);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.POINT);
+    }
+
     /**
      * This function will validate if the supplied atlas object is valid for the check.
      *
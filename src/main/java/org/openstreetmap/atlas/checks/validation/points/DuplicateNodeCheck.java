@@ -2,9 +2,11 @@ package org.openstreetmap.atlas.checks.validation.points;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.openstreetmap.atlas.checks.base.BaseCheck;
@@ -12,9 +14,11 @@ import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.geography.Location;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.items.Node;
 import org.openstreetmap.atlas.utilities.collections.Iterables;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
 
 /**
  * This check looks for two or more {@link Node}s that are in the exact same location.
@@ -39,12 +43,27 @@ public class DuplicateNodeCheck extends BaseCheck<Location>
         super(configuration);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.NODE);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
         return object instanceof Node && !this.isFlagged(((Node) object).getLocation());
     }
 
+    /**
+     * Duplicate nodes share their location, so the nodes of the shard are all this check needs.
+     */
+    @Override
+    protected Optional<Distance> defaultContextRadius()
+    {
+        return Optional.of(Distance.ZERO);
+    }
+
     @Override
     protected Optional<CheckFlag> flag(final AtlasObject object)
     {
@@ -2,14 +2,17 @@ package org.openstreetmap.atlas.checks.validation.points;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.openstreetmap.atlas.checks.base.BaseCheck;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
 import org.openstreetmap.atlas.geography.atlas.items.Edge;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.items.Node;
 import org.openstreetmap.atlas.tags.DirectionTag;
 import org.openstreetmap.atlas.tags.HighwayTag;
@@ -54,6 +57,12 @@ public class InvalidMiniRoundaboutCheck extends BaseCheck<Long>
                 DEFAULT_MINIMUM_VALENCE);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.NODE);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
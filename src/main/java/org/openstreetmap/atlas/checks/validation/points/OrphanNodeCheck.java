@@ -35,6 +35,12 @@ public class OrphanNodeCheck extends BaseCheck<Long>
         super(configuration);
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     /**
      * This function will validate if the supplied atlas object is valid for the check.
      *
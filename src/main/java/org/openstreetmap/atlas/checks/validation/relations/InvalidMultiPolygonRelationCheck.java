@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -129,6 +130,12 @@ public class InvalidMultiPolygonRelationCheck extends BaseCheck<Long>
                 OVERLAP_MAMIMUM_POINTS_DEFAULT);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.RELATION);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -3,6 +3,7 @@ package org.openstreetmap.atlas.checks.validation.relations;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -64,6 +65,12 @@ public class InvalidSignBoardRelationCheck extends BaseCheck<Long>
         super(configuration);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.RELATION);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -2,6 +2,7 @@ package org.openstreetmap.atlas.checks.validation.relations;
 
 import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -40,6 +41,12 @@ public class OneMemberRelationCheck extends BaseCheck<Object>
         super(configuration);
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.RELATION);
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {
@@ -1,6 +1,7 @@
 package org.openstreetmap.atlas.checks.validation.tag;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -15,6 +16,7 @@ import org.openstreetmap.atlas.geography.atlas.complete.CompleteEntity;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
 import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
 import org.openstreetmap.atlas.geography.atlas.items.Edge;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
 import org.openstreetmap.atlas.geography.atlas.walker.OsmWayWalker;
 import org.openstreetmap.atlas.tags.FerryTag;
 import org.openstreetmap.atlas.tags.HighwayTag;
@@ -58,6 +60,12 @@ public class HighwayToFerryTagCheck extends BaseCheck<Long>
                 MINIMUM_HIGHWAY_TYPE_DEFAULT, value -> HighwayTag.valueOf(value.toUpperCase()));
     }
 
+    @Override
+    public Set<ItemType> supportedItemTypes()
+    {
+        return EnumSet.of(ItemType.EDGE);
+    }
+
     /**
      * Checks to see whether the supplied object class type is valid for this particular check
      *
@@ -30,6 +30,7 @@ import org.openstreetmap.atlas.tags.Taggable;
 import org.openstreetmap.atlas.tags.filters.RegexTaggableFilter;
 import org.openstreetmap.atlas.tags.filters.TaggableFilter;
 import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
 import org.openstreetmap.atlas.utilities.tuples.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -133,6 +134,15 @@ public class InvalidTagsCheck extends BaseCheck<String>
         return !this.isFlagged(this.getUniqueOSMIdentifier(object));
     }
 
+    /**
+     * Tags are checked on each object alone, so the objects of the shard are all this check needs.
+     */
+    @Override
+    protected Optional<Distance> defaultContextRadius()
+    {
+        return Optional.of(Distance.ZERO);
+    }
+
     /**
      * This is the actual function that will check to see whether the object needs to be flagged.
      *
@@ -53,6 +53,12 @@ public class StreetNameIntegersOnlyCheck extends BaseCheck<Long>
                 false);
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     /**
      * This function will validate if the supplied atlas object is valid for the check.
      *
@@ -0,0 +1,19 @@
+SET search_path TO {schema},public;
+
+DO $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'flag'::regclass AND contype = 'p') THEN
+    ALTER TABLE flag ADD PRIMARY KEY (id);
+  END IF;
+  IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'feature'::regclass AND contype = 'p') THEN
+    ALTER TABLE feature ADD PRIMARY KEY (id);
+  END IF;
+  IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'feature'::regclass AND contype = 'f') THEN
+    ALTER TABLE feature ADD FOREIGN KEY (flag_id) REFERENCES flag(id);
+  END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS feature_geom_idx
+  ON feature
+  USING GIST (geom);
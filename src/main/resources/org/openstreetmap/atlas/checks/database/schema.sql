@@ -1,11 +1,13 @@
 CREATE SCHEMA IF NOT EXISTS {schema};
 SET search_path TO {schema},public;
 
+-- Keys and indexes are created by constraints.sql, once flags are bulk loaded
+
 CREATE EXTENSION IF NOT EXISTS postgis;
 CREATE EXTENSION IF NOT EXISTS hstore;
 
 CREATE TABLE IF NOT EXISTS flag (
-	id serial primary key,
+	id serial,
 	flag_id text not null,
 	check_name text not null,
 	instructions text not null,
@@ -15,8 +17,8 @@ CREATE TABLE IF NOT EXISTS flag (
 );
 
 CREATE TABLE IF NOT EXISTS feature (
-  id serial primary key,
-  flag_id integer references flag(id),
+  id serial,
+  flag_id integer,
   geom geometry not null,
   osm_id bigint not null,
   atlas_id bigint not null,
@@ -25,7 +27,3 @@ CREATE TABLE IF NOT EXISTS feature (
   tags hstore,
   date_created timestamp
 );
-
-CREATE INDEX IF NOT EXISTS feature_geom_idx
-  ON feature
-  USING GIST (geom);
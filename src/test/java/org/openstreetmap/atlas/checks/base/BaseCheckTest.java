@@ -0,0 +1,43 @@
+package org.openstreetmap.atlas.checks.base;
+
+import java.util.stream.LongStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.base.checks.BaseTestCheck;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+
+/**
+ * Tests for the flagged identifiers of {@link BaseCheck}
+ *
+ * @author agent
+ */
+public class BaseCheckTest
+{
+    private static final long IDENTIFIERS = 10_000L;
+
+    @Test
+    public void testMarkAsFlagged()
+    {
+        final BaseTestCheck check = new BaseTestCheck(ConfigurationResolver.emptyConfiguration());
+        Assert.assertFalse(check.isFlagged(1L));
+        Assert.assertTrue(check.markAsFlagged(1L));
+        Assert.assertFalse(check.markAsFlagged(1L));
+        Assert.assertFalse(check.markAsFlagged(Long.valueOf(1L)));
+        Assert.assertTrue(check.isFlagged(1L));
+
+        Assert.assertTrue(check.markAsFlagged(1L, 2L));
+        Assert.assertFalse(check.markAsFlagged(2L, 1L));
+        Assert.assertTrue(check.isFlagged(1L, 2L));
+    }
+
+    @Test
+    public void testMarkAsFlaggedOnceFromThreads()
+    {
+        final BaseTestCheck check = new BaseTestCheck(ConfigurationResolver.emptyConfiguration());
+        // Each identifier is marked twice, only one of the two is the first
+        final long marked = LongStream.range(0, 2 * IDENTIFIERS).parallel()
+                .filter(index -> check.markAsFlagged(index / 2)).count();
+        Assert.assertEquals(IDENTIFIERS, marked);
+    }
+}
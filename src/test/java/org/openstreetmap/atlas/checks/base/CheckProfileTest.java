@@ -0,0 +1,68 @@
+package org.openstreetmap.atlas.checks.base;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.base.checks.PierTestCheck;
+import org.openstreetmap.atlas.checks.base.checks.PierTestRule;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+
+/**
+ * Tests for {@link CheckProfile}.
+ *
+ * @author agent
+ */
+public class CheckProfileTest
+{
+    @Rule
+    public PierTestRule setup = new PierTestRule();
+
+    @Test
+    public void testBuckets()
+    {
+        Assert.assertEquals(0, CheckProfile.bucket(0L));
+        Assert.assertEquals(1, CheckProfile.bucket(1L));
+        Assert.assertEquals(2, CheckProfile.bucket(2L));
+        Assert.assertEquals(2, CheckProfile.bucket(3L));
+        Assert.assertEquals(11, CheckProfile.bucket(1024L));
+        Assert.assertEquals(63, CheckProfile.bucket(Long.MAX_VALUE));
+        Assert.assertEquals(2048L, CheckProfile.bucketUpperBound(CheckProfile.bucket(1024L)));
+        Assert.assertEquals(Long.MAX_VALUE, CheckProfile.bucketUpperBound(63));
+    }
+
+    @Test
+    public void testCounts()
+    {
+        final PierTestCheck check = new PierTestCheck(ConfigurationResolver.emptyConfiguration());
+        final CheckProfile profile = new CheckProfile(3);
+        for (final AtlasEntity entity : this.setup.getAtlas().entities())
+        {
+            check.check(entity, profile);
+        }
+
+        // 5 nodes and 3 edges, of which one is a pier
+        Assert.assertEquals(8, profile.getOffered());
+        Assert.assertEquals(6, profile.getFilteredOut());
+        Assert.assertEquals(2, profile.getFlagged());
+        Assert.assertEquals(8L, profile.getLatencyHistogram().values().stream()
+                .mapToLong(Long::longValue).sum());
+        Assert.assertEquals(3, profile.getSlowestObjects().size());
+    }
+
+    @Test
+    public void testSlowestObjects()
+    {
+        final CheckProfile profile = new CheckProfile(2);
+        int index = 0;
+        for (final AtlasEntity entity : this.setup.getAtlas().edges())
+        {
+            profile.record(entity, 0L, true, ++index * 1000L, false);
+        }
+
+        Assert.assertArrayEquals(new Object[] { 3000L, 2000L },
+                profile.getSlowestObjects().values().toArray());
+        Assert.assertTrue(profile.getSlowestObjects().keySet().stream()
+                .allMatch(identifier -> identifier.startsWith("EDGE")));
+    }
+}
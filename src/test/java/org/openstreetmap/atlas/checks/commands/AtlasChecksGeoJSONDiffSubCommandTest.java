@@ -11,8 +11,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.event.CheckFlagGeoJsonProcessor;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
 import org.openstreetmap.atlas.event.ShutdownEvent;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.File;
 
 /**
@@ -186,7 +186,7 @@ public class AtlasChecksGeoJSONDiffSubCommandTest
     {
 
         final CheckFlagGeoJsonProcessor sourceProcessor = new CheckFlagGeoJsonProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), sourceDirectory.getAbsolutePathString())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), sourceDirectory.getAbsolutePathString())
                         .withBatchSizeOverride(2).withCompression(compression);
         sourceProcessor.process(this.setup.getConstantCheckFlagEvent());
         sourceProcessor.process(this.setup.getSubtractionCheckFlagEvent());
@@ -194,7 +194,7 @@ public class AtlasChecksGeoJSONDiffSubCommandTest
         sourceProcessor.process(new ShutdownEvent());
 
         final CheckFlagGeoJsonProcessor targetProcessor = new CheckFlagGeoJsonProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), targetDirectory.getAbsolutePathString())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), targetDirectory.getAbsolutePathString())
                         .withBatchSizeOverride(2).withCompression(compression);
         targetProcessor.process(this.setup.getConstantCheckFlagEvent());
         targetProcessor.process(this.setup.getAdditionCheckFlagEvent());
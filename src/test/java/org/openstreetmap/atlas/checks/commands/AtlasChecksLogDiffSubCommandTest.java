@@ -12,8 +12,8 @@ import org.junit.Test;
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.event.CheckFlagFileProcessor;
 import org.openstreetmap.atlas.checks.event.FileProcessor;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
 import org.openstreetmap.atlas.event.ShutdownEvent;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.File;
 
 /**
@@ -188,7 +188,7 @@ public class AtlasChecksLogDiffSubCommandTest
 
         // Create first source log file
         final FileProcessor<CheckFlagEvent> sourceProcessor = new CheckFlagFileProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), sourceDirectory.getAbsolutePathString())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), sourceDirectory.getAbsolutePathString())
                         .withCompression(compression);
         sourceProcessor.process(this.setup.getConstantCheckFlagEvent());
         sourceProcessor.process(this.setup.getSubtractionCheckFlagEvent());
@@ -196,14 +196,14 @@ public class AtlasChecksLogDiffSubCommandTest
 
         // Create second source log file
         final FileProcessor<CheckFlagEvent> sourceProcessor2 = new CheckFlagFileProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), sourceDirectory.getAbsolutePathString())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), sourceDirectory.getAbsolutePathString())
                         .withCompression(compression);
         sourceProcessor2.process(this.setup.getPreChangeCheckFlagEvent());
         sourceProcessor2.process(new ShutdownEvent());
 
         // Create first target log file
         final FileProcessor<CheckFlagEvent> targetProcessor = new CheckFlagFileProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), targetDirectory.getAbsolutePathString())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), targetDirectory.getAbsolutePathString())
                         .withCompression(compression);
         targetProcessor.process(this.setup.getConstantCheckFlagEvent());
         targetProcessor.process(this.setup.getAdditionCheckFlagEvent());
@@ -211,7 +211,7 @@ public class AtlasChecksLogDiffSubCommandTest
 
         // Create second target log file
         final FileProcessor<CheckFlagEvent> targetProcessor2 = new CheckFlagFileProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), targetDirectory.getAbsolutePathString())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), targetDirectory.getAbsolutePathString())
                         .withCompression(compression);
         targetProcessor2.process(this.setup.getPostChangeCheckFlagEvent());
         targetProcessor2.process(new ShutdownEvent());
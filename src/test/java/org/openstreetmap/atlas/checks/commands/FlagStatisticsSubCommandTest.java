@@ -15,8 +15,8 @@ import org.junit.Test;
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.event.CheckFlagFileProcessor;
 import org.openstreetmap.atlas.checks.event.FileProcessor;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
 import org.openstreetmap.atlas.event.ShutdownEvent;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.File;
 
 import com.google.common.collect.ImmutableMap;
@@ -139,7 +139,7 @@ public class FlagStatisticsSubCommandTest
         for (final boolean compression : COMPRESSION_OPTIONS)
         {
             final FileProcessor<CheckFlagEvent> fileProcessor = new CheckFlagFileProcessor(
-                    new SparkFileHelper(FILE_SYSTEM_CONFIG), countryFolderPath)
+                    new OutputFileWriter(FILE_SYSTEM_CONFIG), countryFolderPath)
                             .withCompression(compression);
             checkFlagCounts.forEach((check, flagCount) ->
             {
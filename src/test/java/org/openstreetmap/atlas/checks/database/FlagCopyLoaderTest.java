@@ -0,0 +1,157 @@
+package org.openstreetmap.atlas.checks.database;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.openstreetmap.atlas.checks.flag.CheckFlagTest;
+import org.openstreetmap.atlas.checks.utility.FileUtility.LogOutputFileType;
+import org.openstreetmap.atlas.streaming.resource.File;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests for {@link FlagCopyLoader}
+ *
+ * @author agent
+ */
+public class FlagCopyLoaderTest
+{
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    private static JsonObject json(final String json)
+    {
+        return new JsonParser().parse(json).getAsJsonObject();
+    }
+
+    @Test
+    public void testCopyRows() throws IOException
+    {
+        final FlagDatabaseSubCommand command = new FlagDatabaseSubCommand();
+        // Run the command with the expectation it will fail, to run the argument parser.
+        command.runSubcommand("--flag_path=/bad/path", "--database_url=none",
+                "--run_uri=run\\1", "--software_version=1.0");
+        final List<String> lines = this.getResource("checkflags1.log");
+        final StringBuilder flags = new StringBuilder();
+        final StringBuilder features = new StringBuilder();
+
+        final int featureRows = FlagCopyLoader.appendRows(command, lines, new long[] { 11, 12 },
+                flags, features);
+
+        Assert.assertEquals(2, featureRows);
+        final String[] flagRows = flags.toString().split("\n");
+        Assert.assertEquals(2, flagRows.length);
+        final String[] flagRow = flagRows[0].split("\t");
+        Assert.assertEquals(7, flagRow.length);
+        Assert.assertEquals("11", flagRow[0]);
+        Assert.assertEquals("OverlappingEdgeCheck", flagRow[2]);
+        Assert.assertTrue(flagRow[3].contains("Overlapping way id(s) 667736690."));
+        // Backslashes are escaped, and missing values are NULL
+        Assert.assertEquals("run\\\\1", flagRow[4]);
+        Assert.assertEquals("1.0", flagRow[5]);
+        Assert.assertEquals("\\N", flagRow[6]);
+        final String[] featureRow = features.toString().split("\n")[1].split("\t");
+        Assert.assertEquals(8, featureRow.length);
+        Assert.assertEquals("12", featureRow[0]);
+        Assert.assertEquals("SRID=4326;LINESTRING(-23.1195128 66.0724926,-23.1193562 66.0723139)",
+                featureRow[1]);
+        Assert.assertEquals("167709671", featureRow[2]);
+        Assert.assertEquals("167709671000005", featureRow[3]);
+        Assert.assertEquals("ISL", featureRow[4]);
+        Assert.assertTrue(featureRow[5].contains("\"highway\"=>\"residential\""));
+        Assert.assertEquals("Edge", featureRow[6]);
+    }
+
+    @Test
+    public void testMalformedFlagFailsItsChunk() throws IOException, SQLException
+    {
+        final FlagDatabaseSubCommand command = new FlagDatabaseSubCommand();
+        command.runSubcommand("--flag_path=/bad/path", "--database_url=none");
+        // A flag feature without an identifier
+        final String malformed = this.getResource("checkflags1.log").get(0)
+                .replace("\"identifier\":\"667736690000002\",", "");
+        final java.io.File flags = this.temporary.newFile("malformed.log");
+        Files.write(flags.toPath(), malformed.getBytes(StandardCharsets.UTF_8));
+
+        final DatabaseConnection database = Mockito.mock(DatabaseConnection.class);
+        final Connection connection = Mockito.mock(Connection.class);
+        final PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        final ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(database.getConnection()).thenReturn(connection);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+        Mockito.when(statement.executeQuery()).thenReturn(resultSet);
+        Mockito.when(resultSet.next()).thenReturn(true, false);
+        Mockito.when(resultSet.getLong(1)).thenReturn(1L);
+
+        final FlagCopyLoader loader = new FlagCopyLoader(database, 1, command);
+        loader.load(new File(flags.getPath()), LogOutputFileType.LOG);
+        loader.close();
+
+        Assert.assertTrue(loader.hasFailures());
+        Mockito.verify(connection).rollback();
+        Mockito.verify(connection, Mockito.never()).commit();
+    }
+
+    @Test
+    public void testEscapedRow()
+    {
+        final StringBuilder data = new StringBuilder();
+        FlagCopyLoader.appendRow(data, 1L, "a\tb\nc\\d\re", null);
+        Assert.assertEquals("1\ta\\tb\\nc\\\\d\\re\t\\N\n", data.toString());
+    }
+
+    @Test
+    public void testGeometry()
+    {
+        Assert.assertEquals("SRID=4326;POINT(1.5 2)",
+                FlagCopyLoader.geometry(json("{\"type\":\"Point\",\"coordinates\":[1.5,2]}")));
+        Assert.assertEquals("SRID=4326;POLYGON((0 0,1 0,1 1,0 0))", FlagCopyLoader.geometry(json(
+                "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[1,1],[0,0]]]}")));
+        Assert.assertEquals("SRID=4326;MULTIPOLYGON(((0 0,1 0,1 1,0 0)),((2 2,3 2,3 3,2 2)))",
+                FlagCopyLoader.geometry(json("{\"type\":\"MultiPolygon\",\"coordinates\":"
+                        + "[[[[0,0],[1,0],[1,1],[0,0]]],[[[2,2],[3,2],[3,3],[2,2]]]]}")));
+        Assert.assertEquals("SRID=4326;GEOMETRYCOLLECTION(POINT(1 2),LINESTRING(0 0,1 1))",
+                FlagCopyLoader.geometry(json("{\"type\":\"GeometryCollection\",\"geometries\":["
+                        + "{\"type\":\"Point\",\"coordinates\":[1,2]},"
+                        + "{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}]}")));
+        Assert.assertEquals("SRID=4326;LINESTRING EMPTY", FlagCopyLoader
+                .geometry(json("{\"type\":\"LineString\",\"coordinates\":[]}")));
+    }
+
+    @Test
+    public void testHstore()
+    {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("name", "The \"Quoted\" Road");
+        tags.put("note", "back\\slash");
+        Assert.assertEquals("\"name\"=>\"The \\\"Quoted\\\" Road\", \"note\"=>\"back\\\\slash\"",
+                FlagCopyLoader.hstore(tags));
+        Assert.assertEquals("", FlagCopyLoader.hstore(new LinkedHashMap<>()));
+    }
+
+    private List<String> getResource(final String resource) throws IOException
+    {
+        try (BufferedReader reader = new BufferedReader(
+                new FileReader(CheckFlagTest.class.getResource(resource).getFile())))
+        {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.io.FilenameUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.packed.PackedAtlasBuilder;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
+import org.openstreetmap.atlas.streaming.resource.File;
+import org.openstreetmap.atlas.streaming.resource.Resource;
+
+/**
+ * Tests for {@link ExecutorAtlasCache}
+ *
+ * @author agent
+ */
+public class ExecutorAtlasCacheTest
+{
+    private static final String COUNTRY = "ABC";
+    private static final Shard SHARD_A = new SlippyTile(0, 0, 1);
+    private static final Shard SHARD_B = new SlippyTile(1, 0, 1);
+    private static final Shard SHARD_C = new SlippyTile(0, 1, 1);
+    private static final Shard MISSING_SHARD = new SlippyTile(1, 1, 1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private Function<Shard, Optional<Resource>> resources;
+    private long atlasFileSize;
+
+    @Before
+    public void saveAtlases()
+    {
+        final PackedAtlasBuilder builder = new PackedAtlasBuilder();
+        builder.addPoint(1L, Location.forString("1,1"), new HashMap<>());
+        // The same atlas for every shard, so that all the files have the same size
+        final Atlas atlas = builder.get();
+        for (final Shard shard : new Shard[] { SHARD_A, SHARD_B, SHARD_C })
+        {
+            final File file = this.file(shard);
+            atlas.save(file);
+            this.atlasFileSize = file.length();
+        }
+        this.resources = shard ->
+        {
+            this.loads.incrementAndGet();
+            final File file = this.file(shard);
+            return file.exists() ? Optional.of(file) : Optional.empty();
+        };
+    }
+
+    @Test
+    public void testFailedLoadIsRetriedByWaitingTask()
+            throws InterruptedException, ExecutionException
+    {
+        final ExecutorAtlasCache cache = new ExecutorAtlasCache(Long.MAX_VALUE);
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final ExecutorService tasks = Executors.newFixedThreadPool(2);
+        try
+        {
+            // The first task fails to load the atlas once the second one waits for it
+            final Future<?> failing = tasks.submit(() ->
+            {
+                try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, shard ->
+                {
+                    try
+                    {
+                        waiting.await();
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new CoreException("Unable to load {}", shard.getName());
+                }))
+                {
+                    lease.apply(SHARD_A);
+                }
+            });
+            while (cache.missCount() == 0)
+            {
+                Thread.sleep(1);
+            }
+            final Future<Boolean> waitingTask = tasks.submit(() ->
+            {
+                try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+                {
+                    return lease.apply(SHARD_A).isPresent();
+                }
+            });
+            while (cache.hitCount() == 0)
+            {
+                Thread.sleep(1);
+            }
+            waiting.countDown();
+
+            try
+            {
+                failing.get();
+                Assert.fail("The first load should fail");
+            }
+            catch (final ExecutionException e)
+            {
+                Assert.assertTrue(e.getCause() instanceof CoreException);
+            }
+            Assert.assertTrue(waitingTask.get());
+        }
+        finally
+        {
+            tasks.shutdownNow();
+            tasks.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        // The atlas loaded by the waiting task is cached and counted, and can be evicted
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(this.atlasFileSize, cache.bytes());
+        try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+        {
+            Assert.assertTrue(lease.apply(SHARD_A).isPresent());
+            Assert.assertEquals(1, lease.hitCount());
+        }
+    }
+
+    @Test
+    public void testHitsAndMisses()
+    {
+        final ExecutorAtlasCache cache = new ExecutorAtlasCache(Long.MAX_VALUE);
+        try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+        {
+            Assert.assertTrue(lease.apply(SHARD_A).isPresent());
+            Assert.assertTrue(lease.apply(SHARD_A).isPresent());
+            Assert.assertFalse(lease.apply(MISSING_SHARD).isPresent());
+            Assert.assertEquals(1, lease.hitCount());
+            Assert.assertEquals(2, lease.missCount());
+        }
+        try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+        {
+            Assert.assertTrue(lease.apply(SHARD_A).isPresent());
+            Assert.assertFalse(lease.apply(MISSING_SHARD).isPresent());
+            Assert.assertEquals(2, lease.hitCount());
+            Assert.assertEquals(0, lease.missCount());
+        }
+        // Each shard was looked up once, missing ones included
+        Assert.assertEquals(2, this.loads.get());
+        Assert.assertEquals(3, cache.hitCount());
+        Assert.assertEquals(2, cache.missCount());
+        Assert.assertEquals(this.atlasFileSize, cache.bytes());
+    }
+
+    @Test
+    public void testInUseAtlasesAreNotEvicted()
+    {
+        final ExecutorAtlasCache cache = new ExecutorAtlasCache(1L);
+        final ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources);
+        lease.apply(SHARD_A);
+        lease.apply(SHARD_B);
+        // Over its bound, but both atlases are in use
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(0, cache.evictionCount());
+
+        lease.close();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(2, cache.evictionCount());
+        Assert.assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAtlasIsEvicted()
+    {
+        final ExecutorAtlasCache cache = new ExecutorAtlasCache(2 * this.atlasFileSize);
+        try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+        {
+            lease.apply(SHARD_A);
+            lease.apply(SHARD_B);
+        }
+        try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+        {
+            lease.apply(SHARD_A);
+            // Evicts the atlas of shard B, used less recently than the one of shard A
+            lease.apply(SHARD_C);
+        }
+        Assert.assertEquals(1, cache.evictionCount());
+
+        try (ExecutorAtlasCache.Lease lease = cache.lease(COUNTRY, this.resources))
+        {
+            lease.apply(SHARD_A);
+            lease.apply(SHARD_B);
+            Assert.assertEquals(1, lease.hitCount());
+            Assert.assertEquals(1, lease.missCount());
+        }
+    }
+
+    private File file(final Shard shard)
+    {
+        return new File(FilenameUtils.concat(this.folder.getRoot().getAbsolutePath(),
+                String.format("%s_%s.atlas", COUNTRY, shard.getName())));
+    }
+}
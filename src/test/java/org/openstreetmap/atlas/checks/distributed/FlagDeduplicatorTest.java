@@ -0,0 +1,89 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+
+import scala.Tuple2;
+
+/**
+ * Tests for {@link FlagDeduplicator}
+ *
+ * @author agent
+ */
+public class FlagDeduplicatorTest
+{
+    private static UniqueCheckFlagContainer container(final String checkName,
+            final String... uniqueIdentifiers)
+    {
+        return new UniqueCheckFlagContainer(checkName,
+                new LinkedHashSet<>(Arrays.asList(uniqueIdentifiers)), new CheckFlag("1"));
+    }
+
+    private static List<Tuple2<Long, Long>> keys(final UniqueCheckFlagContainer... flags)
+    {
+        return Arrays.stream(flags).map(FlagDeduplicator::key).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testDeduplicateAcrossPartitions()
+    {
+        final SparkConf configuration = new SparkConf().setMaster("local[2]")
+                .setAppName(FlagDeduplicatorTest.class.getSimpleName());
+        try (JavaSparkContext context = new JavaSparkContext(configuration))
+        {
+            // The same flag in the first and third partitions, and another flag twice in the
+            // second partition
+            final JavaRDD<UniqueCheckFlagContainer> flags = context.parallelize(Arrays.asList(
+                    container("Check", "Area1"), container("Check", "Area2"),
+                    container("Check", "Area3"), container("Check", "Area3"),
+                    container("Check", "Area1"), container("OtherCheck", "Area1")), 3);
+
+            final List<List<UniqueCheckFlagContainer>> partitions = FlagDeduplicator
+                    .deduplicateAcrossPartitions(
+                            FlagDeduplicator.deduplicateWithinPartitions(flags))
+                    .glom().collect();
+            Assert.assertEquals(3, partitions.size());
+            // The flag is kept by the partition of lowest index only
+            Assert.assertEquals(keys(container("Check", "Area1"), container("Check", "Area2")),
+                    keys(partitions.get(0).toArray(new UniqueCheckFlagContainer[0])));
+            Assert.assertEquals(keys(container("Check", "Area3")),
+                    keys(partitions.get(1).toArray(new UniqueCheckFlagContainer[0])));
+            // Distinct flags of other checks on the same features are kept
+            Assert.assertEquals(keys(container("OtherCheck", "Area1")),
+                    keys(partitions.get(2).toArray(new UniqueCheckFlagContainer[0])));
+        }
+    }
+
+    @Test
+    public void testKeyIgnoresIdentifierOrder()
+    {
+        Assert.assertEquals(FlagDeduplicator.key(container("Check", "Area1", "Area2")),
+                FlagDeduplicator.key(container("Check", "Area2", "Area1")));
+    }
+
+    @Test
+    public void testKeysOfDifferentFlags()
+    {
+        Assert.assertEquals(4,
+                new HashSet<>(Arrays.asList(
+                        FlagDeduplicator.key(container("Check", "Area1", "Area2")),
+                        FlagDeduplicator.key(container("OtherCheck", "Area1", "Area2")),
+                        FlagDeduplicator.key(container("Check", "Area1", "Area")),
+                        FlagDeduplicator.key(container("Check", "Area12")))).size());
+        Assert.assertNotEquals(FlagDeduplicator.key(container("Check", "Area1", "Area2")),
+                FlagDeduplicator.key(new UniqueCheckFlagContainer("Check",
+                        Collections.singleton("Area1Area2"), new CheckFlag("1"))));
+    }
+}
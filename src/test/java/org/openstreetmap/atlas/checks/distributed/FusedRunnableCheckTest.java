@@ -0,0 +1,111 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.checks.BaseTestCheck;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.checks.event.MetricEvent;
+import org.openstreetmap.atlas.checks.validation.EdgesTestCheck;
+import org.openstreetmap.atlas.event.EventService;
+import org.openstreetmap.atlas.event.Processor;
+import org.openstreetmap.atlas.event.ShutdownEvent;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Unit tests for {@link FusedRunnableCheck}.
+ *
+ * @author agent
+ */
+public class FusedRunnableCheckTest
+{
+    /**
+     * Collects the flags and metrics posted to an {@link EventService}
+     *
+     * @author agent
+     */
+    private static final class CollectingProcessor implements Processor<CheckFlagEvent>
+    {
+        private final Set<String> flags = ConcurrentHashMap.newKeySet();
+        private final Set<String> metrics = ConcurrentHashMap.newKeySet();
+
+        @Override
+        @Subscribe
+        public void process(final ShutdownEvent event)
+        {
+            // no-op
+        }
+
+        @Override
+        @Subscribe
+        @AllowConcurrentEvents
+        public void process(final CheckFlagEvent event)
+        {
+            this.flags.add(event.getCheckName() + event.getCheckFlag().getIdentifier());
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void process(final MetricEvent event)
+        {
+            this.metrics.add(event.getName());
+        }
+    }
+
+    private static final String COUNTRY = "UNK";
+
+    @Rule
+    public ShardedIntegrityChecksSparkJobTestRule setup = new ShardedIntegrityChecksSparkJobTestRule();
+
+    @Test
+    public void testSameOutputAsRunnableCheck()
+    {
+        final Atlas atlas = this.setup.bcAtlas();
+
+        final CollectingProcessor runnableProcessor = new CollectingProcessor();
+        final EventService runnableEventService = EventService.get("runnable");
+        runnableEventService.register(runnableProcessor);
+        for (final Check check : this.checks())
+        {
+            new RunnableCheck(COUNTRY, check,
+                    IntegrityChecksSupport.objectsToCheck(atlas, check),
+                    runnableEventService).run();
+        }
+        runnableEventService.complete();
+
+        final CollectingProcessor fusedProcessor = new CollectingProcessor();
+        final EventService fusedEventService = EventService.get("fused");
+        fusedEventService.register(fusedProcessor);
+        new FusedRunnableCheck(this.checks().stream()
+                .map(check -> new RunnableCheck(COUNTRY, check,
+                        IntegrityChecksSupport.checkSpecificObjectsToCheck(atlas, check),
+                        fusedEventService))
+                .collect(Collectors.toList()),
+                IntegrityChecksSupport.sharedObjectsToCheck(atlas, entity -> true,
+                        IntegrityChecksSupport.supportedItemTypes(this.checks())))
+                                .run();
+        fusedEventService.complete();
+
+        Assert.assertFalse(runnableProcessor.flags.isEmpty());
+        Assert.assertEquals(runnableProcessor.flags, fusedProcessor.flags);
+        Assert.assertEquals(2, fusedProcessor.metrics.size());
+        Assert.assertEquals(runnableProcessor.metrics, fusedProcessor.metrics);
+    }
+
+    private List<Check> checks()
+    {
+        return Arrays.asList(new EdgesTestCheck(ConfigurationResolver.emptyConfiguration()),
+                new BaseTestCheck(ConfigurationResolver.emptyConfiguration()));
+    }
+}
@@ -0,0 +1,150 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FilenameUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
+import org.openstreetmap.atlas.streaming.resource.File;
+
+/**
+ * Unit tests for {@link IntegrityCheckSparkJob} splitting countries in tiles. Runs the spark job
+ * with and without tiles on the same inputs and compares the output files.
+ *
+ * @author agent
+ */
+public class IntegrityCheckSparkJobTest
+{
+    private static final String COUNTRY_CODE = "UNK";
+    private static final String SHARDED_COUNTRY_CODE = "SHA";
+    private static final String UNSHARDED_COUNTRY_CODE = "NSH";
+    private static final File INPUT = File.temporaryFolder();
+    private static final File OUTPUT = File.temporaryFolder();
+    private static final File TILED_OUTPUT = File.temporaryFolder();
+
+    @Rule
+    public ShardedIntegrityChecksSparkJobTestRule setup = new ShardedIntegrityChecksSparkJobTestRule();
+
+    @AfterClass
+    public static void cleanUp()
+    {
+        INPUT.deleteRecursively();
+        OUTPUT.deleteRecursively();
+        TILED_OUTPUT.deleteRecursively();
+    }
+
+    @Test
+    public void testTiledCountry() throws IOException
+    {
+        final File countryFolder = new File(
+                FilenameUtils.concat(INPUT.getAbsolutePathString(), COUNTRY_CODE));
+        countryFolder.mkdirs();
+        // The tiles of zoom 8 are found from the zoom 7 shards the files are named after
+        this.setup.bcAtlas().save(new File(FilenameUtils
+                .concat(countryFolder.getAbsolutePathString(), COUNTRY_CODE + "_7-20-44.atlas")));
+        this.setup.nzAtlas().save(new File(FilenameUtils.concat(
+                countryFolder.getAbsolutePathString(), COUNTRY_CODE + "_7-126-80.atlas")));
+
+        this.runIntegrityCheckSparkJob(OUTPUT);
+        // A threshold of 0 splits any country, and a small buffer makes neighbouring tiles overlap
+        this.runIntegrityCheckSparkJob(TILED_OUTPUT, "-tileZoom=8", "-tileThresholdMegabytes=0",
+                "-tileBufferDistance=0.5");
+
+        // Flags of the features in more than one tile are only output once
+        final long flagCount = this.countLines(OUTPUT, "flag");
+        Assert.assertTrue(flagCount > 0);
+        Assert.assertEquals(flagCount, this.countLines(TILED_OUTPUT, "flag"));
+
+        // Metrics come per tile, named after it
+        Assert.assertTrue(TILED_OUTPUT.listFilesRecursively().stream()
+                .filter(file -> file.getName().endsWith(".csv"))
+                .allMatch(file -> file.getName().matches("8-\\d+-\\d+_check-run-time.*")));
+        Assert.assertTrue(TILED_OUTPUT.listFilesRecursively().stream()
+                .filter(file -> file.getName().endsWith(".csv")).count() >= 2);
+    }
+
+    @Test
+    public void testTilesFromShardNames()
+    {
+        final File countryFolder = new File(FilenameUtils.concat(INPUT.getAbsolutePathString(),
+                UNSHARDED_COUNTRY_CODE));
+        countryFolder.mkdirs();
+        this.setup.bcAtlas().save(new File(FilenameUtils.concat(
+                countryFolder.getAbsolutePathString(), UNSHARDED_COUNTRY_CODE + "_bc.atlas")));
+        final AtlasDataSource atlasLoader = new AtlasDataSource(new HashMap<>(),
+                ConfigurationResolver.emptyConfiguration());
+
+        // An atlas file not named after a shard is split from its bounds
+        final List<String> boundsTiles = new ArrayList<>();
+        SlippyTile.allTiles(8, this.setup.bcAtlas().bounds())
+                .forEach(tile -> boundsTiles.add(tile.getName()));
+        Collections.sort(boundsTiles);
+        Assert.assertEquals(boundsTiles,
+                atlasLoader.tiles(INPUT.getAbsolutePathString(), UNSHARDED_COUNTRY_CODE, 8).get()
+                        .stream().map(SlippyTile::getName).collect(Collectors.toList()));
+
+        final File shardedFolder = new File(
+                FilenameUtils.concat(INPUT.getAbsolutePathString(), SHARDED_COUNTRY_CODE));
+        shardedFolder.mkdirs();
+        this.setup.bcAtlas().save(new File(FilenameUtils.concat(
+                shardedFolder.getAbsolutePathString(), SHARDED_COUNTRY_CODE + "_7-20-44.atlas")));
+        Assert.assertEquals(
+                Arrays.asList("8-40-88", "8-40-89", "8-41-88", "8-41-89"),
+                atlasLoader.tiles(INPUT.getAbsolutePathString(), SHARDED_COUNTRY_CODE, 8).get()
+                        .stream().map(SlippyTile::getName).collect(Collectors.toList()));
+    }
+
+    private long countLines(final File output, final String folder) throws IOException
+    {
+        long lines = 0;
+        for (final File file : output.listFilesRecursively())
+        {
+            if (file.getAbsolutePathString().contains("/" + folder + "/")
+                    && file.getName().endsWith(".log"))
+            {
+                try (BufferedReader reader = Files.newBufferedReader(
+                        Paths.get(file.getAbsolutePathString()), StandardCharsets.UTF_8))
+                {
+                    lines += reader.lines().filter(line -> !line.trim().isEmpty()).count();
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Run {@link IntegrityCheckSparkJob} with test inputs.
+     */
+    private void runIntegrityCheckSparkJob(final File output, final String... tileArguments)
+    {
+        final String[] arguments = { String.format("-input=%s", INPUT.getAbsolutePathString()),
+                String.format("-startedFolder=%s", INPUT.getAbsolutePathString()),
+                String.format("-output=%s", output.getAbsolutePathString()),
+                "-outputFormats=flags,metrics", "-compressOutput=false",
+                String.format("-countries=%s", COUNTRY_CODE), "-saveCheckOutput=true",
+                "-cluster=local",
+                String.format("-configFiles=file:%s",
+                        IntegrityCheckSparkJobTest.class.getResource("test_configuration.json")
+                                .getPath()),
+                "-sparkOptions=spark.executor.memory->4g,spark.driver.memory->16g,spark.rdd.compress->true" };
+        final String[] allArguments = new String[arguments.length + tileArguments.length];
+        System.arraycopy(arguments, 0, allArguments, 0, arguments.length);
+        System.arraycopy(tileArguments, 0, allArguments, arguments.length,
+                tileArguments.length);
+        new IntegrityCheckSparkJob().runWithoutQuitting(allArguments);
+    }
+}
@@ -0,0 +1,113 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.geography.sharding.SlippyTileSharding;
+import org.openstreetmap.atlas.streaming.resource.File;
+
+/**
+ * Unit tests for {@link LocalIntegrityChecksRunner}. Runs the checks locally and with
+ * {@link ShardedIntegrityChecksSparkJob} on the same inputs and compares the output files.
+ *
+ * @author agent
+ */
+public class LocalIntegrityChecksRunnerTest
+{
+    private static final String COUNTRY_CODE = "UNK";
+    private static final int ZOOM_LEVEL = 4;
+    private static final File INPUT = File.temporaryFolder();
+    private static final File SPARK_OUTPUT = File.temporaryFolder();
+    private static final File LOCAL_OUTPUT = File.temporaryFolder();
+
+    @Rule
+    public ShardedIntegrityChecksSparkJobTestRule setup = new ShardedIntegrityChecksSparkJobTestRule();
+
+    @AfterClass
+    public static void cleanUp()
+    {
+        INPUT.deleteRecursively();
+        SPARK_OUTPUT.deleteRecursively();
+        LOCAL_OUTPUT.deleteRecursively();
+    }
+
+    private static String[] concat(final String[] arguments, final String... moreArguments)
+    {
+        final String[] allArguments = new String[arguments.length + moreArguments.length];
+        System.arraycopy(arguments, 0, allArguments, 0, arguments.length);
+        System.arraycopy(moreArguments, 0, allArguments, arguments.length, moreArguments.length);
+        return allArguments;
+    }
+
+    @Test
+    public void testSameOutputs() throws IOException
+    {
+        final File countryFolder = new File(
+                FilenameUtils.concat(INPUT.getAbsolutePathString(), COUNTRY_CODE));
+        countryFolder.mkdirs();
+        final SlippyTileSharding sharding = new SlippyTileSharding(ZOOM_LEVEL);
+        this.setup.bcAtlas().save(countryFolder.child(String.format("%s_%s.atlas", COUNTRY_CODE,
+                sharding.shards(this.setup.bcAtlas().bounds()).iterator().next().getName())));
+        this.setup.nzAtlas().save(countryFolder.child(String.format("%s_%s.atlas", COUNTRY_CODE,
+                sharding.shards(this.setup.nzAtlas().bounds()).iterator().next().getName())));
+
+        final String[] arguments = { String.format("-input=%s", INPUT.getAbsolutePathString()),
+                String.format("-sharding=slippy@%s", ZOOM_LEVEL),
+                "-outputFormats=flags,geojson,metrics",
+                String.format("-countries=%s", COUNTRY_CODE),
+                String.format("-configFiles=file:%s",
+                        LocalIntegrityChecksRunnerTest.class.getResource("test_configuration.json")
+                                .getPath()) };
+        new LocalIntegrityChecksRunner().runWithoutQuitting(concat(arguments,
+                String.format("-output=%s", LOCAL_OUTPUT.getAbsolutePathString()),
+                "-parallelism=2"));
+        new ShardedIntegrityChecksSparkJob().runWithoutQuitting(concat(arguments,
+                String.format("-output=%s", SPARK_OUTPUT.getAbsolutePathString()),
+                String.format("-startedFolder=%s", INPUT.getAbsolutePathString()),
+                "-cluster=local",
+                "-sparkOptions=spark.executor.memory->4g,spark.driver.memory->16g"));
+
+        final long flagCount = this.countLines(SPARK_OUTPUT.child("flag"));
+        Assert.assertTrue(flagCount > 0);
+        Assert.assertEquals(flagCount, this.countLines(LOCAL_OUTPUT.child("flag")));
+        Assert.assertTrue(LOCAL_OUTPUT.child("geojson").child(COUNTRY_CODE).exists());
+        // Metric files are named after their shard and the time they were written
+        Assert.assertEquals(this.metricShards(SPARK_OUTPUT), this.metricShards(LOCAL_OUTPUT));
+    }
+
+    private long countLines(final File folder) throws IOException
+    {
+        long lines = 0;
+        for (final File file : folder.listFilesRecursively())
+        {
+            if (file.getName().endsWith(".log.gz"))
+            {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(new FileInputStream(file.getAbsolutePathString())),
+                        StandardCharsets.UTF_8)))
+                {
+                    lines += reader.lines().filter(line -> !line.trim().isEmpty()).count();
+                }
+            }
+        }
+        return lines;
+    }
+
+    private Set<String> metricShards(final File output)
+    {
+        return output.child("metric").child(COUNTRY_CODE).listFilesRecursively().stream()
+                .map(File::getName).filter(name -> name.endsWith(".csv"))
+                .map(name -> name.substring(0, name.indexOf('_'))).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,213 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.checks.BaseTestCheck;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.checks.event.MetricEvent;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.validation.EdgesTestCheck;
+import org.openstreetmap.atlas.event.EventService;
+import org.openstreetmap.atlas.event.Processor;
+import org.openstreetmap.atlas.event.ShutdownEvent;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasObject;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
+import org.openstreetmap.atlas.utilities.collections.MultiIterable;
+import org.openstreetmap.atlas.utilities.scalars.Duration;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Unit tests for {@link RunnableCheck}.
+ *
+ * @author agent
+ */
+public class RunnableCheckTest
+{
+    /**
+     * Collects the identifiers of the flags, and the budget overruns, posted to an
+     * {@link EventService}
+     *
+     * @author agent
+     */
+    private static final class FlagCollectingProcessor implements Processor<CheckFlagEvent>
+    {
+        private final Set<String> flags = ConcurrentHashMap.newKeySet();
+        private final Set<String> budgetOverruns = ConcurrentHashMap.newKeySet();
+
+        @Override
+        @Subscribe
+        public void process(final ShutdownEvent event)
+        {
+            // no-op
+        }
+
+        @Override
+        @Subscribe
+        @AllowConcurrentEvents
+        public void process(final CheckFlagEvent event)
+        {
+            this.flags.add(event.getCheckFlag().getIdentifier());
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void process(final MetricEvent event)
+        {
+            event.getBudgetOverrun().ifPresent(this.budgetOverruns::add);
+        }
+    }
+
+    private static final String COUNTRY = "UNK";
+
+    @Rule
+    public ShardedIntegrityChecksSparkJobTestRule setup = new ShardedIntegrityChecksSparkJobTestRule();
+
+    @Test
+    public void testBudgetStopsCheck()
+    {
+        final Atlas atlas = this.setup.bcAtlas();
+
+        final FlagCollectingProcessor unbounded = this.run(atlas, null,
+                Duration.minutes(1), false, "unbounded");
+        // Objects slow enough for the check to stop after the first few
+        final FlagCollectingProcessor budgeted = this.run(atlas, null, Duration.milliseconds(10),
+                true, "budgeted");
+
+        Assert.assertTrue(unbounded.budgetOverruns.isEmpty());
+        Assert.assertEquals(1, budgeted.budgetOverruns.size());
+        Assert.assertFalse(budgeted.budgetOverruns.iterator().next().isEmpty());
+        Assert.assertTrue(budgeted.flags.size() < unbounded.flags.size());
+        Assert.assertTrue(unbounded.flags.containsAll(budgeted.flags));
+    }
+
+    @Test
+    public void testFailedChunkStopsParallelCheck()
+    {
+        final Atlas atlas = this.setup.bcAtlas();
+        final AtomicInteger checked = new AtomicInteger();
+        // Fails in the second chunk, while the other chunks are slow enough to still be running.
+        // Checks catch exceptions, so only errors fail a chunk.
+        final Check check = new EdgesTestCheck(ConfigurationResolver.emptyConfiguration())
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Optional<CheckFlag> flag(final AtlasObject object)
+            {
+                if (checked.incrementAndGet() == 1_500)
+                {
+                    throw new StackOverflowError("Failing object " + object.getIdentifier());
+                }
+                Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
+                return super.flag(object);
+            }
+        };
+        final List<AtlasObject> edges = Iterables
+                .asList(IntegrityChecksSupport.objectsToCheck(atlas, check));
+        final List<AtlasObject> objects = new ArrayList<>();
+        while (objects.size() < 10_000)
+        {
+            objects.addAll(edges);
+        }
+        final FlagCollectingProcessor processor = new FlagCollectingProcessor();
+        final EventService eventService = EventService.get("failing");
+        eventService.register(processor);
+
+        try
+        {
+            new RunnableCheck(COUNTRY, check, objects, eventService)
+                    .withForkJoinPool(new ForkJoinPool(2)).run();
+            Assert.fail("The check should fail");
+        }
+        catch (final StackOverflowError error)
+        {
+            // Expected
+        }
+        final int checkedOnFailure = checked.get();
+        Uninterruptibles.sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
+        eventService.complete();
+
+        // No chunk kept checking objects once the check failed
+        Assert.assertTrue(checkedOnFailure < objects.size());
+        Assert.assertEquals(checkedOnFailure, checked.get());
+    }
+
+    @Test
+    public void testObjectsToCheckSameAsAllEntities()
+    {
+        final Atlas atlas = this.setup.bcAtlas();
+        for (final Check check : Arrays.asList(
+                new EdgesTestCheck(ConfigurationResolver.emptyConfiguration()),
+                new BaseTestCheck(ConfigurationResolver.emptyConfiguration())))
+        {
+            // Before item type routing, each check was given all the entities and skipped the
+            // ones it does not look at
+            final Set<String> allEntities = this.identifiers(check,
+                    new MultiIterable<>(atlas.entities(), check.finder()
+                            .map(finder -> finder.find(atlas)).orElse(Collections.emptyList())));
+            final Set<String> objectsToCheck = this.identifiers(check,
+                    IntegrityChecksSupport.objectsToCheck(atlas, check));
+
+            Assert.assertFalse(allEntities.isEmpty());
+            Assert.assertEquals(allEntities, objectsToCheck);
+        }
+    }
+
+    @Test
+    public void testParallelSameOutputAsSequential()
+    {
+        final Atlas atlas = this.setup.bcAtlas();
+
+        final Set<String> sequentialFlags = this.run(atlas, null, null, false,
+                "sequential").flags;
+        final Set<String> parallelFlags = this.run(atlas, new ForkJoinPool(2), null, false,
+                "parallel").flags;
+
+        Assert.assertFalse(sequentialFlags.isEmpty());
+        Assert.assertEquals(sequentialFlags, parallelFlags);
+    }
+
+    private Set<String> identifiers(final Check check, final Iterable<AtlasObject> objects)
+    {
+        return Iterables.asList(objects).stream().filter(check::validCheckForObject)
+                .map(object -> object.getClass().getSimpleName() + object.getIdentifier())
+                .collect(Collectors.toSet());
+    }
+
+    private FlagCollectingProcessor run(final Atlas atlas, final ForkJoinPool forkJoinPool,
+            final Duration budget, final boolean slowObjects, final String eventServiceKey)
+    {
+        final Check check = new EdgesTestCheck(ConfigurationResolver.emptyConfiguration());
+        final FlagCollectingProcessor processor = new FlagCollectingProcessor();
+        final EventService eventService = EventService.get(eventServiceKey);
+        eventService.register(processor);
+        final Iterable<AtlasObject> objects = IntegrityChecksSupport
+                .objectsToCheck(atlas, check);
+        new RunnableCheck(COUNTRY, check, slowObjects ? Iterables.translate(objects, object ->
+        {
+            Uninterruptibles.sleepUninterruptibly(2, TimeUnit.MILLISECONDS);
+            return object;
+        }) : objects, eventService).withForkJoinPool(forkJoinPool).withBudget(budget).run();
+        eventService.complete();
+        return processor;
+    }
+}
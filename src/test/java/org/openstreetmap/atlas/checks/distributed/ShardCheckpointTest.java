@@ -0,0 +1,222 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
+import org.openstreetmap.atlas.utilities.configuration.Configuration;
+
+/**
+ * Tests for {@link ShardCheckpoint}
+ *
+ * @author agent
+ */
+public class ShardCheckpointTest
+{
+    private static final String COUNTRY = "ABC";
+    private static final Shard SHARD = new SlippyTile(0, 0, 1);
+    private static final Shard NEIGHBOUR = new SlippyTile(1, 0, 1);
+    private static final List<String> CHECK_NAMES = Collections.singletonList("SomeCheck");
+    private static final String CHECKS = "SomeChecks";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static UniqueCheckFlagContainer container()
+    {
+        final CheckFlag flag = new CheckFlag("1");
+        flag.addPoint(Location.forString("1,1"));
+        return new UniqueCheckFlagContainer("SomeCheck", Collections.singleton("1"), flag);
+    }
+
+    private String input;
+    private String output;
+    private String metricFolder;
+
+    @Before
+    public void createFolders() throws IOException
+    {
+        this.input = this.folder.newFolder("input").getAbsolutePath();
+        this.output = this.folder.newFolder("output").getAbsolutePath();
+        this.metricFolder = this.folder.newFolder("output", "metric", COUNTRY).getAbsolutePath();
+        this.folder.newFolder("input", COUNTRY);
+        this.writeAtlasFile(SHARD, "shard");
+        this.writeAtlasFile(NEIGHBOUR, "neighbour");
+    }
+
+    @Test
+    public void testCommitReplacesMetricFiles() throws IOException
+    {
+        final ShardCheckpoint checkpoint = new ShardCheckpoint(this.output, new HashMap<>(),
+                false);
+        this.writeFile(this.metricFolder, SHARD.getName() + "_check-run-time-1.csv");
+        this.writeFile(this.metricFolder, NEIGHBOUR.getName() + "_check-run-time-1.csv");
+        final String stagingFolder = checkpoint.stagingFolder(COUNTRY, SHARD);
+        Files.createDirectories(new File(stagingFolder).toPath());
+        this.writeFile(stagingFolder, SHARD.getName() + "_check-run-time-2.csv");
+
+        checkpoint.commit(COUNTRY, SHARD, "fingerprint", Collections.emptyList(), stagingFolder);
+        Assert.assertEquals(
+                Arrays.asList(SHARD.getName() + "_check-run-time-2.csv",
+                        NEIGHBOUR.getName() + "_check-run-time-1.csv"),
+                Arrays.stream(new File(this.metricFolder).list()).sorted()
+                        .collect(Collectors.toList()));
+        Assert.assertFalse(new File(stagingFolder).exists());
+    }
+
+    @Test
+    public void testChecksFingerprint()
+    {
+        final Configuration configuration = ConfigurationResolver.inlineConfiguration(
+                "{\"SomeCheck\":{\"a\":1,\"b\":[\"x\"]},\"OtherCheck\":{\"a\":2}}");
+        final String fingerprint = ShardCheckpoint.checksFingerprint(configuration, CHECK_NAMES);
+        // The order of the keys does not matter
+        Assert.assertEquals(fingerprint,
+                ShardCheckpoint.checksFingerprint(ConfigurationResolver.inlineConfiguration(
+                        "{\"OtherCheck\":{\"a\":2},\"SomeCheck\":{\"b\":[\"x\"],\"a\":1}}"),
+                        CHECK_NAMES));
+        // The configuration of the checks not run does not matter
+        Assert.assertEquals(fingerprint,
+                ShardCheckpoint.checksFingerprint(ConfigurationResolver.inlineConfiguration(
+                        "{\"SomeCheck\":{\"a\":1,\"b\":[\"x\"]},\"OtherCheck\":{\"a\":3}}"),
+                        CHECK_NAMES));
+        Assert.assertNotEquals(fingerprint,
+                ShardCheckpoint.checksFingerprint(ConfigurationResolver.inlineConfiguration(
+                        "{\"SomeCheck\":{\"a\":1,\"b\":[\"y\"]},\"OtherCheck\":{\"a\":2}}"),
+                        CHECK_NAMES));
+        Assert.assertNotEquals(fingerprint, ShardCheckpoint.checksFingerprint(configuration,
+                Arrays.asList("SomeCheck", "OtherCheck")));
+    }
+
+    @Test
+    public void testFingerprint() throws IOException
+    {
+        final ShardCheckpoint checkpoint = new ShardCheckpoint(this.output, new HashMap<>(),
+                false);
+        final List<Shard> shards = Arrays.asList(SHARD, NEIGHBOUR);
+        final String fingerprint = checkpoint.fingerprint(this.input, COUNTRY, shards, CHECKS);
+        Assert.assertEquals(fingerprint,
+                checkpoint.fingerprint(this.input, COUNTRY, shards, CHECKS));
+        Assert.assertNotEquals(fingerprint,
+                checkpoint.fingerprint(this.input, COUNTRY, shards, "OtherChecks"));
+        Assert.assertNotEquals(fingerprint, checkpoint.fingerprint(this.input, COUNTRY,
+                Collections.singletonList(SHARD), CHECKS));
+
+        // Without checksums, files are fingerprinted from their length and modification time,
+        // without reading them
+        final File neighbour = new File(this.input + "/" + COUNTRY,
+                String.format("%s_%s.atlas", COUNTRY, NEIGHBOUR.getName()));
+        final long modified = neighbour.lastModified();
+        this.writeAtlasFile(NEIGHBOUR, "neighbour");
+        Assert.assertTrue(neighbour.setLastModified(modified));
+        Assert.assertEquals(fingerprint,
+                checkpoint.fingerprint(this.input, COUNTRY, shards, CHECKS));
+        Assert.assertTrue(neighbour.setLastModified(modified + 1000));
+        Assert.assertNotEquals(fingerprint,
+                checkpoint.fingerprint(this.input, COUNTRY, shards, CHECKS));
+        this.writeAtlasFile(NEIGHBOUR, "neighbours");
+        Assert.assertTrue(neighbour.setLastModified(modified));
+        Assert.assertNotEquals(fingerprint,
+                checkpoint.fingerprint(this.input, COUNTRY, shards, CHECKS));
+    }
+
+    @Test
+    public void testIncremental() throws IOException
+    {
+        final UniqueCheckFlagContainer container = container();
+        final ShardCheckpoint previous = new ShardCheckpoint(this.output, new HashMap<>(), false);
+        final String stagingFolder = previous.stagingFolder(COUNTRY, SHARD);
+        Files.createDirectories(new File(stagingFolder).toPath());
+        this.writeFile(stagingFolder, SHARD.getName() + "_check-run-time-1.csv");
+        previous.commit(COUNTRY, SHARD, "fingerprint", Collections.singletonList(container),
+                stagingFolder);
+
+        final String nextOutput = this.folder.newFolder("next").getAbsolutePath();
+        final ShardCheckpoint incremental = new ShardCheckpoint(nextOutput, new HashMap<>(),
+                false, this.output);
+        Assert.assertFalse(incremental.reusedFlags(COUNTRY, SHARD, "changed").isPresent());
+        Assert.assertEquals(Optional.of(Collections.singletonList(container)),
+                incremental.reusedFlags(COUNTRY, SHARD, "fingerprint"));
+
+        // Carried over to the next output, for the runs after it
+        Assert.assertTrue(
+                new File(nextOutput, "metric/" + COUNTRY + "/" + SHARD.getName()
+                        + "_check-run-time-1.csv").exists());
+        Assert.assertEquals(Optional.of(Collections.singletonList(container)),
+                new ShardCheckpoint(nextOutput, new HashMap<>(), true).reusedFlags(COUNTRY,
+                        SHARD, "fingerprint"));
+    }
+
+    @Test
+    public void testOutputs() throws IOException
+    {
+        final ShardCheckpoint checkpoint = new ShardCheckpoint(this.output, new HashMap<>(),
+                true);
+        final File flagFolder = this.folder.newFolder("output", "flag", COUNTRY);
+        this.writeFile(flagFolder.getAbsolutePath(), COUNTRY + "-1.log");
+        this.writeFile(this.metricFolder, SHARD.getName() + "_check-run-time-1.csv");
+        Assert.assertFalse(checkpoint.outputsCommitted(COUNTRY));
+
+        checkpoint.commitOutputs(COUNTRY);
+        Assert.assertTrue(checkpoint.outputsCommitted(COUNTRY));
+
+        // Clearing deletes the flag outputs and their marker, but not the metric files
+        checkpoint.clearOutputs(COUNTRY);
+        Assert.assertFalse(checkpoint.outputsCommitted(COUNTRY));
+        Assert.assertFalse(flagFolder.exists());
+        Assert.assertEquals(1, new File(this.metricFolder).list().length);
+    }
+
+    @Test
+    public void testResume()
+    {
+        final UniqueCheckFlagContainer container = container();
+        new ShardCheckpoint(this.output, new HashMap<>(), false).commit(COUNTRY, SHARD,
+                "fingerprint", Collections.singletonList(container),
+                this.folder.getRoot().getAbsolutePath() + "/missing");
+
+        final ShardCheckpoint resumed = new ShardCheckpoint(this.output, new HashMap<>(), true);
+        Assert.assertEquals(Optional.of(Collections.singletonList(container)),
+                resumed.reusedFlags(COUNTRY, SHARD, "fingerprint"));
+        Assert.assertFalse(resumed.reusedFlags(COUNTRY, SHARD, "other").isPresent());
+        Assert.assertFalse(resumed.reusedFlags(COUNTRY, NEIGHBOUR, "fingerprint").isPresent());
+        Assert.assertFalse(new ShardCheckpoint(this.output, new HashMap<>(), false)
+                .reusedFlags(COUNTRY, SHARD, "fingerprint").isPresent());
+    }
+
+    private void writeAtlasFile(final Shard shard, final String content) throws IOException
+    {
+        this.writeFile(this.input + "/" + COUNTRY,
+                String.format("%s_%s.atlas", COUNTRY, shard.getName()), content);
+    }
+
+    private void writeFile(final String directory, final String name) throws IOException
+    {
+        this.writeFile(directory, name, name);
+    }
+
+    private void writeFile(final String directory, final String name, final String content)
+            throws IOException
+    {
+        Files.write(new File(directory, name).toPath(),
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+}
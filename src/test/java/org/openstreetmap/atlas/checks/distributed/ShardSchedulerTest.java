@@ -0,0 +1,151 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.atlas.geography.sharding.Shard;
+import org.openstreetmap.atlas.geography.sharding.SlippyTile;
+
+/**
+ * Unit tests for {@link ShardScheduler}.
+ *
+ * @author agent
+ */
+public class ShardSchedulerTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAtlasFileSizes() throws IOException
+    {
+        Files.write(this.folder.newFile("ABC_1-2-3.atlas").toPath(), new byte[10]);
+        Files.write(this.folder.newFile("ABC_1-2-4.atlas").toPath(), new byte[20]);
+        Files.write(this.folder.newFile("DEF_1-2-5.atlas").toPath(), new byte[30]);
+        this.folder.newFile("sharding.txt");
+
+        final Map<String, Long> sizes = ShardScheduler
+                .atlasFileSizes(this.folder.getRoot().getAbsolutePath(), "ABC", new HashMap<>());
+        Assert.assertEquals(2, sizes.size());
+        Assert.assertEquals(Long.valueOf(10), sizes.get("1-2-3"));
+        Assert.assertEquals(Long.valueOf(20), sizes.get("1-2-4"));
+    }
+
+    @Test
+    public void testEstimateCostsFromRunTimesAndSizes()
+    {
+        final Map<String, Long> sizes = new HashMap<>();
+        sizes.put("a", 100L);
+        sizes.put("b", 300L);
+        final Map<String, Long> runTimes = Collections.singletonMap("a", 50L);
+
+        final Map<String, Double> costs = ShardScheduler.estimateCosts(
+                Arrays.asList("a", "b", "c"), sizes, runTimes);
+        Assert.assertEquals(50.0, costs.get("a"), 0.0);
+        // Scaled by the run time per byte of shard a
+        Assert.assertEquals(150.0, costs.get("b"), 0.0);
+        // Neither size nor run time, gets the average
+        Assert.assertEquals(100.0, costs.get("c"), 0.0);
+    }
+
+    @Test
+    public void testEstimateCostsFromSizesOnly()
+    {
+        final Map<String, Double> costs = ShardScheduler.estimateCosts(Arrays.asList("a", "b"),
+                Collections.singletonMap("a", 100L), Collections.emptyMap());
+        Assert.assertEquals(100.0, costs.get("a"), 0.0);
+        Assert.assertEquals(100.0, costs.get("b"), 0.0);
+    }
+
+    @Test
+    public void testPreviousRunTimes() throws IOException
+    {
+        Files.write(this.folder.newFile("1-2-3_check-run-time-1000.csv").toPath(),
+                Arrays.asList("CheckA,10", "CheckB,15"), StandardCharsets.UTF_8);
+        Files.write(this.folder.newFile("1-2-4_check-run-time-1000.csv").toPath(),
+                Arrays.asList(
+                        "name,duration (ms),offered,filtered out,flagged,filter time (ms),flag time (ms),latency histogram (ns upper bound:count),slowest objects (id:ns)",
+                        "CheckA,7,1,0,1,2,3,,"),
+                StandardCharsets.UTF_8);
+
+        final Map<String, Long> runTimes = ShardScheduler
+                .previousRunTimes(this.folder.getRoot().getAbsolutePath(), new HashMap<>());
+        Assert.assertEquals(Long.valueOf(25), runTimes.get("1-2-3"));
+        Assert.assertEquals(Long.valueOf(7), runTimes.get("1-2-4"));
+    }
+
+    @Test
+    public void testPreviousRunTimesMissingFolder()
+    {
+        Assert.assertTrue(ShardScheduler.previousRunTimes(
+                this.folder.getRoot().getAbsolutePath() + "/missing", new HashMap<>()).isEmpty());
+    }
+
+    @Test
+    public void testSchedule()
+    {
+        final Map<String, Double> costs = new HashMap<>();
+        costs.put("big", 10.0);
+        costs.put("medium", 4.0);
+        costs.put("small1", 2.0);
+        costs.put("small2", 2.0);
+        costs.put("small3", 1.0);
+        costs.put("small4", 1.0);
+
+        final List<List<String>> partitions = ShardScheduler.schedule(
+                Arrays.asList("small1", "small3", "big", "small2", "medium", "small4"),
+                costs::get, 2);
+        // The fair share is 10, the big shard runs alone and first
+        Assert.assertEquals(2, partitions.size());
+        Assert.assertEquals(Collections.singletonList("big"), partitions.get(0));
+        Assert.assertEquals(Arrays.asList("medium", "small1", "small2", "small3", "small4"),
+                partitions.get(1));
+    }
+
+    @Test
+    public void testScheduleByLocality()
+    {
+        final List<Shard> northWest = Arrays.asList(new SlippyTile(0, 0, 2),
+                new SlippyTile(1, 0, 2), new SlippyTile(0, 1, 2), new SlippyTile(1, 1, 2));
+        final List<Shard> southEast = Arrays.asList(new SlippyTile(2, 2, 2),
+                new SlippyTile(3, 2, 2), new SlippyTile(2, 3, 2), new SlippyTile(3, 3, 2));
+        final List<Shard> shards = Arrays.asList(northWest.get(0), southEast.get(1),
+                northWest.get(2), southEast.get(3), southEast.get(0), northWest.get(1),
+                southEast.get(2), northWest.get(3));
+
+        final List<List<Shard>> partitions = ShardScheduler.scheduleByLocality(shards,
+                shard -> shard, 2);
+        Assert.assertEquals(2, partitions.size());
+        // Each partition holds the shards of one corner of the world
+        Assert.assertEquals(new HashSet<>(southEast), new HashSet<>(partitions.get(0)));
+        Assert.assertEquals(new HashSet<>(northWest), new HashSet<>(partitions.get(1)));
+        // Never more partitions than tasks
+        Assert.assertEquals(8, ShardScheduler.scheduleByLocality(shards, shard -> shard, 20)
+                .size());
+    }
+
+    @Test
+    public void testScheduleOrdersPartitionsByCost()
+    {
+        final Map<String, Double> costs = new HashMap<>();
+        costs.put("a", 1.0);
+        costs.put("b", 5.0);
+        costs.put("c", 3.0);
+
+        final List<List<String>> partitions = ShardScheduler.schedule(Arrays.asList("a", "b", "c"),
+                costs::get, 3);
+        Assert.assertEquals(Arrays.asList(Collections.singletonList("b"),
+                Collections.singletonList("c"), Collections.singletonList("a")), partitions);
+    }
+}
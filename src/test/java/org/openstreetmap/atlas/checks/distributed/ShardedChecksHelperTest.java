@@ -0,0 +1,61 @@
+package org.openstreetmap.atlas.checks.distributed;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.base.Check;
+import org.openstreetmap.atlas.checks.base.checks.BaseTestCheck;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.validation.linear.edges.SinkIslandCheck;
+import org.openstreetmap.atlas.checks.validation.linear.edges.SnakeRoadCheck;
+import org.openstreetmap.atlas.checks.validation.points.DuplicateNodeCheck;
+import org.openstreetmap.atlas.checks.validation.tag.InvalidTagsCheck;
+import org.openstreetmap.atlas.utilities.configuration.Configuration;
+import org.openstreetmap.atlas.utilities.scalars.Distance;
+
+/**
+ * Unit tests for {@link ShardedChecksHelper}
+ *
+ * @author agent
+ */
+public class ShardedChecksHelperTest
+{
+    @Test
+    public void contextGroupsTest()
+    {
+        final Distance defaultDistance = Distance.kilometers(1);
+        final Configuration configuration = ConfigurationResolver.inlineConfiguration(
+                "{\"SnakeRoadCheck\":{\"context.radius.kilometers\":2.0}}");
+        final Check duplicateNodes = new DuplicateNodeCheck(configuration);
+        final Check invalidTags = new InvalidTagsCheck(configuration);
+        final Check sinkIslands = new SinkIslandCheck(configuration);
+        final Check snakeRoads = new SnakeRoadCheck(configuration);
+        final Check undeclared = new BaseTestCheck(configuration);
+
+        final SortedMap<Distance, List<Check>> groups = ShardedChecksHelper.contextGroups(
+                Arrays.asList(duplicateNodes, invalidTags, sinkIslands, snakeRoads, undeclared),
+                defaultDistance);
+        Assert.assertEquals(Arrays.asList(duplicateNodes, invalidTags),
+                groups.get(Distance.ZERO));
+        // Checks that do not declare a radius get the default distance
+        Assert.assertEquals(Collections.singletonList(undeclared), groups.get(defaultDistance));
+        // The configuration overrides the radius of the check
+        Assert.assertEquals(Collections.singletonList(snakeRoads),
+                groups.get(Distance.kilometers(2)));
+        // Unbounded contexts come last, so that the shard is loaded for them
+        Assert.assertTrue(ShardedChecksHelper.isUnbounded(groups.lastKey()));
+        Assert.assertEquals(Collections.singletonList(sinkIslands), groups.get(groups.lastKey()));
+        Assert.assertEquals(4, groups.size());
+
+        Assert.assertEquals(Collections.singleton(Distance.ZERO), ShardedChecksHelper
+                .contextGroups(Arrays.asList(duplicateNodes, invalidTags), defaultDistance)
+                .keySet());
+        Assert.assertEquals(Collections.singleton(defaultDistance), ShardedChecksHelper
+                .contextGroups(Collections.emptyList(), defaultDistance).keySet());
+        Assert.assertFalse(ShardedChecksHelper.isUnbounded(Distance.kilometers(2)));
+    }
+}
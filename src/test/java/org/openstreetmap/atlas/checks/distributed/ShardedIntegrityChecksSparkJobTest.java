@@ -5,6 +5,11 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -13,6 +18,7 @@ import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
 import org.openstreetmap.atlas.geography.sharding.SlippyTileSharding;
 import org.openstreetmap.atlas.streaming.resource.File;
 
@@ -28,6 +34,10 @@ public class ShardedIntegrityChecksSparkJobTest
     private static final int ZOOM_LEVEL = 4;
     private static final File INPUT = File.temporaryFolder();
     private static final File OUTPUT = File.temporaryFolder();
+    private static final String FIRST_COUNTRY_CODE = "AAA";
+    private static final String SECOND_COUNTRY_CODE = "BBB";
+    private static final File RESUMED_INPUT = File.temporaryFolder();
+    private static final File RESUMED_OUTPUT = File.temporaryFolder();
 
     @Rule
     public ShardedIntegrityChecksSparkJobTestRule setup = new ShardedIntegrityChecksSparkJobTestRule();
@@ -37,6 +47,8 @@ public class ShardedIntegrityChecksSparkJobTest
     {
         INPUT.deleteRecursively();
         OUTPUT.deleteRecursively();
+        RESUMED_INPUT.deleteRecursively();
+        RESUMED_OUTPUT.deleteRecursively();
     }
 
     @Test
@@ -76,6 +88,33 @@ public class ShardedIntegrityChecksSparkJobTest
                 .stream().filter(file -> file.getName().endsWith(".csv")).count());
     }
 
+    @Test
+    public void resumeTest() throws IOException
+    {
+        this.saveAtlas(this.setup.bcAtlas(), FIRST_COUNTRY_CODE);
+        this.saveAtlas(this.setup.nzAtlas(), SECOND_COUNTRY_CODE);
+
+        // A run killed after its first country, in the middle of writing the flags of the second
+        this.runShardedIntegrityChecksSparkJob(RESUMED_INPUT, RESUMED_OUTPUT, FIRST_COUNTRY_CODE,
+                "-checkpoint=true");
+        final List<String> firstFlags = this.flagLines(FIRST_COUNTRY_CODE);
+        Assert.assertFalse(firstFlags.isEmpty());
+        final File partialFolder = RESUMED_OUTPUT.child("flag").child(SECOND_COUNTRY_CODE);
+        partialFolder.mkdirs();
+        final File partialFlags = partialFolder.child(SECOND_COUNTRY_CODE + "-partial.log");
+        partialFlags.writeAndClose("{\"partial\":true}\n");
+
+        this.runShardedIntegrityChecksSparkJob(RESUMED_INPUT, RESUMED_OUTPUT,
+                FIRST_COUNTRY_CODE + "," + SECOND_COUNTRY_CODE, "-resume=true");
+
+        // The first country is not output again, and the second is output once
+        Assert.assertEquals(firstFlags, this.flagLines(FIRST_COUNTRY_CODE));
+        Assert.assertFalse(partialFlags.exists());
+        final List<String> secondFlags = this.flagLines(SECOND_COUNTRY_CODE);
+        Assert.assertFalse(secondFlags.isEmpty());
+        Assert.assertEquals(new HashSet<>(secondFlags).size(), secondFlags.size());
+    }
+
     @Test
     public void tippecanoeTest()
     {
@@ -84,6 +123,22 @@ public class ShardedIntegrityChecksSparkJobTest
         Assert.assertTrue(OUTPUT.child("tippecanoe").child(COUNTRY_CODE).exists());
     }
 
+    private List<String> flagLines(final String country) throws IOException
+    {
+        final List<String> lines = new ArrayList<>();
+        for (final File file : RESUMED_OUTPUT.child("flag").child(country)
+                .listFilesRecursively())
+        {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(file.getAbsolutePathString()), StandardCharsets.UTF_8)))
+            {
+                reader.lines().filter(line -> !line.trim().isEmpty()).forEach(lines::add);
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
     /**
      * Generate test atlas files with the correct sharding zoom level.
      */
@@ -105,6 +160,18 @@ public class ShardedIntegrityChecksSparkJobTest
                                 .iterator().next().getName()))));
     }
 
+    /**
+     * Save an atlas to the resumed input, as the single shard of a country
+     */
+    private void saveAtlas(final Atlas atlas, final String country)
+    {
+        final File countryFolder = RESUMED_INPUT.child(country);
+        countryFolder.mkdirs();
+        atlas.save(countryFolder.child(String.format("%s_%s.atlas", country,
+                new SlippyTileSharding(ZOOM_LEVEL).shards(atlas.bounds()).iterator().next()
+                        .getName())));
+    }
+
     /**
      * Generate test data and populate the input folder.
      */
@@ -122,18 +189,28 @@ public class ShardedIntegrityChecksSparkJobTest
      */
     private void runShardedIntegrityChecksSparkJob()
     {
-        final String[] arguments = { String.format("-input=%s", INPUT.getAbsolutePathString()),
-                String.format("-startedFolder=%s", INPUT.getAbsolutePathString()),
-                String.format("-output=%s", OUTPUT.getAbsolutePathString()),
+        this.runShardedIntegrityChecksSparkJob(INPUT, OUTPUT, COUNTRY_CODE);
+    }
+
+    private void runShardedIntegrityChecksSparkJob(final File input, final File output,
+            final String countries, final String... extraArguments)
+    {
+        final String[] arguments = { String.format("-input=%s", input.getAbsolutePathString()),
+                String.format("-startedFolder=%s", input.getAbsolutePathString()),
+                String.format("-output=%s", output.getAbsolutePathString()),
                 String.format("-sharding=slippy@%s", ZOOM_LEVEL), "-maxShardLoad=1",
                 "-outputFormats=flags,geojson,metrics,tippecanoe", "-compressOutput=false",
-                String.format("-countries=%s", COUNTRY_CODE), "-saveCheckOutput=true",
+                String.format("-countries=%s", countries), "-saveCheckOutput=true",
                 "-cluster=local",
                 String.format("-configFiles=file:%s",
                         ShardedIntegrityChecksSparkJobTest.class
                                 .getResource("test_configuration.json").getPath()),
                 "-sparkOptions=spark.executor.memory->4g,spark.driver.memory->16g,spark.rdd.compress->true" };
+        final String[] allArguments = new String[arguments.length + extraArguments.length];
+        System.arraycopy(arguments, 0, allArguments, 0, arguments.length);
+        System.arraycopy(extraArguments, 0, allArguments, arguments.length,
+                extraArguments.length);
 
-        new ShardedIntegrityChecksSparkJob().runWithoutQuitting(arguments);
+        new ShardedIntegrityChecksSparkJob().runWithoutQuitting(allArguments);
     }
 }
@@ -1,5 +1,8 @@
 package org.openstreetmap.atlas.checks.event;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.junit.Assert;
@@ -17,6 +20,7 @@ import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
 import org.openstreetmap.atlas.tags.LayerTag;
 import org.openstreetmap.atlas.tags.names.NameTag;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 /**
@@ -321,4 +325,63 @@ public class CheckFlagEventTest
         Assert.assertEquals("2", firstDescriptor.get("value").getAsString());
         Assert.assertEquals("1", firstDescriptor.get("originalValue").getAsString());
     }
+
+    @Test
+    public void writeGeoJsonFeatureCollectionMatchesJsonObjectTest() throws IOException
+    {
+        final Atlas atlas = this.rule.getAtlas();
+
+        final CheckFlag emptyFlag = new CheckFlag("1");
+        emptyFlag.addInstruction("No objects");
+        final CheckFlag nodeFlag = new CheckFlag("2");
+        nodeFlag.addObject(atlas.node(1), "A node");
+        final CheckFlag relationFlag = new CheckFlag("3");
+        relationFlag.addObject(atlas.relation(123), "A relation");
+        final CheckFlag mixedFlag = new CheckFlag("4");
+        mixedFlag.addObject(atlas.node(1), "A node");
+        mixedFlag.addObject(atlas.relation(123), "A relation");
+        mixedFlag.addFixSuggestion(FeatureChange.add(
+                CompleteNode.from(atlas.node(1)).withAddedTag(NameTag.KEY, "n"), atlas));
+
+        for (final CheckFlag flag : Arrays.asList(emptyFlag, nodeFlag, relationFlag, mixedFlag))
+        {
+            final CheckFlagEvent event = new CheckFlagEvent("check", flag);
+            final StringWriter writer = new StringWriter();
+            event.writeGeoJsonFeatureCollection(writer);
+            // The geometries are written directly, so compare the members regardless of order
+            Assert.assertEquals(event.toGeoJsonFeatureCollection(),
+                    new Gson().fromJson(writer.toString(), JsonObject.class));
+            Assert.assertEquals(writer.toString(), event.toString());
+
+            final StringWriter featureWriter = new StringWriter();
+            event.writeGeoJsonFeature(featureWriter);
+            Assert.assertEquals(event.toGeoJsonFeature().toString(), featureWriter.toString());
+        }
+    }
+
+    @Test
+    public void writeLineDelimitedGeoJsonFeaturesTest() throws IOException
+    {
+        final Atlas atlas = this.rule.getAtlas();
+        final CheckFlag flag = new CheckFlag("1");
+        flag.addObject(atlas.node(1), "A node");
+        flag.addObject(atlas.relation(123), "A relation");
+        final CheckFlagEvent event = new CheckFlagEvent("check", flag);
+
+        final StringWriter writer = new StringWriter();
+        event.writeLineDelimitedGeoJsonFeatures(writer, feature -> feature.addProperty("a", "b"));
+        final String[] lines = writer.toString().split("\n");
+
+        Assert.assertEquals(writer.toString(),
+                event.asLineDelimitedGeoJsonFeatures(feature -> feature.addProperty("a", "b")));
+        Assert.assertEquals(1 + flag.getFlaggedObjects().size(), lines.length);
+        final JsonObject flagFeature = new Gson().fromJson(lines[0], JsonObject.class);
+        Assert.assertEquals("check", flagFeature.getAsJsonObject("properties")
+                .get("flag:check").getAsString());
+        for (final String line : lines)
+        {
+            Assert.assertEquals("b", new Gson().fromJson(line, JsonObject.class).get("a")
+                    .getAsString());
+        }
+    }
 }
@@ -5,14 +5,17 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.openstreetmap.atlas.checks.flag.CheckFlag;
 import org.openstreetmap.atlas.event.ShutdownEvent;
 import org.openstreetmap.atlas.generator.tools.filesystem.FileSystemHelper;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.Resource;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
 
 import com.google.common.io.Files;
 import com.google.gson.Gson;
@@ -55,12 +58,98 @@ public class CheckFlagFileProcessorTest
         this.processCompleteAndValidate(BATCH_SIZE + 1);
     }
 
+    @Test
+    public void testConcurrentEvents() throws InterruptedException
+    {
+        final int threads = 4;
+        final int eventsPerThread = BATCH_SIZE + BATCH_SIZE / 2;
+        final File tempDirectory = Files.createTempDir();
+        final CheckFlagFileProcessor processor = new CheckFlagFileProcessor(
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+        processor.withCompression(false);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int thread = 0; thread < threads; thread++)
+        {
+            executor.execute(() ->
+            {
+                for (int index = 0; index < eventsPerThread; index++)
+                {
+                    processor.process(SAMPLE_EVENT);
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        processor.process(new ShutdownEvent());
+
+        final List<Resource> files = FileSystemHelper.resources(tempDirectory.getAbsolutePath(),
+                FILE_SYSTEM_CONFIG);
+        long actualEventCount = 0;
+        for (final Resource file : files)
+        {
+            final long fileEventCount = Iterables.size(file.lines());
+            Assert.assertTrue(fileEventCount <= BATCH_SIZE);
+            actualEventCount += fileEventCount;
+        }
+        Assert.assertEquals((long) threads * eventsPerThread, actualEventCount);
+        Assert.assertEquals(0, processor.getCount());
+
+        // Cleanup
+        tempDirectory.delete();
+    }
+
     @Test
     public void testOneEvent() throws IOException
     {
         this.processCompleteAndValidate(1);
     }
 
+    @Test
+    public void testPartitionInFileNames()
+    {
+        final File tempDirectory = Files.createTempDir();
+        final CheckFlagFileProcessor processor = new CheckFlagFileProcessor(
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath(), 7);
+        processor.withCompression(false);
+        processor.process(SAMPLE_EVENT);
+        processor.process(new ShutdownEvent());
+
+        final List<Resource> files = FileSystemHelper.resources(tempDirectory.getAbsolutePath(),
+                FILE_SYSTEM_CONFIG);
+        Assert.assertEquals(1, files.size());
+        Assert.assertTrue(files.get(0).getName().matches("\\d+P7-0-1\\.log"));
+
+        // Cleanup
+        tempDirectory.delete();
+    }
+
+    @Test
+    public void testSequenceInFileNames()
+    {
+        final File tempDirectory = Files.createTempDir();
+        final CheckFlagFileProcessor processor = new CheckFlagFileProcessor(
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+        processor.withCompression(false);
+        // Files written within the same millisecond still get their own names
+        processor.setBatchSize(1);
+        for (int index = 0; index < 5; index++)
+        {
+            processor.process(SAMPLE_EVENT);
+        }
+        processor.process(new ShutdownEvent());
+
+        // One file per event, and the empty file written at the end
+        final List<Resource> files = FileSystemHelper.resources(tempDirectory.getAbsolutePath(),
+                FILE_SYSTEM_CONFIG);
+        Assert.assertEquals(6, files.size());
+        Assert.assertTrue(files.stream()
+                .allMatch(file -> file.getName().matches("\\d+P0-\\d+-[01]\\.log")));
+
+        // Cleanup
+        tempDirectory.delete();
+    }
+
     @Test
     public void testTenEvent() throws IOException
     {
@@ -96,7 +185,7 @@ public class CheckFlagFileProcessorTest
         // Generate
         final File tempDirectory = Files.createTempDir();
         final CheckFlagFileProcessor processor = new CheckFlagFileProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
         for (int index = 0; index < eventCount; index++)
         {
             processor.process(SAMPLE_EVENT);
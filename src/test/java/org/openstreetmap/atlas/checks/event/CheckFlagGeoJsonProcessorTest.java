@@ -13,7 +13,6 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.atlas.event.ShutdownEvent;
 import org.openstreetmap.atlas.generator.tools.filesystem.FileSystemHelper;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.Resource;
 
 import com.google.common.io.Files;
@@ -68,7 +67,7 @@ public class CheckFlagGeoJsonProcessorTest
         // Generate
         final File tempDirectory = Files.createTempDir();
         final CheckFlagGeoJsonProcessor processor = new CheckFlagGeoJsonProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath())
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath())
                         .withBatchSizeOverride(25);
         for (int index = 0; index < eventCount; index++)
         {
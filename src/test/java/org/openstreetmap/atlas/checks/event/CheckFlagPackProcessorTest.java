@@ -0,0 +1,62 @@
+package org.openstreetmap.atlas.checks.event;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.atlas.checks.flag.CheckFlag;
+import org.openstreetmap.atlas.checks.flag.FlagPack;
+import org.openstreetmap.atlas.checks.flag.FlagPackReader;
+import org.openstreetmap.atlas.event.ShutdownEvent;
+
+/**
+ * Tests for {@link CheckFlagPackProcessor}.
+ *
+ * @author agent
+ */
+public class CheckFlagPackProcessorTest
+{
+    private static final Map<String, String> FILE_SYSTEM_CONFIG = new HashMap<>();
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    @Test
+    public void testNoPackWithoutFlags() throws IOException
+    {
+        final File directory = this.temporary.newFolder();
+        final CheckFlagPackProcessor processor = new CheckFlagPackProcessor(FILE_SYSTEM_CONFIG,
+                directory.getAbsolutePath());
+        processor.process(new ShutdownEvent());
+
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testPack() throws IOException
+    {
+        final File directory = this.temporary.newFolder();
+        final CheckFlagPackProcessor processor = new CheckFlagPackProcessor(FILE_SYSTEM_CONFIG,
+                directory.getAbsolutePath(), 3);
+        final CheckFlag flag = new CheckFlag("a check flag");
+        flag.addInstruction("An instruction");
+        processor.process(new CheckFlagEvent("sample-name", flag));
+        processor.process(new CheckFlagEvent("sample-name", flag));
+        processor.process(new ShutdownEvent());
+
+        final File[] packs = directory
+                .listFiles((folder, name) -> name.endsWith(FlagPack.EXTENSION));
+        Assert.assertEquals(1, packs.length);
+        Assert.assertTrue(packs[0].getName().matches("\\d+P3" + FlagPack.EXTENSION));
+        try (FlagPackReader reader = new FlagPackReader(packs[0]))
+        {
+            Assert.assertEquals(2, reader.count());
+            Assert.assertEquals(2L, reader.countsByCheck().get("sample-name").longValue());
+        }
+    }
+}
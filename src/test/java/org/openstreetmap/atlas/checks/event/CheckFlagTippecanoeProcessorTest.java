@@ -11,7 +11,6 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.atlas.event.ShutdownEvent;
 import org.openstreetmap.atlas.generator.tools.filesystem.FileSystemHelper;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.Resource;
 
 import com.google.common.io.Files;
@@ -72,7 +71,7 @@ public class CheckFlagTippecanoeProcessorTest
         final File tempDirectory = Files.createTempDir();
 
         final CheckFlagTippecanoeProcessor processor = new CheckFlagTippecanoeProcessor(
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
 
         for (int index = 0; index < eventCount; index++)
         {
@@ -12,8 +12,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.openstreetmap.atlas.event.ShutdownEvent;
 import org.openstreetmap.atlas.generator.tools.filesystem.FileSystemHelper;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.Resource;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
 import org.openstreetmap.atlas.utilities.scalars.Duration;
 
 /**
@@ -40,11 +40,11 @@ public class MetricFileGeneratorTest
     {
         final File tempDirectory = this.tempFolder.newFolder();
         final MetricFileGenerator generator = new MetricFileGenerator("some.metrics.txt",
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
 
         final String filename = generator.getFilename();
 
-        Assert.assertTrue(filename.matches("^some\\.metrics-\\d+\\.txt$"));
+        Assert.assertTrue(filename.matches("^some\\.metrics-\\d+-\\d+\\.txt$"));
     }
 
     @Test
@@ -52,11 +52,11 @@ public class MetricFileGeneratorTest
     {
         final File tempDirectory = this.tempFolder.newFolder();
         final MetricFileGenerator generator = new MetricFileGenerator("some.metrics.out",
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
 
         final String filename = generator.getFilename();
 
-        Assert.assertTrue(filename.matches("^some\\.metrics\\.out-\\d+\\.csv$"));
+        Assert.assertTrue(filename.matches("^some\\.metrics\\.out-\\d+-\\d+\\.csv$"));
     }
 
     @Test
@@ -64,11 +64,11 @@ public class MetricFileGeneratorTest
     {
         final File tempDirectory = this.tempFolder.newFolder();
         final MetricFileGenerator generator = new MetricFileGenerator("some-metrics-log.csv",
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
 
         final String filename = generator.getFilename();
 
-        Assert.assertTrue(filename.matches("^some-metrics-log-\\d+.csv$"));
+        Assert.assertTrue(filename.matches("^some-metrics-log-\\d+-\\d+.csv$"));
     }
 
     @Test
@@ -77,12 +77,54 @@ public class MetricFileGeneratorTest
         this.processCompleteAndValidate(100);
     }
 
+    @Test
+    public void testBudgetColumn() throws IOException
+    {
+        final File tempDirectory = this.tempFolder.newFolder();
+        final MetricFileGenerator processor = new MetricFileGenerator("some-file-name.csv",
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath(), false,
+                true);
+        processor.process(SAMPLE_EVENT);
+        processor.process(new MetricEvent("an-overrun-metric", Duration.minutes(1), null,
+                "EDGE123000001"));
+        processor.process(new ShutdownEvent());
+
+        final List<Resource> files = FileSystemHelper.resources(tempDirectory.getAbsolutePath(),
+                FILE_SYSTEM_CONFIG);
+        Assert.assertEquals(1, files.size());
+        final List<String> lines = Iterables.asList(files.get(0).lines());
+        Assert.assertEquals(3, lines.size());
+        Assert.assertEquals(MetricEvent.header(false, true), lines.get(0));
+        Assert.assertEquals("a-metric-name,60000,", lines.get(1));
+        Assert.assertEquals("an-overrun-metric,60000,EDGE123000001", lines.get(2));
+    }
+
     @Test
     public void testOneEvent() throws IOException
     {
         this.processCompleteAndValidate(1);
     }
 
+    @Test
+    public void testProfileColumns() throws IOException
+    {
+        final File tempDirectory = this.tempFolder.newFolder();
+        final MetricFileGenerator processor = new MetricFileGenerator("some-file-name.csv",
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath(), true);
+        processor.process(SAMPLE_EVENT);
+        processor.process(new ShutdownEvent());
+
+        final List<Resource> files = FileSystemHelper.resources(tempDirectory.getAbsolutePath(),
+                FILE_SYSTEM_CONFIG);
+        Assert.assertEquals(1, files.size());
+        final List<String> lines = Iterables.asList(files.get(0).lines());
+        Assert.assertEquals(2, lines.size());
+        Assert.assertEquals(MetricEvent.profileHeader(), lines.get(0));
+        Assert.assertEquals("a-metric-name,60000,,,,,,,", lines.get(1));
+        Assert.assertEquals(lines.get(0).split(",", -1).length,
+                lines.get(1).split(",", -1).length);
+    }
+
     @Test
     public void testTenEvent() throws IOException
     {
@@ -106,7 +148,7 @@ public class MetricFileGeneratorTest
         // Generate
         final File tempDirectory = this.tempFolder.newFolder();
         final MetricFileGenerator processor = new MetricFileGenerator("some-file-name.csv",
-                new SparkFileHelper(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
+                new OutputFileWriter(FILE_SYSTEM_CONFIG), tempDirectory.getAbsolutePath());
         for (int index = 0; index < eventCount; index++)
         {
             processor.process(SAMPLE_EVENT);
@@ -0,0 +1,114 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.utility.UniqueCheckFlagContainer;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.atlas.change.FeatureChange;
+import org.openstreetmap.atlas.geography.atlas.complete.CompleteEntity;
+import org.openstreetmap.atlas.geography.atlas.complete.CompleteNode;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Tests for {@link FlagKryoRegistrator}
+ *
+ * @author agent
+ */
+public class FlagKryoRegistratorTest
+{
+    private static final int BUFFER_SIZE = 4096;
+
+    @Rule
+    public CheckFlagTestRule setup = new CheckFlagTestRule();
+
+    private static Kryo kryo()
+    {
+        final Kryo kryo = new Kryo();
+        new FlagKryoRegistrator().registerClasses(kryo);
+        return kryo;
+    }
+
+    private static <T> T roundTrip(final T object, final Class<T> type)
+    {
+        final Kryo kryo = kryo();
+        return kryo.readObject(new Input(serialize(kryo, object)), type);
+    }
+
+    private static byte[] serialize(final Kryo kryo, final Object object)
+    {
+        final Output output = new Output(BUFFER_SIZE, -1);
+        kryo.writeObject(output, object);
+        return output.toBytes();
+    }
+
+    @Test
+    public void testFlagWithAllFeatures()
+    {
+        final CheckFlag flag = new CheckFlag("a-identifier");
+        flag.setChallengeName("sample-challenge");
+        flag.addInstruction("first instruction");
+        flag.addInstruction("second instruction");
+        this.setup.getAtlasWithRelations().entities().forEach(flag::addObject);
+        flag.addPoint(Location.forString("37.335310,-122.009566"));
+        flag.makeComplete();
+
+        final CheckFlag read = roundTrip(flag, CheckFlag.class);
+        Assert.assertEquals(flag, read);
+        Assert.assertEquals(flag.getUniqueIdentifiers(), read.getUniqueIdentifiers());
+        Assert.assertEquals(flag.asGeoJsonFeature(), read.asGeoJsonFeature());
+        read.getFlaggedObjects().forEach(flaggedObject -> flaggedObject.getObject()
+                .ifPresent(object -> Assert.assertTrue(object instanceof CompleteEntity)));
+    }
+
+    @Test
+    public void testFlagWithFixSuggestions()
+    {
+        final CheckFlag flag = new CheckFlag("1");
+        flag.addObject(this.setup.getAtlas().nodes().iterator().next());
+        flag.addFixSuggestion(FeatureChange
+                .add(CompleteNode.from(this.setup.getAtlas().nodes().iterator().next())));
+        flag.makeComplete();
+
+        Assert.assertEquals(flag, roundTrip(flag, CheckFlag.class));
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws IOException
+    {
+        final CheckFlag flag = new CheckFlag("a-identifier");
+        flag.addInstruction("first instruction");
+        this.setup.getAtlas().entities().forEach(flag::addObject);
+        flag.makeComplete();
+
+        final ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(javaBytes))
+        {
+            objectOutputStream.writeObject(flag);
+        }
+        Assert.assertTrue(serialize(kryo(), flag).length < javaBytes.size());
+    }
+
+    @Test
+    public void testUniqueCheckFlagContainer()
+    {
+        final CheckFlag flag = new CheckFlag("a-identifier");
+        this.setup.getAtlas().areas().forEach(flag::addObject);
+        final UniqueCheckFlagContainer container = new UniqueCheckFlagContainer("SomeCheck",
+                flag.getUniqueIdentifiers(), flag);
+
+        final UniqueCheckFlagContainer read = roundTrip(container,
+                UniqueCheckFlagContainer.class);
+        Assert.assertEquals(container, read);
+        Assert.assertEquals("SomeCheck", read.getCheckName());
+        Assert.assertEquals(container.getUniqueIdentifiers(), read.getUniqueIdentifiers());
+        Assert.assertEquals(container.getCheckFlag(), read.getCheckFlag());
+    }
+}
@@ -0,0 +1,154 @@
+package org.openstreetmap.atlas.checks.flag;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.atlas.checks.utility.FileUtility;
+import org.openstreetmap.atlas.checks.utility.FileUtility.LogOutputFileType;
+import org.openstreetmap.atlas.exception.CoreException;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.geography.Rectangle;
+
+/**
+ * Tests for {@link FlagPackWriter} and {@link FlagPackReader}
+ *
+ * @author agent
+ */
+public class FlagPackTest
+{
+    private static final Rectangle WEST = Rectangle.forLocated(
+            Location.forString("37.0,-122.0"), Location.forString("37.1,-121.9"));
+    private static final Rectangle EAST = Rectangle
+            .forLocated(Location.forString("37.0,10.0"), Location.forString("37.1,10.1"));
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    private static String flag(final String checkName, final int index)
+    {
+        return String.format("{\"type\":\"FeatureCollection\",\"properties\":"
+                + "{\"generator\":\"%s\",\"id\":\"%s\"}}", checkName, index);
+    }
+
+    @Test
+    public void testCountsWithoutReadingFlags() throws IOException
+    {
+        final File pack = this.write(Arrays.asList("CheckA", "CheckB", "CheckA"), 5);
+        try (FlagPackReader reader = new FlagPackReader(pack))
+        {
+            Assert.assertEquals(15, reader.count());
+            final Map<String, Long> expected = new HashMap<>();
+            expected.put("CheckA", 10L);
+            expected.put("CheckB", 5L);
+            Assert.assertEquals(expected, reader.countsByCheck());
+            Assert.assertEquals(2, reader.checkNames().size());
+        }
+    }
+
+    @Test
+    public void testEmptyPack() throws IOException
+    {
+        final File pack = this.write(new ArrayList<>(), 0);
+        try (FlagPackReader reader = new FlagPackReader(pack))
+        {
+            Assert.assertEquals(0, reader.count());
+            Assert.assertTrue(reader.blocks().isEmpty());
+            Assert.assertEquals(0, reader.flags().count());
+        }
+    }
+
+    @Test
+    public void testFlagsByBounds() throws IOException
+    {
+        final File pack = this.temporary.newFile("bounds" + FlagPack.EXTENSION);
+        try (FlagPackWriter writer = new FlagPackWriter(new FileOutputStream(pack)))
+        {
+            writer.add("CheckA", "USA", WEST, flag("CheckA", 1));
+            writer.add("CheckA", "USA", EAST, flag("CheckA", 2));
+            writer.add("CheckB", "ITA", EAST, flag("CheckB", 3));
+        }
+        try (FlagPackReader reader = new FlagPackReader(pack))
+        {
+            Assert.assertEquals(Arrays.asList(flag("CheckA", 2), flag("CheckB", 3)),
+                    reader.flags(EAST).collect(Collectors.toList()));
+            Assert.assertEquals(Arrays.asList(flag("CheckA", 1)),
+                    reader.flags(WEST).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testFlagsOfCheck() throws IOException
+    {
+        // Enough flags to fill several blocks
+        final File pack = this.write(Arrays.asList("CheckA", "CheckB"), 25_000);
+        try (FlagPackReader reader = new FlagPackReader(pack))
+        {
+            Assert.assertTrue(reader.blocks().size() > 2);
+            final List<String> flags = reader.flags("CheckB").collect(Collectors.toList());
+            Assert.assertEquals(25_000, flags.size());
+            Assert.assertEquals(flag("CheckB", 0), flags.get(0));
+            Assert.assertEquals(flag("CheckB", 24_999), flags.get(24_999));
+            Assert.assertEquals(0, reader.flags("CheckC").count());
+        }
+    }
+
+    @Test
+    public void testLogReader() throws IOException
+    {
+        final File pack = this.write(Arrays.asList("CheckA", "CheckB"), 3);
+        final org.openstreetmap.atlas.streaming.resource.File resource =
+                new org.openstreetmap.atlas.streaming.resource.File(pack.getPath());
+        Assert.assertEquals(LogOutputFileType.FLAG_PACK,
+                FileUtility.getOptionalLogOutputType(resource).orElse(null));
+        try (BufferedReader reader = FileUtility.getReader(resource, LogOutputFileType.FLAG_PACK))
+        {
+            Assert.assertEquals(
+                    Arrays.asList(flag("CheckA", 0), flag("CheckA", 1), flag("CheckA", 2),
+                            flag("CheckB", 0), flag("CheckB", 1), flag("CheckB", 2)),
+                    reader.lines().collect(Collectors.toList()));
+        }
+    }
+
+    @Test(expected = CoreException.class)
+    public void testNotAPack() throws IOException
+    {
+        final File file = this.temporary.newFile("not" + FlagPack.EXTENSION);
+        try (FileOutputStream output = new FileOutputStream(file))
+        {
+            output.write(flag("CheckA", 0).getBytes());
+        }
+        new FlagPackReader(file).close();
+    }
+
+    private File write(final List<String> checkNames, final int flagsPerCheck) throws IOException
+    {
+        final File pack = File.createTempFile("flags", FlagPack.EXTENSION,
+                this.temporary.getRoot());
+        final Map<String, Integer> written = new HashMap<>();
+        try (FlagPackWriter writer = new FlagPackWriter(new FileOutputStream(pack)))
+        {
+            for (final String checkName : checkNames)
+            {
+                final int start = written.getOrDefault(checkName, 0);
+                for (int index = start; index < start + flagsPerCheck; index++)
+                {
+                    writer.add(checkName, "USA", WEST, flag(checkName, index));
+                }
+                written.put(checkName, start + flagsPerCheck);
+            }
+        }
+        return pack;
+    }
+}
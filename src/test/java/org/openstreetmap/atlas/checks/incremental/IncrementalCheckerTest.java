@@ -0,0 +1,117 @@
+package org.openstreetmap.atlas.checks.incremental;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.checks.base.checks.BaseTestCheck;
+import org.openstreetmap.atlas.checks.configuration.ConfigurationResolver;
+import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.streaming.resource.StringResource;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Tests for {@link IncrementalChecker}
+ *
+ * @author agent
+ */
+public class IncrementalCheckerTest
+{
+    // Retags the first edge of the road, and deletes the second bench
+    private static final String CHANGE = "<osmChange version=\"0.6\"><modify>"
+            + "<way id=\"10\" version=\"2\"><nd ref=\"1\"/><nd ref=\"2\"/>"
+            + "<tag k=\"highway\" v=\"residential\"/></way></modify>"
+            + "<delete><node id=\"21\" version=\"2\"/></delete></osmChange>";
+    private static final Set<String> AFFECTED = new HashSet<>(
+            Arrays.asList("Edge10000000", "Node1000000", "Node2000000", "Edge11000000"));
+
+    @Rule
+    public IncrementalCheckerTestRule setup = new IncrementalCheckerTestRule();
+
+    private final BaseTestCheck check = new BaseTestCheck(
+            ConfigurationResolver.emptyConfiguration());
+
+    @Test
+    public void testAffectedEntities()
+    {
+        final OsmChange change = OsmChange.read(new StringResource(CHANGE));
+        Assert.assertEquals(AFFECTED,
+                new IncrementalChecker(Collections.singletonList(this.check))
+                        .affectedEntities(change, this.setup.getAtlas()).stream()
+                        .map(IncrementalChecker::uniqueIdentifier).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testOtherChecksAreRetained()
+    {
+        final OsmChange change = OsmChange.read(new StringResource(CHANGE));
+        final List<String> previousFlags = this.flags(this.setup.getPreviousAtlas());
+        final IncrementalChecker.Update update = new IncrementalChecker(Collections.emptyList())
+                .update(change, this.setup.getAtlas(),
+                        Optional.of(this.setup.getPreviousAtlas()), previousFlags);
+        Assert.assertEquals(previousFlags, update.getRetained());
+        Assert.assertTrue(update.getRetired().isEmpty());
+        Assert.assertTrue(update.getAdded().isEmpty());
+    }
+
+    @Test
+    public void testUpdate()
+    {
+        final OsmChange change = OsmChange.read(new StringResource(CHANGE));
+        final IncrementalChecker.Update update = new IncrementalChecker(
+                Collections.singletonList(this.check)).update(change, this.setup.getAtlas(),
+                        Optional.of(this.setup.getPreviousAtlas()),
+                        this.flags(this.setup.getPreviousAtlas()));
+
+        final Set<String> retired = new HashSet<>(AFFECTED);
+        retired.add("Point21000000");
+        Assert.assertEquals(retired, this.identifiers(update.getRetired()));
+        Assert.assertEquals(
+                new HashSet<>(Arrays.asList("Node3000000", "Node4000000", "Edge12000000",
+                        "Point20000000")),
+                this.identifiers(update.getRetained()));
+        Assert.assertEquals(AFFECTED,
+                this.identifiers(update.getAdded().stream().map(CheckFlagEvent::toString)
+                        .collect(Collectors.toList())));
+    }
+
+    @Test
+    public void testUpdateWithoutPreviousAtlas()
+    {
+        final OsmChange change = OsmChange.read(new StringResource(CHANGE));
+        final IncrementalChecker.Update update = new IncrementalChecker(
+                Collections.singletonList(this.check)).update(change, this.setup.getAtlas(),
+                        Optional.empty(), this.flags(this.setup.getPreviousAtlas()));
+
+        // Without the atlas from before the change, the flag of the deleted bench is left over
+        Assert.assertEquals(AFFECTED, this.identifiers(update.getRetired()));
+        Assert.assertTrue(this.identifiers(update.getRetained()).contains("Point21000000"));
+    }
+
+    private List<String> flags(final Atlas atlas)
+    {
+        return StreamSupport.stream(atlas.entities().spliterator(), false)
+                .map(this.check::check).filter(Optional::isPresent)
+                .map(flag -> new CheckFlagEvent(this.check.getCheckName(), flag.get()).toString())
+                .collect(Collectors.toList());
+    }
+
+    private Set<String> identifiers(final List<String> lines)
+    {
+        return lines.stream()
+                .map(line -> new JsonParser().parse(line).getAsJsonObject()
+                        .getAsJsonObject("properties").getAsJsonArray(CheckFlagEvent.IDENTIFIERS)
+                        .get(0).getAsString())
+                .collect(Collectors.toSet());
+    }
+}
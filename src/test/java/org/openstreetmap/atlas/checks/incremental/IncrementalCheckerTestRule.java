@@ -0,0 +1,72 @@
+package org.openstreetmap.atlas.checks.incremental;
+
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.utilities.testing.CoreTestRule;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Edge;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Loc;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Node;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Point;
+
+/**
+ * {@link IncrementalCheckerTest} data provider. A road of three edges, and a bench. The atlas from
+ * before the change has a second bench.
+ *
+ * @author agent
+ */
+public class IncrementalCheckerTestRule extends CoreTestRule
+{
+    private static final String ONE = "40.9608783, -5.6421932";
+    private static final String TWO = "40.9609609, -5.6424269";
+    private static final String THREE = "40.9609826, -5.6425880";
+    private static final String FOUR = "40.9610646, -5.6425413";
+    private static final String BENCH = "40.9620000, -5.6400000";
+    private static final String DELETED_BENCH = "40.9630000, -5.6410000";
+
+    @TestAtlas(nodes = { @Node(id = "1000000", coordinates = @Loc(value = ONE)),
+            @Node(id = "2000000", coordinates = @Loc(value = TWO)),
+            @Node(id = "3000000", coordinates = @Loc(value = THREE)),
+            @Node(id = "4000000", coordinates = @Loc(value = FOUR)) },
+
+            edges = {
+                    @Edge(id = "10000000", coordinates = { @Loc(value = ONE),
+                            @Loc(value = TWO) }, tags = "highway=residential"),
+                    @Edge(id = "11000000", coordinates = { @Loc(value = TWO),
+                            @Loc(value = THREE) }, tags = "highway=residential"),
+                    @Edge(id = "12000000", coordinates = { @Loc(value = THREE),
+                            @Loc(value = FOUR) }, tags = "highway=residential") },
+
+            points = { @Point(id = "20000000", coordinates = @Loc(value = BENCH), tags = {
+                    "amenity=bench" }) })
+    private Atlas atlas;
+
+    @TestAtlas(nodes = { @Node(id = "1000000", coordinates = @Loc(value = ONE)),
+            @Node(id = "2000000", coordinates = @Loc(value = TWO)),
+            @Node(id = "3000000", coordinates = @Loc(value = THREE)),
+            @Node(id = "4000000", coordinates = @Loc(value = FOUR)) },
+
+            edges = {
+                    @Edge(id = "10000000", coordinates = { @Loc(value = ONE),
+                            @Loc(value = TWO) }, tags = "highway=track"),
+                    @Edge(id = "11000000", coordinates = { @Loc(value = TWO),
+                            @Loc(value = THREE) }, tags = "highway=residential"),
+                    @Edge(id = "12000000", coordinates = { @Loc(value = THREE),
+                            @Loc(value = FOUR) }, tags = "highway=residential") },
+
+            points = {
+                    @Point(id = "20000000", coordinates = @Loc(value = BENCH), tags = {
+                            "amenity=bench" }),
+                    @Point(id = "21000000", coordinates = @Loc(value = DELETED_BENCH), tags = {
+                            "amenity=bench" }) })
+    private Atlas previousAtlas;
+
+    public Atlas getAtlas()
+    {
+        return this.atlas;
+    }
+
+    public Atlas getPreviousAtlas()
+    {
+        return this.previousAtlas;
+    }
+}
@@ -0,0 +1,51 @@
+package org.openstreetmap.atlas.checks.incremental;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openstreetmap.atlas.geography.Location;
+import org.openstreetmap.atlas.streaming.resource.StringResource;
+
+/**
+ * Tests for {@link OsmChange}
+ *
+ * @author agent
+ */
+public class OsmChangeTest
+{
+    private static final String CHANGE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<osmChange version=\"0.6\">"
+            + "<create><node id=\"1\" version=\"1\" lat=\"1.5\" lon=\"2.5\">"
+            + "<tag k=\"amenity\" v=\"bench\"/></node></create>"
+            + "<modify><node id=\"2\" version=\"2\" lat=\"3.5\" lon=\"4.5\"/>"
+            + "<way id=\"10\" version=\"3\"><nd ref=\"2\"/><nd ref=\"3\"/></way></modify>"
+            + "<delete><node id=\"3\" version=\"4\"/>"
+            + "<relation id=\"20\" version=\"5\"><member type=\"way\" ref=\"11\" role=\"\"/>"
+            + "</relation></delete></osmChange>";
+
+    @Test
+    public void testEmptyChange()
+    {
+        final OsmChange change = OsmChange
+                .read(new StringResource("<osmChange version=\"0.6\"></osmChange>"));
+        Assert.assertTrue(change.isEmpty());
+        Assert.assertTrue(change.getLocations().isEmpty());
+    }
+
+    @Test
+    public void testRead()
+    {
+        final OsmChange change = OsmChange.read(new StringResource(CHANGE));
+        Assert.assertFalse(change.isEmpty());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), change.getNodes());
+        Assert.assertEquals(Collections.singleton(10L), change.getWays());
+        Assert.assertEquals(Collections.singleton(20L), change.getRelations());
+        // The members of ways and relations are not touched, and deleted nodes have no location
+        Assert.assertEquals(
+                Arrays.asList(Location.forString("1.5,2.5"), Location.forString("3.5,4.5")),
+                change.getLocations());
+    }
+}
@@ -15,10 +15,10 @@ import org.junit.Test;
 import org.openstreetmap.atlas.checks.event.CheckFlagEvent;
 import org.openstreetmap.atlas.checks.event.CheckFlagFileProcessor;
 import org.openstreetmap.atlas.checks.event.FileProcessor;
+import org.openstreetmap.atlas.checks.event.OutputFileWriter;
 import org.openstreetmap.atlas.checks.maproulette.data.Challenge;
 import org.openstreetmap.atlas.checks.maproulette.data.Project;
 import org.openstreetmap.atlas.event.ShutdownEvent;
-import org.openstreetmap.atlas.generator.tools.spark.utilities.SparkFileHelper;
 import org.openstreetmap.atlas.streaming.resource.File;
 import org.openstreetmap.atlas.utilities.runtime.CommandMap;
 
@@ -147,7 +147,7 @@ public class MapRouletteUploadCommandTest
         {
             // Create an unzipped file
             final FileProcessor<CheckFlagEvent> unzippedProcessor = new CheckFlagFileProcessor(
-                    new SparkFileHelper(Collections.emptyMap()),
+                    new OutputFileWriter(Collections.emptyMap()),
                     FOLDER.child("unzipped.log").toString()).withCompression(false);
             unzippedProcessor.process(this.setup.getOneBasicFlag());
             unzippedProcessor.process(this.setup.getTwoCountryFlag());
@@ -158,7 +158,7 @@ public class MapRouletteUploadCommandTest
 
             // Create a zipped file
             final FileProcessor<CheckFlagEvent> zippedProcessor = new CheckFlagFileProcessor(
-                    new SparkFileHelper(Collections.emptyMap()),
+                    new OutputFileWriter(Collections.emptyMap()),
                     FOLDER.child("zipped.log.gz").toString()).withCompression(true);
             zippedProcessor.process(this.setup.getAnotherBasicFlag());
             zippedProcessor.process(new ShutdownEvent());
@@ -3,6 +3,7 @@ package org.openstreetmap.atlas.checks.utility;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -49,7 +50,23 @@ public class CompressionUtilitiesTest
                         Base64.getDecoder().decode("H4sICDcFNF8AA3RoaXMuemlwAAvwZmbhYgCBQA+e"
                                 + "wKztm1P5gWwQZmGQYSjJyCwODeFkYO5iMYlnZzWJL63gZmBk+coIkgaCkN"
                                 + "Tiksy8dIXikqLUxFyuAG9GJjlmXMZJgMWBWhmWNIJYEMNZIYajGRzgzcoG"
-                                + "Uc3I4AWkfcF6AYUTZeOtAAAA") } });
+                                + "Uc3I4AWkfcF6AYUTZeOtAAAA") },
+                { "Parallel GZipped", parallelGzip(TESTING_STREAM.getBytes()) } });
+    }
+
+    private static byte[] parallelGzip(final byte[] bytes)
+    {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        // Small blocks, for several gzip members
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, 4))
+        {
+            gzip.write(bytes);
+        }
+        catch (final IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        return compressed.toByteArray();
     }
 
     /**
@@ -0,0 +1,124 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ConcurrentLongPairSet}
+ *
+ * @author agent
+ */
+public class ConcurrentLongPairSetTest
+{
+    private static final int PAIRS = 100_000;
+
+    @Test
+    public void testAddAndContains()
+    {
+        this.addAndContains(new ConcurrentLongPairSet());
+    }
+
+    @Test
+    public void testAddAndContainsOffHeap()
+    {
+        final ConcurrentLongPairSet set = new ConcurrentLongPairSet(true);
+        Assert.assertTrue(set.isOffHeap());
+        this.addAndContains(set);
+    }
+
+    @Test
+    public void testClear()
+    {
+        final ConcurrentLongPairSet set = new ConcurrentLongPairSet();
+        LongStream.range(-10, 10).forEach(value -> set.add(value, value + 1));
+        Assert.assertEquals(20, set.size());
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(0, 1));
+        Assert.assertFalse(set.contains(5, 6));
+    }
+
+    @Test
+    public void testConcurrentAdds()
+    {
+        final ConcurrentLongPairSet set = new ConcurrentLongPairSet();
+        // Each pair is added in both orders, from any thread
+        LongStream.range(0, 2L * PAIRS).parallel().forEach(index ->
+        {
+            final long value = index / 2;
+            if (index % 2 == 0)
+            {
+                set.add(value, -value);
+            }
+            else
+            {
+                set.add(-value, value);
+            }
+        });
+
+        Assert.assertEquals(PAIRS, set.size());
+        Assert.assertTrue(
+                LongStream.range(0, PAIRS).parallel().allMatch(value -> set.contains(value, -value)));
+        Assert.assertFalse(set.contains(PAIRS, -PAIRS));
+    }
+
+    @Test
+    public void testUnorderedPairs()
+    {
+        final ConcurrentLongPairSet set = new ConcurrentLongPairSet();
+        Assert.assertTrue(set.add(1, 2));
+        Assert.assertFalse(set.add(2, 1));
+        Assert.assertTrue(set.contains(2, 1));
+        Assert.assertFalse(set.contains(1, 3));
+        Assert.assertFalse(set.contains(1, 1));
+        Assert.assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testZeroAndExtremes()
+    {
+        final ConcurrentLongPairSet set = new ConcurrentLongPairSet();
+        Assert.assertFalse(set.contains(0, 0));
+        Assert.assertTrue(set.add(0, 0));
+        Assert.assertFalse(set.add(0, 0));
+        Assert.assertTrue(set.add(0, 1));
+        Assert.assertTrue(set.add(Long.MIN_VALUE, Long.MAX_VALUE));
+        Assert.assertTrue(set.add(-1, 0));
+
+        Assert.assertTrue(set.contains(0, 0));
+        Assert.assertTrue(set.contains(1, 0));
+        Assert.assertTrue(set.contains(Long.MAX_VALUE, Long.MIN_VALUE));
+        Assert.assertTrue(set.contains(0, -1));
+        Assert.assertFalse(set.contains(0, 2));
+        Assert.assertEquals(4, set.size());
+    }
+
+    private void addAndContains(final ConcurrentLongPairSet set)
+    {
+        final Random random = new Random(0);
+        final Set<String> expected = new HashSet<>();
+        for (int index = 0; index < PAIRS; index++)
+        {
+            final long first = random.nextLong();
+            final long second = random.nextLong();
+            Assert.assertEquals(
+                    expected.add(Math.min(first, second) + "," + Math.max(first, second)),
+                    set.add(first, second));
+        }
+
+        Assert.assertEquals(expected.size(), set.size());
+        expected.forEach(pair ->
+        {
+            final String[] values = pair.split(",");
+            Assert.assertTrue(
+                    set.contains(Long.parseLong(values[1]), Long.parseLong(values[0])));
+        });
+        Assert.assertFalse(set.contains(random.nextLong(), random.nextLong()));
+    }
+}
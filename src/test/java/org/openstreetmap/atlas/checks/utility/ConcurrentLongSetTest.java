@@ -0,0 +1,92 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ConcurrentLongSet}
+ *
+ * @author agent
+ */
+public class ConcurrentLongSetTest
+{
+    private static final int VALUES = 100_000;
+
+    @Test
+    public void testAddAndContains()
+    {
+        this.addAndContains(new ConcurrentLongSet());
+    }
+
+    @Test
+    public void testAddAndContainsOffHeap()
+    {
+        final ConcurrentLongSet set = new ConcurrentLongSet(true);
+        Assert.assertTrue(set.isOffHeap());
+        this.addAndContains(set);
+    }
+
+    @Test
+    public void testClear()
+    {
+        final ConcurrentLongSet set = new ConcurrentLongSet();
+        LongStream.range(-10, 10).forEach(set::add);
+        Assert.assertEquals(20, set.size());
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.contains(5));
+    }
+
+    @Test
+    public void testConcurrentAdds()
+    {
+        final ConcurrentLongSet set = new ConcurrentLongSet();
+        // Each value is added twice, from any thread
+        LongStream.range(0, 2L * VALUES).parallel().forEach(index -> set.add(index / 2));
+
+        Assert.assertEquals(VALUES, set.size());
+        Assert.assertTrue(LongStream.range(0, VALUES).parallel().allMatch(set::contains));
+        Assert.assertFalse(set.contains(VALUES));
+    }
+
+    @Test
+    public void testZeroAndExtremes()
+    {
+        final ConcurrentLongSet set = new ConcurrentLongSet();
+        Assert.assertFalse(set.contains(0));
+        Assert.assertTrue(set.add(0));
+        Assert.assertFalse(set.add(0));
+        Assert.assertTrue(set.add(Long.MIN_VALUE));
+        Assert.assertTrue(set.add(Long.MAX_VALUE));
+        Assert.assertTrue(set.add(-1));
+
+        Assert.assertTrue(set.contains(0));
+        Assert.assertTrue(set.contains(Long.MIN_VALUE));
+        Assert.assertTrue(set.contains(Long.MAX_VALUE));
+        Assert.assertTrue(set.contains(-1));
+        Assert.assertFalse(set.contains(1));
+        Assert.assertEquals(4, set.size());
+    }
+
+    private void addAndContains(final ConcurrentLongSet set)
+    {
+        final Random random = new Random(0);
+        final Set<Long> expected = new HashSet<>();
+        for (int index = 0; index < VALUES; index++)
+        {
+            final long value = random.nextLong();
+            Assert.assertEquals(expected.add(value), set.add(value));
+        }
+
+        Assert.assertEquals(expected.size(), set.size());
+        expected.forEach(value -> Assert.assertTrue(set.contains(value)));
+        Assert.assertFalse(set.contains(random.nextLong()));
+    }
+}
@@ -0,0 +1,83 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.Area;
+
+/**
+ * Tests for {@link GeometryCache}
+ *
+ * @author agent
+ */
+public class GeometryCacheTest
+{
+    @Rule
+    public GeometryCacheTestRule setup = new GeometryCacheTestRule();
+
+    @Test
+    public void testEviction()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        // Room for one of the areas only
+        final GeometryCache cache = new GeometryCache(4);
+        cache.polygon(atlas.area(1000000L));
+        cache.polygon(atlas.area(2000000L));
+        cache.polygon(atlas.area(1000000L));
+
+        assertTrue(cache.size() <= 1);
+        assertTrue(cache.evictionCount() > 0);
+        assertEquals(3, cache.missCount());
+    }
+
+    @Test
+    public void testForAtlas()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final GeometryCache cache = GeometryCache.forAtlas(atlas);
+        assertSame(cache, GeometryCache.forAtlas(atlas));
+
+        assertSame(cache, GeometryCache.release(atlas).orElse(null));
+        assertFalse(GeometryCache.release(atlas).isPresent());
+    }
+
+    @Test
+    public void testGeometry() throws Exception
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final GeometryCache cache = new GeometryCache(GeometryCache.MAXIMUM_POINTS);
+
+        final Geometry area = cache.geometry(atlas.area(1000000L)).orElse(null);
+        final Geometry line = cache.geometry(atlas.line(3000000L)).orElse(null);
+        assertEquals(new WKTReader().read(atlas.area(1000000L).toWkt()), area);
+        assertEquals(new WKTReader().read(atlas.line(3000000L).toWkt()), line);
+        assertSame(area, cache.geometry(atlas.area(1000000L)).orElse(null));
+
+        assertTrue(cache.preparedGeometry(atlas.area(1000000L)).orElse(null).intersects(line));
+        assertFalse(cache.preparedGeometry(atlas.area(1000000L)).orElse(null)
+                .contains(line));
+    }
+
+    @Test
+    public void testPolygonAndSurface()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final GeometryCache cache = new GeometryCache(GeometryCache.MAXIMUM_POINTS);
+        final Area area = atlas.area(1000000L);
+
+        assertEquals(area.asPolygon(), cache.polygon(area));
+        assertSame(cache.polygon(area), cache.polygon(area));
+        assertEquals(area.asPolygon().surface(), cache.surface(area));
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.missCount());
+        assertEquals(3, cache.hitCount());
+    }
+}
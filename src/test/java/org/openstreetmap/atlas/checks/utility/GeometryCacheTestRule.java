@@ -0,0 +1,40 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.utilities.testing.CoreTestRule;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Area;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Line;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Loc;
+
+/**
+ * Test Rule for {@link GeometryCacheTest}
+ *
+ * @author agent
+ */
+public class GeometryCacheTestRule extends CoreTestRule
+{
+    private static final String ONE = "37.3302, -122.0302";
+    private static final String TWO = "37.3302, -122.0290";
+    private static final String THREE = "37.3290, -122.0290";
+    private static final String FOUR = "37.3290, -122.0302";
+    private static final String FIVE = "37.3296, -122.0310";
+    private static final String SIX = "37.3296, -122.0280";
+
+    @TestAtlas(
+            // areas
+            areas = {
+                    @Area(id = "1000000", coordinates = { @Loc(value = ONE), @Loc(value = TWO),
+                            @Loc(value = THREE), @Loc(value = FOUR) }, tags = { "building=yes" }),
+                    @Area(id = "2000000", coordinates = { @Loc(value = ONE), @Loc(value = TWO),
+                            @Loc(value = THREE) }, tags = { "building=yes" }) },
+            // lines
+            lines = { @Line(id = "3000000", coordinates = { @Loc(value = FIVE),
+                    @Loc(value = SIX) }) })
+    private Atlas atlas;
+
+    public Atlas getAtlas()
+    {
+        return this.atlas;
+    }
+}
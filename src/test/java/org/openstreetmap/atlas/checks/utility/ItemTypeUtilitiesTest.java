@@ -0,0 +1,80 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.AtlasEntity;
+import org.openstreetmap.atlas.geography.atlas.items.ItemType;
+import org.openstreetmap.atlas.utilities.collections.Iterables;
+
+/**
+ * Tests for {@link ItemTypeUtilities}
+ *
+ * @author agent
+ */
+public class ItemTypeUtilitiesTest
+{
+    @Rule
+    public ItemTypeUtilitiesTestRule setup = new ItemTypeUtilitiesTestRule();
+
+    @Test
+    public void testAllTypes()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final Set<ItemType> allTypes = ItemTypeUtilities.allItemTypes();
+        Assert.assertEquals(EnumSet.allOf(ItemType.class), allTypes);
+
+        // The set is a copy
+        allTypes.remove(ItemType.NODE);
+        Assert.assertEquals(EnumSet.allOf(ItemType.class), ItemTypeUtilities.allItemTypes());
+
+        Assert.assertEquals(Iterables.size(atlas.entities()), Iterables
+                .size(ItemTypeUtilities.entitiesOfTypes(atlas, ItemTypeUtilities.allItemTypes())));
+    }
+
+    @Test
+    public void testEntitiesOfTypes()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        for (final ItemType itemType : ItemType.values())
+        {
+            final List<AtlasEntity> entities = Iterables
+                    .asList(ItemTypeUtilities.entitiesOfTypes(atlas, EnumSet.of(itemType)));
+            Assert.assertFalse(itemType.toString(), entities.isEmpty());
+            Assert.assertTrue(itemType.toString(),
+                    entities.stream().allMatch(entity -> entity.getType() == itemType));
+            Assert.assertEquals(itemType.toString(),
+                    Iterables.asList(atlas.entities()).stream()
+                            .filter(entity -> entity.getType() == itemType).count(),
+                    entities.size());
+        }
+
+        final Set<ItemType> linearTypes = EnumSet.of(ItemType.EDGE, ItemType.LINE);
+        Assert.assertEquals(EnumSet.of(ItemType.EDGE, ItemType.LINE),
+                Iterables.asList(ItemTypeUtilities.entitiesOfTypes(atlas, linearTypes)).stream()
+                        .map(AtlasEntity::getType).collect(Collectors.toSet()));
+        Assert.assertEquals(0, Iterables
+                .size(ItemTypeUtilities.entitiesOfTypes(atlas, EnumSet.noneOf(ItemType.class))));
+    }
+
+    @Test
+    public void testIsOfTypes()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final Set<ItemType> linearTypes = EnumSet.of(ItemType.EDGE, ItemType.LINE);
+        Assert.assertTrue(ItemTypeUtilities.isOfTypes(atlas.edge(12L), linearTypes));
+        Assert.assertTrue(ItemTypeUtilities.isOfTypes(atlas.line(34L), linearTypes));
+        Assert.assertFalse(ItemTypeUtilities.isOfTypes(atlas.node(1L), linearTypes));
+        Assert.assertFalse(ItemTypeUtilities.isOfTypes(atlas.relation(1234L), linearTypes));
+        Assert.assertTrue(ItemTypeUtilities.isOfTypes(atlas.relation(1234L),
+                ItemTypeUtilities.allItemTypes()));
+        Assert.assertFalse(
+                ItemTypeUtilities.isOfTypes(atlas.area(123L), EnumSet.noneOf(ItemType.class)));
+    }
+}
@@ -0,0 +1,54 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.utilities.testing.CoreTestRule;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Area;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Edge;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Line;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Loc;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Node;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Point;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Relation;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Relation.Member;
+
+/**
+ * {@link ItemTypeUtilitiesTest} data, with entities of all types
+ *
+ * @author agent
+ */
+public class ItemTypeUtilitiesTestRule extends CoreTestRule
+{
+    private static final String TEST_1 = "31.335310,-121.009566";
+    private static final String TEST_2 = "32.331417,-122.030487";
+    private static final String TEST_3 = "33.325440,-123.033948";
+    private static final String TEST_4 = "34.332451,-124.028932";
+
+    @TestAtlas(
+            // nodes
+            nodes = { @Node(id = "1", coordinates = @Loc(value = TEST_1)),
+                    @Node(id = "2", coordinates = @Loc(value = TEST_2)) },
+            // points
+            points = { @Point(id = "3", coordinates = @Loc(value = TEST_3)),
+                    @Point(id = "4", coordinates = @Loc(value = TEST_4)) },
+            // edges
+            edges = { @Edge(id = "12", coordinates = { @Loc(value = TEST_1),
+                    @Loc(value = TEST_2) }, tags = { "highway=primary" }) },
+            // lines
+            lines = { @Line(id = "34", coordinates = { @Loc(value = TEST_3),
+                    @Loc(value = TEST_4) }, tags = { "waterway=stream" }) },
+            // areas
+            areas = { @Area(id = "123", coordinates = { @Loc(value = TEST_1),
+                    @Loc(value = TEST_2), @Loc(value = TEST_3) }, tags = { "building=yes" }) },
+            // relations
+            relations = { @Relation(id = "1234", members = {
+                    @Member(id = "12", type = "edge", role = "outer"),
+                    @Member(id = "3", type = "point", role = "label") }, tags = {
+                            "type=route" }) })
+    private Atlas atlas;
+
+    public Atlas getAtlas()
+    {
+        return this.atlas;
+    }
+}
@@ -0,0 +1,112 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelGzipOutputStream}
+ *
+ * @author agent
+ */
+public class ParallelGzipOutputStreamTest
+{
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private static int countMembers(final byte[] compressed)
+    {
+        int members = 0;
+        for (int index = 0; index + 1 < compressed.length; index++)
+        {
+            // Every member starts with the gzip magic number and the deflate method
+            if ((compressed[index] & 0xff) == (GZIP_MAGIC & 0xff)
+                    && (compressed[index + 1] & 0xff) == GZIP_MAGIC >> 8
+                    && index + 2 < compressed.length && compressed[index + 2] == 8)
+            {
+                members++;
+            }
+        }
+        return members;
+    }
+
+    private static byte[] gunzip(final byte[] compressed) throws IOException
+    {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed)))
+        {
+            return input.readAllBytes();
+        }
+    }
+
+    private static byte[] lines(final int count)
+    {
+        final StringBuilder lines = new StringBuilder();
+        for (int index = 0; index < count; index++)
+        {
+            lines.append("{\"type\":\"FeatureCollection\",\"id\":").append(index).append("}\n");
+        }
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException
+    {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed).close();
+        Assert.assertArrayEquals(new byte[0], gunzip(compressed.toByteArray()));
+    }
+
+    @Test
+    public void testMultipleMembers() throws IOException
+    {
+        final byte[] data = lines(1_000);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, 1024))
+        {
+            gzip.write(data);
+        }
+        final byte[] bytes = compressed.toByteArray();
+        Assert.assertTrue(countMembers(bytes) >= (data.length + 1023) / 1024);
+        Assert.assertArrayEquals(data, gunzip(bytes));
+    }
+
+    @Test
+    public void testWritesInOrder() throws IOException
+    {
+        // Enough blocks to wait for the oldest ones to be written
+        final byte[] data = lines(200_000);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed))
+        {
+            // Uneven writes, across block boundaries
+            int offset = 0;
+            int length = 1;
+            while (offset < data.length)
+            {
+                final int written = Math.min(length, data.length - offset);
+                gzip.write(data, offset, written);
+                offset += written;
+                length = length * 3 % 100_003;
+            }
+            gzip.write('\n');
+        }
+        final byte[] expected = new byte[data.length + 1];
+        System.arraycopy(data, 0, expected, 0, data.length);
+        expected[data.length] = '\n';
+        Assert.assertArrayEquals(expected, gunzip(compressed.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException
+    {
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(
+                new ByteArrayOutputStream());
+        gzip.close();
+        gzip.write(1);
+    }
+}
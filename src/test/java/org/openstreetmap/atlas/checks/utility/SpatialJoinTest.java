@@ -0,0 +1,65 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.geography.atlas.items.Area;
+import org.openstreetmap.atlas.geography.atlas.items.Line;
+import org.openstreetmap.atlas.utilities.tuples.Tuple;
+
+/**
+ * Tests for {@link SpatialJoin}
+ *
+ * @author agent
+ */
+public class SpatialJoinTest
+{
+    @Rule
+    public SpatialJoinTestRule setup = new SpatialJoinTestRule();
+
+    @Test
+    public void testJoin()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final List<Tuple<Line, Area>> pairs = SpatialJoin.join(atlas.lines(), atlas.areas(),
+                PreparedGeometry::intersects);
+
+        assertEquals(1, pairs.size());
+        assertEquals(4000000L, pairs.get(0).getFirst().getIdentifier());
+        assertEquals(1000000L, pairs.get(0).getSecond().getIdentifier());
+    }
+
+    @Test
+    public void testNeighbours()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final Map<Long, List<Long>> neighbours = SpatialJoin
+                .neighbours(SpatialJoin.selfJoin(atlas.areas(), PreparedGeometry::intersects));
+
+        assertEquals(Collections.singletonList(2000000L), neighbours.get(1000000L));
+        assertEquals(Collections.singletonList(1000000L), neighbours.get(2000000L));
+        assertFalse(neighbours.containsKey(3000000L));
+    }
+
+    @Test
+    public void testSelfJoin()
+    {
+        final Atlas atlas = this.setup.getAtlas();
+        final List<Tuple<Area, Area>> pairs = SpatialJoin.selfJoin(atlas.areas(),
+                PreparedGeometry::intersects);
+
+        // Each unordered pair once, lowest identifier first
+        assertEquals(1, pairs.size());
+        assertEquals(Arrays.asList(1000000L, 2000000L), Arrays.asList(
+                pairs.get(0).getFirst().getIdentifier(), pairs.get(0).getSecond().getIdentifier()));
+    }
+}
@@ -0,0 +1,51 @@
+package org.openstreetmap.atlas.checks.utility;
+
+import org.openstreetmap.atlas.geography.atlas.Atlas;
+import org.openstreetmap.atlas.utilities.testing.CoreTestRule;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Area;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Line;
+import org.openstreetmap.atlas.utilities.testing.TestAtlas.Loc;
+
+/**
+ * Test Rule for {@link SpatialJoinTest}
+ *
+ * @author agent
+ */
+public class SpatialJoinTestRule extends CoreTestRule
+{
+    private static final String ONE = "37.3302, -122.0302";
+    private static final String TWO = "37.3302, -122.0290";
+    private static final String THREE = "37.3290, -122.0290";
+    private static final String FOUR = "37.3290, -122.0302";
+    private static final String FIVE = "37.3296, -122.0296";
+    private static final String SIX = "37.3296, -122.0284";
+    private static final String SEVEN = "37.3284, -122.0284";
+    private static final String EIGHT = "37.3284, -122.0296";
+    private static final String NINE = "37.3250, -122.0250";
+    private static final String TEN = "37.3250, -122.0240";
+    private static final String ELEVEN = "37.3240, -122.0240";
+    private static final String TWELVE = "37.3240, -122.0250";
+    private static final String THIRTEEN = "37.3299, -122.0310";
+    private static final String FOURTEEN = "37.3299, -122.0298";
+
+    @TestAtlas(
+            // areas
+            areas = {
+                    @Area(id = "1000000", coordinates = { @Loc(value = ONE), @Loc(value = TWO),
+                            @Loc(value = THREE), @Loc(value = FOUR) }, tags = { "building=yes" }),
+                    @Area(id = "2000000", coordinates = { @Loc(value = FIVE), @Loc(value = SIX),
+                            @Loc(value = SEVEN), @Loc(value = EIGHT) }, tags = { "building=yes" }),
+                    @Area(id = "3000000", coordinates = { @Loc(value = NINE), @Loc(value = TEN),
+                            @Loc(value = ELEVEN),
+                            @Loc(value = TWELVE) }, tags = { "building=yes" }) },
+            // lines
+            lines = { @Line(id = "4000000", coordinates = { @Loc(value = THIRTEEN),
+                    @Loc(value = FOURTEEN) }) })
+    private Atlas atlas;
+
+    public Atlas getAtlas()
+    {
+        return this.atlas;
+    }
+}
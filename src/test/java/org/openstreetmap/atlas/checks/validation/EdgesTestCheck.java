@@ -32,6 +32,12 @@ public class EdgesTestCheck extends BaseCheck<Long>
         return Optional.of(this.createFlag(object, this.getFallbackInstructions().get(0)));
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     @Override
     public boolean validCheckForObject(final AtlasObject object)
     {